@@ -0,0 +1,164 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.archive;
+
+import org.activiti.cloud.runtime.ProjectFixtures;
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.activiti.engine.HistoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка запросов к истории задач открытых проектов рядом с закрытыми:
+ * archived=false - история закрытых проектов остаётся в ACT_HI_*, archived=true - перенесена в архив.
+ * archiveRun - один проход архивирования по closed свежезакрытым проектам.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=HistoryArchiveBenchmark
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class HistoryArchiveBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class EngineState extends RuntimeBundleState {
+
+        @Param({"200"})
+        public int closed;
+
+        @Param({"20"})
+        public int open;
+
+        /**
+         * Проходов цикла файла на проект: каждый добавляет строки в ACT_HI_*.
+         */
+        @Param({"20"})
+        public int loops;
+
+        @Param({"false", "true"})
+        public boolean archived;
+
+        private HistoryService historyService;
+
+        private HistoryArchiveService historyArchiveService;
+
+        private final List<String> openProjects = new ArrayList<>();
+
+        private int projects;
+
+        @Override
+        protected void configure(List<String> properties) {
+            properties.add("spring.activiti.history-level=full");
+            properties.add("spring.activiti.db-history-used=true");
+            properties.add("runtimebundle.archive.min-age=0s");
+            properties.add("runtimebundle.archive.pause=0s");
+            properties.add("runtimebundle.archive.max-projects-per-run=100000");
+        }
+
+        @Setup(Level.Trial)
+        public void seed() {
+            historyService = getBean(HistoryService.class);
+            historyArchiveService = getBean(HistoryArchiveService.class);
+            logInAs("bob");
+            for (int i = 0; i < open; i++) {
+                openProjects.add(project(false));
+            }
+            closeProjects();
+            if (archived) {
+                historyArchiveService.runOnce();
+            }
+        }
+
+        void closeProjects() {
+            for (int i = 0; i < closed; i++) {
+                project(true);
+            }
+        }
+
+        /**
+         * Проект с файлом, прошедшим loops проходов цикла; закрытый проект закрывается вместе с файлом.
+         */
+        private String project(boolean close) {
+            ProjectFixtures fixtures = getFixtures();
+            String name = "Project " + projects++;
+            String project = fixtures.startProject(name).getId();
+            String file = fixtures.createFile(project, "File of " + name, false);
+            for (int loop = 0; loop < loops; loop++) {
+                fixtures.complete(file, Collections.emptyMap());
+            }
+            if (close) {
+                fixtures.complete(file, Collections.singletonMap("close_file", true));
+                fixtures.closeProject(project, "Last File of " + name);
+            }
+            return project;
+        }
+    }
+
+    /**
+     * Свежая партия закрытых проектов перед каждым проходом архивирования.
+     */
+    @State(Scope.Thread)
+    public static class ClosedProjectsState {
+
+        @Setup(Level.Invocation)
+        public void close(EngineState engine) {
+            engine.closeProjects();
+        }
+    }
+
+    @Benchmark
+    public void historicTaskQueries(EngineState engine,
+                                    Blackhole blackhole) {
+        String project = engine.openProjects.get(ThreadLocalRandom.current().nextInt(engine.openProjects.size()));
+        blackhole.consume(engine.historyService.createHistoricTaskInstanceQuery()
+                                  .taskCandidateGroup(ProjectFixtures.INITIATOR_GROUP)
+                                  .processInstanceId(project)
+                                  .orderByHistoricTaskInstanceStartTime().desc()
+                                  .listPage(0, 20));
+        blackhole.consume(engine.historyService.createHistoricTaskInstanceQuery()
+                                  .taskAssignee("bob")
+                                  .finished()
+                                  .orderByHistoricTaskInstanceEndTime().desc()
+                                  .listPage(0, 20));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 5)
+    public ArchiveRunResult archiveRun(EngineState engine,
+                                       ClosedProjectsState closedProjects) {
+        return engine.historyArchiveService.runOnce();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.benchmark;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.FILE_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+
+/**
+ * Пропускная способность и задержка основных сценариев моделей проекта.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec [-Djmh.include=ProcessModelBenchmark]
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ProcessModelBenchmark {
+
+    /**
+     * Проект на поток: у каждого потока свой экземпляр и своя задача "Создать".
+     */
+    @State(Scope.Thread)
+    public static class UserState {
+
+        private ProcessInstance project;
+
+        private long counter;
+
+        @Setup(Level.Trial)
+        public void start(RuntimeBundleState engine) {
+            engine.logInAs("bob");
+            project = engine.start(PROJECT_MODEL_DEFINITION_KEY, "Benchmark Project " + Thread.currentThread().getId());
+        }
+
+        String nextName(String prefix) {
+            return prefix + " " + counter++;
+        }
+    }
+
+    /**
+     * Свежий корень на каждую операцию: у нового проекта единственный дочерний процесс -
+     * созданный в операции подпроект.
+     */
+    @State(Scope.Thread)
+    public static class DeepTreeState {
+
+        private ProcessInstance root;
+
+        @Setup(Level.Invocation)
+        public void start(RuntimeBundleState engine,
+                          UserState user) {
+            engine.logInAs("bob");
+            root = engine.start(PROJECT_MODEL_DEFINITION_KEY, user.nextName("Deep Project"));
+        }
+    }
+
+    @Benchmark
+    public Object startProject(RuntimeBundleState engine,
+                               UserState user) {
+        return engine.start(PROJECT_MODEL_DEFINITION_KEY, user.nextName("Project"));
+    }
+
+    @Benchmark
+    public Object createFileThroughLoop(RuntimeBundleState engine,
+                                        UserState user) {
+        return engine.create(user.project.getId(), user.nextName("File"), "file");
+    }
+
+    /**
+     * Тот же проход одной командой: захват, запись переменных и выполнение в одной транзакции.
+     */
+    @Benchmark
+    public Object createFileCombined(RuntimeBundleState engine,
+                                     UserState user) {
+        return engine.createCombined(user.project.getId(), user.nextName("File"), "file");
+    }
+
+    @Benchmark
+    public Object closeFile(RuntimeBundleState engine,
+                            UserState user) {
+        ProcessInstance file = engine.start(FILE_MODEL_DEFINITION_KEY, user.nextName("Closed File"));
+        return engine.closeFile(file.getId());
+    }
+
+    /**
+     * Самая глубокая цепочка моделей: проект - подпроект - файл. Подпроект запускает только
+     * файлы, поэтому глубже двух call activity дерево не растёт.
+     */
+    @Benchmark
+    public Object deepSubprojectCreation(RuntimeBundleState engine,
+                                         UserState user,
+                                         DeepTreeState tree) {
+        engine.create(tree.root.getId(), user.nextName("Subproject"), "subproject");
+        ProcessInstance subproject = engine.getProcessRuntime().processInstances(
+                Pageable.of(0, 1),
+                ProcessPayloadBuilder.subprocesses(tree.root)
+        ).getContent().get(0);
+        return engine.create(subproject.getId(), user.nextName("Nested File"), "file");
+    }
+}
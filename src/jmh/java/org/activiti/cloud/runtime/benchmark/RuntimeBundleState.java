@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.benchmark;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.ProjectFixtures;
+import org.activiti.cloud.runtime.RuntimeBundleApplication;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.completion.CompletionResult;
+import org.activiti.cloud.runtime.completion.TaskCompletionService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Движок, поднимаемый один раз на прогон бенчмарка.
+ * <p>
+ * database=h2 - встроенная H2, database=postgres - локальный Postgres из
+ * -Dbenchmark.postgres.url/username/password (передаются через -Djmh.jvmArgs=...).
+ * bpmnMetrics=false отключает метрики элементов BPMN; накладные расходы метрик сравниваются
+ * прогоном с -Djmh.include="ProcessModelBenchmark -p bpmnMetrics=false,true".
+ * Бенчмарки отдельных функций расширяют состояние и дописывают свои свойства в {@link #configure}.
+ * Шаги моделей выполняет {@link ProjectFixtures} - те же, что и в тестах.
+ */
+@State(Scope.Benchmark)
+public class RuntimeBundleState {
+
+    @Param({"h2"})
+    public String database;
+
+    @Param({"true"})
+    public boolean bpmnMetrics;
+
+    private ConfigurableApplicationContext context;
+
+    private ProcessRuntime processRuntime;
+
+    private TaskRuntime taskRuntime;
+
+    private SecurityUtil securityUtil;
+
+    private ProjectFixtures fixtures;
+
+    @Setup(Level.Trial)
+    public void start() {
+        List<String> properties = new ArrayList<>();
+        properties.add("logging.level.root=WARN");
+        properties.add("runtimebundle.metrics.bpmn.enabled=" + bpmnMetrics);
+        if ("postgres".equals(database)) {
+            properties.add("spring.datasource.url=" + System.getProperty("benchmark.postgres.url", "jdbc:postgresql://localhost:5432/activitidb"));
+            properties.add("spring.datasource.username=" + System.getProperty("benchmark.postgres.username", "activiti"));
+            properties.add("spring.datasource.password=" + System.getProperty("benchmark.postgres.password", "mypassword"));
+            properties.add("spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect");
+        }
+        configure(properties);
+        context = new SpringApplicationBuilder(RuntimeBundleApplication.class)
+                .sources(sources())
+                .properties(properties.toArray(new String[0]))
+                .run();
+        processRuntime = context.getBean(ProcessRuntime.class);
+        taskRuntime = context.getBean(TaskRuntime.class);
+        securityUtil = context.getBean(SecurityUtil.class);
+        fixtures = context.getBean(ProjectFixtures.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Дополнительные свойства контекста для наследников.
+     */
+    protected void configure(List<String> properties) {
+    }
+
+    /**
+     * Дополнительные конфигурации контекста для наследников, например привязки каналов.
+     */
+    protected Class<?>[] sources() {
+        return new Class<?>[0];
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    public void logInAs(String username) {
+        securityUtil.logInAs(username);
+    }
+
+    public ProcessInstance start(String processDefinitionKey,
+                                 String name) {
+        return fixtures.start(processDefinitionKey, name);
+    }
+
+    /**
+     * Один проход цикла "Создать": claim - setVariables - complete.
+     */
+    public Task create(String processInstanceId,
+                       String name,
+                       String type) {
+        return fixtures.create(processInstanceId, name, type);
+    }
+
+    /**
+     * Проход цикла "Создать" через {@link TaskCompletionService}.
+     */
+    public CompletionResult createCombined(String processInstanceId,
+                                           String name,
+                                           String type) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("creation_name", name);
+        variables.put("creation_type", type);
+        return context.getBean(TaskCompletionService.class).complete(fixtures.openTask(processInstanceId).getId(), variables);
+    }
+
+    public Task closeFile(String processInstanceId) {
+        return fixtures.closeFile(processInstanceId);
+    }
+
+    public ProjectFixtures getFixtures() {
+        return fixtures;
+    }
+
+    public ProcessRuntime getProcessRuntime() {
+        return processRuntime;
+    }
+
+    public TaskRuntime getTaskRuntime() {
+        return taskRuntime;
+    }
+}
@@ -0,0 +1,83 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.bulk;
+
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Файлы в секунду: цикл по задаче "Создать" против пакетного создания по {@link #ENTRIES} файлов.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=BulkCreationBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class BulkCreationBenchmark {
+
+    static final int ENTRIES = 500;
+
+    @State(Scope.Thread)
+    public static class ProjectState {
+
+        private String projectId;
+
+        private long counter;
+
+        @Setup(Level.Trial)
+        public void start(RuntimeBundleState engine) {
+            engine.logInAs("bob");
+            projectId = engine.getFixtures().startProject("Bulk Project " + Thread.currentThread().getId()).getId();
+        }
+
+        List<CreationEntry> entries() {
+            List<CreationEntry> entries = new ArrayList<>(ENTRIES);
+            for (int i = 0; i < ENTRIES; i++) {
+                entries.add(new CreationEntry("File " + counter++, "file"));
+            }
+            return entries;
+        }
+    }
+
+    @Benchmark
+    public Object perTaskLoop(RuntimeBundleState engine,
+                              ProjectState project) {
+        return engine.create(project.projectId, "File " + project.counter++, "file");
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ENTRIES)
+    public BulkCreationResult bulk(RuntimeBundleState engine,
+                                   ProjectState project) {
+        return engine.getBean(BulkCreationService.class).create(project.projectId, project.entries());
+    }
+}
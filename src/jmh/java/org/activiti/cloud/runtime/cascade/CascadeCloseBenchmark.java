@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.cascade;
+
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.activiti.cloud.runtime.bulk.BulkCreationService;
+import org.activiti.cloud.runtime.bulk.CreationEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время каскадного закрытия проекта с files файлами; проект создаётся заново перед каждым закрытием.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=CascadeCloseBenchmark
+ * (50000 файлов: -Djmh.include="CascadeCloseBenchmark -p files=50000")
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CascadeCloseBenchmark {
+
+    private static final int CHUNK = 10000;
+
+    @State(Scope.Thread)
+    public static class LargeProjectState {
+
+        @Param({"5000"})
+        public int files;
+
+        private String projectId;
+
+        private int projects;
+
+        @Setup(Level.Invocation)
+        public void start(RuntimeBundleState engine) {
+            engine.logInAs("bob");
+            projectId = engine.getFixtures().startProject("Large Project " + projects++).getId();
+            BulkCreationService bulkCreationService = engine.getBean(BulkCreationService.class);
+            for (int from = 0; from < files; from += CHUNK) {
+                List<CreationEntry> entries = new ArrayList<>();
+                for (int i = from; i < Math.min(from + CHUNK, files); i++) {
+                    entries.add(new CreationEntry("File " + i, "file"));
+                }
+                bulkCreationService.create(projectId, entries);
+            }
+        }
+    }
+
+    @Benchmark
+    public CascadeCloseProgress close(RuntimeBundleState engine,
+                                      LargeProjectState project) {
+        return engine.getBean(CascadeCloseService.class).close(project.projectId);
+    }
+}
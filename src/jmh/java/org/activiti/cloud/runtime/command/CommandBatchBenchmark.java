@@ -0,0 +1,209 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.command;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.model.payloads.ClaimTaskPayload;
+import org.activiti.cloud.runtime.ProjectFixtures;
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.annotation.Input;
+import org.springframework.cloud.stream.annotation.Output;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.activiti.cloud.runtime.command.CommandBatchServiceTest.claim;
+
+/**
+ * Команды в секунду через rabbitmq-mock от отправки до ответа в commandResults:
+ * по одной команде на сообщение (commandConsumer стартера) против пакетов по batchSize (commandBatchConsumer).
+ * Каждый вызов захватывает {@link #COMMANDS} свежих задач.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=CommandBatchBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class CommandBatchBenchmark {
+
+    static final int COMMANDS = 100;
+
+    public interface BenchmarkChannels {
+
+        @Output("benchmarkCommands")
+        MessageChannel benchmarkCommands();
+
+        @Output("benchmarkBatches")
+        MessageChannel benchmarkBatches();
+
+        @Input("benchmarkResults")
+        SubscribableChannel benchmarkResults();
+    }
+
+    @TestConfiguration
+    @EnableBinding(BenchmarkChannels.class)
+    static class BenchmarkBindings {
+    }
+
+    @State(Scope.Benchmark)
+    public static class EngineState extends RuntimeBundleState {
+
+        private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+        private volatile CountDownLatch replies;
+
+        private BenchmarkChannels channels;
+
+        private ObjectMapper objectMapper;
+
+        @Override
+        protected void configure(List<String> properties) {
+            properties.add("spring.cloud.stream.bindings.benchmarkCommands.destination=commandConsumer");
+            properties.add("spring.cloud.stream.bindings.benchmarkCommands.contentType=application/json");
+            properties.add("spring.cloud.stream.bindings.benchmarkBatches.destination=commandBatchConsumer");
+            properties.add("spring.cloud.stream.bindings.benchmarkBatches.contentType=application/json");
+            properties.add("spring.cloud.stream.bindings.benchmarkResults.destination=commandResults");
+            properties.add("spring.cloud.stream.bindings.benchmarkResults.contentType=application/json");
+        }
+
+        @Override
+        protected Class<?>[] sources() {
+            return new Class<?>[]{BenchmarkBindings.class};
+        }
+
+        @Setup(Level.Trial)
+        public void subscribe() {
+            channels = getBean(BenchmarkChannels.class);
+            objectMapper = getBean(ObjectMapper.class);
+            channels.benchmarkResults().subscribe(message -> {
+                Object batchId = message.getHeaders().get(CommandBatchEndpoint.BATCH_ID_HEADER);
+                String id = batchId != null ? batchId.toString() : payloadId(message);
+                if (id != null && pending.remove(id)) {
+                    replies.countDown();
+                }
+            });
+        }
+
+        void expect(int count) {
+            replies = new CountDownLatch(count);
+        }
+
+        void await() throws InterruptedException {
+            if (!replies.await(10, TimeUnit.MINUTES)) {
+                throw new IllegalStateException("No replies for " + pending.size() + " commands");
+            }
+        }
+
+        private String payloadId(Message<?> message) {
+            try {
+                Object payload = message.getPayload();
+                JsonNode result = payload instanceof byte[]
+                        ? objectMapper.readTree((byte[]) payload)
+                        : objectMapper.readTree(payload.toString());
+                return result.path("payload").path("id").asText(null);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BatchState {
+
+        @Param({"10", "100"})
+        public int batchSize;
+    }
+
+    /**
+     * Открытые задачи свежих проектов для одного вызова.
+     */
+    @State(Scope.Thread)
+    public static class TasksState {
+
+        private final List<String> tasks = new ArrayList<>(COMMANDS);
+
+        private long counter;
+
+        @Setup(Level.Invocation)
+        public void start(EngineState engine) {
+            engine.logInAs("bob");
+            ProjectFixtures fixtures = engine.getFixtures();
+            tasks.clear();
+            for (int i = 0; i < COMMANDS; i++) {
+                String processInstanceId = fixtures.startProject("Command Project " + counter++).getId();
+                tasks.add(fixtures.openTask(processInstanceId).getId());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public void singleCommands(EngineState engine,
+                               TasksState tasks) throws InterruptedException {
+        engine.expect(COMMANDS);
+        for (String taskId : tasks.tasks) {
+            ClaimTaskPayload payload = TaskPayloadBuilder.claim().withTaskId(taskId).withAssignee("bob").build();
+            engine.pending.add(payload.getId());
+            engine.channels.benchmarkCommands().send(MessageBuilder.withPayload(payload).build());
+        }
+        engine.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(COMMANDS)
+    public void batchCommands(EngineState engine,
+                              BatchState batch,
+                              TasksState tasks) throws InterruptedException {
+        engine.expect((COMMANDS + batch.batchSize - 1) / batch.batchSize);
+        for (int from = 0; from < COMMANDS; from += batch.batchSize) {
+            List<BatchCommand> commands = new ArrayList<>();
+            for (String taskId : tasks.tasks.subList(from, Math.min(from + batch.batchSize, COMMANDS))) {
+                commands.add(claim(taskId, taskId));
+            }
+            String batchId = "benchmark-" + tasks.tasks.get(from);
+            engine.pending.add(batchId);
+            engine.channels.benchmarkBatches().send(MessageBuilder.withPayload(new CommandBatch(batchId, commands)).build());
+        }
+        engine.await();
+    }
+}
@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.conditions;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.activiti.engine.ManagementService;
+import org.activiti.engine.ProcessEngineConfiguration;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.activiti.engine.impl.el.ExpressionManager;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+
+/**
+ * Проходы шлюзов ExclusiveGateway_1iui8bn и ExclusiveGateway_1b549hw в секунду:
+ * compiled=false - интерпретатор выражений, compiled=true - скомпилированные условия.
+ * <p>
+ * Условия вычисляются так же, как при выполнении модели: менеджером выражений движка,
+ * внутри команды, над экземпляром проекта с настоящими переменными. Загрузка экземпляра
+ * делится на {@link #PASSES} проходов одной команды.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=GatewayConditionBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GatewayConditionBenchmark {
+
+    static final int PASSES = 1000;
+
+    private static final String CLOSE_PROJECT = "${close_project == true}";
+    private static final String CREATE_FILE = "${creation_type == \"file\"}";
+    private static final String CREATE_SUBPROJECT = "${creation_type == \"subproject\"}";
+
+    @State(Scope.Benchmark)
+    public static class EngineState extends RuntimeBundleState {
+
+        @Param({"false", "true"})
+        public boolean compiled;
+
+        private ManagementService managementService;
+
+        private ProcessEngineConfigurationImpl engineConfiguration;
+
+        private String processInstanceId;
+
+        @Override
+        protected void configure(List<String> properties) {
+            properties.add("runtimebundle.conditions.compiled=" + compiled);
+        }
+
+        @Setup(Level.Trial)
+        public void startProject() {
+            managementService = getBean(ManagementService.class);
+            engineConfiguration = (ProcessEngineConfigurationImpl) getBean(ProcessEngineConfiguration.class);
+            logInAs("bob");
+            ProcessInstance project = getProcessRuntime().start(ProcessPayloadBuilder
+                    .start()
+                    .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                    .withVariable("initiator_group", "activitiTeam")
+                    .withVariable("name", "Gateway Project")
+                    .withVariable("close_project", false)
+                    .withVariable("creation_type", "subproject")
+                    .build());
+            processInstanceId = project.getId();
+        }
+
+        /**
+         * passes проходов по условиям внутри одной команды движка.
+         */
+        int traverse(String[] conditions,
+                     int passes) {
+            return managementService.executeCommand(commandContext -> {
+                ExecutionEntity execution = commandContext.getExecutionEntityManager().findById(processInstanceId);
+                ExpressionManager expressionManager = engineConfiguration.getExpressionManager();
+                int taken = 0;
+                for (int pass = 0; pass < passes; pass++) {
+                    // Как у шлюза: первое выполненное условие выбирает переход
+                    for (String condition : conditions) {
+                        if (Boolean.TRUE.equals(expressionManager.createExpression(condition).getValue(execution))) {
+                            taken++;
+                            break;
+                        }
+                    }
+                }
+                return taken;
+            });
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PASSES)
+    public int closeGateway(EngineState engine) {
+        return engine.traverse(new String[]{CLOSE_PROJECT}, PASSES);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PASSES)
+    public int creationTypeGateway(EngineState engine) {
+        return engine.traverse(new String[]{CREATE_FILE, CREATE_SUBPROJECT}, PASSES);
+    }
+}
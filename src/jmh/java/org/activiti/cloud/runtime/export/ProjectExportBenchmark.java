@@ -0,0 +1,81 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.export;
+
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время выгрузки глубокого дерева с файлами, задачами истории и переменными; дерево строит ExportTreeFixtures.
+ * Рост живой кучи во время выгрузки проверяет ProjectExportHeapTest; выделение памяти
+ * на выгрузку показывает профилировщик: -Djmh.include="ProjectExportBenchmark -prof gc".
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=ProjectExportBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 10)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class ProjectExportBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class TreeState {
+
+        @Param({"20"})
+        public int depth;
+
+        @Param({"20000"})
+        public int files;
+
+        @Param({"4"})
+        public int tasksPerFile;
+
+        @Param({"1000"})
+        public int variablesPerInstance;
+
+        private String root;
+
+        @Setup(Level.Trial)
+        public void populate(RuntimeBundleState engine) {
+            engine.logInAs("bob");
+            ExportTreeFixtures fixtures = engine.getBean(ExportTreeFixtures.class);
+            List<String> chain = fixtures.chain(depth);
+            fixtures.populate(chain, files, tasksPerFile, variablesPerInstance);
+            root = chain.get(0);
+        }
+    }
+
+    @Benchmark
+    public long export(RuntimeBundleState engine,
+                       TreeState tree) {
+        return engine.getBean(ProjectExportService.class).export(tree.root, OutputStream.nullOutputStream());
+    }
+}
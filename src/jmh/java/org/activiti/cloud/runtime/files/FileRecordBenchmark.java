@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.files;
+
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.activiti.cloud.runtime.bulk.BulkCreationResult;
+import org.activiti.cloud.runtime.bulk.BulkCreationService;
+import org.activiti.cloud.runtime.bulk.CreationEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Файлы в секунду: строки FILE_RECORD против полноценных экземпляров модели файла,
+ * созданных пакетом. Запись - одна строка на файл, экземпляр - строки выполнения,
+ * задачи, переменных и истории движка.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=FileRecordBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class FileRecordBenchmark {
+
+    static final int RECORDS = 10000;
+
+    static final int INSTANCES = 500;
+
+    @State(Scope.Benchmark)
+    public static class EngineState extends RuntimeBundleState {
+
+        @Override
+        protected void configure(List<String> properties) {
+            properties.add("runtimebundle.file-records.enabled=true");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ProjectState {
+
+        private String projectId;
+
+        private long counter;
+
+        @Setup(Level.Trial)
+        public void start(EngineState engine) {
+            engine.logInAs("bob");
+            projectId = engine.getFixtures().startProject("Files Project " + Thread.currentThread().getId()).getId();
+        }
+
+        List<String> names(int count) {
+            List<String> names = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                names.add("File " + counter++);
+            }
+            return names;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(RECORDS)
+    public List<FileRecord> records(EngineState engine,
+                                    ProjectState project) {
+        return engine.getBean(FileRecordService.class).create(project.projectId, project.names(RECORDS));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTANCES)
+    public BulkCreationResult instances(EngineState engine,
+                                        ProjectState project) {
+        List<CreationEntry> entries = new ArrayList<>(INSTANCES);
+        for (String name : project.names(INSTANCES)) {
+            entries.add(new CreationEntry(name, "file"));
+        }
+        return engine.getBean(BulkCreationService.class).create(project.projectId, entries);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Экземпляры в секунду при импорте: {@link #PROJECTS} проектов по одному подпроекту
+ * и {@link #FILES} файлов, поровну в проекте и подпроекте.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=HierarchyImportBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class HierarchyImportBenchmark {
+
+    static final int PROJECTS = 20;
+
+    static final int FILES = 50;
+
+    static final int INSTANCES = PROJECTS * (2 + FILES);
+
+    @State(Scope.Benchmark)
+    public static class ImportState {
+
+        private byte[] ndjson;
+
+        @Setup(Level.Trial)
+        public void prepare(RuntimeBundleState engine) {
+            engine.logInAs("bob");
+            StringBuilder lines = new StringBuilder();
+            for (int p = 0; p < PROJECTS; p++) {
+                lines.append("{\"ref\":\"p").append(p).append("\",\"name\":\"Project ").append(p).append("\"}\n");
+                lines.append("{\"ref\":\"s").append(p).append("\",\"parentRef\":\"p").append(p)
+                        .append("\",\"type\":\"subproject\",\"name\":\"Subproject ").append(p).append("\"}\n");
+                for (int f = 0; f < FILES; f++) {
+                    String parent = f % 2 == 0 ? "p" + p : "s" + p;
+                    lines.append("{\"ref\":\"f").append(p).append('-').append(f).append("\",\"parentRef\":\"").append(parent)
+                            .append("\",\"name\":\"File ").append(f).append("\"}\n");
+                }
+            }
+            ndjson = lines.toString().getBytes(StandardCharsets.UTF_8);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(INSTANCES)
+    public ImportResult importStream(RuntimeBundleState engine,
+                                     ImportState state) {
+        return engine.getBean(HierarchyImportService.class).importStream(UUID.randomUUID().toString(),
+                                                                          new ByteArrayInputStream(state.ndjson),
+                                                                          HierarchyImportService.FORMAT_NDJSON);
+    }
+}
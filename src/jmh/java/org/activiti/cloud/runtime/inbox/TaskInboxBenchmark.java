@@ -0,0 +1,112 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.inbox;
+
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.activiti.cloud.runtime.bulk.BulkCreationService;
+import org.activiti.cloud.runtime.bulk.CreationEntry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Задержка страницы входящих задач на глубине depthPercent от начала списка:
+ * курсор {@link TaskInboxService} против смещения TaskRuntime. Режим SampleTime даёт p99.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=TaskInboxBenchmark
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class TaskInboxBenchmark {
+
+    static final int PAGE_SIZE = 50;
+
+    @State(Scope.Benchmark)
+    public static class EngineState extends RuntimeBundleState {
+
+        @Param({"100000"})
+        public int instances;
+
+        @Override
+        protected void configure(List<String> properties) {
+            properties.add("runtimebundle.bulk.max-entries=" + instances);
+        }
+
+        @Setup(Level.Trial)
+        public void seed() {
+            logInAs("bob");
+            String projectId = getFixtures().startProject("Inbox Benchmark Project").getId();
+            List<CreationEntry> entries = new ArrayList<>(instances);
+            for (int i = 0; i < instances; i++) {
+                entries.add(new CreationEntry("File " + i, "file"));
+            }
+            getBean(BulkCreationService.class).create(projectId, entries);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class PageState {
+
+        @Param({"0", "50", "99"})
+        public int depthPercent;
+
+        private int offset;
+
+        private String cursor;
+
+        /**
+         * Курсор нужной страницы находится проходом по страницам с начала.
+         */
+        @Setup(Level.Trial)
+        public void locate(EngineState engine) {
+            offset = (int) ((long) engine.instances * depthPercent / 100 / PAGE_SIZE * PAGE_SIZE);
+            TaskInboxService taskInboxService = engine.getBean(TaskInboxService.class);
+            for (int skipped = 0; skipped < offset; skipped += PAGE_SIZE) {
+                cursor = taskInboxService.inbox(null, cursor, PAGE_SIZE, false).getNextCursor();
+            }
+        }
+    }
+
+    @Benchmark
+    public TaskInboxPage keysetPage(EngineState engine,
+                                    PageState page) {
+        return engine.getBean(TaskInboxService.class).inbox(null, page.cursor, PAGE_SIZE, false);
+    }
+
+    @Benchmark
+    public Object offsetPage(EngineState engine,
+                             PageState page) {
+        return engine.getBean(TaskRuntime.class).tasks(Pageable.of(page.offset, PAGE_SIZE), TaskPayloadBuilder.tasks().build());
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.mappings;
+
+import org.activiti.cloud.runtime.ProjectModels;
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.activiti.engine.RuntimeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.SUBPROJECT_MODEL_DEFINITION_KEY;
+
+/**
+ * Время запуска дочернего элемента по отображениям входных переменных: в свежем проекте
+ * создаются {@link #SUBPROJECTS} подпроектов, в каждом - файл, так что работают оба вида
+ * call activity (Task_1hw9wi1 проекта и Task_0vukmom подпроекта).
+ * compiled=false - разбор расширений исходным провайдером, compiled=true - скомпилированные отображения.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=CompiledMappingBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class CompiledMappingBenchmark {
+
+    static final int SUBPROJECTS = 50;
+
+    @State(Scope.Benchmark)
+    public static class EngineState extends RuntimeBundleState {
+
+        @Param({"false", "true"})
+        public boolean compiled;
+
+        private RuntimeService runtimeService;
+
+        private String rootId;
+
+        private int roots;
+
+        @Override
+        protected void configure(List<String> properties) {
+            properties.add("runtimebundle.mappings.compiled=" + compiled);
+        }
+
+        @Setup(Level.Invocation)
+        public void startProject() {
+            runtimeService = getBean(RuntimeService.class);
+            logInAs("bob");
+            rootId = getFixtures().startProject("Mapped Project " + roots++).getId();
+        }
+
+        /**
+         * Подпроект в корне и файл в нём.
+         */
+        String createSubprojectWithFile(int index) {
+            String name = "Subproject " + index;
+            getFixtures().create(rootId, name, "subproject");
+            String subprojectId = runtimeService.createProcessInstanceQuery()
+                    .superProcessInstanceId(rootId)
+                    .processDefinitionKey(SUBPROJECT_MODEL_DEFINITION_KEY)
+                    .variableValueEquals(ProjectModels.NAME_VARIABLE, name)
+                    .singleResult()
+                    .getId();
+            getFixtures().create(subprojectId, "File " + index, "file");
+            return subprojectId;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(SUBPROJECTS * 2)
+    public String createChildren(EngineState engine) {
+        String last = null;
+        for (int index = 0; index < SUBPROJECTS; index++) {
+            last = engine.createSubprojectWithFile(index);
+        }
+        return last;
+    }
+}
@@ -0,0 +1,169 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.partitioning;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fridujo.rabbitmq.mock.compatibility.MockConnectionFactoryFactory;
+import com.rabbitmq.client.ConnectionFactory;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.model.payloads.ClaimTaskPayload;
+import org.activiti.cloud.runtime.ProjectFixtures;
+import org.activiti.cloud.runtime.RuntimeBundleApplication;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.partitioning.MultiReplicaPartitioningTest.ReplicaChannels;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Команды в секунду от отправки в myCmdProducer до ответа в myCmdResults при 1 и 2 репликах
+ * профиля partitioned над общим брокером-заглушкой и общей H2, как в {@link MultiReplicaPartitioningTest}.
+ * Каждый вызов захватывает задачи {@link #PROJECTS} свежих проектов; команды расходятся по репликам
+ * по корневому проекту. Все реплики работают в одной JVM, поэтому прирост ограничен ядрами и общей базой.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=MultiReplicaThroughputBenchmark
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 10)
+@Fork(1)
+public class MultiReplicaThroughputBenchmark {
+
+    static final int PROJECTS = 200;
+
+    @State(Scope.Benchmark)
+    public static class ReplicasState {
+
+        @Param({"1", "2"})
+        public int replicas;
+
+        private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+        private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+        private final ObjectMapper objectMapper = new ObjectMapper();
+
+        private volatile CountDownLatch replies;
+
+        @Setup(Level.Trial)
+        public void start() {
+            ConnectionFactory broker = MockConnectionFactoryFactory.build();
+            for (int index = 0; index < replicas; index++) {
+                ConfigurableApplicationContext replica = new SpringApplicationBuilder(RuntimeBundleApplication.class,
+                                                                                      MultiReplicaPartitioningTest.ReplicaBindings.class)
+                        .profiles("partitioned")
+                        .initializers(context -> context.getBeanFactory().registerSingleton("sharedBroker", broker))
+                        .properties("server.port=0",
+                                    "spring.jmx.enabled=false",
+                                    "logging.level.root=WARN",
+                                    "ACT_RB_REPLICAS=" + replicas,
+                                    "spring.cloud.stream.instanceIndex=" + index)
+                        .run();
+                // Ответы делятся между репликами группой myCmdGroup, поэтому слушают все
+                replica.getBean(ReplicaChannels.class).results().subscribe(message -> {
+                    String id = payloadId(message);
+                    if (id != null && pending.remove(id)) {
+                        replies.countDown();
+                    }
+                });
+                contexts.add(replica);
+            }
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            Collections.reverse(contexts);
+            contexts.forEach(ConfigurableApplicationContext::close);
+            contexts.clear();
+        }
+
+        private String payloadId(Message<?> message) {
+            try {
+                Object payload = message.getPayload();
+                JsonNode result = payload instanceof byte[]
+                        ? objectMapper.readTree((byte[]) payload)
+                        : objectMapper.readTree(payload.toString());
+                return result.path("payload").path("id").asText(null);
+            } catch (IOException e) {
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Открытые задачи свежих проектов для одного вызова.
+     */
+    @State(Scope.Thread)
+    public static class TasksState {
+
+        private final List<String> tasks = new ArrayList<>(PROJECTS);
+
+        private long counter;
+
+        @Setup(Level.Invocation)
+        public void start(ReplicasState state) {
+            ConfigurableApplicationContext first = state.contexts.get(0);
+            first.getBean(SecurityUtil.class).logInAs("bob");
+            ProjectFixtures fixtures = first.getBean(ProjectFixtures.class);
+            tasks.clear();
+            for (int i = 0; i < PROJECTS; i++) {
+                String processInstanceId = fixtures.startProject("Partitioned Project " + counter++).getId();
+                tasks.add(fixtures.openTask(processInstanceId).getId());
+            }
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PROJECTS)
+    public void claimCommands(ReplicasState state,
+                              TasksState tasks) throws InterruptedException {
+        state.replies = new CountDownLatch(PROJECTS);
+        ReplicaChannels channels = state.contexts.get(0).getBean(ReplicaChannels.class);
+        for (String taskId : tasks.tasks) {
+            ClaimTaskPayload payload = TaskPayloadBuilder.claim().withTaskId(taskId).withAssignee("bob").build();
+            state.pending.add(payload.getId());
+            channels.commands().send(MessageBuilder.withPayload(payload).build());
+        }
+        if (!state.replies.await(10, TimeUnit.MINUTES)) {
+            throw new IllegalStateException("No replies for " + state.pending.size() + " commands");
+        }
+    }
+}
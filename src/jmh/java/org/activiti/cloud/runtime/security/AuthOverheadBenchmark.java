@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.security;
+
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.keycloak.adapters.KeycloakDeployment;
+import org.keycloak.adapters.rotation.AdapterTokenVerifier;
+import org.keycloak.common.VerificationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Накладные расходы аутентификации на запрос без настоящего Keycloak ({@link StubIssuer}):
+ * локальная проверка токена адаптером и получение групп через SecurityManager с кэшем и без.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=AuthOverheadBenchmark
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AuthOverheadBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class IssuerState {
+
+        private StubIssuer issuer;
+
+        private KeycloakDeployment deployment;
+
+        private String token;
+
+        @Setup(Level.Trial)
+        public void start() throws Exception {
+            issuer = new StubIssuer();
+            deployment = issuer.deployment();
+            token = issuer.token("bob");
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            issuer.close();
+        }
+    }
+
+    /**
+     * Пользователь входит в каждом потоке: контекст безопасности привязан к потоку.
+     */
+    @State(Scope.Thread)
+    public static class UserState {
+
+        private SecurityManager cached;
+
+        private SecurityManager uncached;
+
+        @Setup(Level.Trial)
+        public void logIn(RuntimeBundleState engine) {
+            engine.logInAs("bob");
+            cached = engine.getBean(SecurityManager.class);
+            uncached = ((CachingSecurityManager) cached).getDelegate();
+        }
+    }
+
+    @Benchmark
+    public Object verifyToken(IssuerState issuer) throws VerificationException {
+        return AdapterTokenVerifier.verifyToken(issuer.token, issuer.deployment);
+    }
+
+    @Benchmark
+    public List<String> groupsUncached(UserState user) {
+        return user.uncached.getAuthenticatedUserGroups();
+    }
+
+    @Benchmark
+    public List<String> groupsCached(UserState user) {
+        return user.cached.getAuthenticatedUserGroups();
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.signal;
+
+import org.activiti.cloud.runtime.benchmark.RuntimeBundleState;
+import org.activiti.engine.RepositoryService;
+import org.activiti.engine.RuntimeService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+import static org.activiti.cloud.runtime.signal.SignalFanOutServiceTest.SIGNAL_PROCESS;
+
+/**
+ * Время доставки сигнала subscribers подписчикам: обычный signalEventReceived
+ * против рассылки {@link SignalFanOutService}. Подписчики запускаются заново перед каждой доставкой.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=SignalFanOutBenchmark
+ * (100k подписчиков: -Djmh.include="SignalFanOutBenchmark -p subscribers=100000")
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SignalFanOutBenchmark {
+
+    static final String SIGNAL = "benchmarkSignal";
+
+    static final String PROCESS = "benchmarkSignalProcess";
+
+    @State(Scope.Benchmark)
+    public static class SubscribersState {
+
+        @Param({"10000"})
+        public int subscribers;
+
+        private RuntimeService runtimeService;
+
+        @Setup(Level.Trial)
+        public void deploy(RuntimeBundleState engine) {
+            runtimeService = engine.getBean(RuntimeService.class);
+            engine.getBean(RepositoryService.class).createDeployment()
+                    .addString(PROCESS + ".bpmn20.xml", String.format(SIGNAL_PROCESS, SIGNAL, PROCESS))
+                    .deploy();
+        }
+
+        @Setup(Level.Invocation)
+        public void subscribe() {
+            for (int i = 0; i < subscribers; i++) {
+                runtimeService.startProcessInstanceByKey(PROCESS);
+            }
+        }
+    }
+
+    @Benchmark
+    public void signalEventReceived(SubscribersState state) {
+        state.runtimeService.signalEventReceived(SIGNAL);
+    }
+
+    @Benchmark
+    public SignalFanOutProgress fanOut(RuntimeBundleState engine,
+                                       SubscribersState state) {
+        return engine.getBean(SignalFanOutService.class).fanOut(new SignalFanOutRequest(SIGNAL, Collections.emptyMap(), null));
+    }
+}
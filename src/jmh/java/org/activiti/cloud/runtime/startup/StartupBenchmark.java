@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.startup;
+
+import org.activiti.cloud.runtime.RuntimeBundleApplication;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Время до готовности при перезапуске над уже заполненной базой:
+ * обычный автодеплой (profile=default) против профиля fast-startup.
+ * Первый старт в каждом прогоне заполняет базу и не измеряется.
+ * Запуск: ./mvnw -Pbenchmark test-compile exec:exec -Djmh.include=StartupBenchmark
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StartupBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class DatabaseState {
+
+        @Param({"default", "fast-startup"})
+        public String profile;
+
+        private ConfigurableApplicationContext context;
+
+        @Setup(Level.Trial)
+        public void populate() {
+            start().close();
+        }
+
+        @TearDown(Level.Invocation)
+        public void stop() {
+            context.close();
+        }
+
+        ConfigurableApplicationContext start() {
+            return new SpringApplicationBuilder(RuntimeBundleApplication.class)
+                    .profiles(profile)
+                    .properties("server.port=0",
+                                "spring.jmx.enabled=false",
+                                "logging.level.root=WARN",
+                                "spring.datasource.url=jdbc:h2:file:./target/startup-benchmark/" + profile)
+                    .run();
+        }
+    }
+
+    @Benchmark
+    public ConfigurableApplicationContext restart(DatabaseState database) {
+        database.context = database.start();
+        return database.context;
+    }
+}
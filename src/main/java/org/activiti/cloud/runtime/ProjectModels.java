@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Идентификаторы моделей проекта, подпроекта и файла и их элементов,
+ * на которые опирается код бандла.
+ */
+public final class ProjectModels {
+
+    public static final String PROJECT_MODEL_DEFINITION_KEY = "Process_BKx8PFXad";
+    public static final String SUBPROJECT_MODEL_DEFINITION_KEY = "Process_i5ugxdvpu";
+    public static final String FILE_MODEL_DEFINITION_KEY = "Process_t1-1M1g1T";
+
+    public static final String PROJECT_CREATE_TASK_KEY = "Task_0wtw2gj";
+    public static final String SUBPROJECT_CREATE_TASK_KEY = "Task_03l7jgz";
+    public static final String FILE_EDIT_TASK_KEY = "Task_0ebhksp";
+
+    public static final String NAME_VARIABLE = "name";
+    public static final String INITIATOR_GROUP_VARIABLE = "initiator_group";
+    public static final String CREATION_NAME_VARIABLE = "creation_name";
+    public static final String CREATION_TYPE_VARIABLE = "creation_type";
+    public static final String CLOSE_PROJECT_VARIABLE = "close_project";
+    public static final String CLOSE_SUBPROJECT_VARIABLE = "close_subproject";
+    public static final String CLOSE_FILE_VARIABLE = "close_file";
+
+    public static final String CREATION_TYPE_FILE = "file";
+    public static final String CREATION_TYPE_SUBPROJECT = "subproject";
+    public static final String TYPE_PROJECT = "project";
+
+    public static final List<String> MODEL_DEFINITION_KEYS = Collections.unmodifiableList(Arrays.asList(
+            PROJECT_MODEL_DEFINITION_KEY,
+            SUBPROJECT_MODEL_DEFINITION_KEY,
+            FILE_MODEL_DEFINITION_KEY));
+
+    /**
+     * Пользовательские задачи моделей, все назначены на группу ${initiator_group}.
+     */
+    public static final List<String> USER_TASK_KEYS = Collections.unmodifiableList(Arrays.asList(
+            PROJECT_CREATE_TASK_KEY,
+            SUBPROJECT_CREATE_TASK_KEY,
+            FILE_EDIT_TASK_KEY));
+
+    private ProjectModels() {
+    }
+
+    /**
+     * Ключ задачи "Создать" для модели-контейнера или null,
+     * если модель не умеет создавать дочерние элементы.
+     */
+    public static String creationTaskKey(String processDefinitionKey) {
+        if (PROJECT_MODEL_DEFINITION_KEY.equals(processDefinitionKey)) {
+            return PROJECT_CREATE_TASK_KEY;
+        }
+        if (SUBPROJECT_MODEL_DEFINITION_KEY.equals(processDefinitionKey)) {
+            return SUBPROJECT_CREATE_TASK_KEY;
+        }
+        return null;
+    }
+
+    /**
+     * Тип элемента дерева проекта ("project", "subproject", "file") по ключу модели
+     * или null для посторонних моделей.
+     */
+    public static String nodeType(String processDefinitionKey) {
+        if (PROJECT_MODEL_DEFINITION_KEY.equals(processDefinitionKey)) {
+            return TYPE_PROJECT;
+        }
+        if (SUBPROJECT_MODEL_DEFINITION_KEY.equals(processDefinitionKey)) {
+            return CREATION_TYPE_SUBPROJECT;
+        }
+        if (FILE_MODEL_DEFINITION_KEY.equals(processDefinitionKey)) {
+            return CREATION_TYPE_FILE;
+        }
+        return null;
+    }
+}
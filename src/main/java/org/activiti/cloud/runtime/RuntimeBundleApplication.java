@@ -18,9 +18,11 @@ package org.activiti.cloud.runtime;
 import org.activiti.cloud.starter.rb.configuration.ActivitiRuntimeBundle;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
 @ActivitiRuntimeBundle
+@ConfigurationPropertiesScan
 public class RuntimeBundleApplication {
 
     public static void main(String[] args) {
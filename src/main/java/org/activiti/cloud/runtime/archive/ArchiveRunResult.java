@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.archive;
+
+public class ArchiveRunResult {
+
+    private final int archived;
+
+    private final int skipped;
+
+    private final int failed;
+
+    private final long rows;
+
+    private final long elapsedMillis;
+
+    public ArchiveRunResult(int archived,
+                            int skipped,
+                            int failed,
+                            long rows,
+                            long elapsedMillis) {
+        this.archived = archived;
+        this.skipped = skipped;
+        this.failed = failed;
+        this.rows = rows;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public int getArchived() {
+        return archived;
+    }
+
+    /**
+     * Проекты, у которых в поддереве остались незавершённые экземпляры.
+     */
+    public int getSkipped() {
+        return skipped;
+    }
+
+    /**
+     * Проекты, перенос которых откатился; попытка записана в ARCHIVE_FAILURE.
+     */
+    public int getFailed() {
+        return failed;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ArchiveRunResult{archived=" + archived + ", skipped=" + skipped + ", failed=" + failed + ", rows=" + rows +
+                ", elapsedMillis=" + elapsedMillis + "}";
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.archive;
+
+import java.util.Date;
+
+/**
+ * Строка ARCHIVE_INDEX: где лежит история закрытого проекта.
+ */
+public class ArchivedProject {
+
+    private final String rootId;
+
+    private final String name;
+
+    private final String initiatorGroup;
+
+    private final Date ended;
+
+    private final Date archived;
+
+    private final String target;
+
+    private final String location;
+
+    private final long rowCount;
+
+    public ArchivedProject(String rootId,
+                           String name,
+                           String initiatorGroup,
+                           Date ended,
+                           Date archived,
+                           String target,
+                           String location,
+                           long rowCount) {
+        this.rootId = rootId;
+        this.name = name;
+        this.initiatorGroup = initiatorGroup;
+        this.ended = ended;
+        this.archived = archived;
+        this.target = target;
+        this.location = location;
+        this.rowCount = rowCount;
+    }
+
+    public String getRootId() {
+        return rootId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getInitiatorGroup() {
+        return initiatorGroup;
+    }
+
+    public Date getEnded() {
+        return ended;
+    }
+
+    public Date getArchived() {
+        return archived;
+    }
+
+    public String getTarget() {
+        return target;
+    }
+
+    public String getLocation() {
+        return location;
+    }
+
+    public long getRowCount() {
+        return rowCount;
+    }
+}
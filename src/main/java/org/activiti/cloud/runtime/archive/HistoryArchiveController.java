@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.archive;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import static org.activiti.cloud.runtime.export.ProjectExportController.NDJSON;
+
+@RestController
+public class HistoryArchiveController {
+
+    private final HistoryArchiveService historyArchiveService;
+
+    public HistoryArchiveController(HistoryArchiveService historyArchiveService) {
+        this.historyArchiveService = historyArchiveService;
+    }
+
+    @PostMapping("/admin/v1/history-archive/runs")
+    public ArchiveRunResult run() {
+        return historyArchiveService.runOnce();
+    }
+
+    @GetMapping("/v1/archived-projects")
+    public Page<ArchivedProject> archivedProjects(Pageable pageable) {
+        return historyArchiveService.archivedProjects(pageable);
+    }
+
+    @GetMapping("/v1/archived-projects/{rootId}")
+    public ResponseEntity<StreamingResponseBody> archivedProject(@PathVariable String rootId) {
+        // Права проверяются до начала потока, в потоке запроса
+        ArchivedProject project = historyArchiveService.archivedProject(rootId);
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(output -> historyArchiveService.read(project, output));
+    }
+}
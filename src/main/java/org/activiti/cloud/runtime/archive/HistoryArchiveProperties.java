@@ -0,0 +1,154 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.archive;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("runtimebundle.archive")
+public class HistoryArchiveProperties {
+
+    public enum Target {
+        /**
+         * Таблица ARCHIVE_HISTORY, в Postgres - с помесячными партициями по дате закрытия.
+         */
+        TABLE,
+        /**
+         * Сжатые NDJSON-файлы по проекту в {@link #getDirectory()}.
+         */
+        FILE
+    }
+
+    /**
+     * Запускать архивирование по расписанию; ручной запуск доступен всегда.
+     */
+    private boolean enabled = false;
+
+    private Target target = Target.TABLE;
+
+    private String directory = "/var/lib/runtimebundle/archive";
+
+    /**
+     * Сколько закрытый проект остаётся в истории движка до переноса в архив.
+     */
+    private Duration minAge = Duration.ofDays(30);
+
+    /**
+     * Проектов между паузами; каждый проект переносится в своей транзакции.
+     */
+    private int batchSize = 20;
+
+    /**
+     * Пауза между пачками, чтобы архивирование не вытесняло рабочую нагрузку.
+     */
+    private Duration pause = Duration.ofMillis(500);
+
+    /**
+     * Предел проектов за один запуск.
+     */
+    private int maxProjectsPerRun = 1000;
+
+    /**
+     * Сколько раз пытаться перенести проект, прежде чем оставить его в истории движка
+     * (неудачи хранятся в ARCHIVE_FAILURE).
+     */
+    private int maxAttempts = 3;
+
+    private Duration interval = Duration.ofHours(1);
+
+    private Duration initialDelay = Duration.ofMinutes(5);
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Target getTarget() {
+        return target;
+    }
+
+    public void setTarget(Target target) {
+        this.target = target;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+
+    public Duration getMinAge() {
+        return minAge;
+    }
+
+    public void setMinAge(Duration minAge) {
+        this.minAge = minAge;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public Duration getPause() {
+        return pause;
+    }
+
+    public void setPause(Duration pause) {
+        this.pause = pause;
+    }
+
+    public int getMaxProjectsPerRun() {
+        return maxProjectsPerRun;
+    }
+
+    public void setMaxProjectsPerRun(int maxProjectsPerRun) {
+        this.maxProjectsPerRun = maxProjectsPerRun;
+    }
+
+    public Duration getInterval() {
+        return interval;
+    }
+
+    public void setInterval(Duration interval) {
+        this.interval = interval;
+    }
+
+    public Duration getInitialDelay() {
+        return initialDelay;
+    }
+
+    public void setInitialDelay(Duration initialDelay) {
+        this.initialDelay = initialDelay;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public void setMaxAttempts(int maxAttempts) {
+        this.maxAttempts = maxAttempts;
+    }
+}
@@ -0,0 +1,410 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.archive;
+
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ColumnMapRowMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.activiti.cloud.runtime.ProjectModels.PROJECT_MODEL_DEFINITION_KEY;
+
+/**
+ * Доступ к таблицам истории движка и к архиву.
+ */
+@Repository
+public class HistoryArchiveRepository {
+
+    /**
+     * Конечное событие проекта, достигаемое по close_project == true.
+     */
+    public static final String PROJECT_END_EVENT = "EndEvent_1p6hngi";
+
+    private static final int IN_CHUNK = 500;
+
+    private static final int FETCH_SIZE = 1000;
+
+    private static final String CLOSED_PROJECTS =
+            "SELECT P.ID_, P.END_TIME_ FROM ACT_HI_PROCINST P JOIN ACT_RE_PROCDEF D ON D.ID_ = P.PROC_DEF_ID_ " +
+            "WHERE D.KEY_ = :key AND P.SUPER_PROCESS_INSTANCE_ID_ IS NULL AND P.DELETE_REASON_ IS NULL " +
+            "AND P.END_TIME_ IS NOT NULL AND P.END_TIME_ < :cutoff " +
+            "AND (P.END_TIME_ > :afterTime OR (P.END_TIME_ = :afterTime AND P.ID_ > :afterId)) " +
+            "AND EXISTS (SELECT 1 FROM ACT_HI_ACTINST A WHERE A.PROC_INST_ID_ = P.ID_ AND A.ACT_ID_ = :endEvent) " +
+            "AND NOT EXISTS (SELECT 1 FROM ARCHIVE_FAILURE F WHERE F.ROOT_ID = P.ID_ AND F.ATTEMPTS >= :maxAttempts) " +
+            "ORDER BY P.END_TIME_, P.ID_ LIMIT :limit";
+
+    private static final String CHILDREN =
+            "SELECT ID_, END_TIME_ FROM ACT_HI_PROCINST WHERE SUPER_PROCESS_INSTANCE_ID_ IN (:ids)";
+
+    /**
+     * Файлы, превращённые в самостоятельные экземпляры, связаны с родителем только через FILE_RECORD.
+     */
+    private static final String PROMOTED_FILES =
+            "SELECT P.ID_, P.END_TIME_ FROM FILE_RECORD F JOIN ACT_HI_PROCINST P ON P.ID_ = F.PROCESS_INSTANCE_ID " +
+            "WHERE F.PARENT_PROCESS_INSTANCE_ID IN (:ids)";
+
+    /**
+     * Связи кандидатов задач в истории могут быть без PROC_INST_ID_.
+     */
+    private static final String TASK_LINKS =
+            "FROM ACT_HI_IDENTITYLINK WHERE PROC_INST_ID_ IS NULL " +
+            "AND TASK_ID_ IN (SELECT ID_ FROM ACT_HI_TASKINST WHERE PROC_INST_ID_ IN (:values))";
+
+    private static final String BYTE_ARRAYS =
+            "FROM ACT_GE_BYTEARRAY " +
+            "WHERE ID_ IN (SELECT BYTEARRAY_ID_ FROM ACT_HI_VARINST WHERE PROC_INST_ID_ IN (:values)) " +
+            "OR ID_ IN (SELECT BYTEARRAY_ID_ FROM ACT_HI_DETAIL WHERE PROC_INST_ID_ IN (:values))";
+
+    private static final String INDEX_COLUMNS =
+            "ROOT_ID, NODE_NAME, INITIATOR_GROUP, ENDED, ARCHIVED, TARGET, LOCATION, ROW_COUNT";
+
+    private static final RowMapper<ArchivedProject> INDEX_MAPPER = (rs, rowNum) -> new ArchivedProject(
+            rs.getString("ROOT_ID"),
+            rs.getString("NODE_NAME"),
+            rs.getString("INITIATOR_GROUP"),
+            new Date(rs.getTimestamp("ENDED").getTime()),
+            new Date(rs.getTimestamp("ARCHIVED").getTime()),
+            rs.getString("TARGET"),
+            rs.getString("LOCATION"),
+            rs.getLong("ROW_COUNT"));
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * Чтение строк истории курсором: внутри транзакции драйвер Postgres учитывает fetchSize.
+     */
+    private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+    private final DataSource dataSource;
+
+    private final Set<String> partitions = ConcurrentHashMap.newKeySet();
+
+    private volatile String databaseProduct;
+
+    public HistoryArchiveRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                                    DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+        JdbcTemplate streaming = new JdbcTemplate(dataSource);
+        streaming.setFetchSize(FETCH_SIZE);
+        this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+    }
+
+    /**
+     * Корни закрытых проектов старше cutoff после курсора (afterTime, afterId),
+     * кроме исчерпавших maxAttempts попыток переноса.
+     */
+    public List<Object[]> closedProjects(Date cutoff,
+                                         Date afterTime,
+                                         String afterId,
+                                         int maxAttempts,
+                                         int limit) {
+        return jdbcTemplate.query(CLOSED_PROJECTS,
+                                  new MapSqlParameterSource()
+                                          .addValue("key", PROJECT_MODEL_DEFINITION_KEY)
+                                          .addValue("cutoff", new Timestamp(cutoff.getTime()))
+                                          .addValue("afterTime", new Timestamp(afterTime.getTime()))
+                                          .addValue("afterId", afterId)
+                                          .addValue("endEvent", PROJECT_END_EVENT)
+                                          .addValue("maxAttempts", maxAttempts)
+                                          .addValue("limit", limit),
+                                  (rs, rowNum) -> new Object[]{rs.getString(1), new Date(rs.getTimestamp(2).getTime())});
+    }
+
+    /**
+     * Все экземпляры поддерева истории с корнем rootId (корень первым), включая
+     * самостоятельные экземпляры файлов из FILE_RECORD, или null, если какой-то
+     * из них ещё не завершён.
+     */
+    public List<String> endedSubtree(String rootId) {
+        List<String> subtree = new ArrayList<>();
+        subtree.add(rootId);
+        List<String> level = Collections.singletonList(rootId);
+        while (!level.isEmpty()) {
+            List<String> next = new ArrayList<>();
+            boolean[] running = new boolean[1];
+            RowCallbackHandler collector = rs -> {
+                next.add(rs.getString(1));
+                running[0] |= rs.getTimestamp(2) == null;
+            };
+            for (List<String> chunk : chunks(level)) {
+                jdbcTemplate.query(CHILDREN, new MapSqlParameterSource("ids", chunk), collector);
+                jdbcTemplate.query(PROMOTED_FILES, new MapSqlParameterSource("ids", chunk), collector);
+            }
+            if (running[0]) {
+                return null;
+            }
+            subtree.addAll(next);
+            level = next;
+        }
+        return subtree;
+    }
+
+    /**
+     * Строки таблицы по значениям столбца по одной, без накопления в памяти;
+     * имена столбцов приводятся к верхнему регистру.
+     */
+    public void forEachRow(String table,
+                           String column,
+                           Collection<String> values,
+                           Consumer<Map<String, Object>> consumer) {
+        forEachRow("FROM " + table + " WHERE " + column + " IN (:values)", values, consumer);
+    }
+
+    /**
+     * Связи кандидатов задач экземпляров, не привязанные к экземпляру.
+     */
+    public void forEachTaskLink(Collection<String> processInstanceIds,
+                                Consumer<Map<String, Object>> consumer) {
+        forEachRow(TASK_LINKS, processInstanceIds, consumer);
+    }
+
+    /**
+     * Байтовые значения переменных истории экземпляров.
+     */
+    public void forEachByteArray(Collection<String> processInstanceIds,
+                                 Consumer<Map<String, Object>> consumer) {
+        forEachRow(BYTE_ARRAYS, processInstanceIds, consumer);
+    }
+
+    public void deleteTaskLinks(Collection<String> processInstanceIds) {
+        update("DELETE " + TASK_LINKS, processInstanceIds);
+    }
+
+    /**
+     * Удаление байтовых значений; вызывается до удаления строк переменных, на которые они ссылаются.
+     */
+    public void deleteByteArrays(Collection<String> processInstanceIds) {
+        update("DELETE " + BYTE_ARRAYS, processInstanceIds);
+    }
+
+    public void delete(String table,
+                       String column,
+                       Collection<String> values) {
+        update("DELETE FROM " + table + " WHERE " + column + " IN (:values)", values);
+    }
+
+    public void insertArchiveRows(String rootId,
+                                  Date ended,
+                                  List<String[]> tableAndPayload) {
+        if (isPostgres()) {
+            ensurePartition(ended);
+        }
+        Timestamp endedTimestamp = new Timestamp(ended.getTime());
+        jdbcTemplate.getJdbcTemplate().batchUpdate(
+                "INSERT INTO ARCHIVE_HISTORY (ROOT_ID, ENDED, TABLE_NAME, PAYLOAD) VALUES (?, ?, ?, ?)",
+                tableAndPayload,
+                1000,
+                (ps, row) -> {
+                    ps.setString(1, rootId);
+                    ps.setTimestamp(2, endedTimestamp);
+                    ps.setString(3, row[0]);
+                    ps.setString(4, row[1]);
+                });
+    }
+
+    /**
+     * Чтение архивных строк проекта; условие по ENDED отсекает остальные партиции.
+     */
+    public void archiveRows(String rootId,
+                            Date ended,
+                            RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT TABLE_NAME, PAYLOAD FROM ARCHIVE_HISTORY WHERE ROOT_ID = :rootId AND ENDED = :ended",
+                           new MapSqlParameterSource()
+                                   .addValue("rootId", rootId)
+                                   .addValue("ended", new Timestamp(ended.getTime())),
+                           handler);
+    }
+
+    public void insertIndex(ArchivedProject project) {
+        jdbcTemplate.update("INSERT INTO ARCHIVE_INDEX (" + INDEX_COLUMNS + ") VALUES " +
+                            "(:rootId, :name, :initiatorGroup, :ended, :archived, :target, :location, :rowCount)",
+                            new MapSqlParameterSource()
+                                    .addValue("rootId", project.getRootId())
+                                    .addValue("name", project.getName())
+                                    .addValue("initiatorGroup", project.getInitiatorGroup())
+                                    .addValue("ended", new Timestamp(project.getEnded().getTime()))
+                                    .addValue("archived", new Timestamp(project.getArchived().getTime()))
+                                    .addValue("target", project.getTarget())
+                                    .addValue("location", project.getLocation())
+                                    .addValue("rowCount", project.getRowCount()));
+    }
+
+    /**
+     * Учёт неудачной попытки переноса; выполняется вне откатившейся транзакции проекта.
+     */
+    public void recordFailure(String rootId,
+                              String error) {
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("rootId", rootId)
+                .addValue("error", error != null && error.length() > 4000 ? error.substring(0, 4000) : error)
+                .addValue("now", new Timestamp(System.currentTimeMillis()));
+        String increment = "UPDATE ARCHIVE_FAILURE SET ATTEMPTS = ATTEMPTS + 1, LAST_ERROR = :error, LAST_ATTEMPT = :now " +
+                "WHERE ROOT_ID = :rootId";
+        if (jdbcTemplate.update(increment, parameters) > 0) {
+            return;
+        }
+        try {
+            jdbcTemplate.update("INSERT INTO ARCHIVE_FAILURE (ROOT_ID, ATTEMPTS, LAST_ERROR, LAST_ATTEMPT) " +
+                                "VALUES (:rootId, 1, :error, :now)", parameters);
+        } catch (DuplicateKeyException e) {
+            // Параллельная реплика успела записать первую неудачу
+            jdbcTemplate.update(increment, parameters);
+        }
+    }
+
+    public Integer failedAttempts(String rootId) {
+        List<Integer> attempts = jdbcTemplate.queryForList("SELECT ATTEMPTS FROM ARCHIVE_FAILURE WHERE ROOT_ID = :rootId",
+                                                           new MapSqlParameterSource("rootId", rootId),
+                                                           Integer.class);
+        return attempts.isEmpty() ? null : attempts.get(0);
+    }
+
+    public void deleteFailure(String rootId) {
+        jdbcTemplate.update("DELETE FROM ARCHIVE_FAILURE WHERE ROOT_ID = :rootId", new MapSqlParameterSource("rootId", rootId));
+    }
+
+    public ArchivedProject findIndex(String rootId) {
+        List<ArchivedProject> found = jdbcTemplate.query("SELECT " + INDEX_COLUMNS + " FROM ARCHIVE_INDEX WHERE ROOT_ID = :rootId",
+                                                         new MapSqlParameterSource("rootId", rootId),
+                                                         INDEX_MAPPER);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public List<ArchivedProject> findIndex(Collection<String> groups,
+                                           int limit,
+                                           long offset) {
+        return jdbcTemplate.query("SELECT " + INDEX_COLUMNS + " FROM ARCHIVE_INDEX WHERE INITIATOR_GROUP IN (:groups) " +
+                                  "ORDER BY ENDED DESC, ROOT_ID LIMIT :limit OFFSET :offset",
+                                  new MapSqlParameterSource()
+                                          .addValue("groups", groups)
+                                          .addValue("limit", limit)
+                                          .addValue("offset", offset),
+                                  INDEX_MAPPER);
+    }
+
+    public long countIndex(Collection<String> groups) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM ARCHIVE_INDEX WHERE INITIATOR_GROUP IN (:groups)",
+                                                 new MapSqlParameterSource("groups", groups),
+                                                 Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * История движка включена, только если есть её таблицы.
+     */
+    public boolean historyAvailable() {
+        try {
+            return (Boolean) JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> {
+                try (ResultSet upper = metaData.getTables(null, null, "ACT_HI_PROCINST", null);
+                     ResultSet lower = metaData.getTables(null, null, "act_hi_procinst", null)) {
+                    return upper.next() || lower.next();
+                }
+            });
+        } catch (MetaDataAccessException e) {
+            return false;
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = databaseProduct;
+        if (product == null) {
+            try {
+                product = (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+            } catch (MetaDataAccessException e) {
+                product = "";
+            }
+            databaseProduct = product;
+        }
+        return product.toLowerCase(Locale.ROOT).contains("postgres");
+    }
+
+    private void ensurePartition(Date ended) {
+        LocalDate from = ended.toInstant().atZone(ZoneId.systemDefault()).toLocalDate().withDayOfMonth(1);
+        String name = String.format("ARCHIVE_HISTORY_%d_%02d", from.getYear(), from.getMonthValue());
+        if (partitions.contains(name)) {
+            return;
+        }
+        jdbcTemplate.getJdbcTemplate().execute("CREATE TABLE IF NOT EXISTS " + name + " PARTITION OF ARCHIVE_HISTORY " +
+                                               "FOR VALUES FROM ('" + from + "') TO ('" + from.plusMonths(1) + "')");
+        // При откате транзакции партиция исчезает вместе с ней, запоминаем её только после фиксации
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    partitions.add(name);
+                }
+            });
+        } else {
+            partitions.add(name);
+        }
+    }
+
+    private void forEachRow(String from,
+                            Collection<String> values,
+                            Consumer<Map<String, Object>> consumer) {
+        ColumnMapRowMapper mapper = new ColumnMapRowMapper();
+        RowCallbackHandler handler = rs -> {
+            Map<String, Object> normalized = new LinkedHashMap<>();
+            mapper.mapRow(rs, rs.getRow()).forEach((name, value) -> normalized.put(name.toUpperCase(Locale.ROOT), value));
+            consumer.accept(normalized);
+        };
+        for (List<String> chunk : chunks(values)) {
+            streamingJdbcTemplate.query("SELECT * " + from, new MapSqlParameterSource("values", chunk), handler);
+        }
+    }
+
+    private void update(String sql,
+                        Collection<String> values) {
+        for (List<String> chunk : chunks(values)) {
+            jdbcTemplate.update(sql, new MapSqlParameterSource("values", chunk));
+        }
+    }
+
+    private static List<List<String>> chunks(Collection<String> values) {
+        List<String> list = new ArrayList<>(values);
+        List<List<String>> chunks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += IN_CHUNK) {
+            chunks.add(list.subList(from, Math.min(from + IN_CHUNK, list.size())));
+        }
+        return chunks;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.archive;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Архивирование по расписанию. При нескольких репликах работает только нулевая,
+ * чтобы реплики не переносили одни и те же проекты.
+ */
+@Component
+@ConditionalOnProperty(prefix = "runtimebundle.archive", name = "enabled", havingValue = "true")
+public class HistoryArchiveScheduler implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(HistoryArchiveScheduler.class);
+
+    private final HistoryArchiveService historyArchiveService;
+
+    private final HistoryArchiveProperties properties;
+
+    private final Environment environment;
+
+    private final ScheduledExecutorService scheduler;
+
+    public HistoryArchiveScheduler(HistoryArchiveService historyArchiveService,
+                                   HistoryArchiveProperties properties,
+                                   Environment environment) {
+        this.historyArchiveService = historyArchiveService;
+        this.properties = properties;
+        this.environment = environment;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "history-archive");
+            thread.setDaemon(true);
+            // Фоновая работа уступает потокам запросов
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if (environment.getProperty("spring.cloud.stream.instanceIndex", Integer.class, 0) != 0) {
+            logger.info("> History archive is scheduled on replica 0 only");
+            return;
+        }
+        scheduler.scheduleWithFixedDelay(this::run,
+                                         properties.getInitialDelay().toMillis(),
+                                         properties.getInterval().toMillis(),
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    private void run() {
+        try {
+            historyArchiveService.runOnce();
+        } catch (RuntimeException e) {
+            logger.warn("> History archive run failed: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,435 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.archive;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.activiti.cloud.runtime.ProjectModels.INITIATOR_GROUP_VARIABLE;
+import static org.activiti.cloud.runtime.ProjectModels.NAME_VARIABLE;
+
+/**
+ * Перенос истории закрытых проектов из ACT_HI_* в архив.
+ * <p>
+ * Проект попадает в архив, когда он завершился через EndEvent_1p6hngi не раньше
+ * {@link HistoryArchiveProperties#getMinAge()} назад и всё его поддерево завершено.
+ * История поддерева (экземпляры, элементы, задачи, переменные, их детали и байтовые
+ * значения, связи и комментарии) потоком пишется в архив и удаляется из таблиц движка
+ * в одной транзакции проекта с записью ARCHIVE_INDEX. Проекты обрабатываются пачками
+ * с паузой между ними; проект, перенос которого не удался
+ * {@link HistoryArchiveProperties#getMaxAttempts()} раз, остаётся в истории движка.
+ * Архив проекта читается целиком в том же формате NDJSON независимо от места хранения.
+ */
+@Service
+public class HistoryArchiveService {
+
+    public static final String TABLE_PROCESSES = "ACT_HI_PROCINST";
+
+    private static final String[][] BY_PROCESS_INSTANCE = {
+            {"ACT_HI_ACTINST", "PROC_INST_ID_"},
+            {"ACT_HI_TASKINST", "PROC_INST_ID_"},
+            {"ACT_HI_VARINST", "PROC_INST_ID_"},
+            {"ACT_HI_DETAIL", "PROC_INST_ID_"},
+            {"ACT_HI_IDENTITYLINK", "PROC_INST_ID_"},
+            {"ACT_HI_COMMENT", "PROC_INST_ID_"}
+    };
+
+    private static final int INSERT_BATCH = 1000;
+
+    private final Logger logger = LoggerFactory.getLogger(HistoryArchiveService.class);
+
+    private final HistoryArchiveRepository repository;
+
+    private final ObjectMapper objectMapper;
+
+    private final SecurityManager securityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final HistoryArchiveProperties properties;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public HistoryArchiveService(HistoryArchiveRepository repository,
+                                 ObjectMapper objectMapper,
+                                 SecurityManager securityManager,
+                                 PlatformTransactionManager transactionManager,
+                                 HistoryArchiveProperties properties) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.securityManager = securityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * Один проход архивирования; параллельный запуск сразу возвращает пустой итог.
+     * Каждый проект переносится в своей транзакции: ошибка откатывает только его,
+     * записывается в ARCHIVE_FAILURE, и проход продолжается со следующего.
+     */
+    public ArchiveRunResult runOnce() {
+        long start = System.currentTimeMillis();
+        if (!repository.historyAvailable() || !running.compareAndSet(false, true)) {
+            return new ArchiveRunResult(0, 0, 0, 0, 0);
+        }
+        int archived = 0;
+        int skipped = 0;
+        int failed = 0;
+        long rows = 0;
+        try {
+            Date cutoff = new Date(start - properties.getMinAge().toMillis());
+            Date afterTime = new Date(0);
+            String afterId = "";
+            int batchSize = Math.max(1, properties.getBatchSize());
+            while (archived < properties.getMaxProjectsPerRun()) {
+                List<Object[]> candidates = repository.closedProjects(cutoff,
+                                                                      afterTime,
+                                                                      afterId,
+                                                                      Math.max(1, properties.getMaxAttempts()),
+                                                                      Math.min(batchSize, properties.getMaxProjectsPerRun() - archived));
+                if (candidates.isEmpty()) {
+                    break;
+                }
+                // Курсор идёт дальше и после неудачных проектов
+                Object[] last = candidates.get(candidates.size() - 1);
+                afterId = (String) last[0];
+                afterTime = (Date) last[1];
+
+                for (Object[] candidate : candidates) {
+                    String rootId = (String) candidate[0];
+                    try {
+                        Long archivedRows = transactionTemplate.execute(status -> archive(rootId, (Date) candidate[1]));
+                        if (archivedRows == null || archivedRows < 0) {
+                            skipped++;
+                        } else {
+                            archived++;
+                            rows += archivedRows;
+                        }
+                    } catch (RuntimeException e) {
+                        failed++;
+                        logger.warn("> Unable to archive project " + rootId, e);
+                        repository.recordFailure(rootId, e.toString());
+                    }
+                }
+                if (!pause()) {
+                    break;
+                }
+            }
+        } finally {
+            running.set(false);
+        }
+        ArchiveRunResult result = new ArchiveRunResult(archived, skipped, failed, rows, System.currentTimeMillis() - start);
+        logger.info("> History archive run: " + result);
+        return result;
+    }
+
+    public Page<ArchivedProject> archivedProjects(Pageable pageable) {
+        List<String> groups = securityManager.getAuthenticatedUserGroups();
+        if (groups == null || groups.isEmpty()) {
+            return new PageImpl<>(Collections.emptyList(), pageable, 0);
+        }
+        return new PageImpl<>(repository.findIndex(groups, pageable.getPageSize(), pageable.getOffset()),
+                              pageable,
+                              repository.countIndex(groups));
+    }
+
+    public ArchivedProject archivedProject(String rootId) {
+        ArchivedProject project = repository.findIndex(rootId);
+        List<String> groups = securityManager.getAuthenticatedUserGroups();
+        if (project == null || groups == null || !groups.contains(project.getInitiatorGroup())) {
+            throw new NotFoundException("Unable to find archived project for the given id:'" + rootId + "'");
+        }
+        return project;
+    }
+
+    /**
+     * Архив проекта в NDJSON: строка на запись {"table": ..., "row": {...}}.
+     */
+    public void read(ArchivedProject project,
+                     OutputStream output) throws IOException {
+        if (HistoryArchiveProperties.Target.FILE.name().equals(project.getTarget())) {
+            try (InputStream input = new GZIPInputStream(Files.newInputStream(Paths.get(project.getLocation())))) {
+                input.transferTo(output);
+            }
+            return;
+        }
+        try (JsonGenerator generator = generator(output)) {
+            repository.archiveRows(project.getRootId(), project.getEnded(), rs -> {
+                try {
+                    writeLine(generator, rs.getString(1), rs.getString(2));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            generator.writeRaw('\n');
+        }
+    }
+
+    /**
+     * Строки поддерева пишутся в архив по мере чтения курсором, в памяти остаются
+     * только идентификаторы экземпляров поддерева.
+     *
+     * @return число перенесённых строк или -1, если поддерево ещё не завершено
+     */
+    private long archive(String rootId,
+                         Date ended) {
+        List<String> subtree = repository.endedSubtree(rootId);
+        if (subtree == null) {
+            return -1;
+        }
+        String[] project = new String[2];
+        long rows;
+        String location;
+        try (ArchiveWriter writer = writer(rootId, ended)) {
+            repository.forEachRow(TABLE_PROCESSES, "ID_", subtree, row -> writer.write(TABLE_PROCESSES, row));
+            for (String[] table : BY_PROCESS_INSTANCE) {
+                repository.forEachRow(table[0], table[1], subtree, row -> {
+                    if ("ACT_HI_VARINST".equals(table[0]) && rootId.equals(row.get("PROC_INST_ID_"))) {
+                        if (NAME_VARIABLE.equals(row.get("NAME_"))) {
+                            project[0] = (String) row.get("TEXT_");
+                        } else if (INITIATOR_GROUP_VARIABLE.equals(row.get("NAME_"))) {
+                            project[1] = (String) row.get("TEXT_");
+                        }
+                    }
+                    writer.write(table[0], row);
+                });
+            }
+            repository.forEachTaskLink(subtree, row -> writer.write("ACT_HI_IDENTITYLINK", row));
+            repository.forEachByteArray(subtree, row -> writer.write("ACT_GE_BYTEARRAY", row));
+            location = writer.finish();
+            rows = writer.rows;
+        }
+
+        repository.deleteTaskLinks(subtree);
+        repository.deleteByteArrays(subtree);
+        for (int i = BY_PROCESS_INSTANCE.length - 1; i >= 0; i--) {
+            repository.delete(BY_PROCESS_INSTANCE[i][0], BY_PROCESS_INSTANCE[i][1], subtree);
+        }
+        repository.delete(TABLE_PROCESSES, "ID_", subtree);
+        repository.deleteFailure(rootId);
+        repository.insertIndex(new ArchivedProject(rootId,
+                                                   project[0],
+                                                   project[1],
+                                                   ended,
+                                                   new Date(),
+                                                   properties.getTarget().name(),
+                                                   location,
+                                                   rows));
+        logger.debug("> Archived project " + rootId + ": " + subtree.size() + " instances, " + rows + " rows");
+        return rows;
+    }
+
+    private ArchiveWriter writer(String rootId,
+                                 Date ended) {
+        if (properties.getTarget() == HistoryArchiveProperties.Target.TABLE) {
+            return new TableArchiveWriter(rootId, ended);
+        }
+        Path file = Paths.get(properties.getDirectory(),
+                              new SimpleDateFormat("yyyy/MM").format(ended),
+                              rootId + ".ndjson.gz");
+        try {
+            return new FileArchiveWriter(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonGenerator generator(OutputStream output) throws IOException {
+        JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+        generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        return generator;
+    }
+
+    private static void writeLine(JsonGenerator generator,
+                                  String table,
+                                  String payload) throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("table", table);
+        generator.writeFieldName("row");
+        generator.writeRawValue(payload);
+        generator.writeEndObject();
+    }
+
+    /**
+     * Приёмник строк архива одного проекта.
+     */
+    private abstract class ArchiveWriter implements AutoCloseable {
+
+        long rows;
+
+        void write(String table,
+                   Map<String, Object> row) {
+            try {
+                append(table, objectMapper.writeValueAsString(row));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            rows++;
+        }
+
+        abstract void append(String table,
+                             String payload) throws IOException;
+
+        /**
+         * @return путь к файлу архива или null для табличного архива
+         */
+        abstract String finish();
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * Строки уходят в ARCHIVE_HISTORY пачками по {@link #INSERT_BATCH}.
+     */
+    private class TableArchiveWriter extends ArchiveWriter {
+
+        private final String rootId;
+
+        private final Date ended;
+
+        private final List<String[]> batch = new ArrayList<>(INSERT_BATCH);
+
+        TableArchiveWriter(String rootId,
+                           Date ended) {
+            this.rootId = rootId;
+            this.ended = ended;
+        }
+
+        @Override
+        void append(String table,
+                    String payload) {
+            batch.add(new String[]{table, payload});
+            if (batch.size() >= INSERT_BATCH) {
+                flush();
+            }
+        }
+
+        @Override
+        String finish() {
+            flush();
+            return null;
+        }
+
+        private void flush() {
+            if (!batch.isEmpty()) {
+                repository.insertArchiveRows(rootId, ended, batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * Сжатый NDJSON во временном файле, который по завершении переименовывается в файл архива.
+     * Файл появляется под своим именем только целиком; откат транзакции оставит его
+     * на месте, и следующая попытка перезапишет его.
+     */
+    private class FileArchiveWriter extends ArchiveWriter {
+
+        private final Path file;
+
+        private final Path temporary;
+
+        private final OutputStream output;
+
+        private final JsonGenerator generator;
+
+        private boolean finished;
+
+        FileArchiveWriter(Path file) throws IOException {
+            this.file = file;
+            Files.createDirectories(file.getParent());
+            this.temporary = file.resolveSibling(file.getFileName() + ".tmp");
+            this.output = new GZIPOutputStream(Files.newOutputStream(temporary));
+            this.generator = generator(output);
+        }
+
+        @Override
+        void append(String table,
+                    String payload) throws IOException {
+            writeLine(generator, table, payload);
+        }
+
+        @Override
+        String finish() {
+            try {
+                generator.writeRaw('\n');
+                generator.close();
+                output.close();
+                finished = true;
+                Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return file.toString();
+        }
+
+        @Override
+        public void close() {
+            if (finished) {
+                return;
+            }
+            try {
+                generator.close();
+                output.close();
+                Files.deleteIfExists(temporary);
+            } catch (IOException e) {
+                logger.warn("> Unable to remove " + temporary, e);
+            }
+        }
+    }
+
+    private boolean pause() {
+        try {
+            Thread.sleep(properties.getPause().toMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
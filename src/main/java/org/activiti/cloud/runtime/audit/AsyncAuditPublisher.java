@@ -0,0 +1,294 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.integration.config.GlobalChannelInterceptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Асинхронная пакетная публикация событий аудита.
+ * <p>
+ * Перехватывает сообщения, которые движок отправляет в auditProducer после фиксации
+ * команды, и складывает их в ограниченную очередь. Фоновый поток собирает до
+ * maxBatchSize сообщений (или сколько успело прийти за linger) и отправляет их
+ * сообщениями с объединёнными массивами событий. Объединяются только сообщения с
+ * одинаковыми заголовками (маршрутизация, приложение, бизнес-ключ, экземпляр процесса),
+ * поэтому каждое событие уходит со своими заголовками. При переполненной очереди отправитель
+ * ждёт offerTimeout, после чего публикует сообщение сам - события не теряются.
+ */
+@Component
+@GlobalChannelInterceptor(patterns = AsyncAuditPublisher.AUDIT_PRODUCER)
+@ConditionalOnProperty(prefix = "runtimebundle.audit.async", name = "enabled", havingValue = "true")
+public class AsyncAuditPublisher implements ChannelInterceptor, SmartLifecycle {
+
+    public static final String AUDIT_PRODUCER = "auditProducer";
+
+    public static final String BATCH_HEADER = "runtimeBundleAuditBatch";
+
+    /**
+     * Заголовки, которые различаются у каждого сообщения и не влияют на доставку.
+     */
+    private static final Set<String> MESSAGE_HEADERS = Set.of(MessageHeaders.ID,
+                                                              MessageHeaders.TIMESTAMP,
+                                                              MessageHeaders.CONTENT_TYPE,
+                                                              BATCH_HEADER);
+
+    private final Logger logger = LoggerFactory.getLogger(AsyncAuditPublisher.class);
+
+    private final AsyncAuditProperties properties;
+
+    private final ObjectMapper objectMapper;
+
+    private final BlockingQueue<PendingMessage> queue;
+
+    private final Timer publishLag;
+
+    private final DistributionSummary batchSize;
+
+    private final Counter published;
+
+    private final Counter inlinePublished;
+
+    private final Counter failed;
+
+    private volatile boolean running;
+
+    private volatile MessageChannel channel;
+
+    private Thread drainer;
+
+    public AsyncAuditPublisher(AsyncAuditProperties properties,
+                               ObjectMapper objectMapper,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.objectMapper = objectMapper;
+        this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+        meterRegistry.gauge("runtimebundle.audit.queue.depth", queue, BlockingQueue::size);
+        this.publishLag = meterRegistry.timer("runtimebundle.audit.publish.lag");
+        this.batchSize = meterRegistry.summary("runtimebundle.audit.batch.size");
+        this.published = meterRegistry.counter("runtimebundle.audit.messages", "mode", "batched");
+        this.inlinePublished = meterRegistry.counter("runtimebundle.audit.messages", "mode", "inline");
+        this.failed = meterRegistry.counter("runtimebundle.audit.messages", "mode", "failed");
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message,
+                              MessageChannel channel) {
+        if (!running || message.getHeaders().containsKey(BATCH_HEADER)) {
+            return message;
+        }
+        this.channel = channel;
+        try {
+            if (queue.offer(new PendingMessage(message), properties.getOfferTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                return null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Очередь переполнена: публикуем в потоке запроса
+        inlinePublished.increment();
+        return message;
+    }
+
+    @Override
+    public void start() {
+        running = true;
+        drainer = new Thread(this::drainLoop, "audit-publisher");
+        drainer.setDaemon(true);
+        drainer.start();
+    }
+
+    @Override
+    public void stop() {
+        // Новые сообщения отправляются синхронно, остаток очереди дописывается
+        running = false;
+        try {
+            drainer.join(properties.getShutdownTimeout().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            logger.warn("> Audit publisher stopped with " + queue.size() + " unsent messages");
+        }
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Останавливается раньше выходных каналов, чтобы успеть отправить остаток очереди.
+     */
+    @Override
+    public int getPhase() {
+        return 0;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    private void drainLoop() {
+        List<PendingMessage> batch = new ArrayList<>(properties.getMaxBatchSize());
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingMessage first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + properties.getLinger().toNanos();
+                while (batch.size() < properties.getMaxBatchSize()) {
+                    long wait = deadline - System.nanoTime();
+                    PendingMessage next = wait > 0 && running ? queue.poll(wait, TimeUnit.NANOSECONDS) : queue.poll();
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+                publish(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                logger.error("> Unable to publish audit batch", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void publish(List<PendingMessage> batch) {
+        for (List<PendingMessage> group : byHeaders(batch)) {
+            publishGroup(group);
+        }
+    }
+
+    /**
+     * Разбиение пакета на группы с одинаковыми заголовками; порядок событий внутри группы сохраняется.
+     */
+    private static Collection<List<PendingMessage>> byHeaders(List<PendingMessage> batch) {
+        Map<Map<String, Object>, List<PendingMessage>> groups = new LinkedHashMap<>();
+        for (PendingMessage pending : batch) {
+            Map<String, Object> headers = new HashMap<>(pending.message.getHeaders());
+            headers.keySet().removeAll(MESSAGE_HEADERS);
+            groups.computeIfAbsent(headers, key -> new ArrayList<>()).add(pending);
+        }
+        return groups.values();
+    }
+
+    private void publishGroup(List<PendingMessage> batch) {
+        long oldest = batch.get(0).enqueuedNanos;
+        Message<?> message;
+        try {
+            message = merge(batch);
+        } catch (IOException e) {
+            // Непредвиденный формат: отправляем исходные сообщения по одному
+            logger.warn("> Unable to merge audit messages, sending one by one", e);
+            for (PendingMessage pending : batch) {
+                send(MessageBuilder.fromMessage(pending.message).setHeader(BATCH_HEADER, false).build(), 1);
+            }
+            publishLag.record(System.nanoTime() - oldest, TimeUnit.NANOSECONDS);
+            return;
+        }
+        send(message, batch.size());
+        batchSize.record(batch.size());
+        publishLag.record(System.nanoTime() - oldest, TimeUnit.NANOSECONDS);
+    }
+
+    private void send(Message<?> message,
+                      int sources) {
+        for (int attempt = 1; attempt <= properties.getMaxAttempts(); attempt++) {
+            try {
+                channel.send(message);
+                published.increment(sources);
+                return;
+            } catch (RuntimeException e) {
+                logger.warn("> Audit publish attempt " + attempt + " failed", e);
+            }
+        }
+        failed.increment(sources);
+    }
+
+    private Message<byte[]> merge(List<PendingMessage> batch) throws IOException {
+        ArrayNode events = objectMapper.createArrayNode();
+        for (PendingMessage pending : batch) {
+            JsonNode node = toJson(pending.message.getPayload());
+            if (node.isArray()) {
+                events.addAll((ArrayNode) node);
+            } else {
+                events.add(node);
+            }
+        }
+        // Заголовки у всех сообщений группы одинаковые
+        return MessageBuilder.withPayload(objectMapper.writeValueAsBytes(events))
+                .copyHeaders(batch.get(0).message.getHeaders())
+                .setHeader(MessageHeaders.CONTENT_TYPE, MimeTypeUtils.APPLICATION_JSON_VALUE)
+                .setHeader(BATCH_HEADER, true)
+                .build();
+    }
+
+    private JsonNode toJson(Object payload) throws IOException {
+        if (payload instanceof byte[]) {
+            return objectMapper.readTree((byte[]) payload);
+        }
+        if (payload instanceof String) {
+            return objectMapper.readTree((String) payload);
+        }
+        return objectMapper.valueToTree(payload);
+    }
+
+    private static class PendingMessage {
+
+        private final Message<?> message;
+
+        private final long enqueuedNanos = System.nanoTime();
+
+        private PendingMessage(Message<?> message) {
+            this.message = message;
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.bulk;
+
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/v1/process-instances/{processInstanceId}/bulk-creations")
+public class BulkCreationController {
+
+    private final BulkCreationService bulkCreationService;
+
+    private final CreationQueueService creationQueueService;
+
+    public BulkCreationController(BulkCreationService bulkCreationService,
+                                  CreationQueueService creationQueueService) {
+        this.bulkCreationService = bulkCreationService;
+        this.creationQueueService = creationQueueService;
+    }
+
+    @PostMapping
+    public BulkCreationResult create(@PathVariable String processInstanceId,
+                                     @RequestBody List<CreationEntry> entries) {
+        return bulkCreationService.create(processInstanceId,
+                                          entries);
+    }
+
+    /**
+     * Создание одного элемента через очередь проекта; ответ приходит после фиксации его пачки.
+     */
+    @PostMapping("/queued")
+    public CompletableFuture<CreationResult> createQueued(@PathVariable String processInstanceId,
+                                                          @RequestBody CreationEntry entry) {
+        return creationQueueService.submit(processInstanceId,
+                                           entry);
+    }
+}
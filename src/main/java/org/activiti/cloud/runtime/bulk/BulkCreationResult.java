@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.bulk;
+
+/**
+ * Итог пакетного создания элементов в проекте или подпроекте.
+ */
+public class BulkCreationResult {
+
+    private final String processInstanceId;
+
+    private final int created;
+
+    private final int chunks;
+
+    private final long elapsedMillis;
+
+    public BulkCreationResult(String processInstanceId,
+                              int created,
+                              int chunks,
+                              long elapsedMillis) {
+        this.processInstanceId = processInstanceId;
+        this.created = created;
+        this.chunks = chunks;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public int getCreated() {
+        return created;
+    }
+
+    public int getChunks() {
+        return chunks;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "BulkCreationResult{processInstanceId='" + processInstanceId + "', created=" + created +
+                ", chunks=" + chunks + ", elapsedMillis=" + elapsedMillis + "}";
+    }
+}
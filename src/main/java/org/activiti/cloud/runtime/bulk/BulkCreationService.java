@@ -0,0 +1,184 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.bulk;
+
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.activiti.cloud.runtime.ProjectModels.CREATION_NAME_VARIABLE;
+import static org.activiti.cloud.runtime.ProjectModels.CREATION_TYPE_FILE;
+import static org.activiti.cloud.runtime.ProjectModels.CREATION_TYPE_SUBPROJECT;
+import static org.activiti.cloud.runtime.ProjectModels.CREATION_TYPE_VARIABLE;
+import static org.activiti.cloud.runtime.ProjectModels.PROJECT_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ProjectModels.creationTaskKey;
+
+/**
+ * Пакетное создание файлов и подпроектов.
+ * <p>
+ * Вместо цикла claim - setVariables - complete на каждый элемент
+ * задача "Создать" выполняется движком напрямую, по {@link BulkCreationProperties#getChunkSize()}
+ * элементов в одной транзакции. Дочерние процессы по-прежнему порождаются call activity
+ * модели, поэтому связи родитель-потомок и входные маппинги из *-extensions.json сохраняются.
+ */
+@Service
+public class BulkCreationService {
+
+    private final Logger logger = LoggerFactory.getLogger(BulkCreationService.class);
+
+    private final RuntimeService runtimeService;
+
+    private final TaskService taskService;
+
+    private final TaskRuntime taskRuntime;
+
+    private final SecurityManager securityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final BulkCreationProperties properties;
+
+    public BulkCreationService(RuntimeService runtimeService,
+                               TaskService taskService,
+                               TaskRuntime taskRuntime,
+                               SecurityManager securityManager,
+                               PlatformTransactionManager transactionManager,
+                               BulkCreationProperties properties) {
+        this.runtimeService = runtimeService;
+        this.taskService = taskService;
+        this.taskRuntime = taskRuntime;
+        this.securityManager = securityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    public BulkCreationResult create(String processInstanceId,
+                                     List<CreationEntry> entries) {
+        long start = System.currentTimeMillis();
+
+        String processDefinitionKey = checkAccess(processInstanceId);
+        String taskKey = creationTaskKey(processDefinitionKey);
+        validate(processDefinitionKey, entries);
+        String userId = securityManager.getAuthenticatedUserId();
+        boolean typed = PROJECT_MODEL_DEFINITION_KEY.equals(processDefinitionKey);
+
+        int chunkSize = Math.max(1, properties.getChunkSize());
+        int chunks = 0;
+        for (int from = 0; from < entries.size(); from += chunkSize) {
+            List<CreationEntry> chunk = entries.subList(from, Math.min(from + chunkSize, entries.size()));
+            transactionTemplate.executeWithoutResult(status -> {
+                for (CreationEntry entry : chunk) {
+                    createOne(processInstanceId, taskKey, userId, entry, typed);
+                }
+            });
+            chunks++;
+            logger.debug("> Bulk creation chunk " + chunks + " committed for " + processInstanceId);
+        }
+
+        BulkCreationResult result = new BulkCreationResult(processInstanceId,
+                entries.size(),
+                chunks,
+                System.currentTimeMillis() - start);
+        logger.info("> " + result);
+        return result;
+    }
+
+    /**
+     * Проверка того, что элемент умеет создавать потомков и текущий пользователь видит
+     * его задачу "Создать". Возвращает ключ модели элемента.
+     */
+    String checkAccess(String processInstanceId) {
+        ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
+                .processInstanceId(processInstanceId)
+                .singleResult();
+        if (processInstance == null) {
+            throw new NotFoundException("Unable to find process instance for the given id:'" + processInstanceId + "'");
+        }
+        String processDefinitionKey = processInstance.getProcessDefinitionKey();
+        String taskKey = creationTaskKey(processDefinitionKey);
+        if (taskKey == null) {
+            throw new IllegalArgumentException("Process instance '" + processInstanceId +
+                    "' of '" + processDefinitionKey + "' can't contain nested elements");
+        }
+        taskRuntime.task(creationTask(processInstanceId, taskKey).getId());
+        return processDefinitionKey;
+    }
+
+    void createOne(String processInstanceId,
+                           String taskKey,
+                           String userId,
+                           CreationEntry entry,
+                           boolean typed) {
+        // После выполнения модель сразу возвращается к новой задаче "Создать"
+        Task task = creationTask(processInstanceId, taskKey);
+        taskService.claim(task.getId(), userId);
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put(CREATION_NAME_VARIABLE, entry.getName());
+        if (typed) {
+            variables.put(CREATION_TYPE_VARIABLE, entry.getType());
+        }
+        taskService.complete(task.getId(), variables);
+    }
+
+    private Task creationTask(String processInstanceId,
+                              String taskKey) {
+        Task task = taskService.createTaskQuery()
+                .processInstanceId(processInstanceId)
+                .taskDefinitionKey(taskKey)
+                .singleResult();
+        if (task == null) {
+            throw new IllegalStateException("Process instance '" + processInstanceId +
+                    "' has no open '" + taskKey + "' task");
+        }
+        return task;
+    }
+
+    void validate(String processDefinitionKey,
+                          List<CreationEntry> entries) {
+        if (entries == null || entries.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to create");
+        }
+        if (entries.size() > properties.getMaxEntries()) {
+            throw new IllegalArgumentException("Too many entries: " + entries.size() +
+                    ", max is " + properties.getMaxEntries());
+        }
+        boolean typed = PROJECT_MODEL_DEFINITION_KEY.equals(processDefinitionKey);
+        for (CreationEntry entry : entries) {
+            if (entry.getName() == null || entry.getName().isEmpty()) {
+                throw new IllegalArgumentException("Entry name is required: " + entry);
+            }
+            String type = entry.getType() == null ? CREATION_TYPE_FILE : entry.getType();
+            entry.setType(type);
+            if (!CREATION_TYPE_FILE.equals(type) && !(typed && CREATION_TYPE_SUBPROJECT.equals(type))) {
+                throw new IllegalArgumentException("Unsupported entry type for " + processDefinitionKey + ": " + entry);
+            }
+        }
+    }
+}
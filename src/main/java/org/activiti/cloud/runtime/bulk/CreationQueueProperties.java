@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.bulk;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("runtimebundle.creation-queue")
+public class CreationQueueProperties {
+
+    /**
+     * Максимум запросов одного проекта, применяемых в одной транзакции.
+     */
+    private int batchSize = 50;
+
+    /**
+     * Потоки, разбирающие очереди; один проект в каждый момент разбирает только один поток.
+     */
+    private int workers = 4;
+
+    /**
+     * Предел ожидающих запросов на проект, сверх которого запросы отклоняются.
+     */
+    private int maxQueued = 10000;
+
+    /**
+     * Сколько запрос может ждать в очереди; запрос, уже взятый в пачку, дожидается её фиксации.
+     */
+    private Duration timeout = Duration.ofSeconds(30);
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public void setWorkers(int workers) {
+        this.workers = workers;
+    }
+
+    public int getMaxQueued() {
+        return maxQueued;
+    }
+
+    public void setMaxQueued(int maxQueued) {
+        this.maxQueued = maxQueued;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
@@ -0,0 +1,274 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.bulk;
+
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.cloud.runtime.importer.ProcessStartCapture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.activiti.cloud.runtime.ProjectModels.PROJECT_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ProjectModels.creationTaskKey;
+
+/**
+ * Очередь создания элементов на проект.
+ * <p>
+ * У проекта одна открытая задача "Создать", которая возвращается после каждого создания,
+ * поэтому одновременные claim - complete разных пользователей конфликтуют на ней.
+ * Здесь запросы только ставятся в очередь своего проекта, а применяет их один поток
+ * за раз, пачками до {@link CreationQueueProperties#getBatchSize()} в одной транзакции.
+ * Каждый запрос получает свой результат; если пачка падает, её запросы повторяются
+ * по одному, и ошибка достаётся только виновнику.
+ * <p>
+ * Тайм-аут ограничивает только ожидание в очереди: истёкший запрос снимается с очереди
+ * и не применяется, а взятый в пачку дожидается её фиксации. Очередь проекта удаляется
+ * из карты, только когда пуста и не разбирается.
+ * <p>
+ * Очередь живёт в памяти экземпляра бандла: запросы к одному проекту на разных
+ * репликах по-прежнему сходятся на оптимистичной блокировке движка.
+ */
+@Service
+public class CreationQueueService implements DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(CreationQueueService.class);
+
+    private final BulkCreationService bulkCreationService;
+
+    private final SecurityManager securityManager;
+
+    private final ProcessStartCapture processStartCapture;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CreationQueueProperties properties;
+
+    private final ExecutorService executor;
+
+    private final Map<String, ProjectQueue> queues = new ConcurrentHashMap<>();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    public CreationQueueService(BulkCreationService bulkCreationService,
+                                SecurityManager securityManager,
+                                ProcessStartCapture processStartCapture,
+                                PlatformTransactionManager transactionManager,
+                                CreationQueueProperties properties) {
+        this.bulkCreationService = bulkCreationService;
+        this.securityManager = securityManager;
+        this.processStartCapture = processStartCapture;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getWorkers()), runnable -> {
+            Thread thread = new Thread(runnable, "creation-queue-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Постановка запроса в очередь проекта. Права проверяются сразу, в потоке запроса.
+     */
+    public CompletableFuture<CreationResult> submit(String processInstanceId,
+                                                    CreationEntry entry) {
+        String processDefinitionKey = bulkCreationService.checkAccess(processInstanceId);
+        bulkCreationService.validate(processDefinitionKey, Collections.singletonList(entry));
+
+        PendingCreation pending = new PendingCreation(entry, securityManager.getAuthenticatedUserId());
+        // Постановка под блокировкой ключа: освобождение пустой очереди не может её обогнать
+        ProjectQueue queue = queues.compute(processInstanceId, (id, current) -> {
+            ProjectQueue owner = current != null ? current : new ProjectQueue(id, processDefinitionKey);
+            if (owner.size.get() >= properties.getMaxQueued()) {
+                throw new IllegalStateException("Too many pending creations for process instance '" + processInstanceId + "'");
+            }
+            owner.size.incrementAndGet();
+            owner.pending.add(pending);
+            return owner;
+        });
+        schedule(queue);
+        CompletableFuture.delayedExecutor(properties.getTimeout().toMillis(), TimeUnit.MILLISECONDS)
+                .execute(() -> expire(queue, pending));
+        return pending.result;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private void schedule(ProjectQueue queue) {
+        if (queue.draining.compareAndSet(false, true)) {
+            executor.execute(() -> drain(queue));
+        }
+    }
+
+    private void drain(ProjectQueue queue) {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        try {
+            List<PendingCreation> batch = new ArrayList<>(batchSize);
+            PendingCreation next;
+            while ((next = queue.pending.poll()) != null) {
+                queue.size.decrementAndGet();
+                // Запрос, чьё ожидание уже истекло, в пачку не берётся
+                if (next.state.compareAndSet(PendingCreation.QUEUED, PendingCreation.APPLYING)) {
+                    batch.add(next);
+                }
+                if (!batch.isEmpty() && (batch.size() >= batchSize || queue.pending.isEmpty())) {
+                    apply(queue, batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+        } finally {
+            queue.draining.set(false);
+        }
+        // Запрос мог прийти между последним poll и снятием флага
+        if (!queue.pending.isEmpty()) {
+            schedule(queue);
+        } else {
+            release(queue);
+        }
+    }
+
+    /**
+     * Тайм-аут ожидания: запрос, ещё не взятый в пачку, снимается с очереди и не будет применён.
+     */
+    private void expire(ProjectQueue queue,
+                        PendingCreation pending) {
+        if (pending.state.compareAndSet(PendingCreation.QUEUED, PendingCreation.EXPIRED)) {
+            if (queue.pending.remove(pending)) {
+                queue.size.decrementAndGet();
+            }
+            pending.result.completeExceptionally(new TimeoutException("Creation of '" + pending.entry.getName() +
+                                                                              "' was not started within " + properties.getTimeout()));
+            release(queue);
+        }
+    }
+
+    /**
+     * Удаление пустой и не разбираемой очереди; постановка в неё идёт под той же блокировкой ключа.
+     */
+    private void release(ProjectQueue queue) {
+        queues.computeIfPresent(queue.processInstanceId,
+                                (id, current) -> current == queue && current.pending.isEmpty() && !current.draining.get() ? null : current);
+    }
+
+    private void apply(ProjectQueue queue,
+                       List<PendingCreation> live) {
+        long number = batches.incrementAndGet();
+        try {
+            List<CreationResult> results = transactionTemplate.execute(status -> {
+                List<CreationResult> created = new ArrayList<>(live.size());
+                for (PendingCreation pending : live) {
+                    created.add(createOne(queue, pending, number));
+                }
+                return created;
+            });
+            for (int i = 0; i < live.size(); i++) {
+                live.get(i).result.complete(results.get(i));
+            }
+            logger.debug("> Creation batch " + number + " of " + live.size() + " committed for " + queue.processInstanceId);
+        } catch (RuntimeException e) {
+            if (live.size() == 1) {
+                live.get(0).result.completeExceptionally(e);
+                return;
+            }
+            logger.warn("> Creation batch " + number + " for " + queue.processInstanceId + " failed, retrying one by one: " + e.getMessage());
+            for (PendingCreation pending : live) {
+                apply(queue, Collections.singletonList(pending));
+            }
+        }
+    }
+
+    private CreationResult createOne(ProjectQueue queue,
+                                     PendingCreation pending,
+                                     long number) {
+        boolean typed = PROJECT_MODEL_DEFINITION_KEY.equals(queue.processDefinitionKey);
+        processStartCapture.begin(queue.processInstanceId);
+        String childId;
+        try {
+            bulkCreationService.createOne(queue.processInstanceId,
+                                          creationTaskKey(queue.processDefinitionKey),
+                                          pending.userId,
+                                          pending.entry,
+                                          typed);
+        } finally {
+            childId = processStartCapture.end();
+        }
+        return new CreationResult(pending.entry.getName(), pending.entry.getType(), childId, number);
+    }
+
+    private static class ProjectQueue {
+
+        private final String processInstanceId;
+
+        private final String processDefinitionKey;
+
+        private final Queue<PendingCreation> pending = new ConcurrentLinkedQueue<>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        private ProjectQueue(String processInstanceId,
+                             String processDefinitionKey) {
+            this.processInstanceId = processInstanceId;
+            this.processDefinitionKey = processDefinitionKey;
+        }
+    }
+
+    private static class PendingCreation {
+
+        private static final int QUEUED = 0;
+
+        private static final int APPLYING = 1;
+
+        private static final int EXPIRED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private final CreationEntry entry;
+
+        private final String userId;
+
+        private final CompletableFuture<CreationResult> result = new CompletableFuture<>();
+
+        private PendingCreation(CreationEntry entry,
+                                String userId) {
+            this.entry = entry;
+            this.userId = userId;
+        }
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.bulk;
+
+/**
+ * Итог одного запроса из очереди создания: созданный дочерний экземпляр и номер пакета.
+ */
+public class CreationResult {
+
+    private final String name;
+
+    private final String type;
+
+    private final String processInstanceId;
+
+    private final long batch;
+
+    public CreationResult(String name,
+                          String type,
+                          String processInstanceId,
+                          long batch) {
+        this.name = name;
+        this.type = type;
+        this.processInstanceId = processInstanceId;
+        this.batch = batch;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Id дочернего экземпляра; null, если подпроект запускается асинхронно.
+     */
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public long getBatch() {
+        return batch;
+    }
+
+    @Override
+    public String toString() {
+        return "CreationResult{name='" + name + "', type='" + type + "', processInstanceId='" + processInstanceId +
+                "', batch=" + batch + "}";
+    }
+}
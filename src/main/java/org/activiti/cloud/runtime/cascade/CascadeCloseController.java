@@ -0,0 +1,44 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.cascade;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class CascadeCloseController {
+
+    private final CascadeCloseService cascadeCloseService;
+
+    public CascadeCloseController(CascadeCloseService cascadeCloseService) {
+        this.cascadeCloseService = cascadeCloseService;
+    }
+
+    @PostMapping("/v1/process-instances/{processInstanceId}/cascade-close")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public CascadeCloseProgress start(@PathVariable String processInstanceId) {
+        return cascadeCloseService.start(processInstanceId);
+    }
+
+    @GetMapping("/v1/cascade-closes/{id}")
+    public CascadeCloseProgress progress(@PathVariable String id) {
+        return cascadeCloseService.progress(id);
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.cascade;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Прогресс каскадного закрытия проекта: total - узлов поддерева на старте (включая корень).
+ */
+public class CascadeCloseProgress {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+
+    private final String processInstanceId;
+
+    private final long total;
+
+    private final Date startedDate;
+
+    private final AtomicLong closed = new AtomicLong();
+
+    private final AtomicLong batches = new AtomicLong();
+
+    private volatile State state = State.RUNNING;
+
+    private volatile Date finishedDate;
+
+    private volatile String error;
+
+    public CascadeCloseProgress(String id,
+                                String processInstanceId,
+                                long total) {
+        this(id, processInstanceId, total, 0, 0, State.RUNNING, new Date(), null, null);
+    }
+
+    CascadeCloseProgress(String id,
+                         String processInstanceId,
+                         long total,
+                         long closed,
+                         long batches,
+                         State state,
+                         Date startedDate,
+                         Date finishedDate,
+                         String error) {
+        this.id = id;
+        this.processInstanceId = processInstanceId;
+        this.total = total;
+        this.closed.set(closed);
+        this.batches.set(batches);
+        this.state = state;
+        this.startedDate = startedDate;
+        this.finishedDate = finishedDate;
+        this.error = error;
+    }
+
+    void batchClosed(int size) {
+        closed.addAndGet(size);
+        batches.incrementAndGet();
+    }
+
+    void completed() {
+        finishedDate = new Date();
+        state = State.COMPLETED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finishedDate = new Date();
+        state = State.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getClosed() {
+        return closed.get();
+    }
+
+    public long getBatches() {
+        return batches.get();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Date getStartedDate() {
+        return startedDate;
+    }
+
+    public Date getFinishedDate() {
+        return finishedDate;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "CascadeCloseProgress{" +
+                "id='" + id + '\'' +
+                ", processInstanceId='" + processInstanceId + '\'' +
+                ", total=" + total +
+                ", closed=" + closed +
+                ", batches=" + batches +
+                ", state=" + state +
+                '}';
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.cascade;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Прогресс каскадных закрытий в CASCADE_CLOSE: операцию выполняет одна реплика,
+ * а статус виден с любой.
+ */
+@Repository
+public class CascadeCloseRepository {
+
+    private static final int ERROR_LENGTH = 4000;
+
+    private static final RowMapper<CascadeCloseProgress> PROGRESS = (rs, rowNum) -> new CascadeCloseProgress(
+            rs.getString("ID"),
+            rs.getString("PROCESS_INSTANCE_ID"),
+            rs.getLong("TOTAL"),
+            rs.getLong("CLOSED"),
+            rs.getLong("BATCHES"),
+            CascadeCloseProgress.State.valueOf(rs.getString("STATE")),
+            rs.getTimestamp("STARTED_TIME"),
+            rs.getTimestamp("FINISHED_TIME"),
+            rs.getString("ERROR"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CascadeCloseRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(CascadeCloseProgress progress) {
+        jdbcTemplate.update("INSERT INTO CASCADE_CLOSE (ID, PROCESS_INSTANCE_ID, TOTAL, CLOSED, BATCHES, STATE, STARTED_TIME) " +
+                                    "VALUES (?, ?, ?, ?, ?, ?, ?)",
+                            progress.getId(),
+                            progress.getProcessInstanceId(),
+                            progress.getTotal(),
+                            progress.getClosed(),
+                            progress.getBatches(),
+                            progress.getState().name(),
+                            timestamp(progress.getStartedDate()));
+    }
+
+    public void update(CascadeCloseProgress progress) {
+        jdbcTemplate.update("UPDATE CASCADE_CLOSE SET CLOSED = ?, BATCHES = ?, STATE = ?, FINISHED_TIME = ?, ERROR = ? WHERE ID = ?",
+                            progress.getClosed(),
+                            progress.getBatches(),
+                            progress.getState().name(),
+                            timestamp(progress.getFinishedDate()),
+                            error(progress.getError()),
+                            progress.getId());
+    }
+
+    public CascadeCloseProgress find(String id) {
+        List<CascadeCloseProgress> found = jdbcTemplate.query("SELECT * FROM CASCADE_CLOSE WHERE ID = ?",
+                                                              PROGRESS,
+                                                              id);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public int deleteFinishedBefore(Date finishedBefore) {
+        return jdbcTemplate.update("DELETE FROM CASCADE_CLOSE WHERE FINISHED_TIME < ?",
+                                   timestamp(finishedBefore));
+    }
+
+    private static String error(String error) {
+        return error == null || error.length() <= ERROR_LENGTH ? error : error.substring(0, ERROR_LENGTH);
+    }
+
+    private static Timestamp timestamp(Date date) {
+        return date == null ? null : new Timestamp(date.getTime());
+    }
+}
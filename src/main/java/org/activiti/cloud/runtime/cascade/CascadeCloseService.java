@@ -0,0 +1,221 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.cascade;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.runtime.ProcessAdminRuntime;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.core.common.spring.security.policies.ActivitiForbiddenException;
+import org.activiti.core.common.spring.security.policies.ProcessSecurityPoliciesManager;
+import org.activiti.cloud.runtime.files.FileRecordRepository;
+import org.activiti.cloud.runtime.tree.ProjectTreeRepository;
+import org.activiti.engine.RuntimeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Каскадное закрытие проекта со всем поддеревом.
+ * <p>
+ * Потомки берутся из индекса PROJECT_TREE самыми глубокими первыми и удаляются
+ * пачками по {@link CascadeCloseProperties#getBatchSize()} в отдельных транзакциях,
+ * поэтому закрытие проекта с десятками тысяч файлов не держит одну большую транзакцию.
+ * Узлы уходят из индекса тем же слушателем отмены процесса. Корень удаляется последним:
+ * к этому моменту в нём остаются только ожидающие call activity без дочерних процессов.
+ * <p>
+ * Закрытие требует тех же прав, что и удаление процесса через {@link ProcessRuntime}:
+ * доступ к экземпляру и право записи по политикам безопасности; администратору -
+ * без ограничений. Прогресс хранится в CASCADE_CLOSE и доступен с любой реплики.
+ */
+@Service
+public class CascadeCloseService implements DisposableBean {
+
+    public static final String DELETE_REASON = "cascade-close";
+
+    private static final String ADMIN_ROLE = "ACTIVITI_ADMIN";
+
+    private final Logger logger = LoggerFactory.getLogger(CascadeCloseService.class);
+
+    private final ProjectTreeRepository projectTreeRepository;
+
+    private final ObjectProvider<FileRecordRepository> fileRecordRepository;
+
+    private final RuntimeService runtimeService;
+
+    private final ProcessRuntime processRuntime;
+
+    private final ProcessAdminRuntime processAdminRuntime;
+
+    private final ProcessSecurityPoliciesManager securityPoliciesManager;
+
+    private final SecurityManager securityManager;
+
+    private final CascadeCloseRepository cascadeCloseRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CascadeCloseProperties properties;
+
+    private final ExecutorService executor;
+
+    public CascadeCloseService(ProjectTreeRepository projectTreeRepository,
+                               ObjectProvider<FileRecordRepository> fileRecordRepository,
+                               RuntimeService runtimeService,
+                               ProcessRuntime processRuntime,
+                               ProcessAdminRuntime processAdminRuntime,
+                               ProcessSecurityPoliciesManager securityPoliciesManager,
+                               SecurityManager securityManager,
+                               CascadeCloseRepository cascadeCloseRepository,
+                               PlatformTransactionManager transactionManager,
+                               CascadeCloseProperties properties) {
+        this.projectTreeRepository = projectTreeRepository;
+        this.fileRecordRepository = fileRecordRepository;
+        this.runtimeService = runtimeService;
+        this.processRuntime = processRuntime;
+        this.processAdminRuntime = processAdminRuntime;
+        this.securityPoliciesManager = securityPoliciesManager;
+        this.securityManager = securityManager;
+        this.cascadeCloseRepository = cascadeCloseRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        AtomicInteger threads = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, properties.getConcurrency()), runnable -> {
+            Thread thread = new Thread(runnable, "cascade-close-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Запуск закрытия в фоне; прогресс доступен через {@link #progress(String)}.
+     */
+    public CascadeCloseProgress start(String processInstanceId) {
+        CascadeCloseProgress started = prepare(processInstanceId);
+        executor.execute(() -> run(started));
+        return started;
+    }
+
+    /**
+     * Закрытие в текущем потоке.
+     */
+    public CascadeCloseProgress close(String processInstanceId) {
+        CascadeCloseProgress started = prepare(processInstanceId);
+        run(started);
+        return started;
+    }
+
+    public CascadeCloseProgress progress(String id) {
+        CascadeCloseProgress found = cascadeCloseRepository.find(id);
+        if (found == null) {
+            throw new NotFoundException("Unable to find cascade close for the given id:'" + id + "'");
+        }
+        return found;
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    private CascadeCloseProgress prepare(String processInstanceId) {
+        checkCanDelete(processInstanceId);
+        long descendants = projectTreeRepository.countByType(processInstanceId).values().stream()
+                .mapToLong(Long::longValue)
+                .sum();
+        CascadeCloseProgress started = new CascadeCloseProgress(UUID.randomUUID().toString(),
+                                                                processInstanceId,
+                                                                descendants + 1);
+        cascadeCloseRepository.deleteFinishedBefore(new Date(System.currentTimeMillis() - properties.getRetention().toMillis()));
+        cascadeCloseRepository.insert(started);
+        return started;
+    }
+
+    /**
+     * Проверка как в ProcessRuntime.delete: NotFoundException, если экземпляр недоступен,
+     * ActivitiForbiddenException без права записи по определению процесса.
+     */
+    private void checkCanDelete(String processInstanceId) {
+        if (securityManager.getAuthenticatedUserRoles().contains(ADMIN_ROLE)) {
+            processAdminRuntime.processInstance(processInstanceId);
+            return;
+        }
+        ProcessInstance processInstance = processRuntime.processInstance(processInstanceId);
+        if (!securityPoliciesManager.canWrite(processInstance.getProcessDefinitionKey())) {
+            throw new ActivitiForbiddenException("Operation not permitted for " + processInstance.getProcessDefinitionKey());
+        }
+    }
+
+    private void run(CascadeCloseProgress closing) {
+        String root = closing.getProcessInstanceId();
+        int batchSize = Math.max(1, properties.getBatchSize());
+        try {
+            List<String> batch = projectTreeRepository.deepestDescendants(root, batchSize);
+            while (!batch.isEmpty()) {
+                delete(closing, batch);
+                logger.debug("> " + closing);
+                batch = projectTreeRepository.deepestDescendants(root, batchSize);
+            }
+            delete(closing, Collections.singletonList(root));
+            closing.completed();
+            cascadeCloseRepository.update(closing);
+            logger.info("> Cascade close completed: " + closing);
+        } catch (RuntimeException e) {
+            closing.failed(e.getMessage());
+            cascadeCloseRepository.update(closing);
+            logger.error("> Cascade close failed: " + closing, e);
+        }
+    }
+
+    /**
+     * Пачка удаляется в одной транзакции с записью прогресса.
+     */
+    private void delete(CascadeCloseProgress closing,
+                        List<String> processInstanceIds) {
+        transactionTemplate.execute(status -> {
+            int count = 0;
+            for (String processInstanceId : processInstanceIds) {
+                // Экземпляр мог уже уйти вместе с удалённым родителем
+                if (runtimeService.createProcessInstanceQuery().processInstanceId(processInstanceId).count() > 0) {
+                    runtimeService.deleteProcessInstance(processInstanceId, DELETE_REASON);
+                } else {
+                    projectTreeRepository.deleteNode(processInstanceId);
+                }
+                count++;
+            }
+            FileRecordRepository records = fileRecordRepository.getIfAvailable();
+            if (records != null) {
+                records.deleteByParents(processInstanceIds);
+            }
+            closing.batchClosed(count);
+            cascadeCloseRepository.update(closing);
+            return count;
+        });
+    }
+}
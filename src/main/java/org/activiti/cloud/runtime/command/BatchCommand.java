@@ -0,0 +1,107 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.command;
+
+import java.util.Map;
+
+/**
+ * Команда пакета. Поддерживаемые типы: claim (taskId, assignee), release (taskId),
+ * complete (taskId, variables) и setVariables (processInstanceId, variables).
+ */
+public class BatchCommand {
+
+    public static final String CLAIM = "claim";
+
+    public static final String RELEASE = "release";
+
+    public static final String COMPLETE = "complete";
+
+    public static final String SET_VARIABLES = "setVariables";
+
+    private String id;
+
+    private String type;
+
+    private String taskId;
+
+    private String processInstanceId;
+
+    private String assignee;
+
+    private Map<String, Object> variables;
+
+    public BatchCommand() {
+    }
+
+    public BatchCommand(String id,
+                        String type) {
+        this.id = id;
+        this.type = type;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public void setTaskId(String taskId) {
+        this.taskId = taskId;
+    }
+
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public void setProcessInstanceId(String processInstanceId) {
+        this.processInstanceId = processInstanceId;
+    }
+
+    public String getAssignee() {
+        return assignee;
+    }
+
+    public void setAssignee(String assignee) {
+        this.assignee = assignee;
+    }
+
+    public Map<String, Object> getVariables() {
+        return variables;
+    }
+
+    public void setVariables(Map<String, Object> variables) {
+        this.variables = variables;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchCommand{id='" + id + "', type='" + type + "'}";
+    }
+}
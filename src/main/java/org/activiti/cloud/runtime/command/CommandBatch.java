@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.command;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Конверт с упорядоченным пакетом команд. Ответ приходит одним сообщением в commandResults
+ * с тем же id в заголовке {@link CommandBatchEndpoint#BATCH_ID_HEADER}.
+ */
+public class CommandBatch {
+
+    private String id;
+
+    private List<BatchCommand> commands = new ArrayList<>();
+
+    /**
+     * После первой ошибки оставшиеся команды не выполняются.
+     */
+    private boolean stopOnFailure;
+
+    public CommandBatch() {
+    }
+
+    public CommandBatch(String id,
+                        List<BatchCommand> commands) {
+        this.id = id;
+        this.commands = commands;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public List<BatchCommand> getCommands() {
+        return commands;
+    }
+
+    public void setCommands(List<BatchCommand> commands) {
+        this.commands = commands;
+    }
+
+    public boolean isStopOnFailure() {
+        return stopOnFailure;
+    }
+
+    public void setStopOnFailure(boolean stopOnFailure) {
+        this.stopOnFailure = stopOnFailure;
+    }
+}
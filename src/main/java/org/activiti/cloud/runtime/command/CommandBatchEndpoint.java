@@ -0,0 +1,46 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.command;
+
+import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.handler.annotation.SendTo;
+import org.springframework.messaging.support.MessageBuilder;
+
+/**
+ * Приём пакетов команд из commandBatchConsumer и ответ одним сообщением в commandResults.
+ * Обычные команды по одной по-прежнему обрабатывает commandConsumer стартера.
+ */
+@EnableBinding(CommandBatchChannels.class)
+public class CommandBatchEndpoint {
+
+    public static final String BATCH_ID_HEADER = "commandBatchId";
+
+    private final CommandBatchService commandBatchService;
+
+    public CommandBatchEndpoint(CommandBatchService commandBatchService) {
+        this.commandBatchService = commandBatchService;
+    }
+
+    @StreamListener(CommandBatchChannels.COMMAND_BATCH_CONSUMER)
+    @SendTo(CommandBatchChannels.COMMAND_BATCH_RESULTS)
+    public Message<CommandBatchResult> execute(CommandBatch batch) {
+        return MessageBuilder.withPayload(commandBatchService.execute(batch))
+                .setHeader(BATCH_ID_HEADER, batch.getId())
+                .build();
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.command;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("runtimebundle.command-batch")
+public class CommandBatchProperties {
+
+    /**
+     * Команд на одну транзакцию.
+     */
+    private int transactionSize = 50;
+
+    /**
+     * Наибольший размер пакета; больший пакет отклоняется целиком.
+     */
+    private int maxCommands = 5000;
+
+    public int getTransactionSize() {
+        return transactionSize;
+    }
+
+    public void setTransactionSize(int transactionSize) {
+        this.transactionSize = transactionSize;
+    }
+
+    public int getMaxCommands() {
+        return maxCommands;
+    }
+
+    public void setMaxCommands(int maxCommands) {
+        this.maxCommands = maxCommands;
+    }
+}
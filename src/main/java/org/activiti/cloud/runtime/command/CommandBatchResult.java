@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.command;
+
+import java.util.List;
+
+/**
+ * Результаты пакета в порядке команд; transactions - сколько транзакций понадобилось.
+ */
+public class CommandBatchResult {
+
+    private final String batchId;
+
+    private final List<BatchCommandResult> results;
+
+    private final int transactions;
+
+    private final long elapsedMillis;
+
+    public CommandBatchResult(String batchId,
+                              List<BatchCommandResult> results,
+                              int transactions,
+                              long elapsedMillis) {
+        this.batchId = batchId;
+        this.results = results;
+        this.transactions = transactions;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getBatchId() {
+        return batchId;
+    }
+
+    public List<BatchCommandResult> getResults() {
+        return results;
+    }
+
+    public int getTransactions() {
+        return transactions;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    public long getFailed() {
+        return results.stream().filter(result -> result.getStatus() == BatchCommandResult.Status.FAILED).count();
+    }
+
+    @Override
+    public String toString() {
+        return "CommandBatchResult{" +
+                "batchId='" + batchId + '\'' +
+                ", commands=" + results.size() +
+                ", failed=" + getFailed() +
+                ", transactions=" + transactions +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
@@ -0,0 +1,273 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.command;
+
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.model.payloads.SetProcessVariablesPayload;
+import org.activiti.engine.ActivitiObjectNotFoundException;
+import org.activiti.engine.ManagementService;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.activiti.runtime.api.impl.ProcessVariablesPayloadValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Выполнение пакета команд с ограниченным размером транзакций.
+ * <p>
+ * Команды идут по порядку порциями по {@link CommandBatchProperties#getTransactionSize()}:
+ * каждая порция - одна команда движка, вложенные вызовы сервисов переиспользуют её контекст.
+ * Если порция не прошла, она откатывается и повторяется по одной команде в транзакции,
+ * чтобы получить результат каждой. Некорректные команды отклоняются до выполнения,
+ * переменные проверяются по расширениям модели так же, как в ProcessRuntime.setVariables.
+ */
+@Service
+public class CommandBatchService {
+
+    private final Logger logger = LoggerFactory.getLogger(CommandBatchService.class);
+
+    private final TaskService taskService;
+
+    private final RuntimeService runtimeService;
+
+    private final ManagementService managementService;
+
+    private final ProcessVariablesPayloadValidator processVariablesValidator;
+
+    private final CommandBatchProperties properties;
+
+    public CommandBatchService(TaskService taskService,
+                               RuntimeService runtimeService,
+                               ManagementService managementService,
+                               ProcessVariablesPayloadValidator processVariablesValidator,
+                               CommandBatchProperties properties) {
+        this.taskService = taskService;
+        this.runtimeService = runtimeService;
+        this.managementService = managementService;
+        this.processVariablesValidator = processVariablesValidator;
+        this.properties = properties;
+    }
+
+    public CommandBatchResult execute(CommandBatch batch) {
+        long started = System.currentTimeMillis();
+        List<BatchCommand> commands = batch.getCommands() != null ? batch.getCommands() : Collections.emptyList();
+        Execution execution = new Execution(commands, batch.isStopOnFailure());
+        if (commands.size() > properties.getMaxCommands()) {
+            String error = "Batch of " + commands.size() + " commands exceeds the limit of " + properties.getMaxCommands();
+            for (int i = 0; i < commands.size(); i++) {
+                execution.failed(i, error);
+            }
+        } else {
+            int transactionSize = Math.max(1, properties.getTransactionSize());
+            List<Integer> chunk = new ArrayList<>();
+            for (int i = 0; i < commands.size(); i++) {
+                if (execution.stopped()) {
+                    execution.skipped(i);
+                    continue;
+                }
+                String error = validate(commands.get(i));
+                if (error != null) {
+                    // Предыдущие команды выполняются раньше отклонённой
+                    flush(execution, chunk);
+                    execution.failed(i, error);
+                    continue;
+                }
+                chunk.add(i);
+                if (chunk.size() >= transactionSize) {
+                    flush(execution, chunk);
+                }
+            }
+            flush(execution, chunk);
+        }
+        CommandBatchResult result = new CommandBatchResult(batch.getId(),
+                                                           Arrays.asList(execution.results),
+                                                           execution.transactions,
+                                                           System.currentTimeMillis() - started);
+        logger.debug("> " + result);
+        return result;
+    }
+
+    private void flush(Execution execution,
+                       List<Integer> chunk) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        try {
+            execution.transactions++;
+            managementService.executeCommand(commandContext -> {
+                for (Integer index : chunk) {
+                    apply(execution.commands.get(index));
+                }
+                return null;
+            });
+            for (Integer index : chunk) {
+                execution.succeeded(index);
+            }
+        } catch (RuntimeException e) {
+            logger.debug("> Command chunk of " + chunk.size() + " failed, executing one by one", e);
+            for (Integer index : chunk) {
+                if (execution.stopped()) {
+                    execution.skipped(index);
+                    continue;
+                }
+                BatchCommand command = execution.commands.get(index);
+                try {
+                    execution.transactions++;
+                    managementService.executeCommand(commandContext -> {
+                        apply(command);
+                        return null;
+                    });
+                    execution.succeeded(index);
+                } catch (RuntimeException single) {
+                    execution.failed(index, single.getMessage());
+                }
+            }
+        }
+        chunk.clear();
+    }
+
+    private void apply(BatchCommand command) {
+        switch (command.getType()) {
+            case BatchCommand.CLAIM:
+                taskService.claim(command.getTaskId(), command.getAssignee());
+                break;
+            case BatchCommand.RELEASE:
+                taskService.unclaim(command.getTaskId());
+                break;
+            case BatchCommand.COMPLETE:
+                taskService.complete(command.getTaskId(), taskVariables(command));
+                break;
+            case BatchCommand.SET_VARIABLES:
+                runtimeService.setVariables(command.getProcessInstanceId(), processVariables(command));
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown command type '" + command.getType() + "'");
+        }
+    }
+
+    private Map<String, Object> taskVariables(BatchCommand command) {
+        if (command.getVariables() == null || command.getVariables().isEmpty()) {
+            return command.getVariables();
+        }
+        Task task = taskService.createTaskQuery().taskId(command.getTaskId()).singleResult();
+        if (task == null) {
+            throw new ActivitiObjectNotFoundException("Unable to find task for the given id: " + command.getTaskId(), Task.class);
+        }
+        return validate(task.getProcessDefinitionId(), task.getProcessInstanceId(), command.getVariables());
+    }
+
+    private Map<String, Object> processVariables(BatchCommand command) {
+        ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
+                .processInstanceId(command.getProcessInstanceId())
+                .singleResult();
+        if (processInstance == null) {
+            throw new ActivitiObjectNotFoundException("Unable to find process instance for the given id: " +
+                                                              command.getProcessInstanceId(), ProcessInstance.class);
+        }
+        return validate(processInstance.getProcessDefinitionId(), processInstance.getId(), command.getVariables());
+    }
+
+    /**
+     * Те же проверки имён и типов, что у ProcessRuntime.setVariables и VariableWriteCoalescer;
+     * возвращает переменные с преобразованными значениями.
+     */
+    private Map<String, Object> validate(String processDefinitionId,
+                                         String processInstanceId,
+                                         Map<String, Object> variables) {
+        SetProcessVariablesPayload payload = ProcessPayloadBuilder.setVariables()
+                .withProcessInstanceId(processInstanceId)
+                .withVariables(new LinkedHashMap<>(variables))
+                .build();
+        processVariablesValidator.checkPayloadVariables(payload, processDefinitionId);
+        return payload.getVariables();
+    }
+
+    static String validate(BatchCommand command) {
+        if (command == null || command.getType() == null) {
+            return "Command type is required";
+        }
+        switch (command.getType()) {
+            case BatchCommand.CLAIM:
+                return command.getTaskId() == null || command.getAssignee() == null ? "taskId and assignee are required" : null;
+            case BatchCommand.RELEASE:
+            case BatchCommand.COMPLETE:
+                return command.getTaskId() == null ? "taskId is required" : null;
+            case BatchCommand.SET_VARIABLES:
+                return command.getProcessInstanceId() == null || command.getVariables() == null
+                        ? "processInstanceId and variables are required" : null;
+            default:
+                return "Unknown command type '" + command.getType() + "'";
+        }
+    }
+
+    private static class Execution {
+
+        private final List<BatchCommand> commands;
+
+        private final boolean stopOnFailure;
+
+        private final BatchCommandResult[] results;
+
+        private int transactions;
+
+        private boolean failed;
+
+        Execution(List<BatchCommand> commands,
+                  boolean stopOnFailure) {
+            this.commands = commands;
+            this.stopOnFailure = stopOnFailure;
+            this.results = new BatchCommandResult[commands.size()];
+        }
+
+        boolean stopped() {
+            return stopOnFailure && failed;
+        }
+
+        void succeeded(int index) {
+            results[index] = result(index, BatchCommandResult.Status.SUCCEEDED, null);
+        }
+
+        void failed(int index,
+                    String error) {
+            failed = true;
+            results[index] = result(index, BatchCommandResult.Status.FAILED, error);
+        }
+
+        void skipped(int index) {
+            results[index] = result(index, BatchCommandResult.Status.SKIPPED, null);
+        }
+
+        private BatchCommandResult result(int index,
+                                          BatchCommandResult.Status status,
+                                          String error) {
+            BatchCommand command = commands.get(index);
+            return new BatchCommandResult(command != null ? command.getId() : null,
+                                          command != null ? command.getType() : null,
+                                          status,
+                                          error);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.completion;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Отложенные записи переменных в COALESCED_VARIABLE_WRITE: одна строка на (процесс, пользователь)
+ * со слитыми значениями в JSON. Запись переживает перезапуск пода и применяется любой репликой.
+ * Методы с блокировкой строки вызываются в транзакции.
+ */
+@Repository
+public class CoalescedWriteRepository {
+
+    private static final TypeReference<LinkedHashMap<String, Object>> VARIABLES = new TypeReference<LinkedHashMap<String, Object>>() {
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    public CoalescedWriteRepository(JdbcTemplate jdbcTemplate,
+                                    ObjectMapper objectMapper) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Блокирует запись до конца транзакции; null, если записи нет.
+     */
+    public PendingWrite lock(String processInstanceId,
+                             String userId) {
+        List<PendingWrite> found = jdbcTemplate.query(
+                "SELECT VARIABLES, ATTEMPTS FROM COALESCED_VARIABLE_WRITE WHERE PROCESS_INSTANCE_ID = ? AND USER_ID = ? FOR UPDATE",
+                (rs, rowNum) -> new PendingWrite(processInstanceId, userId, read(rs.getString("VARIABLES")), rs.getInt("ATTEMPTS")),
+                processInstanceId,
+                userId);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    public void insert(String processInstanceId,
+                       String userId,
+                       Map<String, Object> variables,
+                       Date dueTime) {
+        jdbcTemplate.update("INSERT INTO COALESCED_VARIABLE_WRITE (PROCESS_INSTANCE_ID, USER_ID, VARIABLES, DUE_TIME, ATTEMPTS) VALUES (?, ?, ?, ?, 0)",
+                            processInstanceId,
+                            userId,
+                            write(variables),
+                            new Timestamp(dueTime.getTime()));
+    }
+
+    public void update(String processInstanceId,
+                       String userId,
+                       Map<String, Object> variables) {
+        jdbcTemplate.update("UPDATE COALESCED_VARIABLE_WRITE SET VARIABLES = ? WHERE PROCESS_INSTANCE_ID = ? AND USER_ID = ?",
+                            write(variables),
+                            processInstanceId,
+                            userId);
+    }
+
+    public void postpone(String processInstanceId,
+                         String userId,
+                         int attempts,
+                         Date dueTime) {
+        jdbcTemplate.update("UPDATE COALESCED_VARIABLE_WRITE SET ATTEMPTS = ?, DUE_TIME = ? WHERE PROCESS_INSTANCE_ID = ? AND USER_ID = ?",
+                            attempts,
+                            new Timestamp(dueTime.getTime()),
+                            processInstanceId,
+                            userId);
+    }
+
+    public void delete(String processInstanceId,
+                       String userId) {
+        jdbcTemplate.update("DELETE FROM COALESCED_VARIABLE_WRITE WHERE PROCESS_INSTANCE_ID = ? AND USER_ID = ?",
+                            processInstanceId,
+                            userId);
+    }
+
+    /**
+     * Записи, окно которых истекло, самые старые первыми; значения не читаются.
+     */
+    public List<PendingWrite> due(Date now,
+                                  int limit) {
+        return jdbcTemplate.query("SELECT PROCESS_INSTANCE_ID, USER_ID, ATTEMPTS FROM COALESCED_VARIABLE_WRITE WHERE DUE_TIME <= ? ORDER BY DUE_TIME",
+                                  ps -> {
+                                      ps.setTimestamp(1, new Timestamp(now.getTime()));
+                                      ps.setMaxRows(limit);
+                                  },
+                                  (rs, rowNum) -> new PendingWrite(rs.getString("PROCESS_INSTANCE_ID"),
+                                                                   rs.getString("USER_ID"),
+                                                                   null,
+                                                                   rs.getInt("ATTEMPTS")));
+    }
+
+    private String write(Map<String, Object> variables) {
+        try {
+            return objectMapper.writeValueAsString(variables);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("Variables can't be stored as JSON: " + e.getMessage(), e);
+        }
+    }
+
+    private Map<String, Object> read(String variables) {
+        try {
+            return objectMapper.readValue(variables, VARIABLES);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class PendingWrite {
+
+        private final String processInstanceId;
+
+        private final String userId;
+
+        private final Map<String, Object> variables;
+
+        private final int attempts;
+
+        PendingWrite(String processInstanceId,
+                     String userId,
+                     Map<String, Object> variables,
+                     int attempts) {
+            this.processInstanceId = processInstanceId;
+            this.userId = userId;
+            this.variables = variables;
+            this.attempts = attempts;
+        }
+
+        public String getProcessInstanceId() {
+            return processInstanceId;
+        }
+
+        public String getUserId() {
+            return userId;
+        }
+
+        public Map<String, Object> getVariables() {
+            return variables;
+        }
+
+        public int getAttempts() {
+            return attempts;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.completion;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+public class CompletionController {
+
+    private final TaskCompletionService taskCompletionService;
+
+    private final VariableWriteCoalescer variableWriteCoalescer;
+
+    public CompletionController(TaskCompletionService taskCompletionService,
+                                VariableWriteCoalescer variableWriteCoalescer) {
+        this.taskCompletionService = taskCompletionService;
+        this.variableWriteCoalescer = variableWriteCoalescer;
+    }
+
+    /**
+     * Захват, запись переменных процесса и выполнение задачи одной транзакцией.
+     */
+    @PostMapping("/v1/tasks/{taskId}/complete-with-variables")
+    public CompletionResult complete(@PathVariable String taskId,
+                                     @RequestBody(required = false) Map<String, Object> processVariables) {
+        return taskCompletionService.complete(taskId,
+                                              processVariables);
+    }
+
+    /**
+     * Отложенная запись переменных, которая сольётся со следующим выполнением задачи процесса.
+     */
+    @PostMapping("/v1/process-instances/{processInstanceId}/coalesced-variables")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public void write(@PathVariable String processInstanceId,
+                      @RequestBody Map<String, Object> variables) {
+        variableWriteCoalescer.write(processInstanceId,
+                                     variables);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.completion;
+
+import java.util.Set;
+
+public class CompletionResult {
+
+    private final String taskId;
+
+    private final String processInstanceId;
+
+    private final Set<String> variables;
+
+    private final boolean coalesced;
+
+    public CompletionResult(String taskId,
+                            String processInstanceId,
+                            Set<String> variables,
+                            boolean coalesced) {
+        this.taskId = taskId;
+        this.processInstanceId = processInstanceId;
+        this.variables = variables;
+        this.coalesced = coalesced;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    /**
+     * Имена переменных процесса, записанных вместе с выполнением.
+     */
+    public Set<String> getVariables() {
+        return variables;
+    }
+
+    /**
+     * В выполнение вошли отложенные записи переменных.
+     */
+    public boolean isCoalesced() {
+        return coalesced;
+    }
+
+    @Override
+    public String toString() {
+        return "CompletionResult{taskId='" + taskId + "', processInstanceId='" + processInstanceId +
+                "', variables=" + variables + ", coalesced=" + coalesced + "}";
+    }
+}
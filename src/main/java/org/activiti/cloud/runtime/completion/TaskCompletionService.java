@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.completion;
+
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.engine.ManagementService;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.activiti.engine.task.Task;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+
+/**
+ * Выполнение задачи вместе с записью переменных процесса.
+ * <p>
+ * Вместо пары processRuntime.setVariables + taskRuntime.complete захват (если задача
+ * свободна), запись переменных и выполнение идут одной командой движка: вложенные вызовы
+ * сервисов переиспользуют её контекст, поэтому всё фиксируется одной транзакцией
+ * с одной версией строк и одной пачкой событий. Переменные проверяются так же,
+ * как в ProcessRuntime.setVariables.
+ */
+@Service
+public class TaskCompletionService {
+
+    private final TaskRuntime taskRuntime;
+
+    private final TaskService taskService;
+
+    private final RuntimeService runtimeService;
+
+    private final ManagementService managementService;
+
+    private final SecurityManager securityManager;
+
+    private final VariableWriteCoalescer variableWriteCoalescer;
+
+    public TaskCompletionService(TaskRuntime taskRuntime,
+                                 TaskService taskService,
+                                 RuntimeService runtimeService,
+                                 ManagementService managementService,
+                                 SecurityManager securityManager,
+                                 VariableWriteCoalescer variableWriteCoalescer) {
+        this.taskRuntime = taskRuntime;
+        this.taskService = taskService;
+        this.runtimeService = runtimeService;
+        this.managementService = managementService;
+        this.securityManager = securityManager;
+        this.variableWriteCoalescer = variableWriteCoalescer;
+    }
+
+    public CompletionResult complete(String taskId,
+                                     Map<String, Object> processVariables) {
+        // Проверка прав: задача должна быть видна текущему пользователю
+        String processInstanceId = taskRuntime.task(taskId).getProcessInstanceId();
+        String userId = securityManager.getAuthenticatedUserId();
+
+        Map<String, Object> variables = new LinkedHashMap<>();
+        boolean[] coalesced = new boolean[1];
+        managementService.executeCommand(commandContext -> {
+            Task task = taskService.createTaskQuery().taskId(taskId).singleResult();
+            if (task == null) {
+                throw new NotFoundException("Unable to find task for the given id:'" + taskId + "'");
+            }
+            if (task.getAssignee() == null) {
+                taskService.claim(taskId, userId);
+            } else if (!task.getAssignee().equals(userId)) {
+                throw new IllegalStateException("Task '" + taskId + "' is assigned to another user");
+            }
+            // Отложенные записи забираются в этой же транзакции и при откате остаются на месте;
+            // явно переданные значения сильнее отложенных
+            Map<String, Object> pending = variableWriteCoalescer.take(processInstanceId, userId);
+            coalesced[0] = !pending.isEmpty();
+            variables.putAll(pending);
+            if (processVariables != null) {
+                variables.putAll(processVariables);
+            }
+            if (!variables.isEmpty() && processInstanceId != null) {
+                runtimeService.setVariables(processInstanceId,
+                                            variableWriteCoalescer.validate(task.getProcessDefinitionId(), processInstanceId, variables));
+            }
+            taskService.complete(taskId);
+            return null;
+        });
+        return new CompletionResult(taskId,
+                                    processInstanceId,
+                                    Collections.unmodifiableSet(new LinkedHashSet<>(variables.keySet())),
+                                    coalesced[0]);
+    }
+}
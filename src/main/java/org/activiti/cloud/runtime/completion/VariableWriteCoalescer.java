@@ -0,0 +1,239 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.completion;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.model.payloads.SetProcessVariablesPayload;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.cloud.runtime.completion.CoalescedWriteRepository.PendingWrite;
+import org.activiti.engine.RuntimeService;
+import org.activiti.runtime.api.impl.ProcessVariablesPayloadValidator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Отложенная запись переменных процесса.
+ * <p>
+ * Запись держится {@link CompletionProperties#getCoalesceWindow()} по ключу
+ * (процесс, пользователь). Если за это время тот же пользователь выполняет задачу
+ * процесса через {@link TaskCompletionService}, переменные уходят в ту же команду;
+ * иначе применяются отдельной транзакцией по истечении окна. Повторные записи
+ * в окне сливаются, последнее значение побеждает. Пока запись отложена,
+ * чтение переменных видит прежние значения.
+ * <p>
+ * Переменные проверяются при приёме так же, как в ProcessRuntime.setVariables (имена
+ * и типы из расширений модели), и до ответа сохраняются в {@link CoalescedWriteRepository}:
+ * принятая запись не теряется при остановке пода. Просроченные записи применяет
+ * любая реплика; неудачное применение повторяется с растущей паузой
+ * до {@link CompletionProperties#getMaxAttempts()} попыток.
+ */
+@Service
+public class VariableWriteCoalescer implements DisposableBean {
+
+    private static final int SWEEP_BATCH = 100;
+
+    private final Logger logger = LoggerFactory.getLogger(VariableWriteCoalescer.class);
+
+    private final ProcessRuntime processRuntime;
+
+    private final RuntimeService runtimeService;
+
+    private final SecurityManager securityManager;
+
+    private final ProcessVariablesPayloadValidator processVariablesValidator;
+
+    private final CoalescedWriteRepository coalescedWriteRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final CompletionProperties properties;
+
+    private final ScheduledExecutorService scheduler;
+
+    public VariableWriteCoalescer(ProcessRuntime processRuntime,
+                                  RuntimeService runtimeService,
+                                  SecurityManager securityManager,
+                                  ProcessVariablesPayloadValidator processVariablesValidator,
+                                  CoalescedWriteRepository coalescedWriteRepository,
+                                  PlatformTransactionManager transactionManager,
+                                  CompletionProperties properties) {
+        this.processRuntime = processRuntime;
+        this.runtimeService = runtimeService;
+        this.securityManager = securityManager;
+        this.processVariablesValidator = processVariablesValidator;
+        this.coalescedWriteRepository = coalescedWriteRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "variable-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long window = properties.getCoalesceWindow().toMillis();
+        if (window > 0) {
+            scheduler.scheduleWithFixedDelay(this::sweep, window, window, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void write(String processInstanceId,
+                      Map<String, Object> variables) {
+        // Права проверяются сразу, отложенное применение идёт в обход runtime
+        ProcessInstance processInstance = processRuntime.processInstance(processInstanceId);
+        if (variables == null || variables.isEmpty()) {
+            return;
+        }
+        Map<String, Object> validated = validate(processInstance.getProcessDefinitionId(), processInstanceId, variables);
+        long window = properties.getCoalesceWindow().toMillis();
+        if (window <= 0) {
+            runtimeService.setVariables(processInstanceId, validated);
+            return;
+        }
+        String userId = securityManager.getAuthenticatedUserId();
+        try {
+            store(processInstanceId, userId, variables, window);
+        } catch (DuplicateKeyException e) {
+            // Первая запись ключа пришла одновременно с другой - сливаем с ней
+            store(processInstanceId, userId, variables, window);
+        }
+    }
+
+    /**
+     * Те же проверки, что у ProcessRuntime.setVariables; возвращает переменные
+     * с преобразованными значениями (например, датами), которые можно писать в движок.
+     */
+    Map<String, Object> validate(String processDefinitionId,
+                                 String processInstanceId,
+                                 Map<String, Object> variables) {
+        SetProcessVariablesPayload payload = ProcessPayloadBuilder.setVariables()
+                .withProcessInstanceId(processInstanceId)
+                .withVariables(new LinkedHashMap<>(variables))
+                .build();
+        processVariablesValidator.checkPayloadVariables(payload, processDefinitionId);
+        return payload.getVariables();
+    }
+
+    /**
+     * Забрать отложенные переменные пользователя для выполнения вместе с задачей.
+     * Вызывается в транзакции выполнения: при её откате запись остаётся на месте.
+     */
+    Map<String, Object> take(String processInstanceId,
+                             String userId) {
+        if (processInstanceId == null) {
+            return Collections.emptyMap();
+        }
+        PendingWrite pending = coalescedWriteRepository.lock(processInstanceId, userId);
+        if (pending == null) {
+            return Collections.emptyMap();
+        }
+        coalescedWriteRepository.delete(processInstanceId, userId);
+        return pending.getVariables();
+    }
+
+    @Override
+    public void destroy() {
+        // Незабранные записи остаются в таблице и будут применены после перезапуска
+        scheduler.shutdown();
+    }
+
+    private void store(String processInstanceId,
+                       String userId,
+                       Map<String, Object> variables,
+                       long window) {
+        transactionTemplate.executeWithoutResult(status -> {
+            PendingWrite current = coalescedWriteRepository.lock(processInstanceId, userId);
+            if (current == null) {
+                coalescedWriteRepository.insert(processInstanceId,
+                                                userId,
+                                                variables,
+                                                new Date(System.currentTimeMillis() + window));
+            } else {
+                Map<String, Object> merged = new LinkedHashMap<>(current.getVariables());
+                merged.putAll(variables);
+                coalescedWriteRepository.update(processInstanceId, userId, merged);
+            }
+        });
+    }
+
+    private void sweep() {
+        try {
+            for (PendingWrite due : coalescedWriteRepository.due(new Date(), SWEEP_BATCH)) {
+                flush(due.getProcessInstanceId(), due.getUserId());
+            }
+        } catch (RuntimeException e) {
+            logger.warn("> Deferred variables sweep failed: " + e.getMessage());
+        }
+    }
+
+    private void flush(String processInstanceId,
+                       String userId) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                PendingWrite pending = coalescedWriteRepository.lock(processInstanceId, userId);
+                if (pending == null) {
+                    // Забрана выполнением задачи или применена другой репликой
+                    return;
+                }
+                org.activiti.engine.runtime.ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
+                        .processInstanceId(processInstanceId)
+                        .singleResult();
+                if (processInstance == null) {
+                    logger.warn("> Deferred variables of " + processInstanceId + " dropped: process instance has ended");
+                } else {
+                    runtimeService.setVariables(processInstanceId,
+                                                validate(processInstance.getProcessDefinitionId(), processInstanceId, pending.getVariables()));
+                }
+                coalescedWriteRepository.delete(processInstanceId, userId);
+            });
+        } catch (RuntimeException e) {
+            postpone(processInstanceId, userId, e);
+        }
+    }
+
+    private void postpone(String processInstanceId,
+                          String userId,
+                          RuntimeException cause) {
+        transactionTemplate.executeWithoutResult(status -> {
+            PendingWrite pending = coalescedWriteRepository.lock(processInstanceId, userId);
+            if (pending == null) {
+                return;
+            }
+            int attempts = pending.getAttempts() + 1;
+            if (attempts >= properties.getMaxAttempts()) {
+                logger.error("> Deferred variables of " + processInstanceId + " dropped after " + attempts + " attempts: " + cause.getMessage());
+                coalescedWriteRepository.delete(processInstanceId, userId);
+            } else {
+                long delay = properties.getCoalesceWindow().toMillis() << Math.min(attempts, 10);
+                logger.warn("> Deferred variables of " + processInstanceId + " were not applied, retry in " + delay + " ms: " + cause.getMessage());
+                coalescedWriteRepository.postpone(processInstanceId, userId, attempts, new Date(System.currentTimeMillis() + delay));
+            }
+        });
+    }
+}
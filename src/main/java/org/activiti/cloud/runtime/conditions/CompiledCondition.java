@@ -0,0 +1,153 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.conditions;
+
+import org.activiti.engine.delegate.Expression;
+import org.activiti.engine.delegate.VariableScope;
+import org.activiti.engine.impl.delegate.invocation.DelegateInterceptor;
+import org.activiti.engine.impl.el.ExpressionManager;
+
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Условие вида ${variable == literal} или ${variable != literal}, где literal - true, false
+ * или строка, вычисляемое без интерпретатора выражений.
+ * <p>
+ * Приведение типов повторяет правила EL для == и !=; всё, что выходит за эти рамки
+ * (отсутствующая переменная, значение другого типа), отдаётся исходному выражению.
+ */
+public class CompiledCondition implements Expression {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Pattern SIMPLE_COMPARISON = Pattern.compile(
+            "^\\$\\{\\s*([A-Za-z_][A-Za-z0-9_]*)\\s*(==|!=|eq|ne)\\s*(true|false|\"[^\"\\\\]*\"|'[^'\\\\]*')\\s*}$");
+
+    private final String expressionText;
+
+    private final String variableName;
+
+    private final boolean negated;
+
+    private final Object literal;
+
+    private final Expression fallback;
+
+    private CompiledCondition(String expressionText,
+                              String variableName,
+                              boolean negated,
+                              Object literal,
+                              Expression fallback) {
+        this.expressionText = expressionText;
+        this.variableName = variableName;
+        this.negated = negated;
+        this.literal = literal;
+        this.fallback = fallback;
+    }
+
+    /**
+     * Компиляция условия или null, если оно не укладывается в простое сравнение.
+     */
+    public static CompiledCondition compile(String expressionText,
+                                            Expression fallback) {
+        if (expressionText == null) {
+            return null;
+        }
+        Matcher matcher = SIMPLE_COMPARISON.matcher(expressionText.trim());
+        if (!matcher.matches()) {
+            return null;
+        }
+        String operator = matcher.group(2);
+        String token = matcher.group(3);
+        Object literal;
+        if ("true".equals(token) || "false".equals(token)) {
+            literal = Boolean.valueOf(token);
+        } else {
+            literal = token.substring(1, token.length() - 1);
+        }
+        return new CompiledCondition(expressionText,
+                                     matcher.group(1),
+                                     "!=".equals(operator) || "ne".equals(operator),
+                                     literal,
+                                     fallback);
+    }
+
+    @Override
+    public Object getValue(VariableScope variableScope) {
+        if (!variableScope.hasVariable(variableName)) {
+            return fallback.getValue(variableScope);
+        }
+        Boolean equal = compare(variableScope.getVariable(variableName));
+        if (equal == null) {
+            return fallback.getValue(variableScope);
+        }
+        return equal != negated;
+    }
+
+    public Object getValue(ExpressionManager expressionManager,
+                           DelegateInterceptor delegateInterceptor,
+                           Map<String, Object> availableVariables) {
+        return fallback.getValue(expressionManager, delegateInterceptor, availableVariables);
+    }
+
+    @Override
+    public void setValue(Object value,
+                         VariableScope variableScope) {
+        fallback.setValue(value, variableScope);
+    }
+
+    @Override
+    public String getExpressionText() {
+        return expressionText;
+    }
+
+    public String getVariableName() {
+        return variableName;
+    }
+
+    Expression getFallback() {
+        return fallback;
+    }
+
+    /**
+     * Результат сравнения по правилам EL или null, если нужен полноценный интерпретатор.
+     */
+    private Boolean compare(Object value) {
+        if (value == null) {
+            return false;
+        }
+        if (literal instanceof Boolean) {
+            if (value instanceof Boolean) {
+                return literal.equals(value);
+            }
+            if (value instanceof String) {
+                return literal.equals(Boolean.valueOf((String) value));
+            }
+            return null;
+        }
+        if (value instanceof String) {
+            return literal.equals(value);
+        }
+        return null;
+    }
+
+    @Override
+    public String toString() {
+        return expressionText;
+    }
+}
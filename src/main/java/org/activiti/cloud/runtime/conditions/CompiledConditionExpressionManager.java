@@ -0,0 +1,67 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.conditions;
+
+import org.activiti.engine.delegate.Expression;
+import org.activiti.spring.SpringExpressionManager;
+import org.springframework.context.ApplicationContext;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Менеджер выражений, подменяющий простые условия переходов скомпилированными предикатами.
+ * <p>
+ * Движок создаёт выражение условия при каждом проходе шлюза, поэтому готовые
+ * предикаты хранятся по тексту выражения; заполняются они при разборе модели.
+ */
+public class CompiledConditionExpressionManager extends SpringExpressionManager {
+
+    private final Map<String, Expression> compiled = new ConcurrentHashMap<>();
+
+    public CompiledConditionExpressionManager(ApplicationContext applicationContext,
+                                              Map<Object, Object> beans) {
+        super(applicationContext, beans);
+    }
+
+    @Override
+    public Expression createExpression(String expression) {
+        Expression condition = compiled.get(expression);
+        if (condition != null) {
+            return condition;
+        }
+        return super.createExpression(expression);
+    }
+
+    /**
+     * Компиляция условия перехода; возвращает false, если условие останется за интерпретатором.
+     */
+    public boolean precompile(String expression) {
+        if (expression == null || compiled.containsKey(expression)) {
+            return expression != null;
+        }
+        CompiledCondition condition = CompiledCondition.compile(expression, super.createExpression(expression));
+        if (condition == null) {
+            return false;
+        }
+        compiled.put(expression, condition);
+        return true;
+    }
+
+    public int getCompiledCount() {
+        return compiled.size();
+    }
+}
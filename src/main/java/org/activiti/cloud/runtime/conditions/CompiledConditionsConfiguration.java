@@ -0,0 +1,47 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.conditions;
+
+import org.activiti.engine.parse.BpmnParseHandler;
+import org.activiti.spring.boot.ProcessEngineConfigurationConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConditionalOnProperty(prefix = "runtimebundle.conditions", name = "compiled", havingValue = "true", matchIfMissing = true)
+public class CompiledConditionsConfiguration {
+
+    @Bean
+    public ProcessEngineConfigurationConfigurer compiledConditionsConfigurer(ApplicationContext applicationContext) {
+        return configuration -> {
+            CompiledConditionExpressionManager expressionManager =
+                    new CompiledConditionExpressionManager(applicationContext, configuration.getBeans());
+            configuration.setExpressionManager(expressionManager);
+
+            List<BpmnParseHandler> handlers = new ArrayList<>();
+            if (configuration.getPostBpmnParseHandlers() != null) {
+                handlers.addAll(configuration.getPostBpmnParseHandlers());
+            }
+            handlers.add(new ConditionPrecompileParseHandler(expressionManager));
+            configuration.setPostBpmnParseHandlers(handlers);
+        };
+    }
+}
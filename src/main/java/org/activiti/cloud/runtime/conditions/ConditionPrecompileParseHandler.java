@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.conditions;
+
+import org.activiti.bpmn.model.BaseElement;
+import org.activiti.bpmn.model.SequenceFlow;
+import org.activiti.engine.impl.bpmn.parser.BpmnParse;
+import org.activiti.engine.impl.bpmn.parser.handler.AbstractBpmnParseHandler;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Компилирует условия переходов при развёртывании модели.
+ */
+public class ConditionPrecompileParseHandler extends AbstractBpmnParseHandler<SequenceFlow> {
+
+    private final Logger logger = LoggerFactory.getLogger(ConditionPrecompileParseHandler.class);
+
+    private final CompiledConditionExpressionManager expressionManager;
+
+    public ConditionPrecompileParseHandler(CompiledConditionExpressionManager expressionManager) {
+        this.expressionManager = expressionManager;
+    }
+
+    @Override
+    protected Class<? extends BaseElement> getHandledType() {
+        return SequenceFlow.class;
+    }
+
+    @Override
+    protected void executeParse(BpmnParse bpmnParse,
+                                SequenceFlow sequenceFlow) {
+        String condition = sequenceFlow.getConditionExpression();
+        if (condition != null && !condition.trim().isEmpty()) {
+            boolean compiled = expressionManager.precompile(condition);
+            logger.debug("> Condition " + sequenceFlow.getId() + " '" + condition + "' " +
+                                 (compiled ? "compiled" : "left to the expression engine"));
+        }
+    }
+}
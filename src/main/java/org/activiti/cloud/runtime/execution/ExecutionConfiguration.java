@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.execution;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Режим исполнения с большим числом потоков запросов. Включается профилем elastic
+ * (application-elastic.properties): пул Tomcat растёт до тысяч потоков, а доступ
+ * к базе ограничивается bulkhead-фильтром по размеру пула соединений.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "runtimebundle.execution.bulkhead", name = "enabled", havingValue = "true")
+public class ExecutionConfiguration {
+
+    @Bean
+    public FilterRegistrationBean<RequestBulkheadFilter> requestBulkheadFilter(ExecutionProperties properties,
+                                                                              MeterRegistry meterRegistry) {
+        FilterRegistrationBean<RequestBulkheadFilter> registration =
+                new FilterRegistrationBean<>(new RequestBulkheadFilter(properties, meterRegistry));
+        registration.addUrlPatterns("/v1/*");
+        return registration;
+    }
+}
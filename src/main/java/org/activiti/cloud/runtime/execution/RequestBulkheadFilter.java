@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.execution;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Ограничение числа одновременно исполняемых запросов.
+ * <p>
+ * Потоки Tomcat дешёвы, пока ждут в очереди; дорого - когда тысячи из них одновременно
+ * конкурируют за пул соединений и получают таймауты. Фильтр пропускает к движку не больше
+ * {@link ExecutionProperties#getMaxConcurrent()} запросов, остальные ждут честной очереди
+ * до queueTimeout и затем получают 503 с Retry-After.
+ */
+public class RequestBulkheadFilter extends OncePerRequestFilter {
+
+    private final Logger logger = LoggerFactory.getLogger(RequestBulkheadFilter.class);
+
+    private final Semaphore permits;
+
+    private final long queueTimeoutNanos;
+
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    private final Timer queueTime;
+
+    private final Counter rejected;
+
+    public RequestBulkheadFilter(ExecutionProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.permits = new Semaphore(properties.getMaxConcurrent(), true);
+        this.queueTimeoutNanos = properties.getQueueTimeout().toNanos();
+        this.queueTime = meterRegistry.timer("runtimebundle.execution.bulkhead.queue.time");
+        this.rejected = meterRegistry.counter("runtimebundle.execution.bulkhead.rejected");
+        meterRegistry.gauge("runtimebundle.execution.bulkhead.waiting", waiting);
+        meterRegistry.gauge("runtimebundle.execution.bulkhead.active", permits,
+                            semaphore -> properties.getMaxConcurrent() - semaphore.availablePermits());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean acquired;
+        waiting.incrementAndGet();
+        try {
+            acquired = permits.tryAcquire(queueTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            acquired = false;
+        } finally {
+            waiting.decrementAndGet();
+        }
+        queueTime.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+        if (!acquired) {
+            rejected.increment();
+            logger.debug("> Request rejected by bulkhead: " + request.getRequestURI());
+            response.setHeader("Retry-After", "1");
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Too many concurrent requests");
+            return;
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            permits.release();
+        }
+    }
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.export;
+
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletRequest;
+
+@RestController
+public class ProjectExportController {
+
+    public static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private final ProjectExportService projectExportService;
+
+    private final ProcessRuntime processRuntime;
+
+    private final ProjectExportProperties properties;
+
+    public ProjectExportController(ProjectExportService projectExportService,
+                                   ProcessRuntime processRuntime,
+                                   ProjectExportProperties properties) {
+        this.projectExportService = projectExportService;
+        this.processRuntime = processRuntime;
+        this.properties = properties;
+    }
+
+    @GetMapping("/v1/process-instances/{processInstanceId}/export")
+    public ResponseEntity<StreamingResponseBody> export(@PathVariable String processInstanceId,
+                                                        HttpServletRequest request) {
+        // Права проверяются до начала потока, в потоке запроса
+        processRuntime.processInstance(processInstanceId);
+        request.setAttribute(AsyncTimeoutInterceptor.TIMEOUT_ATTRIBUTE, properties.getTimeout().toMillis());
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .body(output -> projectExportService.export(processInstanceId, output));
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.export;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("runtimebundle.export")
+public class ProjectExportProperties {
+
+    /**
+     * Размер выборки курсора: сколько строк драйвер держит в памяти за раз.
+     */
+    private int fetchSize = 1000;
+
+    /**
+     * Через сколько записей сбрасывать буфер в ответ.
+     */
+    private int flushEvery = 1000;
+
+    /**
+     * Тайм-аут асинхронного запроса выгрузки вместо общего spring.mvc.async.request-timeout.
+     */
+    private Duration timeout = Duration.ofMinutes(30);
+
+    public int getFetchSize() {
+        return fetchSize;
+    }
+
+    public void setFetchSize(int fetchSize) {
+        this.fetchSize = fetchSize;
+    }
+
+    public int getFlushEvery() {
+        return flushEvery;
+    }
+
+    public void setFlushEvery(int flushEvery) {
+        this.flushEvery = flushEvery;
+    }
+
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    public void setTimeout(Duration timeout) {
+        this.timeout = timeout;
+    }
+}
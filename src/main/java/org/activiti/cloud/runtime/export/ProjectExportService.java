@@ -0,0 +1,268 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Потоковая выгрузка дерева проекта в NDJSON.
+ * <p>
+ * Три прохода курсором по JDBC, каждый соединён с индексом PROJECT_TREE по корню:
+ * узлы (type=node), переменные экземпляров (type=variable) и задачи с исполнителями
+ * (type=task, из истории, а при выключенной истории - открытые задачи). Строки пишутся
+ * в ответ по мере чтения, поэтому память не зависит от размера дерева. Курсоры
+ * открываются в одной читающей транзакции: без неё драйвер Postgres игнорирует fetchSize.
+ */
+@Service
+public class ProjectExportService {
+
+    private static final String NODES =
+            "SELECT T.DESCENDANT_ID, P.ANCESTOR_ID AS PARENT_ID, T.DEPTH, T.NODE_TYPE, T.NODE_NAME " +
+            "FROM PROJECT_TREE T " +
+            "LEFT JOIN PROJECT_TREE P ON P.DESCENDANT_ID = T.DESCENDANT_ID AND P.DEPTH = 1 " +
+            "WHERE T.ANCESTOR_ID = ? ORDER BY T.DEPTH, T.DESCENDANT_ID";
+
+    private static final String VARIABLES =
+            "SELECT V.PROC_INST_ID_, V.NAME_, V.TYPE_, V.TEXT_, V.LONG_, V.DOUBLE_ " +
+            "FROM PROJECT_TREE T JOIN ACT_RU_VARIABLE V ON V.EXECUTION_ID_ = T.DESCENDANT_ID " +
+            "WHERE T.ANCESTOR_ID = ? AND V.TASK_ID_ IS NULL ORDER BY V.PROC_INST_ID_, V.NAME_";
+
+    private static final String HISTORIC_TASKS =
+            "SELECT H.PROC_INST_ID_, H.ID_, H.TASK_DEF_KEY_, H.NAME_, H.ASSIGNEE_, H.START_TIME_, H.END_TIME_ " +
+            "FROM PROJECT_TREE T JOIN ACT_HI_TASKINST H ON H.PROC_INST_ID_ = T.DESCENDANT_ID " +
+            "WHERE T.ANCESTOR_ID = ? ORDER BY H.PROC_INST_ID_, H.START_TIME_";
+
+    private static final String OPEN_TASKS =
+            "SELECT R.PROC_INST_ID_, R.ID_, R.TASK_DEF_KEY_, R.NAME_, R.ASSIGNEE_, R.CREATE_TIME_ AS START_TIME_, NULL AS END_TIME_ " +
+            "FROM PROJECT_TREE T JOIN ACT_RU_TASK R ON R.PROC_INST_ID_ = T.DESCENDANT_ID " +
+            "WHERE T.ANCESTOR_ID = ? ORDER BY R.PROC_INST_ID_, R.CREATE_TIME_";
+
+    private final Logger logger = LoggerFactory.getLogger(ProjectExportService.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ProjectExportProperties properties;
+
+    private final DataSource dataSource;
+
+    private volatile Boolean historyAvailable;
+
+    public ProjectExportService(DataSource dataSource,
+                                ObjectMapper objectMapper,
+                                PlatformTransactionManager transactionManager,
+                                ProjectExportProperties properties) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.properties = properties;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * @return число записанных строк
+     */
+    public long export(String processInstanceId,
+                       OutputStream output) {
+        long start = System.currentTimeMillis();
+        Long lines = transactionTemplate.execute(status -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(output)) {
+                generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                LineWriter writer = new LineWriter(generator);
+
+                jdbcTemplate.query(NODES, writer.of(this::writeNode), processInstanceId);
+                jdbcTemplate.query(VARIABLES, writer.of(this::writeVariable), processInstanceId);
+                jdbcTemplate.query(historyAvailable() ? HISTORIC_TASKS : OPEN_TASKS, writer.of(this::writeTask), processInstanceId);
+                generator.writeRaw('\n');
+                return writer.lines;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        logger.info("> Exported " + lines + " lines for " + processInstanceId + " in " + (System.currentTimeMillis() - start) + " ms");
+        return lines == null ? 0 : lines;
+    }
+
+    /**
+     * Таблицы истории есть, только если история движка включена. Проверка по метаданным,
+     * а не неудачным запросом: в Postgres ошибка прервала бы всю транзакцию с курсорами.
+     */
+    private boolean historyAvailable() {
+        Boolean available = historyAvailable;
+        if (available == null) {
+            try {
+                available = (Boolean) JdbcUtils.extractDatabaseMetaData(dataSource, metaData -> {
+                    try (ResultSet upper = metaData.getTables(null, null, "ACT_HI_TASKINST", null);
+                         ResultSet lower = metaData.getTables(null, null, "act_hi_taskinst", null)) {
+                        return upper.next() || lower.next();
+                    }
+                });
+            } catch (MetaDataAccessException e) {
+                available = false;
+            }
+            historyAvailable = available;
+        }
+        return available;
+    }
+
+    private void writeNode(JsonGenerator generator,
+                           ResultSet rs) throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "node");
+        generator.writeStringField("id", rs.getString("DESCENDANT_ID"));
+        generator.writeStringField("parentId", rs.getString("PARENT_ID"));
+        generator.writeNumberField("depth", rs.getInt("DEPTH"));
+        generator.writeStringField("nodeType", rs.getString("NODE_TYPE"));
+        generator.writeStringField("name", rs.getString("NODE_NAME"));
+        generator.writeEndObject();
+    }
+
+    private void writeVariable(JsonGenerator generator,
+                               ResultSet rs) throws SQLException, IOException {
+        String type = rs.getString("TYPE_");
+        generator.writeStartObject();
+        generator.writeStringField("type", "variable");
+        generator.writeStringField("processInstanceId", rs.getString("PROC_INST_ID_"));
+        generator.writeStringField("name", rs.getString("NAME_"));
+        generator.writeStringField("valueType", type);
+        generator.writeFieldName("value");
+        switch (type) {
+            case "boolean":
+                long flag = rs.getLong("LONG_");
+                if (rs.wasNull()) {
+                    generator.writeNull();
+                } else {
+                    generator.writeBoolean(flag == 1);
+                }
+                break;
+            case "integer":
+            case "long":
+            case "short":
+            case "date":
+                long number = rs.getLong("LONG_");
+                if (rs.wasNull()) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(number);
+                }
+                break;
+            case "double":
+                double real = rs.getDouble("DOUBLE_");
+                if (rs.wasNull()) {
+                    generator.writeNull();
+                } else {
+                    generator.writeNumber(real);
+                }
+                break;
+            case "json":
+                String json = rs.getString("TEXT_");
+                if (json == null) {
+                    generator.writeNull();
+                } else {
+                    generator.writeRawValue(json);
+                }
+                break;
+            default:
+                // Строки хранятся в TEXT_; двоичные значения (serializable, bytes) не выгружаются
+                generator.writeString(rs.getString("TEXT_"));
+                break;
+        }
+        generator.writeEndObject();
+    }
+
+    private void writeTask(JsonGenerator generator,
+                           ResultSet rs) throws SQLException, IOException {
+        generator.writeStartObject();
+        generator.writeStringField("type", "task");
+        generator.writeStringField("processInstanceId", rs.getString("PROC_INST_ID_"));
+        generator.writeStringField("id", rs.getString("ID_"));
+        generator.writeStringField("taskDefinitionKey", rs.getString("TASK_DEF_KEY_"));
+        generator.writeStringField("name", rs.getString("NAME_"));
+        generator.writeStringField("assignee", rs.getString("ASSIGNEE_"));
+        writeTime(generator, "startTime", rs.getTimestamp("START_TIME_"));
+        writeTime(generator, "endTime", rs.getTimestamp("END_TIME_"));
+        generator.writeEndObject();
+    }
+
+    private static void writeTime(JsonGenerator generator,
+                                  String field,
+                                  Timestamp time) throws IOException {
+        if (time == null) {
+            generator.writeNullField(field);
+        } else {
+            generator.writeStringField(field, time.toInstant().toString());
+        }
+    }
+
+    @FunctionalInterface
+    private interface RowWriter {
+
+        void write(JsonGenerator generator,
+                   ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * Счётчик строк и периодический сброс буфера.
+     */
+    private class LineWriter {
+
+        private final JsonGenerator generator;
+
+        private long lines;
+
+        private LineWriter(JsonGenerator generator) {
+            this.generator = generator;
+        }
+
+        private RowCallbackHandler of(RowWriter rowWriter) {
+            return rs -> {
+                try {
+                    rowWriter.write(generator, rs);
+                    if (++lines % properties.getFlushEvery() == 0) {
+                        generator.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            };
+        }
+    }
+}
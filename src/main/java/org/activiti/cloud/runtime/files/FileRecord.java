@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.files;
+
+import java.util.Date;
+
+/**
+ * Файл, хранящийся строкой таблицы до первого открытия.
+ * processInstanceId заполняется при повышении до экземпляра модели файла.
+ */
+public class FileRecord {
+
+    private final String id;
+
+    private final String parentProcessInstanceId;
+
+    private final String name;
+
+    private final String initiatorGroup;
+
+    private final Date createdDate;
+
+    private final String processInstanceId;
+
+    public FileRecord(String id,
+                      String parentProcessInstanceId,
+                      String name,
+                      String initiatorGroup,
+                      Date createdDate,
+                      String processInstanceId) {
+        this.id = id;
+        this.parentProcessInstanceId = parentProcessInstanceId;
+        this.name = name;
+        this.initiatorGroup = initiatorGroup;
+        this.createdDate = createdDate;
+        this.processInstanceId = processInstanceId;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getParentProcessInstanceId() {
+        return parentProcessInstanceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getInitiatorGroup() {
+        return initiatorGroup;
+    }
+
+    public Date getCreatedDate() {
+        return createdDate;
+    }
+
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public boolean isPromoted() {
+        return processInstanceId != null;
+    }
+}
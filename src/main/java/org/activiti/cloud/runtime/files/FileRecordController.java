@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.files;
+
+import org.activiti.api.task.model.Task;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@ConditionalOnProperty(prefix = "runtimebundle.file-records", name = "enabled", havingValue = "true")
+public class FileRecordController {
+
+    private final FileRecordService fileRecordService;
+
+    public FileRecordController(FileRecordService fileRecordService) {
+        this.fileRecordService = fileRecordService;
+    }
+
+    @PostMapping("/v1/process-instances/{processInstanceId}/file-records")
+    public List<FileRecord> create(@PathVariable String processInstanceId,
+                                   @RequestBody List<String> names) {
+        return fileRecordService.create(processInstanceId,
+                                        names);
+    }
+
+    @GetMapping("/v1/process-instances/{processInstanceId}/file-records")
+    public Page<FileRecord> records(@PathVariable String processInstanceId,
+                                    Pageable pageable) {
+        return fileRecordService.records(processInstanceId,
+                                         pageable);
+    }
+
+    @GetMapping("/v1/file-records/{id}")
+    public FileRecord record(@PathVariable String id) {
+        return fileRecordService.record(id);
+    }
+
+    @PostMapping("/v1/file-records/{id}/open")
+    public Task open(@PathVariable String id) {
+        return fileRecordService.open(id);
+    }
+
+    @DeleteMapping("/v1/file-records/{id}")
+    public void close(@PathVariable String id) {
+        fileRecordService.close(id);
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.files;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+@Repository
+@ConditionalOnProperty(prefix = "runtimebundle.file-records", name = "enabled", havingValue = "true")
+public class FileRecordRepository {
+
+    private static final String COLUMNS =
+            "ID, PARENT_PROCESS_INSTANCE_ID, NAME, INITIATOR_GROUP, CREATED_TIME, PROCESS_INSTANCE_ID";
+
+    private static final RowMapper<FileRecord> RECORD_MAPPER = (rs, rowNum) -> new FileRecord(
+            rs.getString("ID"),
+            rs.getString("PARENT_PROCESS_INSTANCE_ID"),
+            rs.getString("NAME"),
+            rs.getString("INITIATOR_GROUP"),
+            new Date(rs.getTimestamp("CREATED_TIME").getTime()),
+            rs.getString("PROCESS_INSTANCE_ID"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public FileRecordRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insert(List<FileRecord> records,
+                       int batchSize) {
+        List<Object[]> batch = new ArrayList<>(Math.min(records.size(), batchSize));
+        for (FileRecord record : records) {
+            batch.add(new Object[]{
+                    record.getId(),
+                    record.getParentProcessInstanceId(),
+                    record.getName(),
+                    record.getInitiatorGroup(),
+                    new Timestamp(record.getCreatedDate().getTime())
+            });
+            if (batch.size() >= batchSize) {
+                flush(batch);
+            }
+        }
+        flush(batch);
+    }
+
+    public FileRecord find(String id) {
+        List<FileRecord> records = jdbcTemplate.query("SELECT " + COLUMNS + " FROM FILE_RECORD WHERE ID = ?",
+                                                      RECORD_MAPPER,
+                                                      id);
+        return records.isEmpty() ? null : records.get(0);
+    }
+
+    public Page<FileRecord> findByParent(String parentProcessInstanceId,
+                                         Pageable pageable) {
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM FILE_RECORD WHERE PARENT_PROCESS_INSTANCE_ID = ?",
+                                                 Long.class,
+                                                 parentProcessInstanceId);
+        List<FileRecord> content = jdbcTemplate.query(
+                "SELECT " + COLUMNS + " FROM FILE_RECORD WHERE PARENT_PROCESS_INSTANCE_ID = ? " +
+                "ORDER BY CREATED_TIME, ID LIMIT ? OFFSET ?",
+                RECORD_MAPPER,
+                parentProcessInstanceId,
+                pageable.getPageSize(),
+                pageable.getOffset());
+        return new PageImpl<>(content, pageable, total == null ? 0 : total);
+    }
+
+    /**
+     * Привязка экземпляра процесса к записи; false, если запись уже повышена другим запросом.
+     */
+    public boolean markPromoted(String id,
+                                String processInstanceId) {
+        return jdbcTemplate.update("UPDATE FILE_RECORD SET PROCESS_INSTANCE_ID = ? WHERE ID = ? AND PROCESS_INSTANCE_ID IS NULL",
+                                   processInstanceId,
+                                   id) == 1;
+    }
+
+    public boolean delete(String id) {
+        return jdbcTemplate.update("DELETE FROM FILE_RECORD WHERE ID = ? AND PROCESS_INSTANCE_ID IS NULL", id) == 1;
+    }
+
+    public void deleteByParents(List<String> parentProcessInstanceIds) {
+        List<Object[]> batch = new ArrayList<>(parentProcessInstanceIds.size());
+        for (String parentProcessInstanceId : parentProcessInstanceIds) {
+            batch.add(new Object[]{parentProcessInstanceId});
+        }
+        jdbcTemplate.batchUpdate("DELETE FROM FILE_RECORD WHERE PARENT_PROCESS_INSTANCE_ID = ?", batch);
+    }
+
+    private void flush(List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO FILE_RECORD (ID, PARENT_PROCESS_INSTANCE_ID, NAME, INITIATOR_GROUP, CREATED_TIME) " +
+                                     "VALUES (?, ?, ?, ?, ?)", batch);
+            batch.clear();
+        }
+    }
+}
@@ -0,0 +1,207 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.files;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.tree.ProjectTreeRepository;
+import org.activiti.engine.RuntimeService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Page;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.activiti.cloud.runtime.ProjectModels.FILE_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ProjectModels.INITIATOR_GROUP_VARIABLE;
+import static org.activiti.cloud.runtime.ProjectModels.NAME_VARIABLE;
+import static org.activiti.cloud.runtime.ProjectModels.creationTaskKey;
+import static org.activiti.cloud.runtime.ProjectModels.nodeType;
+
+/**
+ * Облегчённый режим файлов.
+ * <p>
+ * Файл создаётся строкой FILE_RECORD без экземпляра процесса, задач, ссылок и переменных движка.
+ * Экземпляр модели файла запускается только при первом открытии задачи "Изменить" и дальше
+ * живёт по обычным правилам модели. Повышение выполняется в одной транзакции со стартом
+ * процесса, поэтому одновременное открытие одной записи порождает ровно один экземпляр.
+ */
+@Service
+@ConditionalOnProperty(prefix = "runtimebundle.file-records", name = "enabled", havingValue = "true")
+public class FileRecordService {
+
+    private final Logger logger = LoggerFactory.getLogger(FileRecordService.class);
+
+    private final FileRecordRepository fileRecordRepository;
+
+    private final ProjectTreeRepository projectTreeRepository;
+
+    private final ProcessRuntime processRuntime;
+
+    private final TaskRuntime taskRuntime;
+
+    private final RuntimeService runtimeService;
+
+    private final SecurityManager securityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final FileRecordProperties properties;
+
+    public FileRecordService(FileRecordRepository fileRecordRepository,
+                             ProjectTreeRepository projectTreeRepository,
+                             ProcessRuntime processRuntime,
+                             TaskRuntime taskRuntime,
+                             RuntimeService runtimeService,
+                             SecurityManager securityManager,
+                             PlatformTransactionManager transactionManager,
+                             FileRecordProperties properties) {
+        this.fileRecordRepository = fileRecordRepository;
+        this.projectTreeRepository = projectTreeRepository;
+        this.processRuntime = processRuntime;
+        this.taskRuntime = taskRuntime;
+        this.runtimeService = runtimeService;
+        this.securityManager = securityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    public List<FileRecord> create(String parentProcessInstanceId,
+                                   List<String> names) {
+        if (names == null || names.isEmpty()) {
+            throw new IllegalArgumentException("Nothing to create");
+        }
+        if (names.size() > properties.getMaxEntries()) {
+            throw new IllegalArgumentException("Too many entries: " + names.size() +
+                    ", max is " + properties.getMaxEntries());
+        }
+        // Проверка прав: родитель должен быть доступен текущему пользователю
+        ProcessInstance parent = processRuntime.processInstance(parentProcessInstanceId);
+        if (creationTaskKey(parent.getProcessDefinitionKey()) == null) {
+            throw new IllegalArgumentException("Process instance '" + parentProcessInstanceId +
+                    "' of '" + parent.getProcessDefinitionKey() + "' can't contain files");
+        }
+        Object initiatorGroup = runtimeService.getVariable(parentProcessInstanceId, INITIATOR_GROUP_VARIABLE);
+        if (initiatorGroup == null) {
+            throw new IllegalStateException("Process instance '" + parentProcessInstanceId +
+                    "' has no '" + INITIATOR_GROUP_VARIABLE + "' variable");
+        }
+
+        Date now = new Date();
+        List<FileRecord> records = new ArrayList<>(names.size());
+        for (String name : names) {
+            if (name == null || name.isEmpty()) {
+                throw new IllegalArgumentException("File name is required");
+            }
+            records.add(new FileRecord(UUID.randomUUID().toString(),
+                                       parentProcessInstanceId,
+                                       name,
+                                       initiatorGroup.toString(),
+                                       now,
+                                       null));
+        }
+        transactionTemplate.executeWithoutResult(status ->
+                fileRecordRepository.insert(records, Math.max(1, properties.getBatchSize())));
+        logger.debug("> " + records.size() + " file records created for " + parentProcessInstanceId);
+        return records;
+    }
+
+    public Page<FileRecord> records(String parentProcessInstanceId,
+                                    org.springframework.data.domain.Pageable pageable) {
+        processRuntime.processInstance(parentProcessInstanceId);
+        return fileRecordRepository.findByParent(parentProcessInstanceId, pageable);
+    }
+
+    public FileRecord record(String id) {
+        FileRecord record = fileRecordRepository.find(id);
+        if (record == null || !securityManager.getAuthenticatedUserGroups().contains(record.getInitiatorGroup())) {
+            throw new NotFoundException("Unable to find file record for the given id:'" + id + "'");
+        }
+        return record;
+    }
+
+    /**
+     * Открытие файла: при необходимости повышает запись и возвращает задачу "Изменить".
+     */
+    public Task open(String id) {
+        String processInstanceId = promote(id).getProcessInstanceId();
+        List<Task> tasks = taskRuntime.tasks(Pageable.of(0, 1),
+                                             TaskPayloadBuilder.tasks()
+                                                     .withProcessInstanceId(processInstanceId)
+                                                     .build())
+                .getContent();
+        if (tasks.isEmpty()) {
+            throw new NotFoundException("File '" + id + "' has no open task");
+        }
+        return tasks.get(0);
+    }
+
+    public FileRecord promote(String id) {
+        FileRecord record = record(id);
+        if (record.isPromoted()) {
+            return record;
+        }
+        String processInstanceId = transactionTemplate.execute(status -> {
+            ProcessInstance processInstance = processRuntime.start(ProcessPayloadBuilder
+                    .start()
+                    .withProcessDefinitionKey(FILE_MODEL_DEFINITION_KEY)
+                    .withBusinessKey(record.getId())
+                    .withVariable(NAME_VARIABLE, record.getName())
+                    .withVariable(INITIATOR_GROUP_VARIABLE, record.getInitiatorGroup())
+                    .build());
+            if (!fileRecordRepository.markPromoted(record.getId(), processInstance.getId())) {
+                // Запись уже повышена параллельным запросом: старт откатывается
+                status.setRollbackOnly();
+                return null;
+            }
+            // Экземпляр запущен не через call activity, узел дерева привязывается к родителю явно
+            projectTreeRepository.deleteNode(processInstance.getId());
+            projectTreeRepository.insertNode(processInstance.getId(),
+                                             record.getParentProcessInstanceId(),
+                                             nodeType(FILE_MODEL_DEFINITION_KEY),
+                                             record.getName());
+            return processInstance.getId();
+        });
+        if (processInstanceId != null) {
+            logger.info("> File record " + id + " promoted to process instance " + processInstanceId);
+        }
+        return fileRecordRepository.find(id);
+    }
+
+    /**
+     * Закрытие файла, который так и не открывали, без запуска модели.
+     */
+    public void close(String id) {
+        FileRecord record = record(id);
+        if (record.isPromoted() || !fileRecordRepository.delete(id)) {
+            throw new IllegalStateException("File record '" + id + "' is already opened, close it through its task");
+        }
+    }
+}
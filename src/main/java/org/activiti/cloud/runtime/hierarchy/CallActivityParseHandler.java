@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.hierarchy;
+
+import org.activiti.bpmn.model.ActivitiListener;
+import org.activiti.bpmn.model.BaseElement;
+import org.activiti.bpmn.model.CallActivity;
+import org.activiti.bpmn.model.ImplementationType;
+import org.activiti.cloud.runtime.ProjectModels;
+import org.activiti.engine.delegate.ExecutionListener;
+import org.activiti.engine.impl.bpmn.parser.BpmnParse;
+import org.activiti.engine.impl.bpmn.parser.handler.AbstractBpmnParseHandler;
+
+/**
+ * Дополняет call activity моделей проекта до построения их поведения:
+ * проверкой глубины при старте и, по настройке, асинхронным запуском подпроектов.
+ */
+public class CallActivityParseHandler extends AbstractBpmnParseHandler<CallActivity> {
+
+    private final HierarchyProperties properties;
+
+    public CallActivityParseHandler(HierarchyProperties properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    protected Class<? extends BaseElement> getHandledType() {
+        return CallActivity.class;
+    }
+
+    @Override
+    protected void executeParse(BpmnParse bpmnParse,
+                                CallActivity callActivity) {
+        String calledElement = callActivity.getCalledElement();
+        if (!ProjectModels.MODEL_DEFINITION_KEYS.contains(calledElement)) {
+            return;
+        }
+
+        ActivitiListener depthGuard = new ActivitiListener();
+        depthGuard.setEvent(ExecutionListener.EVENTNAME_START);
+        depthGuard.setImplementationType(ImplementationType.IMPLEMENTATION_TYPE_DELEGATEEXPRESSION);
+        depthGuard.setImplementation("${" + HierarchyDepthGuard.BEAN_NAME + "}");
+        callActivity.getExecutionListeners().add(depthGuard);
+
+        if (properties.isAsyncSubprojectCreation() && ProjectModels.SUBPROJECT_MODEL_DEFINITION_KEY.equals(calledElement)) {
+            callActivity.setAsynchronous(true);
+        }
+    }
+}
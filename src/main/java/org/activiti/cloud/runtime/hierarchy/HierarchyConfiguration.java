@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.hierarchy;
+
+import org.activiti.engine.parse.BpmnParseHandler;
+import org.activiti.spring.boot.ProcessEngineConfigurationConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class HierarchyConfiguration {
+
+    @Bean
+    public ProcessEngineConfigurationConfigurer hierarchyConfigurer(HierarchyProperties properties) {
+        return configuration -> {
+            // Обработчик до разбора: поведение call activity строится уже с изменениями
+            List<BpmnParseHandler> handlers = new ArrayList<>();
+            if (configuration.getPreBpmnParseHandlers() != null) {
+                handlers.addAll(configuration.getPreBpmnParseHandlers());
+            }
+            handlers.add(new CallActivityParseHandler(properties));
+            configuration.setPreBpmnParseHandlers(handlers);
+        };
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.hierarchy;
+
+import org.activiti.cloud.runtime.tree.ProjectTreeRepository;
+import org.activiti.engine.ActivitiException;
+import org.activiti.engine.delegate.DelegateExecution;
+import org.activiti.engine.delegate.ExecutionListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * Слушатель начала call activity: не даёт создать элемент глубже
+ * {@link HierarchyProperties#getMaxDepth()} от корня проекта.
+ */
+@Component(HierarchyDepthGuard.BEAN_NAME)
+public class HierarchyDepthGuard implements ExecutionListener {
+
+    public static final String BEAN_NAME = "hierarchyDepthGuard";
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ProjectTreeRepository projectTreeRepository;
+
+    private final transient HierarchyProperties properties;
+
+    public HierarchyDepthGuard(ProjectTreeRepository projectTreeRepository,
+                               HierarchyProperties properties) {
+        this.projectTreeRepository = projectTreeRepository;
+        this.properties = properties;
+    }
+
+    @Override
+    public void notify(DelegateExecution execution) {
+        int depth = projectTreeRepository.depth(execution.getProcessInstanceId()) + 1;
+        if (depth > properties.getMaxDepth()) {
+            throw new ActivitiException("Element can't be created at depth " + depth +
+                                                ", max depth is " + properties.getMaxDepth());
+        }
+    }
+}
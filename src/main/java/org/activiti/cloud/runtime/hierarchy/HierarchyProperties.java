@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.hierarchy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("runtimebundle.hierarchy")
+public class HierarchyProperties {
+
+    /**
+     * Запускать подпроекты асинхронно, отдельной задачей исполнителя заданий:
+     * каждый уровень фиксируется в своей транзакции.
+     */
+    private boolean asyncSubprojectCreation = false;
+
+    /**
+     * Максимальная глубина элемента от корня проекта.
+     */
+    private int maxDepth = 32;
+
+    public boolean isAsyncSubprojectCreation() {
+        return asyncSubprojectCreation;
+    }
+
+    public void setAsyncSubprojectCreation(boolean asyncSubprojectCreation) {
+        this.asyncSubprojectCreation = asyncSubprojectCreation;
+    }
+
+    public int getMaxDepth() {
+        return maxDepth;
+    }
+
+    public void setMaxDepth(int maxDepth) {
+        this.maxDepth = maxDepth;
+    }
+}
@@ -0,0 +1,361 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.cloud.runtime.hierarchy.HierarchyProperties;
+import org.activiti.engine.TaskService;
+import org.activiti.engine.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.activiti.cloud.runtime.ProjectModels.CREATION_NAME_VARIABLE;
+import static org.activiti.cloud.runtime.ProjectModels.CREATION_TYPE_FILE;
+import static org.activiti.cloud.runtime.ProjectModels.CREATION_TYPE_SUBPROJECT;
+import static org.activiti.cloud.runtime.ProjectModels.CREATION_TYPE_VARIABLE;
+import static org.activiti.cloud.runtime.ProjectModels.INITIATOR_GROUP_VARIABLE;
+import static org.activiti.cloud.runtime.ProjectModels.NAME_VARIABLE;
+import static org.activiti.cloud.runtime.ProjectModels.PROJECT_CREATE_TASK_KEY;
+import static org.activiti.cloud.runtime.ProjectModels.PROJECT_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ProjectModels.SUBPROJECT_CREATE_TASK_KEY;
+import static org.activiti.cloud.runtime.ProjectModels.TYPE_PROJECT;
+
+/**
+ * Потоковый импорт иерархии проектов из NDJSON или CSV.
+ * <p>
+ * Файл читается построчно и не держится в памяти целиком. Корневые проекты запускаются
+ * через {@link ProcessRuntime}, вложенные элементы - выполнением задачи "Создать" родителя,
+ * как в {@link org.activiti.cloud.runtime.bulk.BulkCreationService}: call activity модели
+ * сама создаёт связи родитель-потомок и переменные name/initiator_group. Каждые
+ * {@link ImportProperties#getChunkSize()} строк фиксируются одной транзакцией вместе
+ * с соответствиями ref - экземпляр и контрольной точкой, поэтому прерванный импорт
+ * повторным запуском с тем же importId продолжается с первой незафиксированной строки.
+ * <p>
+ * Формат CSV: ref,parentRef,type,name,initiatorGroup; строка заголовка необязательна.
+ */
+@Service
+public class HierarchyImportService {
+
+    public static final String FORMAT_NDJSON = "ndjson";
+    public static final String FORMAT_CSV = "csv";
+
+    private final Logger logger = LoggerFactory.getLogger(HierarchyImportService.class);
+
+    private final ProcessRuntime processRuntime;
+
+    private final TaskService taskService;
+
+    private final SecurityManager securityManager;
+
+    private final ImportCheckpointRepository checkpointRepository;
+
+    private final ProcessStartCapture processStartCapture;
+
+    private final ObjectMapper objectMapper;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final HierarchyProperties hierarchyProperties;
+
+    private final ImportProperties properties;
+
+    public HierarchyImportService(ProcessRuntime processRuntime,
+                                  TaskService taskService,
+                                  SecurityManager securityManager,
+                                  ImportCheckpointRepository checkpointRepository,
+                                  ProcessStartCapture processStartCapture,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  HierarchyProperties hierarchyProperties,
+                                  ImportProperties properties) {
+        this.processRuntime = processRuntime;
+        this.taskService = taskService;
+        this.securityManager = securityManager;
+        this.checkpointRepository = checkpointRepository;
+        this.processStartCapture = processStartCapture;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.hierarchyProperties = hierarchyProperties;
+        this.properties = properties;
+    }
+
+    public ImportResult importStream(String importId,
+                                     InputStream input,
+                                     String format) {
+        if (importId == null || importId.isEmpty()) {
+            throw new IllegalArgumentException("Import id is required");
+        }
+        if (!FORMAT_NDJSON.equals(format) && !FORMAT_CSV.equals(format)) {
+            throw new IllegalArgumentException("Unsupported import format: " + format);
+        }
+        if (hierarchyProperties.isAsyncSubprojectCreation()) {
+            // Подпроекты запускаются заданием после фиксации, их id неизвестен в транзакции импорта
+            throw new IllegalStateException("Hierarchy import requires runtimebundle.hierarchy.async-subproject-creation=false");
+        }
+        long start = System.currentTimeMillis();
+        ImportCheckpoint checkpoint = checkpointRepository.find(importId);
+        long resumeFrom = checkpoint == null ? 0 : checkpoint.getLineNumber();
+        long created = checkpoint == null ? 0 : checkpoint.getCreated();
+
+        String userId = securityManager.getAuthenticatedUserId();
+        List<String> groups = securityManager.getAuthenticatedUserGroups();
+        Cache<String, ImportedNode> refs = Caffeine.newBuilder()
+                .maximumSize(properties.getRefCacheSize())
+                .build();
+        int chunkSize = Math.max(1, properties.getChunkSize());
+
+        long lineNumber = 0;
+        long committedLine = resumeFrom;
+        long createdNow = 0;
+        List<ImportLine> chunk = new ArrayList<>(chunkSize);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String raw;
+            while ((raw = reader.readLine()) != null) {
+                lineNumber++;
+                if (lineNumber <= resumeFrom) {
+                    continue;
+                }
+                ImportLine line = parse(raw, format, lineNumber);
+                if (line == null) {
+                    continue;
+                }
+                chunk.add(line);
+                if (chunk.size() >= chunkSize) {
+                    createdNow += commit(importId, chunk, lineNumber, created + createdNow, refs, userId, groups);
+                    committedLine = lineNumber;
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (!chunk.isEmpty() || lineNumber > committedLine) {
+            createdNow += commit(importId, chunk, lineNumber, created + createdNow, refs, userId, groups);
+        }
+
+        ImportResult result = new ImportResult(importId,
+                                               lineNumber,
+                                               createdNow,
+                                               Math.min(resumeFrom, lineNumber),
+                                               System.currentTimeMillis() - start);
+        logger.info("> " + result);
+        return result;
+    }
+
+    public ImportCheckpoint checkpoint(String importId) {
+        return checkpointRepository.find(importId);
+    }
+
+    private long commit(String importId,
+                        List<ImportLine> chunk,
+                        long lineNumber,
+                        long createdBefore,
+                        Cache<String, ImportedNode> refs,
+                        String userId,
+                        List<String> groups) {
+        // Новые соответствия видны остальным строкам пакета сразу, а в кеш попадают только после фиксации
+        Map<String, ImportedNode> pending = new HashMap<>();
+        List<ImportedNode> nodes = transactionTemplate.execute(status -> {
+            List<ImportedNode> result = new ArrayList<>(chunk.size());
+            for (ImportLine line : chunk) {
+                // Повторы из прошлых пакетов, вытесненные из кеша, отсекает первичный ключ IMPORT_REF
+                if (pending.containsKey(line.getRef()) || refs.getIfPresent(line.getRef()) != null) {
+                    throw new IllegalArgumentException("Duplicate ref: " + line);
+                }
+                ImportedNode node = isRoot(line)
+                        ? startProject(line, groups)
+                        : createChild(line, parent(importId, line, pending, refs), userId);
+                pending.put(node.getRef(), node);
+                result.add(node);
+            }
+            if (!result.isEmpty()) {
+                checkpointRepository.insertRefs(importId, result);
+            }
+            checkpointRepository.checkpoint(importId, lineNumber, createdBefore + result.size());
+            return result;
+        });
+        refs.putAll(pending);
+        logger.debug("> Import " + importId + " checkpoint at line " + lineNumber);
+        return nodes.size();
+    }
+
+    private ImportedNode startProject(ImportLine line,
+                                      List<String> groups) {
+        if (line.getType() != null && !TYPE_PROJECT.equals(line.getType())) {
+            throw new IllegalArgumentException("Root element must be a project: " + line);
+        }
+        String initiatorGroup = line.getInitiatorGroup();
+        if (initiatorGroup == null || initiatorGroup.isEmpty()) {
+            if (groups.isEmpty()) {
+                throw new IllegalArgumentException("Initiator group is required: " + line);
+            }
+            initiatorGroup = groups.get(0);
+        } else if (!groups.contains(initiatorGroup)) {
+            throw new IllegalArgumentException("User is not a member of initiator group: " + line);
+        }
+        ProcessInstance processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable(NAME_VARIABLE, line.getName())
+                .withVariable(INITIATOR_GROUP_VARIABLE, initiatorGroup)
+                .build());
+        return new ImportedNode(line.getRef(), processInstance.getId(), TYPE_PROJECT);
+    }
+
+    private ImportedNode createChild(ImportLine line,
+                                     ImportedNode parent,
+                                     String userId) {
+        String type = line.getType() == null || line.getType().isEmpty() ? CREATION_TYPE_FILE : line.getType();
+        boolean typed = TYPE_PROJECT.equals(parent.getType());
+        if (!CREATION_TYPE_FILE.equals(type) && !(typed && CREATION_TYPE_SUBPROJECT.equals(type))) {
+            throw new IllegalArgumentException("Unsupported element type for " + parent.getType() + ": " + line);
+        }
+        String taskKey = typed ? PROJECT_CREATE_TASK_KEY : SUBPROJECT_CREATE_TASK_KEY;
+        Task task = taskService.createTaskQuery()
+                .processInstanceId(parent.getProcessInstanceId())
+                .taskDefinitionKey(taskKey)
+                .singleResult();
+        if (task == null) {
+            throw new IllegalStateException("Process instance '" + parent.getProcessInstanceId() +
+                    "' has no open '" + taskKey + "' task");
+        }
+        taskService.claim(task.getId(), userId);
+
+        Map<String, Object> variables = new HashMap<>();
+        variables.put(CREATION_NAME_VARIABLE, line.getName());
+        if (typed) {
+            variables.put(CREATION_TYPE_VARIABLE, type);
+        }
+        processStartCapture.begin(parent.getProcessInstanceId());
+        String processInstanceId;
+        try {
+            taskService.complete(task.getId(), variables);
+        } finally {
+            processInstanceId = processStartCapture.end();
+        }
+        if (processInstanceId == null) {
+            throw new IllegalStateException("No process instance started for " + line);
+        }
+        return new ImportedNode(line.getRef(), processInstanceId, type);
+    }
+
+    private ImportedNode parent(String importId,
+                                ImportLine line,
+                                Map<String, ImportedNode> pending,
+                                Cache<String, ImportedNode> refs) {
+        ImportedNode parent = pending.get(line.getParentRef());
+        if (parent == null) {
+            parent = refs.get(line.getParentRef(), ref -> checkpointRepository.findRef(importId, ref));
+        }
+        if (parent == null) {
+            throw new IllegalArgumentException("Parent must precede its children: " + line);
+        }
+        if (CREATION_TYPE_FILE.equals(parent.getType())) {
+            throw new IllegalArgumentException("File can't contain nested elements: " + line);
+        }
+        return parent;
+    }
+
+    private static boolean isRoot(ImportLine line) {
+        return line.getParentRef() == null || line.getParentRef().isEmpty();
+    }
+
+    ImportLine parse(String raw,
+                     String format,
+                     long lineNumber) {
+        if (raw.trim().isEmpty()) {
+            return null;
+        }
+        ImportLine line;
+        if (FORMAT_NDJSON.equals(format)) {
+            try {
+                line = objectMapper.readValue(raw, ImportLine.class);
+            } catch (IOException e) {
+                throw new IllegalArgumentException("Malformed line " + lineNumber + ": " + e.getMessage(), e);
+            }
+        } else {
+            List<String> fields = splitCsv(raw);
+            if (lineNumber == 1 && "ref".equalsIgnoreCase(fields.get(0))) {
+                return null;
+            }
+            line = new ImportLine(field(fields, 0), field(fields, 1), field(fields, 2), field(fields, 3), field(fields, 4));
+        }
+        if (line.getRef() == null || line.getRef().isEmpty() || line.getName() == null || line.getName().isEmpty()) {
+            throw new IllegalArgumentException("Line " + lineNumber + " requires ref and name: " + line);
+        }
+        return line;
+    }
+
+    private static String field(List<String> fields,
+                                int index) {
+        if (index >= fields.size() || fields.get(index).isEmpty()) {
+            return null;
+        }
+        return fields.get(index);
+    }
+
+    /**
+     * Разбор строки CSV с полями в кавычках и удвоенными кавычками внутри них.
+     * Переводы строк внутри полей не поддерживаются.
+     */
+    static List<String> splitCsv(String raw) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < raw.length(); i++) {
+            char c = raw.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < raw.length() && raw.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString().trim());
+        return fields;
+    }
+}
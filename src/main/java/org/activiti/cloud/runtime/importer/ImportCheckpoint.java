@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+import java.util.Date;
+
+public class ImportCheckpoint {
+
+    private final String importId;
+
+    private final long lineNumber;
+
+    private final long created;
+
+    private final Date updated;
+
+    public ImportCheckpoint(String importId,
+                            long lineNumber,
+                            long created,
+                            Date updated) {
+        this.importId = importId;
+        this.lineNumber = lineNumber;
+        this.created = created;
+        this.updated = updated;
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    /**
+     * Последняя строка файла, зафиксированная вместе со своими экземплярами.
+     */
+    public long getLineNumber() {
+        return lineNumber;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public Date getUpdated() {
+        return updated;
+    }
+}
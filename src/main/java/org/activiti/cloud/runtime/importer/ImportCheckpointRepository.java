@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.util.List;
+
+@Repository
+public class ImportCheckpointRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ImportCheckpointRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public ImportCheckpoint find(String importId) {
+        List<ImportCheckpoint> checkpoints = jdbcTemplate.query(
+                "SELECT IMPORT_ID, LINE_NUMBER, CREATED, UPDATED_TIME FROM IMPORT_CHECKPOINT WHERE IMPORT_ID = ?",
+                (rs, rowNum) -> new ImportCheckpoint(rs.getString(1),
+                                                     rs.getLong(2),
+                                                     rs.getLong(3),
+                                                     rs.getTimestamp(4)),
+                importId);
+        return checkpoints.isEmpty() ? null : checkpoints.get(0);
+    }
+
+    public void checkpoint(String importId,
+                           long lineNumber,
+                           long created) {
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        int updated = jdbcTemplate.update("UPDATE IMPORT_CHECKPOINT SET LINE_NUMBER = ?, CREATED = ?, UPDATED_TIME = ? WHERE IMPORT_ID = ?",
+                                          lineNumber, created, now, importId);
+        if (updated == 0) {
+            jdbcTemplate.update("INSERT INTO IMPORT_CHECKPOINT (IMPORT_ID, LINE_NUMBER, CREATED, UPDATED_TIME) VALUES (?, ?, ?, ?)",
+                                importId, lineNumber, created, now);
+        }
+    }
+
+    public void insertRefs(String importId,
+                           List<ImportedNode> nodes) {
+        jdbcTemplate.batchUpdate("INSERT INTO IMPORT_REF (IMPORT_ID, REF, PROCESS_INSTANCE_ID, NODE_TYPE) VALUES (?, ?, ?, ?)",
+                                 nodes,
+                                 nodes.size(),
+                                 (ps, node) -> {
+                                     ps.setString(1, importId);
+                                     ps.setString(2, node.getRef());
+                                     ps.setString(3, node.getProcessInstanceId());
+                                     ps.setString(4, node.getType());
+                                 });
+    }
+
+    public ImportedNode findRef(String importId,
+                                String ref) {
+        List<ImportedNode> nodes = jdbcTemplate.query(
+                "SELECT REF, PROCESS_INSTANCE_ID, NODE_TYPE FROM IMPORT_REF WHERE IMPORT_ID = ? AND REF = ?",
+                (rs, rowNum) -> new ImportedNode(rs.getString(1), rs.getString(2), rs.getString(3)),
+                importId,
+                ref);
+        return nodes.isEmpty() ? null : nodes.get(0);
+    }
+}
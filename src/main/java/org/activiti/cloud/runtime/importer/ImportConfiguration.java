@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+import org.activiti.engine.delegate.event.ActivitiEventListener;
+import org.activiti.spring.boot.ProcessEngineConfigurationConfigurer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class ImportConfiguration {
+
+    @Bean
+    public ProcessStartCapture processStartCapture() {
+        return new ProcessStartCapture();
+    }
+
+    @Bean
+    public ProcessEngineConfigurationConfigurer importConfigurer(ProcessStartCapture processStartCapture) {
+        return configuration -> {
+            List<ActivitiEventListener> listeners = new ArrayList<>();
+            if (configuration.getEventListeners() != null) {
+                listeners.addAll(configuration.getEventListeners());
+            }
+            listeners.add(processStartCapture);
+            configuration.setEventListeners(listeners);
+        };
+    }
+}
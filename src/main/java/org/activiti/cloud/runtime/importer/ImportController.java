@@ -0,0 +1,61 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+
+/**
+ * Импорт иерархии. Тело запроса читается потоком, поэтому файл любого размера
+ * передаётся как есть: curl --data-binary @projects.ndjson .../v1/imports/{importId}.
+ * Повтор того же запроса после сбоя продолжает импорт с контрольной точки.
+ */
+@RestController
+@RequestMapping("/v1/imports/{importId}")
+public class ImportController {
+
+    private final HierarchyImportService hierarchyImportService;
+
+    public ImportController(HierarchyImportService hierarchyImportService) {
+        this.hierarchyImportService = hierarchyImportService;
+    }
+
+    @PostMapping
+    public ImportResult importHierarchy(@PathVariable String importId,
+                                        @RequestParam(defaultValue = HierarchyImportService.FORMAT_NDJSON) String format,
+                                        HttpServletRequest request) throws IOException {
+        return hierarchyImportService.importStream(importId,
+                                                   request.getInputStream(),
+                                                   format);
+    }
+
+    @GetMapping
+    public ImportCheckpoint checkpoint(@PathVariable String importId) {
+        ImportCheckpoint checkpoint = hierarchyImportService.checkpoint(importId);
+        if (checkpoint == null) {
+            throw new NotFoundException("Unable to find import for the given id:'" + importId + "'");
+        }
+        return checkpoint;
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+/**
+ * Строка описания иерархии: ref - ключ узла внутри файла, parentRef - ключ родителя
+ * (пусто для корневого проекта). Родитель должен встречаться в файле раньше потомков.
+ */
+public class ImportLine {
+
+    private String ref;
+
+    private String parentRef;
+
+    private String type;
+
+    private String name;
+
+    private String initiatorGroup;
+
+    public ImportLine() {
+    }
+
+    public ImportLine(String ref,
+                      String parentRef,
+                      String type,
+                      String name,
+                      String initiatorGroup) {
+        this.ref = ref;
+        this.parentRef = parentRef;
+        this.type = type;
+        this.name = name;
+        this.initiatorGroup = initiatorGroup;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public void setRef(String ref) {
+        this.ref = ref;
+    }
+
+    public String getParentRef() {
+        return parentRef;
+    }
+
+    public void setParentRef(String parentRef) {
+        this.parentRef = parentRef;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public String getInitiatorGroup() {
+        return initiatorGroup;
+    }
+
+    public void setInitiatorGroup(String initiatorGroup) {
+        this.initiatorGroup = initiatorGroup;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportLine{" +
+                "ref='" + ref + '\'' +
+                ", parentRef='" + parentRef + '\'' +
+                ", type='" + type + '\'' +
+                ", name='" + name + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("runtimebundle.import")
+public class ImportProperties {
+
+    /**
+     * Строк на транзакцию и контрольную точку.
+     */
+    private int chunkSize = 500;
+
+    /**
+     * Сколько соответствий ref - экземпляр держать в памяти; остальные читаются из IMPORT_REF.
+     */
+    private long refCacheSize = 100000;
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public void setChunkSize(int chunkSize) {
+        this.chunkSize = chunkSize;
+    }
+
+    public long getRefCacheSize() {
+        return refCacheSize;
+    }
+
+    public void setRefCacheSize(long refCacheSize) {
+        this.refCacheSize = refCacheSize;
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+public class ImportResult {
+
+    private final String importId;
+
+    private final long lines;
+
+    private final long created;
+
+    private final long skipped;
+
+    private final long elapsedMillis;
+
+    public ImportResult(String importId,
+                        long lines,
+                        long created,
+                        long skipped,
+                        long elapsedMillis) {
+        this.importId = importId;
+        this.lines = lines;
+        this.created = created;
+        this.skipped = skipped;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public String getImportId() {
+        return importId;
+    }
+
+    public long getLines() {
+        return lines;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    /**
+     * Строки, уже обработанные прошлым запуском до контрольной точки.
+     */
+    public long getSkipped() {
+        return skipped;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return "ImportResult{" +
+                "importId='" + importId + '\'' +
+                ", lines=" + lines +
+                ", created=" + created +
+                ", skipped=" + skipped +
+                ", elapsedMillis=" + elapsedMillis +
+                '}';
+    }
+}
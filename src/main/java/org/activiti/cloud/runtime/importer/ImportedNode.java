@@ -0,0 +1,48 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+/**
+ * Созданный импортом экземпляр и его ref из файла.
+ */
+public class ImportedNode {
+
+    private final String ref;
+
+    private final String processInstanceId;
+
+    private final String type;
+
+    public ImportedNode(String ref,
+                        String processInstanceId,
+                        String type) {
+        this.ref = ref;
+        this.processInstanceId = processInstanceId;
+        this.type = type;
+    }
+
+    public String getRef() {
+        return ref;
+    }
+
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public String getType() {
+        return type;
+    }
+}
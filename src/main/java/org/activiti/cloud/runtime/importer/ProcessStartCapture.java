@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.importer;
+
+import org.activiti.engine.delegate.event.ActivitiEntityEvent;
+import org.activiti.engine.delegate.event.ActivitiEvent;
+import org.activiti.engine.delegate.event.ActivitiEventListener;
+import org.activiti.engine.delegate.event.ActivitiEventType;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+
+/**
+ * Перехват id дочернего процесса, который call activity запускает при выполнении задачи
+ * "Создать" в текущем потоке. Так импорт узнаёт созданный экземпляр без поиска по имени.
+ */
+public class ProcessStartCapture implements ActivitiEventListener {
+
+    private final ThreadLocal<String[]> captured = new ThreadLocal<>();
+
+    /**
+     * Начало перехвата для задачи экземпляра parentProcessInstanceId.
+     */
+    public void begin(String parentProcessInstanceId) {
+        captured.set(new String[]{parentProcessInstanceId, null});
+    }
+
+    /**
+     * Окончание перехвата: id первого запущенного дочернего экземпляра или null.
+     */
+    public String end() {
+        String[] slot = captured.get();
+        captured.remove();
+        return slot == null ? null : slot[1];
+    }
+
+    @Override
+    public void onEvent(ActivitiEvent event) {
+        String[] slot = captured.get();
+        if (slot == null || slot[1] != null || event.getType() != ActivitiEventType.PROCESS_STARTED) {
+            return;
+        }
+        // Событие может нести как сам экземпляр, так и его первое исполнение
+        String processInstanceId = event.getProcessInstanceId();
+        if (processInstanceId == null && event instanceof ActivitiEntityEvent
+                && ((ActivitiEntityEvent) event).getEntity() instanceof ExecutionEntity) {
+            processInstanceId = ((ExecutionEntity) ((ActivitiEntityEvent) event).getEntity()).getProcessInstanceId();
+        }
+        if (processInstanceId != null && !processInstanceId.equals(slot[0])) {
+            slot[1] = processInstanceId;
+        }
+    }
+
+    @Override
+    public boolean isFailOnException() {
+        return false;
+    }
+}
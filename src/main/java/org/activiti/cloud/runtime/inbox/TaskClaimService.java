@@ -0,0 +1,134 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.inbox;
+
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.engine.ActivitiOptimisticLockingException;
+import org.activiti.engine.TaskService;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Захват задач групп через проекцию TASK_INBOX.
+ * <p>
+ * Проверка кандидата - чтение строк задачи по первичному ключу вместо соединения
+ * с ACT_RU_IDENTITYLINK, захват - условное обновление тех же строк. Движок получает
+ * claim в той же транзакции только после того, как строка досталась пользователю,
+ * поэтому конкуренты за одну задачу не доходят до оптимистичных блокировок движка.
+ */
+@Service
+public class TaskClaimService {
+
+    private final TaskInboxRepository taskInboxRepository;
+
+    private final TaskService taskService;
+
+    private final SecurityManager securityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TaskInboxProperties properties;
+
+    public TaskClaimService(TaskInboxRepository taskInboxRepository,
+                            TaskService taskService,
+                            SecurityManager securityManager,
+                            PlatformTransactionManager transactionManager,
+                            TaskInboxProperties properties) {
+        this.taskInboxRepository = taskInboxRepository;
+        this.taskService = taskService;
+        this.securityManager = securityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+    }
+
+    /**
+     * Может ли текущий пользователь взять задачу.
+     */
+    public boolean canClaim(String taskId) {
+        List<String> groups = securityManager.getAuthenticatedUserGroups();
+        if (groups == null || groups.isEmpty()) {
+            return false;
+        }
+        TaskInboxEntry entry = taskInboxRepository.find(taskId, groups);
+        return entry != null && entry.getAssignee() == null;
+    }
+
+    public TaskInboxEntry claim(String taskId) {
+        String user = securityManager.getAuthenticatedUserId();
+        List<String> groups = securityManager.getAuthenticatedUserGroups();
+        if (groups != null && !groups.isEmpty() && tryClaim(taskId, user, groups)) {
+            return taskInboxRepository.find(taskId);
+        }
+        TaskInboxEntry entry = groups == null || groups.isEmpty() ? null : taskInboxRepository.find(taskId, groups);
+        if (entry == null) {
+            throw new NotFoundException("Unable to find task for the given id:'" + taskId + "'");
+        }
+        if (user.equals(entry.getAssignee())) {
+            return entry;
+        }
+        throw new IllegalStateException("Task '" + taskId + "' is already claimed");
+    }
+
+    /**
+     * Захват первой свободной задачи групп пользователя. Кандидаты перебираются в случайном
+     * порядке, чтобы одновременные запросы одной группы не толпились на одной строке.
+     */
+    public TaskInboxEntry claimNext(String taskName) {
+        String user = securityManager.getAuthenticatedUserId();
+        List<String> groups = securityManager.getAuthenticatedUserGroups();
+        if (groups == null || groups.isEmpty()) {
+            return null;
+        }
+        int limit = Math.max(1, properties.getClaimCandidates());
+        while (true) {
+            List<TaskInboxEntry> candidates = new ArrayList<>(taskInboxRepository.unassigned(groups, taskName, limit));
+            if (candidates.isEmpty()) {
+                return null;
+            }
+            Collections.shuffle(candidates);
+            for (TaskInboxEntry candidate : candidates) {
+                if (tryClaim(candidate.getTaskId(), user, groups)) {
+                    return taskInboxRepository.find(candidate.getTaskId());
+                }
+            }
+        }
+    }
+
+    private boolean tryClaim(String taskId,
+                             String user,
+                             List<String> groups) {
+        try {
+            Boolean claimed = transactionTemplate.execute(status -> {
+                if (!taskInboxRepository.claim(taskId, user, groups)) {
+                    return false;
+                }
+                taskService.claim(taskId, user);
+                return true;
+            });
+            return Boolean.TRUE.equals(claimed);
+        } catch (ConcurrencyFailureException | ActivitiOptimisticLockingException e) {
+            // Строку или задачу движка успел изменить другой запрос
+            return false;
+        }
+    }
+}
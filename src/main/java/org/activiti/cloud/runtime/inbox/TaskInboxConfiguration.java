@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.inbox;
+
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.runtime.events.TaskAssignedEvent;
+import org.activiti.api.task.runtime.events.TaskCancelledEvent;
+import org.activiti.api.task.runtime.events.TaskCompletedEvent;
+import org.activiti.api.task.runtime.events.TaskCreatedEvent;
+import org.activiti.api.task.runtime.events.TaskUpdatedEvent;
+import org.activiti.api.task.runtime.events.listener.TaskRuntimeEventListener;
+import org.activiti.cloud.runtime.ProjectModels;
+import org.activiti.engine.RuntimeService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.Date;
+
+/**
+ * Ведение проекции TASK_INBOX по событиям задач внутри транзакции движка.
+ */
+@Configuration
+public class TaskInboxConfiguration {
+
+    @Bean
+    public TaskRuntimeEventListener<TaskCreatedEvent> taskInboxCreatedListener(TaskInboxRepository taskInboxRepository,
+                                                                               RuntimeService runtimeService) {
+        return event -> {
+            Task task = event.getEntity();
+            if (ProjectModels.USER_TASK_KEYS.contains(task.getTaskDefinitionKey())) {
+                // Все задачи моделей назначены на группу из переменной initiator_group
+                Object group = runtimeService.getVariable(task.getProcessInstanceId(), ProjectModels.INITIATOR_GROUP_VARIABLE);
+                if (group != null) {
+                    taskInboxRepository.insert(new TaskInboxEntry(task.getId(),
+                                                                  task.getTaskDefinitionKey(),
+                                                                  task.getName(),
+                                                                  group.toString(),
+                                                                  task.getAssignee(),
+                                                                  task.getProcessInstanceId(),
+                                                                  task.getCreatedDate() != null ? task.getCreatedDate() : new Date()));
+                }
+            }
+        };
+    }
+
+    @Bean
+    public TaskRuntimeEventListener<TaskAssignedEvent> taskInboxAssignedListener(TaskInboxRepository taskInboxRepository) {
+        return event -> taskInboxRepository.updateAssignee(event.getEntity().getId(), event.getEntity().getAssignee());
+    }
+
+    @Bean
+    public TaskRuntimeEventListener<TaskUpdatedEvent> taskInboxUpdatedListener(TaskInboxRepository taskInboxRepository) {
+        return event -> taskInboxRepository.updateAssignee(event.getEntity().getId(), event.getEntity().getAssignee());
+    }
+
+    @Bean
+    public TaskRuntimeEventListener<TaskCompletedEvent> taskInboxCompletedListener(TaskInboxRepository taskInboxRepository) {
+        return event -> taskInboxRepository.delete(event.getEntity().getId());
+    }
+
+    @Bean
+    public TaskRuntimeEventListener<TaskCancelledEvent> taskInboxCancelledListener(TaskInboxRepository taskInboxRepository) {
+        return event -> taskInboxRepository.delete(event.getEntity().getId());
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> taskInboxRebuilder(TaskInboxRepository taskInboxRepository,
+                                                                        TaskInboxProperties properties) {
+        return event -> {
+            if (properties.isRebuildOnStartup()) {
+                taskInboxRepository.rebuildIfOutdated();
+            }
+        };
+    }
+}
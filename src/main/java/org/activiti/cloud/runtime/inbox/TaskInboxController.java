@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.inbox;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+public class TaskInboxController {
+
+    private final TaskInboxService taskInboxService;
+
+    private final TaskClaimService taskClaimService;
+
+    public TaskInboxController(TaskInboxService taskInboxService,
+                               TaskClaimService taskClaimService) {
+        this.taskInboxService = taskInboxService;
+        this.taskClaimService = taskClaimService;
+    }
+
+    @GetMapping("/v1/task-inbox")
+    public TaskInboxPage inbox(@RequestParam(required = false) String taskName,
+                               @RequestParam(required = false) String cursor,
+                               @RequestParam(required = false) Integer size,
+                               @RequestParam(defaultValue = "false") boolean count) {
+        return taskInboxService.inbox(taskName,
+                                      cursor,
+                                      size,
+                                      count);
+    }
+
+    @PostMapping("/v1/task-inbox/{taskId}/claim")
+    public TaskInboxEntry claim(@PathVariable String taskId) {
+        return taskClaimService.claim(taskId);
+    }
+
+    @PostMapping("/v1/task-inbox/claim-next")
+    public ResponseEntity<TaskInboxEntry> claimNext(@RequestParam(required = false) String taskName) {
+        TaskInboxEntry entry = taskClaimService.claimNext(taskName);
+        return entry != null ? ResponseEntity.ok(entry) : ResponseEntity.noContent().build();
+    }
+}
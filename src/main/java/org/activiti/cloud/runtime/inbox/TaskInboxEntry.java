@@ -0,0 +1,79 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.inbox;
+
+import java.util.Date;
+
+public class TaskInboxEntry {
+
+    private final String taskId;
+
+    private final String taskDefinitionKey;
+
+    private final String taskName;
+
+    private final String candidateGroup;
+
+    private final String assignee;
+
+    private final String processInstanceId;
+
+    private final Date createdDate;
+
+    public TaskInboxEntry(String taskId,
+                          String taskDefinitionKey,
+                          String taskName,
+                          String candidateGroup,
+                          String assignee,
+                          String processInstanceId,
+                          Date createdDate) {
+        this.taskId = taskId;
+        this.taskDefinitionKey = taskDefinitionKey;
+        this.taskName = taskName;
+        this.candidateGroup = candidateGroup;
+        this.assignee = assignee;
+        this.processInstanceId = processInstanceId;
+        this.createdDate = createdDate;
+    }
+
+    public String getTaskId() {
+        return taskId;
+    }
+
+    public String getTaskDefinitionKey() {
+        return taskDefinitionKey;
+    }
+
+    public String getTaskName() {
+        return taskName;
+    }
+
+    public String getCandidateGroup() {
+        return candidateGroup;
+    }
+
+    public String getAssignee() {
+        return assignee;
+    }
+
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public Date getCreatedDate() {
+        return createdDate;
+    }
+}
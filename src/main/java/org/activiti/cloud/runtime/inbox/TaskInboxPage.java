@@ -0,0 +1,51 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.inbox;
+
+import java.util.List;
+
+/**
+ * Страница входящих задач. nextCursor - null на последней странице,
+ * approximateCount - null, если подсчёт не запрашивался.
+ */
+public class TaskInboxPage {
+
+    private final List<TaskInboxEntry> content;
+
+    private final String nextCursor;
+
+    private final Long approximateCount;
+
+    public TaskInboxPage(List<TaskInboxEntry> content,
+                         String nextCursor,
+                         Long approximateCount) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.approximateCount = approximateCount;
+    }
+
+    public List<TaskInboxEntry> getContent() {
+        return content;
+    }
+
+    public String getNextCursor() {
+        return nextCursor;
+    }
+
+    public Long getApproximateCount() {
+        return approximateCount;
+    }
+}
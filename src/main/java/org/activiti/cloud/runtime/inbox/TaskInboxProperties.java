@@ -0,0 +1,84 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.inbox;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("runtimebundle.inbox")
+public class TaskInboxProperties {
+
+    private int defaultPageSize = 50;
+
+    private int maxPageSize = 500;
+
+    /**
+     * Время, в течение которого приблизительный счётчик группы не пересчитывается.
+     */
+    private Duration countTtl = Duration.ofSeconds(30);
+
+    /**
+     * Заполнять проекцию по таблицам движка при старте, если её версия
+     * в PROJECTION_STATE устарела (один раз на версию для всех реплик).
+     */
+    private boolean rebuildOnStartup = true;
+
+    /**
+     * Сколько свободных задач группы просматривать за попытку захвата следующей задачи.
+     */
+    private int claimCandidates = 16;
+
+    public int getDefaultPageSize() {
+        return defaultPageSize;
+    }
+
+    public void setDefaultPageSize(int defaultPageSize) {
+        this.defaultPageSize = defaultPageSize;
+    }
+
+    public int getMaxPageSize() {
+        return maxPageSize;
+    }
+
+    public void setMaxPageSize(int maxPageSize) {
+        this.maxPageSize = maxPageSize;
+    }
+
+    public Duration getCountTtl() {
+        return countTtl;
+    }
+
+    public void setCountTtl(Duration countTtl) {
+        this.countTtl = countTtl;
+    }
+
+    public boolean isRebuildOnStartup() {
+        return rebuildOnStartup;
+    }
+
+    public void setRebuildOnStartup(boolean rebuildOnStartup) {
+        this.rebuildOnStartup = rebuildOnStartup;
+    }
+
+    public int getClaimCandidates() {
+        return claimCandidates;
+    }
+
+    public void setClaimCandidates(int claimCandidates) {
+        this.claimCandidates = claimCandidates;
+    }
+}
@@ -0,0 +1,243 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.inbox;
+
+import org.activiti.cloud.runtime.ProjectModels;
+import org.activiti.cloud.runtime.projection.ProjectionStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Проекция открытых задач моделей по группам-кандидатам с индексом
+ * (CANDIDATE_GROUP, CREATED_TIME, TASK_ID) под постраничный вывод по курсору.
+ * <p>
+ * У задачи по строке на группу-кандидата; выборки для пользователя схлопывают их
+ * в одну запись, захват меняет исполнителя во всех строках задачи сразу.
+ */
+@Repository
+public class TaskInboxRepository {
+
+    public static final String PROJECTION = "TASK_INBOX";
+
+    /**
+     * Версия схемы проекции; увеличивается, когда существующие строки нужно перестроить.
+     */
+    public static final int PROJECTION_VERSION = 1;
+
+    private static final String COLUMNS =
+            "TASK_ID, TASK_DEFINITION_KEY, TASK_NAME, CANDIDATE_GROUP, ASSIGNEE, PROCESS_INSTANCE_ID, CREATED_TIME";
+
+    /**
+     * Одна запись на задачу, даже если пользователю видны несколько её групп.
+     */
+    private static final String GROUPED_COLUMNS =
+            "TASK_ID, TASK_DEFINITION_KEY, TASK_NAME, MIN(CANDIDATE_GROUP) AS CANDIDATE_GROUP, ASSIGNEE, PROCESS_INSTANCE_ID, CREATED_TIME";
+
+    private static final String GROUP_BY =
+            " GROUP BY TASK_ID, TASK_DEFINITION_KEY, TASK_NAME, ASSIGNEE, PROCESS_INSTANCE_ID, CREATED_TIME";
+
+    private static final String VISIBLE =
+            "CANDIDATE_GROUP IN (:groups) AND (ASSIGNEE IS NULL OR ASSIGNEE = :user)";
+
+    private static final RowMapper<TaskInboxEntry> ENTRY_MAPPER = (rs, rowNum) -> new TaskInboxEntry(
+            rs.getString("TASK_ID"),
+            rs.getString("TASK_DEFINITION_KEY"),
+            rs.getString("TASK_NAME"),
+            rs.getString("CANDIDATE_GROUP"),
+            rs.getString("ASSIGNEE"),
+            rs.getString("PROCESS_INSTANCE_ID"),
+            new Date(rs.getTimestamp("CREATED_TIME").getTime()));
+
+    private final Logger logger = LoggerFactory.getLogger(TaskInboxRepository.class);
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final ProjectionStateRepository projectionStateRepository;
+
+    public TaskInboxRepository(NamedParameterJdbcTemplate jdbcTemplate,
+                               ProjectionStateRepository projectionStateRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.projectionStateRepository = projectionStateRepository;
+    }
+
+    public void insert(TaskInboxEntry entry) {
+        jdbcTemplate.update("INSERT INTO TASK_INBOX (" + COLUMNS + ") VALUES " +
+                            "(:taskId, :taskDefinitionKey, :taskName, :candidateGroup, :assignee, :processInstanceId, :createdTime)",
+                            new MapSqlParameterSource()
+                                    .addValue("taskId", entry.getTaskId())
+                                    .addValue("taskDefinitionKey", entry.getTaskDefinitionKey())
+                                    .addValue("taskName", entry.getTaskName())
+                                    .addValue("candidateGroup", entry.getCandidateGroup())
+                                    .addValue("assignee", entry.getAssignee())
+                                    .addValue("processInstanceId", entry.getProcessInstanceId())
+                                    .addValue("createdTime", new Timestamp(entry.getCreatedDate().getTime())));
+    }
+
+    public void updateAssignee(String taskId,
+                               String assignee) {
+        jdbcTemplate.update("UPDATE TASK_INBOX SET ASSIGNEE = :assignee WHERE TASK_ID = :taskId",
+                            new MapSqlParameterSource()
+                                    .addValue("taskId", taskId)
+                                    .addValue("assignee", assignee));
+    }
+
+    public void delete(String taskId) {
+        jdbcTemplate.update("DELETE FROM TASK_INBOX WHERE TASK_ID = :taskId",
+                            new MapSqlParameterSource("taskId", taskId));
+    }
+
+    public TaskInboxEntry find(String taskId) {
+        List<TaskInboxEntry> entries = jdbcTemplate.query("SELECT " + COLUMNS + " FROM TASK_INBOX WHERE TASK_ID = :taskId",
+                                                          new MapSqlParameterSource("taskId", taskId),
+                                                          ENTRY_MAPPER);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * Строка задачи, видимая одной из групп, или null.
+     */
+    public TaskInboxEntry find(String taskId,
+                               Collection<String> groups) {
+        List<TaskInboxEntry> entries = jdbcTemplate.query("SELECT " + COLUMNS + " FROM TASK_INBOX " +
+                                                          "WHERE TASK_ID = :taskId AND CANDIDATE_GROUP IN (:groups)",
+                                                          new MapSqlParameterSource()
+                                                                  .addValue("taskId", taskId)
+                                                                  .addValue("groups", groups),
+                                                          ENTRY_MAPPER);
+        return entries.isEmpty() ? null : entries.get(0);
+    }
+
+    /**
+     * Условный захват задачи: проходит, только если задача свободна и видна одной из групп;
+     * исполнитель записывается во все строки задачи. Блокировки строк упорядочивают
+     * конкурентов, проигравший получает false.
+     */
+    public boolean claim(String taskId,
+                         String user,
+                         Collection<String> groups) {
+        return jdbcTemplate.update("UPDATE TASK_INBOX SET ASSIGNEE = :user " +
+                                   "WHERE TASK_ID = :taskId AND ASSIGNEE IS NULL " +
+                                   "AND EXISTS (SELECT 1 FROM TASK_INBOX G WHERE G.TASK_ID = :taskId AND G.CANDIDATE_GROUP IN (:groups))",
+                                   new MapSqlParameterSource()
+                                           .addValue("taskId", taskId)
+                                           .addValue("user", user)
+                                           .addValue("groups", groups)) > 0;
+    }
+
+    /**
+     * Первые свободные задачи групп по индексу (CANDIDATE_GROUP, ASSIGNEE, CREATED_TIME, TASK_ID).
+     */
+    public List<TaskInboxEntry> unassigned(Collection<String> groups,
+                                           String taskName,
+                                           int limit) {
+        return jdbcTemplate.query("SELECT " + GROUPED_COLUMNS + " FROM TASK_INBOX " +
+                                  "WHERE CANDIDATE_GROUP IN (:groups) AND ASSIGNEE IS NULL" +
+                                  (taskName != null ? " AND TASK_NAME = :taskName" : "") +
+                                  GROUP_BY +
+                                  " ORDER BY CREATED_TIME, TASK_ID LIMIT :limit",
+                                  new MapSqlParameterSource()
+                                          .addValue("groups", groups)
+                                          .addValue("taskName", taskName)
+                                          .addValue("limit", limit),
+                                  ENTRY_MAPPER);
+    }
+
+    /**
+     * Страница после курсора (afterTime, afterTaskId); для первой страницы курсор пустой.
+     */
+    public List<TaskInboxEntry> page(Collection<String> groups,
+                                     String user,
+                                     String taskName,
+                                     Date afterTime,
+                                     String afterTaskId,
+                                     int limit) {
+        MapSqlParameterSource parameters = visibility(groups, user, taskName)
+                .addValue("limit", limit);
+        StringBuilder sql = new StringBuilder("SELECT " + GROUPED_COLUMNS + " FROM TASK_INBOX WHERE " + VISIBLE);
+        if (taskName != null) {
+            sql.append(" AND TASK_NAME = :taskName");
+        }
+        if (afterTime != null) {
+            sql.append(" AND (CREATED_TIME > :afterTime OR (CREATED_TIME = :afterTime AND TASK_ID > :afterTaskId))");
+            parameters.addValue("afterTime", new Timestamp(afterTime.getTime()))
+                    .addValue("afterTaskId", afterTaskId);
+        }
+        sql.append(GROUP_BY).append(" ORDER BY CREATED_TIME, TASK_ID LIMIT :limit");
+        return jdbcTemplate.query(sql.toString(), parameters, ENTRY_MAPPER);
+    }
+
+    public long count(Collection<String> groups,
+                      String user,
+                      String taskName) {
+        Long count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(DISTINCT TASK_ID) FROM TASK_INBOX WHERE " + VISIBLE + (taskName != null ? " AND TASK_NAME = :taskName" : ""),
+                visibility(groups, user, taskName),
+                Long.class);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * Перестроение при старте: один раз на версию проекции для всех реплик.
+     * Возвращает false, если другая реплика уже перестроила проекцию этой версии.
+     */
+    @Transactional
+    public boolean rebuildIfOutdated() {
+        if (!projectionStateRepository.lockOutdated(PROJECTION, PROJECTION_VERSION)) {
+            logger.info("> Task inbox is up to date (version " + PROJECTION_VERSION + "), rebuild skipped");
+            return false;
+        }
+        int rows = rebuild();
+        projectionStateRepository.markRebuilt(PROJECTION, PROJECTION_VERSION);
+        logger.info("> Task inbox rebuilt: " + rows + " rows");
+        return true;
+    }
+
+    /**
+     * Заполнение проекции заново по задачам и связям кандидатов движка;
+     * повторяющиеся связи одной группы дают одну строку.
+     */
+    @Transactional
+    public int rebuild() {
+        // Вставки других реплик ждут конца перестроения, а не теряются при очистке таблицы
+        projectionStateRepository.lockForRebuild(PROJECTION);
+        jdbcTemplate.getJdbcTemplate().update("DELETE FROM TASK_INBOX");
+        return jdbcTemplate.update(
+                "INSERT INTO TASK_INBOX (TASK_ID, TASK_DEFINITION_KEY, TASK_NAME, CANDIDATE_GROUP, ASSIGNEE, PROCESS_INSTANCE_ID, CREATED_TIME) " +
+                "SELECT DISTINCT T.ID_, T.TASK_DEF_KEY_, T.NAME_, L.GROUP_ID_, T.ASSIGNEE_, T.PROC_INST_ID_, T.CREATE_TIME_ " +
+                "FROM ACT_RU_TASK T JOIN ACT_RU_IDENTITYLINK L ON L.TASK_ID_ = T.ID_ " +
+                "WHERE L.TYPE_ = 'candidate' AND L.GROUP_ID_ IS NOT NULL AND T.TASK_DEF_KEY_ IN (:taskKeys)",
+                new MapSqlParameterSource("taskKeys", ProjectModels.USER_TASK_KEYS));
+    }
+
+    private static MapSqlParameterSource visibility(Collection<String> groups,
+                                                    String user,
+                                                    String taskName) {
+        return new MapSqlParameterSource()
+                .addValue("groups", groups)
+                .addValue("user", user)
+                .addValue("taskName", taskName);
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.inbox;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.springframework.stereotype.Service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.TreeSet;
+
+/**
+ * Входящие задачи групп текущего пользователя с постраничным выводом по курсору.
+ * <p>
+ * Курсор - последняя отданная пара (время создания, id задачи), поэтому стоимость
+ * страницы не зависит от её глубины. Общее количество считается по запросу и
+ * кэшируется на {@link TaskInboxProperties#getCountTtl()}.
+ */
+@Service
+public class TaskInboxService {
+
+    private final TaskInboxRepository taskInboxRepository;
+
+    private final SecurityManager securityManager;
+
+    private final TaskInboxProperties properties;
+
+    private final Cache<String, Long> counts;
+
+    public TaskInboxService(TaskInboxRepository taskInboxRepository,
+                            SecurityManager securityManager,
+                            TaskInboxProperties properties) {
+        this.taskInboxRepository = taskInboxRepository;
+        this.securityManager = securityManager;
+        this.properties = properties;
+        this.counts = Caffeine.newBuilder()
+                .maximumSize(10000)
+                .expireAfterWrite(properties.getCountTtl())
+                .build();
+    }
+
+    public TaskInboxPage inbox(String taskName,
+                               String cursor,
+                               Integer size,
+                               boolean withCount) {
+        String user = securityManager.getAuthenticatedUserId();
+        List<String> groups = securityManager.getAuthenticatedUserGroups();
+        if (groups == null || groups.isEmpty()) {
+            return new TaskInboxPage(Collections.emptyList(), null, withCount ? 0L : null);
+        }
+
+        int limit = Math.min(size != null && size > 0 ? size : properties.getDefaultPageSize(),
+                             properties.getMaxPageSize());
+        Date afterTime = null;
+        String afterTaskId = null;
+        if (cursor != null && !cursor.isEmpty()) {
+            String[] position = decodeCursor(cursor);
+            afterTime = new Date(Long.parseLong(position[0]));
+            afterTaskId = position[1];
+        }
+
+        // Лишняя строка показывает, есть ли следующая страница
+        List<TaskInboxEntry> entries = new ArrayList<>(taskInboxRepository.page(groups,
+                                                                                 user,
+                                                                                 taskName,
+                                                                                 afterTime,
+                                                                                 afterTaskId,
+                                                                                 limit + 1));
+        String nextCursor = null;
+        if (entries.size() > limit) {
+            entries = entries.subList(0, limit);
+            TaskInboxEntry last = entries.get(limit - 1);
+            nextCursor = encodeCursor(last.getCreatedDate(), last.getTaskId());
+        }
+
+        Long count = null;
+        if (withCount) {
+            String key = user + "|" + new TreeSet<>(groups) + "|" + taskName;
+            count = counts.get(key, k -> taskInboxRepository.count(groups, user, taskName));
+        }
+        return new TaskInboxPage(entries, nextCursor, count);
+    }
+
+    static String encodeCursor(Date createdDate,
+                               String taskId) {
+        String position = createdDate.getTime() + ":" + taskId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String[] decodeCursor(String cursor) {
+        String position;
+        try {
+            position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor, e);
+        }
+        int separator = position.indexOf(':');
+        if (separator <= 0 || separator == position.length() - 1) {
+            throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        }
+        return new String[]{position.substring(0, separator), position.substring(separator + 1)};
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.mappings;
+
+import org.activiti.engine.delegate.VariableScope;
+import org.activiti.runtime.api.impl.ExpressionResolver;
+import org.activiti.spring.process.model.Extension;
+import org.activiti.spring.process.model.Mapping;
+import org.activiti.spring.process.model.ProcessVariablesMapping;
+import org.activiti.spring.process.model.VariableDefinition;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Входные переменные элемента, собранные из расширений модели в пары "источник - цель".
+ * <p>
+ * Компилируются только отображения вида variable на объявленные свойства процесса
+ * без констант; результат совпадает с разбором расширений: пустые значения пропускаются,
+ * а значения с выражениями (по проверке {@link ExpressionResolver}) отдаются обратно интерпретатору.
+ */
+public final class CompiledInputMapping {
+
+    private final String[] targets;
+
+    private final String[] sources;
+
+    private final ExpressionResolver expressionResolver;
+
+    private CompiledInputMapping(String[] targets,
+                                 String[] sources,
+                                 ExpressionResolver expressionResolver) {
+        this.targets = targets;
+        this.sources = sources;
+        this.expressionResolver = expressionResolver;
+    }
+
+    /**
+     * Компиляция отображения элемента или null, если оно остаётся за интерпретатором.
+     */
+    public static CompiledInputMapping compile(Extension extension,
+                                               String elementId,
+                                               ExpressionResolver expressionResolver) {
+        ProcessVariablesMapping mapping = extension.getMappings().get(elementId);
+        if (mapping == null || mapping.getInputs() == null || mapping.getInputs().isEmpty()) {
+            return null;
+        }
+        Map<?, ?> constants = extension.getConstants() != null ? extension.getConstants().get(elementId) : null;
+        if (constants != null && !constants.isEmpty()) {
+            return null;
+        }
+        Set<String> properties = new HashSet<>();
+        for (VariableDefinition property : extension.getProperties().values()) {
+            properties.add(property.getName());
+        }
+
+        String[] targets = new String[mapping.getInputs().size()];
+        String[] sources = new String[targets.length];
+        int i = 0;
+        for (Map.Entry<String, Mapping> input : mapping.getInputs().entrySet()) {
+            Mapping source = input.getValue();
+            if (source.getType() != Mapping.SourceMappingType.VARIABLE
+                    || source.getValue() == null
+                    || !properties.contains(source.getValue().toString())) {
+                return null;
+            }
+            targets[i] = input.getKey();
+            sources[i] = source.getValue().toString();
+            i++;
+        }
+        return new CompiledInputMapping(targets, sources, expressionResolver);
+    }
+
+    /**
+     * Входные переменные или null, если значение требует вычисления выражения.
+     */
+    public Map<String, Object> apply(VariableScope variableScope) {
+        Map<String, Object> variables = new HashMap<>(targets.length * 2);
+        for (int i = 0; i < targets.length; i++) {
+            Object value = variableScope.getVariable(sources[i]);
+            if (value == null) {
+                continue;
+            }
+            if (expressionResolver.containsExpression(value)) {
+                return null;
+            }
+            variables.put(targets[i], value);
+        }
+        return variables;
+    }
+
+    public int size() {
+        return targets.length;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.mappings;
+
+import org.activiti.runtime.api.impl.ExpressionResolver;
+import org.activiti.spring.process.ProcessExtensionService;
+import org.activiti.spring.process.model.Extension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Скомпилированные отображения входных переменных по версиям определений процессов.
+ * <p>
+ * Версия компилируется один раз: при прогреве после развёртывания или при первом
+ * запуске дочернего элемента.
+ */
+public class CompiledMappingCache {
+
+    private final Logger logger = LoggerFactory.getLogger(CompiledMappingCache.class);
+
+    private final ProcessExtensionService processExtensionService;
+
+    private final ExpressionResolver expressionResolver;
+
+    private final Map<String, Map<String, CompiledInputMapping>> mappings = new ConcurrentHashMap<>();
+
+    public CompiledMappingCache(ProcessExtensionService processExtensionService,
+                                ExpressionResolver expressionResolver) {
+        this.processExtensionService = processExtensionService;
+        this.expressionResolver = expressionResolver;
+    }
+
+    /**
+     * Скомпилированные отображения версии определения по идентификаторам элементов.
+     */
+    public Map<String, CompiledInputMapping> compile(String processDefinitionId) {
+        return mappings.computeIfAbsent(processDefinitionId, this::compileDefinition);
+    }
+
+    public int getCompiledCount() {
+        return mappings.values().stream().mapToInt(Map::size).sum();
+    }
+
+    private Map<String, CompiledInputMapping> compileDefinition(String processDefinitionId) {
+        Extension extension = processExtensionService.getExtensionsForId(processDefinitionId);
+        if (extension == null || extension.getMappings() == null || extension.getMappings().isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, CompiledInputMapping> definitionMappings = new HashMap<>();
+        for (String elementId : extension.getMappings().keySet()) {
+            CompiledInputMapping mapping = CompiledInputMapping.compile(extension, elementId, expressionResolver);
+            logger.debug("> Input mapping " + processDefinitionId + "/" + elementId + " " +
+                                 (mapping != null ? "compiled" : "left to the extensions provider"));
+            if (mapping != null) {
+                definitionMappings.put(elementId, mapping);
+            }
+        }
+        return Collections.unmodifiableMap(definitionMappings);
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.mappings;
+
+import org.activiti.runtime.api.impl.ExpressionResolver;
+import org.activiti.spring.process.ProcessExtensionService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+@ConditionalOnProperty(prefix = "runtimebundle.mappings", name = "compiled", havingValue = "true", matchIfMissing = true)
+public class CompiledMappingsConfiguration {
+
+    @Bean
+    public CompiledMappingCache compiledMappingCache(ProcessExtensionService processExtensionService,
+                                                     ExpressionResolver expressionResolver) {
+        return new CompiledMappingCache(processExtensionService, expressionResolver);
+    }
+
+    // Основной бин: его получает фабрика поведений call activity и пользовательских задач
+    @Bean
+    @Primary
+    public CompiledVariablesMappingProvider compiledVariablesMappingProvider(ProcessExtensionService processExtensionService,
+                                                                             ExpressionResolver expressionResolver,
+                                                                             CompiledMappingCache compiledMappingCache) {
+        return new CompiledVariablesMappingProvider(processExtensionService, expressionResolver, compiledMappingCache);
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.mappings;
+
+import org.activiti.engine.delegate.DelegateExecution;
+import org.activiti.runtime.api.impl.ExpressionResolver;
+import org.activiti.runtime.api.impl.VariablesMappingProvider;
+import org.activiti.spring.process.ProcessExtensionService;
+
+import java.util.Map;
+
+/**
+ * Расчёт входных переменных call activity и задач по скомпилированным отображениям
+ * из {@link CompiledMappingCache}. Всё, что не скомпилировалось, считает исходный
+ * провайдер по расширениям.
+ */
+public class CompiledVariablesMappingProvider extends VariablesMappingProvider {
+
+    private final CompiledMappingCache compiledMappingCache;
+
+    public CompiledVariablesMappingProvider(ProcessExtensionService processExtensionService,
+                                            ExpressionResolver expressionResolver,
+                                            CompiledMappingCache compiledMappingCache) {
+        super(processExtensionService, expressionResolver);
+        this.compiledMappingCache = compiledMappingCache;
+    }
+
+    @Override
+    public Map<String, Object> calculateInputVariables(DelegateExecution execution) {
+        CompiledInputMapping mapping = compiledMappingCache.compile(execution.getProcessDefinitionId())
+                .get(execution.getCurrentActivityId());
+        if (mapping != null) {
+            Map<String, Object> variables = mapping.apply(execution);
+            if (variables != null) {
+                return variables;
+            }
+        }
+        return super.calculateInputVariables(execution);
+    }
+}
@@ -0,0 +1,45 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.messages;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+
+/**
+ * Замена хранилища групп сообщений из activiti-cloud-starter-messages-jdbc. Таблицы
+ * и формат записей те же, поэтому переключение не требует миграции данных.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "runtimebundle.message-store", name = "tuned", havingValue = "true")
+public class MessageStoreConfiguration {
+
+    @Bean
+    @Primary
+    public TunedJdbcMessageStore tunedMessageStore(DataSource dataSource,
+                                                   PlatformTransactionManager transactionManager,
+                                                   MessageStoreProperties properties) {
+        TunedJdbcMessageStore messageStore = new TunedJdbcMessageStore(dataSource, transactionManager);
+        messageStore.setTablePrefix(properties.getTablePrefix());
+        messageStore.setRegion(properties.getRegion());
+        messageStore.setClaimBatchSize(properties.getClaimBatchSize());
+        return messageStore;
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.messages;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Обслуживание хранилища групп: периодическое уплотнение завершённых групп и метрики
+ * очереди. Уплотнение безопасно на всех репликах: группы захватываются через SKIP LOCKED.
+ */
+@Component
+@ConditionalOnProperty(prefix = "runtimebundle.message-store", name = "tuned", havingValue = "true")
+public class MessageStoreMaintenance implements ApplicationListener<ApplicationReadyEvent>, DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(MessageStoreMaintenance.class);
+
+    private final TunedJdbcMessageStore messageStore;
+
+    private final MessageStoreProperties properties;
+
+    private final ScheduledExecutorService scheduler;
+
+    private final AtomicLong openGroups = new AtomicLong();
+
+    private final AtomicLong completeGroups = new AtomicLong();
+
+    private final AtomicLong messages = new AtomicLong();
+
+    private final AtomicLong backlogAge = new AtomicLong();
+
+    private final Counter compacted;
+
+    public MessageStoreMaintenance(TunedJdbcMessageStore messageStore,
+                                   MessageStoreProperties properties,
+                                   MeterRegistry meterRegistry) {
+        this.messageStore = messageStore;
+        this.properties = properties;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "message-store-maintenance");
+            thread.setDaemon(true);
+            return thread;
+        });
+        meterRegistry.gauge("runtimebundle.message-store.groups", Tags.of("state", "open"), openGroups);
+        meterRegistry.gauge("runtimebundle.message-store.groups", Tags.of("state", "complete"), completeGroups);
+        meterRegistry.gauge("runtimebundle.message-store.messages", messages);
+        meterRegistry.gauge("runtimebundle.message-store.backlog.age.seconds", backlogAge);
+        this.compacted = meterRegistry.counter("runtimebundle.message-store.compacted.groups");
+    }
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        try {
+            messageStore.tune();
+        } catch (DataAccessException e) {
+            logger.warn("> Unable to tune message store tables: " + e.getMessage());
+        }
+        scheduler.scheduleWithFixedDelay(this::refreshMetrics,
+                                         0,
+                                         properties.getMetricsInterval().toMillis(),
+                                         TimeUnit.MILLISECONDS);
+        scheduler.scheduleWithFixedDelay(this::compact,
+                                         properties.getCompactionInterval().toMillis(),
+                                         properties.getCompactionInterval().toMillis(),
+                                         TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdownNow();
+    }
+
+    public int compact() {
+        try {
+            int removed = messageStore.compact(properties.getCompletedRetention(), properties.getCompactionBatchSize());
+            compacted.increment(removed);
+            return removed;
+        } catch (RuntimeException e) {
+            logger.warn("> Message store compaction failed: " + e.getMessage(), e);
+            return 0;
+        }
+    }
+
+    public MessageStoreStats refreshMetrics() {
+        try {
+            MessageStoreStats stats = messageStore.stats();
+            openGroups.set(stats.getOpenGroups());
+            completeGroups.set(stats.getCompleteGroups());
+            messages.set(stats.getMessages());
+            backlogAge.set(stats.getBacklogAgeSeconds());
+            return stats;
+        } catch (RuntimeException e) {
+            logger.warn("> Unable to read message store stats: " + e.getMessage());
+            return null;
+        }
+    }
+}
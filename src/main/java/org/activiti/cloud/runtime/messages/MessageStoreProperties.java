@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.messages;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@ConfigurationProperties("runtimebundle.message-store")
+public class MessageStoreProperties {
+
+    /**
+     * Заменить хранилище групп сообщений стартера на {@link TunedJdbcMessageStore}.
+     */
+    private boolean tuned = false;
+
+    private String tablePrefix = "INT_";
+
+    private String region = "DEFAULT";
+
+    /**
+     * Групп, захватываемых за одну транзакцию при истечении по таймауту.
+     */
+    private int claimBatchSize = 100;
+
+    /**
+     * Сколько хранить завершённые группы: пока группа есть, опоздавшие сообщения
+     * отбрасываются агрегатором.
+     */
+    private Duration completedRetention = Duration.ofHours(24);
+
+    private int compactionBatchSize = 1000;
+
+    private Duration compactionInterval = Duration.ofMinutes(5);
+
+    private Duration metricsInterval = Duration.ofSeconds(30);
+
+    public boolean isTuned() {
+        return tuned;
+    }
+
+    public void setTuned(boolean tuned) {
+        this.tuned = tuned;
+    }
+
+    public String getTablePrefix() {
+        return tablePrefix;
+    }
+
+    public void setTablePrefix(String tablePrefix) {
+        this.tablePrefix = tablePrefix;
+    }
+
+    public String getRegion() {
+        return region;
+    }
+
+    public void setRegion(String region) {
+        this.region = region;
+    }
+
+    public int getClaimBatchSize() {
+        return claimBatchSize;
+    }
+
+    public void setClaimBatchSize(int claimBatchSize) {
+        this.claimBatchSize = claimBatchSize;
+    }
+
+    public Duration getCompletedRetention() {
+        return completedRetention;
+    }
+
+    public void setCompletedRetention(Duration completedRetention) {
+        this.completedRetention = completedRetention;
+    }
+
+    public int getCompactionBatchSize() {
+        return compactionBatchSize;
+    }
+
+    public void setCompactionBatchSize(int compactionBatchSize) {
+        this.compactionBatchSize = compactionBatchSize;
+    }
+
+    public Duration getCompactionInterval() {
+        return compactionInterval;
+    }
+
+    public void setCompactionInterval(Duration compactionInterval) {
+        this.compactionInterval = compactionInterval;
+    }
+
+    public Duration getMetricsInterval() {
+        return metricsInterval;
+    }
+
+    public void setMetricsInterval(Duration metricsInterval) {
+        this.metricsInterval = metricsInterval;
+    }
+}
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.messages;
+
+import java.util.Date;
+
+public class MessageStoreStats {
+
+    private final long openGroups;
+
+    private final long completeGroups;
+
+    private final long messages;
+
+    private final Date oldestOpenGroup;
+
+    public MessageStoreStats(long openGroups,
+                             long completeGroups,
+                             long messages,
+                             Date oldestOpenGroup) {
+        this.openGroups = openGroups;
+        this.completeGroups = completeGroups;
+        this.messages = messages;
+        this.oldestOpenGroup = oldestOpenGroup;
+    }
+
+    public long getOpenGroups() {
+        return openGroups;
+    }
+
+    public long getCompleteGroups() {
+        return completeGroups;
+    }
+
+    public long getMessages() {
+        return messages;
+    }
+
+    public Date getOldestOpenGroup() {
+        return oldestOpenGroup;
+    }
+
+    /**
+     * Возраст самой старой открытой группы в секундах, 0 - если открытых групп нет.
+     */
+    public long getBacklogAgeSeconds() {
+        return oldestOpenGroup == null ? 0 : Math.max(0, (System.currentTimeMillis() - oldestOpenGroup.getTime()) / 1000);
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.messages;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.serializer.support.SerializingConverter;
+import org.springframework.integration.jdbc.store.JdbcMessageStore;
+import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.support.MutableMessageBuilder;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.messaging.Message;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+/**
+ * Хранилище групп сообщений на таблицах JdbcMessageStore с поправками под нагрузку.
+ * <p>
+ * На Postgres:
+ * <ul>
+ * <li>сообщения группы пишутся пакетными вставками с ON CONFLICT DO NOTHING, а группа
+ * создаётся или обновляется одним upsert - без проверок существования на каждое сообщение;</li>
+ * <li>истёкшие группы захватываются порциями через FOR UPDATE SKIP LOCKED, поэтому реплики
+ * разбирают разные группы, не ожидая блокировок друг друга, и не перебирают все группы.</li>
+ * </ul>
+ * На остальных базах эти операции выполняет JdbcMessageStore. Уплотнение завершённых групп
+ * и статистика очереди работают везде.
+ */
+public class TunedJdbcMessageStore extends JdbcMessageStore {
+
+    private final Logger logger = LoggerFactory.getLogger(TunedJdbcMessageStore.class);
+
+    private final DataSource dataSource;
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final SerializingConverter serializer = new SerializingConverter();
+
+    private final Set<MessageGroupCallback> expiryCallbacks = new CopyOnWriteArraySet<>();
+
+    private String tablePrefix = DEFAULT_TABLE_PREFIX;
+
+    private String region = "DEFAULT";
+
+    private int claimBatchSize = 100;
+
+    private volatile String databaseProduct;
+
+    public TunedJdbcMessageStore(DataSource dataSource,
+                                 PlatformTransactionManager transactionManager) {
+        super(dataSource);
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public void setTablePrefix(String tablePrefix) {
+        super.setTablePrefix(tablePrefix);
+        this.tablePrefix = tablePrefix;
+    }
+
+    @Override
+    public void setRegion(String region) {
+        super.setRegion(region);
+        this.region = region;
+    }
+
+    public void setClaimBatchSize(int claimBatchSize) {
+        this.claimBatchSize = Math.max(1, claimBatchSize);
+    }
+
+    @Override
+    public void registerMessageGroupExpiryCallback(MessageGroupCallback callback) {
+        super.registerMessageGroupExpiryCallback(callback);
+        expiryCallbacks.add(callback);
+    }
+
+    @Override
+    public void addMessagesToGroup(Object groupId,
+                                   Message<?>... messages) {
+        if (!isPostgres() || messages.length == 0) {
+            super.addMessagesToGroup(groupId, messages);
+            return;
+        }
+        String groupKey = getKey(groupId);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        String[] messageKeys = new String[messages.length];
+        byte[][] payloads = new byte[messages.length][];
+        for (int i = 0; i < messages.length; i++) {
+            messageKeys[i] = getKey(messages[i].getHeaders().getId());
+            payloads[i] = serialize(messages[i], now);
+        }
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.batchUpdate("INSERT INTO " + table("MESSAGE") + " (MESSAGE_ID, REGION, CREATED_DATE, MESSAGE_BYTES) " +
+                                 "VALUES (?, ?, ?, ?) ON CONFLICT DO NOTHING",
+                         new BatchPreparedStatementSetter() {
+                             @Override
+                             public void setValues(PreparedStatement ps,
+                                                   int i) throws SQLException {
+                                 ps.setString(1, messageKeys[i]);
+                                 ps.setString(2, region);
+                                 ps.setTimestamp(3, now);
+                                 ps.setBytes(4, payloads[i]);
+                             }
+
+                             @Override
+                             public int getBatchSize() {
+                                 return messageKeys.length;
+                             }
+                         });
+        jdbc.batchUpdate("INSERT INTO " + table("GROUP_TO_MESSAGE") + " (GROUP_KEY, MESSAGE_ID, REGION) " +
+                                 "VALUES (?, ?, ?) ON CONFLICT DO NOTHING",
+                         new BatchPreparedStatementSetter() {
+                             @Override
+                             public void setValues(PreparedStatement ps,
+                                                   int i) throws SQLException {
+                                 ps.setString(1, groupKey);
+                                 ps.setString(2, messageKeys[i]);
+                                 ps.setString(3, region);
+                             }
+
+                             @Override
+                             public int getBatchSize() {
+                                 return messageKeys.length;
+                             }
+                         });
+        jdbc.update("INSERT INTO " + table("MESSAGE_GROUP") + " (GROUP_KEY, REGION, COMPLETE, LAST_RELEASED_SEQUENCE, CREATED_DATE, UPDATED_DATE) " +
+                            "VALUES (?, ?, 0, 0, ?, ?) " +
+                            "ON CONFLICT (GROUP_KEY, REGION) DO UPDATE SET UPDATED_DATE = EXCLUDED.UPDATED_DATE",
+                    groupKey, region, now, now);
+    }
+
+    /**
+     * Истечение групп: на Postgres - порциями по claimBatchSize, каждая в своей транзакции,
+     * с захватом строк групп через SKIP LOCKED; группы, которые сейчас обрабатывает другая
+     * реплика, пропускаются до следующего прохода.
+     */
+    @Override
+    public int expireMessageGroups(long timeout) {
+        if (!isPostgres()) {
+            return super.expireMessageGroups(timeout);
+        }
+        String dateColumn = isTimeoutOnIdle() ? "UPDATED_DATE" : "CREATED_DATE";
+        String claim = "SELECT GROUP_KEY FROM " + table("MESSAGE_GROUP") +
+                " WHERE REGION = :region AND " + dateColumn + " <= :expired AND GROUP_KEY > :after" +
+                " ORDER BY GROUP_KEY LIMIT :limit FOR UPDATE SKIP LOCKED";
+        Timestamp expired = new Timestamp(System.currentTimeMillis() - timeout);
+        int count = 0;
+        String after = "";
+        while (true) {
+            MapSqlParameterSource parameters = new MapSqlParameterSource()
+                    .addValue("region", region)
+                    .addValue("expired", expired)
+                    .addValue("after", after)
+                    .addValue("limit", claimBatchSize);
+            List<String> keys = transactionTemplate.execute(status -> {
+                List<String> claimed = jdbcTemplate.queryForList(claim, parameters, String.class);
+                for (String key : claimed) {
+                    expire(getMessageGroup(key));
+                }
+                return claimed;
+            });
+            if (keys == null || keys.isEmpty()) {
+                return count;
+            }
+            count += keys.size();
+            after = keys.get(keys.size() - 1);
+            if (keys.size() < claimBatchSize) {
+                return count;
+            }
+        }
+    }
+
+    /**
+     * Удаление завершённых групп старше retention вместе с их сообщениями,
+     * порциями по batchSize в отдельных транзакциях. Возвращает число удалённых групп.
+     */
+    public int compact(Duration retention,
+                       int batchSize) {
+        String select = "SELECT GROUP_KEY FROM " + table("MESSAGE_GROUP") +
+                " WHERE REGION = :region AND COMPLETE = 1 AND UPDATED_DATE < :before" +
+                " ORDER BY UPDATED_DATE LIMIT :limit" +
+                (isPostgres() ? " FOR UPDATE SKIP LOCKED" : "");
+        MapSqlParameterSource parameters = new MapSqlParameterSource()
+                .addValue("region", region)
+                .addValue("before", new Timestamp(System.currentTimeMillis() - retention.toMillis()))
+                .addValue("limit", Math.max(1, batchSize));
+        int total = 0;
+        while (true) {
+            Integer removed = transactionTemplate.execute(status -> {
+                List<String> keys = jdbcTemplate.queryForList(select, parameters, String.class);
+                if (keys.isEmpty()) {
+                    return 0;
+                }
+                MapSqlParameterSource groups = new MapSqlParameterSource()
+                        .addValue("region", region)
+                        .addValue("keys", keys);
+                List<String> messages = jdbcTemplate.queryForList(
+                        "SELECT MESSAGE_ID FROM " + table("GROUP_TO_MESSAGE") + " WHERE REGION = :region AND GROUP_KEY IN (:keys)",
+                        groups,
+                        String.class);
+                jdbcTemplate.update("DELETE FROM " + table("GROUP_TO_MESSAGE") + " WHERE REGION = :region AND GROUP_KEY IN (:keys)", groups);
+                if (!messages.isEmpty()) {
+                    // Сообщение может входить и в другие группы
+                    jdbcTemplate.update("DELETE FROM " + table("MESSAGE") + " M WHERE M.REGION = :region AND M.MESSAGE_ID IN (:messages)" +
+                                                " AND NOT EXISTS (SELECT 1 FROM " + table("GROUP_TO_MESSAGE") + " G" +
+                                                " WHERE G.REGION = M.REGION AND G.MESSAGE_ID = M.MESSAGE_ID)",
+                                        new MapSqlParameterSource()
+                                                .addValue("region", region)
+                                                .addValue("messages", messages));
+                }
+                jdbcTemplate.update("DELETE FROM " + table("MESSAGE_GROUP") + " WHERE REGION = :region AND GROUP_KEY IN (:keys)", groups);
+                return keys.size();
+            });
+            if (removed == null || removed == 0) {
+                break;
+            }
+            total += removed;
+        }
+        // Сообщения без групп: остаются, если группа удалена в обход хранилища
+        int orphans = jdbcTemplate.update("DELETE FROM " + table("MESSAGE") + " M WHERE M.REGION = :region AND M.CREATED_DATE < :before" +
+                                                  " AND NOT EXISTS (SELECT 1 FROM " + table("GROUP_TO_MESSAGE") + " G" +
+                                                  " WHERE G.REGION = M.REGION AND G.MESSAGE_ID = M.MESSAGE_ID)",
+                                          parameters);
+        if (total > 0 || orphans > 0) {
+            logger.debug("> Message store compacted: " + total + " completed groups, " + orphans + " orphan messages");
+        }
+        return total;
+    }
+
+    /**
+     * Состояние очереди: открытые и завершённые группы, сообщения и время создания
+     * самой старой открытой группы.
+     */
+    public MessageStoreStats stats() {
+        MapSqlParameterSource parameters = new MapSqlParameterSource("region", region);
+        return jdbcTemplate.queryForObject(
+                "SELECT" +
+                        " (SELECT COUNT(*) FROM " + table("MESSAGE_GROUP") + " WHERE REGION = :region AND COMPLETE = 0) AS OPEN_GROUPS," +
+                        " (SELECT COUNT(*) FROM " + table("MESSAGE_GROUP") + " WHERE REGION = :region AND COMPLETE = 1) AS COMPLETE_GROUPS," +
+                        " (SELECT COUNT(*) FROM " + table("MESSAGE") + " WHERE REGION = :region) AS MESSAGES," +
+                        " (SELECT MIN(CREATED_DATE) FROM " + table("MESSAGE_GROUP") + " WHERE REGION = :region AND COMPLETE = 0) AS OLDEST" +
+                        (isPostgres() ? "" : " FROM DUAL"),
+                parameters,
+                (rs, rowNum) -> new MessageStoreStats(rs.getLong("OPEN_GROUPS"),
+                                                      rs.getLong("COMPLETE_GROUPS"),
+                                                      rs.getLong("MESSAGES"),
+                                                      rs.getTimestamp("OLDEST")));
+    }
+
+    /**
+     * Индекс для захвата и уплотнения групп; на Postgres - запас места в страницах под
+     * HOT-обновления UPDATED_DATE и более частая очистка, чтобы таблица групп не разрасталась.
+     * Таблицы создаёт стартер, поэтому вызывается после старта, а не миграцией.
+     */
+    public void tune() {
+        JdbcTemplate jdbc = jdbcTemplate.getJdbcTemplate();
+        jdbc.execute("CREATE INDEX IF NOT EXISTS " + tablePrefix + "MESSAGE_GROUP_STATE_IDX ON " + table("MESSAGE_GROUP") +
+                             " (REGION, COMPLETE, UPDATED_DATE)");
+        if (isPostgres()) {
+            jdbc.execute("ALTER TABLE " + table("MESSAGE_GROUP") +
+                                 " SET (fillfactor = 70, autovacuum_vacuum_scale_factor = 0.01, autovacuum_analyze_scale_factor = 0.01)");
+            jdbc.execute("ALTER TABLE " + table("MESSAGE") +
+                                 " SET (autovacuum_vacuum_scale_factor = 0.01, autovacuum_analyze_scale_factor = 0.01)");
+            jdbc.execute("ALTER TABLE " + table("GROUP_TO_MESSAGE") +
+                                 " SET (autovacuum_vacuum_scale_factor = 0.01, autovacuum_analyze_scale_factor = 0.01)");
+        }
+    }
+
+    boolean isPostgres() {
+        String product = databaseProduct;
+        if (product == null) {
+            try {
+                product = (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+            } catch (MetaDataAccessException e) {
+                product = "";
+            }
+            databaseProduct = product;
+        }
+        return product.toLowerCase(Locale.ROOT).contains("postgres");
+    }
+
+    private void expire(MessageGroup group) {
+        RuntimeException failure = null;
+        for (MessageGroupCallback callback : expiryCallbacks) {
+            try {
+                callback.execute(this, group);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+                logger.error("> Message group expiry callback failed for group " + group.getGroupId(), e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Сообщение в том же виде, что сохраняет JdbcMessageStore.addMessage: с прежними
+     * id и timestamp и отметками сохранения.
+     */
+    private byte[] serialize(Message<?> message,
+                             Timestamp created) {
+        Message<?> saved = MutableMessageBuilder.fromMessage(message)
+                .setHeader(SAVED_KEY, Boolean.TRUE)
+                .setHeader(CREATED_DATE_KEY, created.getTime())
+                .build();
+        return serializer.convert(saved);
+    }
+
+    private String table(String name) {
+        return tablePrefix + name;
+    }
+}
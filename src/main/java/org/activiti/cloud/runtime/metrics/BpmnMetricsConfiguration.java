@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.activiti.engine.delegate.event.ActivitiEventListener;
+import org.activiti.spring.boot.ProcessEngineConfigurationConfigurer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Регистрация слушателя метрик прямо в движке: он получает события элементов
+ * (ACTIVITY_*), которые не доходят до runtime-слушателей.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "runtimebundle.metrics.bpmn", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class BpmnMetricsConfiguration {
+
+    @Bean
+    public BpmnMetricsListener bpmnMetricsListener(MeterRegistry meterRegistry,
+                                                   BpmnMetricsProperties properties) {
+        return new BpmnMetricsListener(meterRegistry, properties);
+    }
+
+    @Bean
+    public ProcessEngineConfigurationConfigurer bpmnMetricsConfigurer(BpmnMetricsListener bpmnMetricsListener) {
+        return configuration -> {
+            List<ActivitiEventListener> listeners = new ArrayList<>();
+            if (configuration.getEventListeners() != null) {
+                listeners.addAll(configuration.getEventListeners());
+            }
+            listeners.add(bpmnMetricsListener);
+            configuration.setEventListeners(listeners);
+        };
+    }
+}
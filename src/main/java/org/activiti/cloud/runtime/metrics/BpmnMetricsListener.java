@@ -0,0 +1,236 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.metrics;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.activiti.cloud.runtime.ProjectModels;
+import org.activiti.engine.delegate.event.ActivitiActivityEvent;
+import org.activiti.engine.delegate.event.ActivitiEntityEvent;
+import org.activiti.engine.delegate.event.ActivitiEvent;
+import org.activiti.engine.delegate.event.ActivitiEventListener;
+import org.activiti.engine.impl.persistence.entity.ExecutionEntity;
+import org.activiti.engine.task.Task;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Метрики по элементам BPMN трёх моделей, теги - ключ определения процесса и id элемента.
+ * <ul>
+ * <li>runtimebundle.bpmn.activity.duration - время выполнения элемента (кроме пользовательских задач);</li>
+ * <li>runtimebundle.bpmn.task.unclaimed - время от создания задачи до назначения;</li>
+ * <li>runtimebundle.bpmn.task.duration - время от создания задачи до выполнения;</li>
+ * <li>runtimebundle.bpmn.call-activity.spawn - время от входа в call activity до старта дочернего процесса;</li>
+ * <li>runtimebundle.bpmn.process.iterations - число проходов цикла до завершения экземпляра.</li>
+ * </ul>
+ * Отметки старта и счётчики итераций живут в памяти реплики с ограничением по размеру и времени,
+ * поэтому после перезапуска итерации уже идущих экземпляров учитываются не полностью.
+ */
+public class BpmnMetricsListener implements ActivitiEventListener {
+
+    private static final String USER_TASK = "userTask";
+
+    private static final String CALL_ACTIVITY = "callActivity";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Cache<String, Long> activityStarts;
+
+    private final Cache<String, SpawnStart> spawnStarts;
+
+    private final Cache<String, AtomicInteger> iterations;
+
+    public BpmnMetricsListener(MeterRegistry meterRegistry,
+                               BpmnMetricsProperties properties) {
+        this.meterRegistry = meterRegistry;
+        this.activityStarts = newCache(properties).expireAfterWrite(properties.getStartTtl()).build();
+        this.spawnStarts = newCache(properties).expireAfterWrite(properties.getStartTtl()).build();
+        this.iterations = newCache(properties).build();
+    }
+
+    @Override
+    public void onEvent(ActivitiEvent event) {
+        switch (event.getType()) {
+            case ACTIVITY_STARTED:
+                activityStarted((ActivitiActivityEvent) event);
+                break;
+            case ACTIVITY_COMPLETED:
+                activityCompleted((ActivitiActivityEvent) event);
+                break;
+            case ACTIVITY_CANCELLED:
+                activityStarts.invalidate(activityKey(event.getExecutionId(), ((ActivitiActivityEvent) event).getActivityId()));
+                spawnStarts.invalidate(event.getExecutionId());
+                break;
+            case PROCESS_STARTED:
+                processStarted(event);
+                break;
+            case PROCESS_COMPLETED:
+            case PROCESS_CANCELLED:
+                processEnded(event);
+                break;
+            case TASK_ASSIGNED:
+                taskAssigned(event);
+                break;
+            case TASK_COMPLETED:
+                taskCompleted(event);
+                break;
+            default:
+                break;
+        }
+    }
+
+    @Override
+    public boolean isFailOnException() {
+        return false;
+    }
+
+    private void activityStarted(ActivitiActivityEvent event) {
+        if (definitionKey(event.getProcessDefinitionId()) == null || USER_TASK.equals(event.getActivityType())) {
+            return;
+        }
+        long now = System.nanoTime();
+        activityStarts.put(activityKey(event.getExecutionId(), event.getActivityId()), now);
+        if (CALL_ACTIVITY.equals(event.getActivityType())) {
+            spawnStarts.put(event.getExecutionId(), new SpawnStart(now, event.getProcessDefinitionId(), event.getActivityId()));
+        }
+    }
+
+    private void activityCompleted(ActivitiActivityEvent event) {
+        String key = definitionKey(event.getProcessDefinitionId());
+        if (key == null || USER_TASK.equals(event.getActivityType())) {
+            return;
+        }
+        String startKey = activityKey(event.getExecutionId(), event.getActivityId());
+        Long start = activityStarts.getIfPresent(startKey);
+        if (start != null) {
+            activityStarts.invalidate(startKey);
+            timer("runtimebundle.bpmn.activity.duration", key, event.getActivityId())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void processStarted(ActivitiEvent event) {
+        Object entity = ((ActivitiEntityEvent) event).getEntity();
+        if (!(entity instanceof ExecutionEntity)) {
+            return;
+        }
+        String superExecutionId = ((ExecutionEntity) entity).getSuperExecutionId();
+        SpawnStart spawnStart = superExecutionId == null ? null : spawnStarts.getIfPresent(superExecutionId);
+        if (spawnStart != null) {
+            spawnStarts.invalidate(superExecutionId);
+            timer("runtimebundle.bpmn.call-activity.spawn", definitionKey(spawnStart.processDefinitionId), spawnStart.activityId)
+                    .record(System.nanoTime() - spawnStart.nanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void processEnded(ActivitiEvent event) {
+        String key = definitionKey(event.getProcessDefinitionId());
+        if (key == null || event.getProcessInstanceId() == null) {
+            return;
+        }
+        AtomicInteger count = iterations.getIfPresent(event.getProcessInstanceId());
+        if (count != null) {
+            iterations.invalidate(event.getProcessInstanceId());
+            DistributionSummary.builder("runtimebundle.bpmn.process.iterations")
+                    .tag("processDefinitionKey", key)
+                    .register(meterRegistry)
+                    .record(count.get());
+        }
+    }
+
+    private void taskAssigned(ActivitiEvent event) {
+        Task task = task(event);
+        if (task != null && task.getAssignee() != null && task.getCreateTime() != null) {
+            timer("runtimebundle.bpmn.task.unclaimed", definitionKey(task.getProcessDefinitionId()), task.getTaskDefinitionKey())
+                    .record(System.currentTimeMillis() - task.getCreateTime().getTime(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void taskCompleted(ActivitiEvent event) {
+        Task task = task(event);
+        if (task == null) {
+            return;
+        }
+        if (task.getCreateTime() != null) {
+            timer("runtimebundle.bpmn.task.duration", definitionKey(task.getProcessDefinitionId()), task.getTaskDefinitionKey())
+                    .record(System.currentTimeMillis() - task.getCreateTime().getTime(), TimeUnit.MILLISECONDS);
+        }
+        if (task.getProcessInstanceId() != null && ProjectModels.USER_TASK_KEYS.contains(task.getTaskDefinitionKey())) {
+            iterations.get(task.getProcessInstanceId(), id -> new AtomicInteger()).incrementAndGet();
+        }
+    }
+
+    private Task task(ActivitiEvent event) {
+        Object entity = ((ActivitiEntityEvent) event).getEntity();
+        if (entity instanceof Task && definitionKey(((Task) entity).getProcessDefinitionId()) != null) {
+            return (Task) entity;
+        }
+        return null;
+    }
+
+    private Timer timer(String name,
+                        String processDefinitionKey,
+                        String elementId) {
+        return Timer.builder(name)
+                .tag("processDefinitionKey", processDefinitionKey)
+                .tag("elementId", elementId)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Ключ определения из id вида key:version:id; null для процессов вне трёх моделей,
+     * чтобы число тегов оставалось ограниченным.
+     */
+    static String definitionKey(String processDefinitionId) {
+        if (processDefinitionId == null) {
+            return null;
+        }
+        int separator = processDefinitionId.indexOf(':');
+        String key = separator < 0 ? processDefinitionId : processDefinitionId.substring(0, separator);
+        return ProjectModels.MODEL_DEFINITION_KEYS.contains(key) ? key : null;
+    }
+
+    private static String activityKey(String executionId,
+                                      String activityId) {
+        return executionId + ":" + activityId;
+    }
+
+    private static Caffeine<Object, Object> newCache(BpmnMetricsProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize());
+    }
+
+    private static class SpawnStart {
+
+        private final long nanos;
+
+        private final String processDefinitionId;
+
+        private final String activityId;
+
+        private SpawnStart(long nanos,
+                           String processDefinitionId,
+                           String activityId) {
+            this.nanos = nanos;
+            this.processDefinitionId = processDefinitionId;
+            this.activityId = activityId;
+        }
+    }
+}
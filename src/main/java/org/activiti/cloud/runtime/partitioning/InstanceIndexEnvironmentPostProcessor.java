@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.partitioning;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Номер реплики для партиционированных потребителей из имени пода StatefulSet
+ * (runtimebundle-0, runtimebundle-1, ...), если spring.cloud.stream.instanceIndex не задан явно.
+ */
+public class InstanceIndexEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    static final String INSTANCE_INDEX = "spring.cloud.stream.instanceIndex";
+
+    private static final Pattern ORDINAL = Pattern.compile(".*-(\\d+)$");
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment,
+                                       SpringApplication application) {
+        if (!environment.getProperty("runtimebundle.partitioning.enabled", Boolean.class, false)
+                || environment.containsProperty(INSTANCE_INDEX)) {
+            return;
+        }
+        Integer ordinal = ordinal(environment.getProperty("HOSTNAME"));
+        if (ordinal != null) {
+            environment.getPropertySources().addLast(new MapPropertySource("runtimeBundleInstanceIndex",
+                                                                           Collections.singletonMap(INSTANCE_INDEX, ordinal)));
+        }
+    }
+
+    static Integer ordinal(String hostname) {
+        if (hostname == null) {
+            return null;
+        }
+        Matcher matcher = ORDINAL.matcher(hostname);
+        return matcher.matches() ? Integer.valueOf(matcher.group(1)) : null;
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.partitioning;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Партиционирование команд и сигналов по корневому проекту. Включается профилем
+ * partitioned (application-partitioned.properties), число реплик - ACT_RB_REPLICAS.
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "runtimebundle.partitioning", name = "enabled", havingValue = "true")
+public class PartitioningConfiguration {
+
+    @Bean
+    public RootProjectPartitionKeyExtractor rootProjectPartitionKeyExtractor(RuntimeService runtimeService,
+                                                                             TaskService taskService,
+                                                                             ObjectMapper objectMapper,
+                                                                             PartitioningProperties properties) {
+        return new RootProjectPartitionKeyExtractor(runtimeService,
+                                                    taskService,
+                                                    objectMapper,
+                                                    properties);
+    }
+}
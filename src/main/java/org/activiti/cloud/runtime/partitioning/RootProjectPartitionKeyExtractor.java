@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.partitioning;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.activiti.engine.runtime.ProcessInstance;
+import org.activiti.engine.task.Task;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.binder.PartitionKeyExtractorStrategy;
+import org.springframework.messaging.Message;
+
+import java.io.IOException;
+
+/**
+ * Ключ партиции - id корневого проекта, поэтому все команды и сигналы одного дерева
+ * попадают на одну реплику.
+ * <p>
+ * Корень берётся из заголовка rootProcessInstanceId, иначе определяется по processInstanceId
+ * или taskId из заголовков или тела команды. Корень экземпляра не меняется, поэтому
+ * соответствие кэшируется. Сообщения без ссылки на процесс (например, сигналы по имени)
+ * распределяются по своему ключу: name или id.
+ */
+public class RootProjectPartitionKeyExtractor implements PartitionKeyExtractorStrategy {
+
+    public static final String ROOT_PROCESS_INSTANCE_ID_HEADER = "rootProcessInstanceId";
+
+    private static final String PROCESS_INSTANCE_ID = "processInstanceId";
+
+    private static final String TASK_ID = "taskId";
+
+    private final Logger logger = LoggerFactory.getLogger(RootProjectPartitionKeyExtractor.class);
+
+    private final RuntimeService runtimeService;
+
+    private final TaskService taskService;
+
+    private final ObjectMapper objectMapper;
+
+    private final Cache<String, String> roots;
+
+    public RootProjectPartitionKeyExtractor(RuntimeService runtimeService,
+                                            TaskService taskService,
+                                            ObjectMapper objectMapper,
+                                            PartitioningProperties properties) {
+        this.runtimeService = runtimeService;
+        this.taskService = taskService;
+        this.objectMapper = objectMapper;
+        this.roots = Caffeine.newBuilder()
+                .maximumSize(properties.getRootCacheSize())
+                .build();
+    }
+
+    @Override
+    public Object extractKey(Message<?> message) {
+        Object root = message.getHeaders().get(ROOT_PROCESS_INSTANCE_ID_HEADER);
+        if (root != null) {
+            return root.toString();
+        }
+        Object processInstanceId = message.getHeaders().get(PROCESS_INSTANCE_ID);
+        if (processInstanceId != null) {
+            return rootOf(processInstanceId.toString());
+        }
+        JsonNode payload = payload(message.getPayload());
+        if (payload == null) {
+            return message.getHeaders().getId();
+        }
+        if (payload.hasNonNull(PROCESS_INSTANCE_ID)) {
+            return rootOf(payload.get(PROCESS_INSTANCE_ID).asText());
+        }
+        if (payload.hasNonNull(TASK_ID)) {
+            return rootOfTask(payload.get(TASK_ID).asText());
+        }
+        if (payload.hasNonNull("name")) {
+            return payload.get("name").asText();
+        }
+        return payload.hasNonNull("id") ? payload.get("id").asText() : message.getHeaders().getId();
+    }
+
+    public String rootOf(String processInstanceId) {
+        return roots.get(processInstanceId, id -> {
+            ProcessInstance processInstance = runtimeService.createProcessInstanceQuery()
+                    .processInstanceId(id)
+                    .singleResult();
+            // Завершённый экземпляр: ключ - его собственный id
+            return processInstance == null || processInstance.getRootProcessInstanceId() == null
+                    ? id
+                    : processInstance.getRootProcessInstanceId();
+        });
+    }
+
+    private String rootOfTask(String taskId) {
+        Task task = taskService.createTaskQuery().taskId(taskId).singleResult();
+        if (task == null || task.getProcessInstanceId() == null) {
+            return taskId;
+        }
+        return rootOf(task.getProcessInstanceId());
+    }
+
+    private JsonNode payload(Object payload) {
+        try {
+            if (payload instanceof byte[]) {
+                return objectMapper.readTree((byte[]) payload);
+            }
+            if (payload instanceof String) {
+                return objectMapper.readTree((String) payload);
+            }
+            return objectMapper.valueToTree(payload);
+        } catch (IOException | IllegalArgumentException e) {
+            logger.debug("> Unable to read partition key from payload: " + e.getMessage());
+            return null;
+        }
+    }
+}
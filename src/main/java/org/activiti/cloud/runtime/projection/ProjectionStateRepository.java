@@ -0,0 +1,96 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.projection;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Версии проекций (PROJECT_TREE, TASK_INBOX), общие для всех реплик.
+ * <p>
+ * Полное перестроение проекции выполняется один раз на версию её схемы: строка
+ * состояния блокируется до конца транзакции перестроения, поэтому реплики,
+ * стартующие одновременно при раскатке, ждут первую и видят уже новую версию.
+ */
+@Repository
+public class ProjectionStateRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final DataSource dataSource;
+
+    private volatile String databaseProduct;
+
+    public ProjectionStateRepository(JdbcTemplate jdbcTemplate,
+                                     DataSource dataSource) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dataSource = dataSource;
+    }
+
+    /**
+     * Блокирует строку проекции до конца текущей транзакции; true, если сохранённая
+     * версия ниже version и проекцию нужно перестроить.
+     */
+    public boolean lockOutdated(String projection,
+                                int version) {
+        List<Integer> versions = jdbcTemplate.queryForList("SELECT VERSION FROM PROJECTION_STATE WHERE NAME = ? FOR UPDATE",
+                                                           Integer.class,
+                                                           projection);
+        if (versions.isEmpty()) {
+            throw new IllegalStateException("Projection " + projection + " is not registered in PROJECTION_STATE");
+        }
+        return versions.get(0) < version;
+    }
+
+    public void markRebuilt(String projection,
+                            int version) {
+        jdbcTemplate.update("UPDATE PROJECTION_STATE SET VERSION = ?, REBUILT_TIME = ? WHERE NAME = ?",
+                            version,
+                            new Timestamp(System.currentTimeMillis()),
+                            projection);
+    }
+
+    /**
+     * На Postgres - запрет записи в таблицу проекции из других транзакций до конца текущей.
+     * Берётся до чтения таблиц движка: всё, что другие реплики успели зафиксировать,
+     * попадёт в перестроение, остальное они допишут после него.
+     */
+    public void lockForRebuild(String table) {
+        if (isPostgres()) {
+            jdbcTemplate.execute("LOCK TABLE " + table + " IN SHARE ROW EXCLUSIVE MODE");
+        }
+    }
+
+    private boolean isPostgres() {
+        String product = databaseProduct;
+        if (product == null) {
+            try {
+                product = (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+            } catch (MetaDataAccessException e) {
+                product = "";
+            }
+            databaseProduct = product;
+        }
+        return product.toLowerCase(Locale.ROOT).contains("postgres");
+    }
+}
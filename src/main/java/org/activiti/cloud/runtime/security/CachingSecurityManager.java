@@ -0,0 +1,114 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Кэш групп и ролей текущего пользователя перед SecurityManager.
+ * <p>
+ * Без кэша каждый вызов getAuthenticatedUserGroups() заново прогоняет полномочия
+ * через мапперы (или идёт в Keycloak за группами). Ключ - пользователь вместе с набором
+ * полномочий аутентификации, поэтому токен с другими ролями получает свою запись,
+ * а изменения групп на стороне Keycloak видны после TTL.
+ */
+public class CachingSecurityManager implements SecurityManager {
+
+    public static final String GROUPS_CACHE_NAME = "principalGroups";
+
+    public static final String ROLES_CACHE_NAME = "principalRoles";
+
+    private final SecurityManager delegate;
+
+    private final Cache<List<String>, List<String>> groups;
+
+    private final Cache<List<String>, List<String>> roles;
+
+    public CachingSecurityManager(SecurityManager delegate,
+                                  PrincipalCacheProperties properties) {
+        this.delegate = delegate;
+        this.groups = cache(properties);
+        this.roles = cache(properties);
+    }
+
+    @Override
+    public String getAuthenticatedUserId() {
+        return delegate.getAuthenticatedUserId();
+    }
+
+    @Override
+    public List<String> getAuthenticatedUserGroups() throws SecurityException {
+        List<String> key = key();
+        return key == null ? delegate.getAuthenticatedUserGroups() : groups.get(key, k -> delegate.getAuthenticatedUserGroups());
+    }
+
+    @Override
+    public List<String> getAuthenticatedUserRoles() throws SecurityException {
+        List<String> key = key();
+        return key == null ? delegate.getAuthenticatedUserRoles() : roles.get(key, k -> delegate.getAuthenticatedUserRoles());
+    }
+
+    public SecurityManager getDelegate() {
+        return delegate;
+    }
+
+    Cache<List<String>, List<String>> getGroups() {
+        return groups;
+    }
+
+    Cache<List<String>, List<String>> getRoles() {
+        return roles;
+    }
+
+    /**
+     * Пользователь и отсортированные имена его полномочий: сравнение ключей точное, без хэшей.
+     */
+    private List<String> key() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()) {
+            return null;
+        }
+        String userId = delegate.getAuthenticatedUserId();
+        if (userId == null) {
+            return null;
+        }
+        List<String> key = new ArrayList<>();
+        key.add(userId);
+        authentication.getAuthorities().stream()
+                .map(GrantedAuthority::getAuthority)
+                .filter(Objects::nonNull)
+                .sorted()
+                .forEach(key::add);
+        return key;
+    }
+
+    private static Cache<List<String>, List<String>> cache(PrincipalCacheProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,82 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.activiti.api.runtime.shared.identity.UserGroupManager;
+
+import java.util.List;
+
+/**
+ * Кэш групп и ролей по имени пользователя перед UserGroupManager: в Keycloak-варианте
+ * каждый вызов - запрос к admin API.
+ */
+public class CachingUserGroupManager implements UserGroupManager {
+
+    public static final String GROUPS_CACHE_NAME = "userGroups";
+
+    public static final String ROLES_CACHE_NAME = "userRoles";
+
+    private final UserGroupManager delegate;
+
+    private final Cache<String, List<String>> groups;
+
+    private final Cache<String, List<String>> roles;
+
+    public CachingUserGroupManager(UserGroupManager delegate,
+                                   PrincipalCacheProperties properties) {
+        this.delegate = delegate;
+        this.groups = cache(properties);
+        this.roles = cache(properties);
+    }
+
+    @Override
+    public List<String> getUserGroups(String username) {
+        return username == null ? delegate.getUserGroups(null) : groups.get(username, delegate::getUserGroups);
+    }
+
+    @Override
+    public List<String> getUserRoles(String username) {
+        return username == null ? delegate.getUserRoles(null) : roles.get(username, delegate::getUserRoles);
+    }
+
+    @Override
+    public List<String> getGroups() {
+        return delegate.getGroups();
+    }
+
+    @Override
+    public List<String> getUsers() {
+        return delegate.getUsers();
+    }
+
+    Cache<String, List<String>> getGroupsCache() {
+        return groups;
+    }
+
+    Cache<String, List<String>> getRolesCache() {
+        return roles;
+    }
+
+    private static Cache<String, List<String>> cache(PrincipalCacheProperties properties) {
+        return Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.activiti.api.runtime.shared.identity.UserGroupManager;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Оборачивает SecurityManager и UserGroupManager стартера кэшами групп и ролей.
+ * <p>
+ * Токены проверяет адаптер Keycloak локально по ключам realm (JWKS), которые он кэширует
+ * на keycloak.public-key-cache-ttl и перечитывает при незнакомом kid не чаще
+ * keycloak.min-time-between-jwks-requests, так что запрос к Keycloak за проверкой токена
+ * не уходит. Остающаяся работа на каждый запрос - разбор групп и ролей - кэшируется здесь.
+ */
+@Configuration
+public class PrincipalCacheConfiguration {
+
+    @Bean
+    public static BeanPostProcessor principalCachePostProcessor(ObjectProvider<PrincipalCacheProperties> properties,
+                                                                ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean,
+                                                         String beanName) {
+                if (bean instanceof SecurityManager && !(bean instanceof CachingSecurityManager)) {
+                    PrincipalCacheProperties cacheProperties = properties.getObject();
+                    if (cacheProperties.isEnabled()) {
+                        CachingSecurityManager securityManager = new CachingSecurityManager((SecurityManager) bean, cacheProperties);
+                        meterRegistry.ifAvailable(registry -> {
+                            CaffeineCacheMetrics.monitor(registry, securityManager.getGroups(), CachingSecurityManager.GROUPS_CACHE_NAME);
+                            CaffeineCacheMetrics.monitor(registry, securityManager.getRoles(), CachingSecurityManager.ROLES_CACHE_NAME);
+                        });
+                        return securityManager;
+                    }
+                } else if (bean instanceof UserGroupManager && !(bean instanceof CachingUserGroupManager)) {
+                    PrincipalCacheProperties cacheProperties = properties.getObject();
+                    if (cacheProperties.isEnabled()) {
+                        CachingUserGroupManager userGroupManager = new CachingUserGroupManager((UserGroupManager) bean, cacheProperties);
+                        meterRegistry.ifAvailable(registry -> {
+                            CaffeineCacheMetrics.monitor(registry, userGroupManager.getGroupsCache(), CachingUserGroupManager.GROUPS_CACHE_NAME);
+                            CaffeineCacheMetrics.monitor(registry, userGroupManager.getRolesCache(), CachingUserGroupManager.ROLES_CACHE_NAME);
+                        });
+                        return userGroupManager;
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.signal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.dao.DataAccessException;
+
+import java.io.IOException;
+
+/**
+ * Приём сигналов для массовой рассылки из signalFanOutConsumer.
+ * <p>
+ * Обработчик signalConsumer из стартера доставляет сигнал всем подпискам в одной команде,
+ * поэтому массовые сигналы идут отдельным адресатом. Группа потребителей гарантирует,
+ * что каждый сигнал рассылает одна реплика; сообщение подтверждается после рассылки.
+ */
+@Configuration
+@EnableBinding(SignalFanOutChannels.class)
+public class SignalFanOutConfiguration {
+
+    private final Logger logger = LoggerFactory.getLogger(SignalFanOutConfiguration.class);
+
+    private final SignalFanOutService signalFanOutService;
+
+    private final ObjectMapper objectMapper;
+
+    public SignalFanOutConfiguration(SignalFanOutService signalFanOutService,
+                                     ObjectMapper objectMapper) {
+        this.signalFanOutService = signalFanOutService;
+        this.objectMapper = objectMapper;
+    }
+
+    @StreamListener(SignalFanOutChannels.SIGNAL_FAN_OUT_CONSUMER)
+    public void onSignal(byte[] payload) {
+        SignalFanOutRequest request;
+        try {
+            request = objectMapper.readValue(payload, SignalFanOutRequest.class);
+        } catch (IOException e) {
+            logger.warn("> Unable to read signal for fan-out", e);
+            return;
+        }
+        signalFanOutService.fanOut(request);
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> signalSubscriptionIndexCreator(SignalSubscriptionRepository repository) {
+        return event -> {
+            try {
+                repository.createIndex();
+            } catch (DataAccessException e) {
+                logger.warn("> Unable to create index " + SignalSubscriptionRepository.INDEX + ", signal fan-out will scan subscriptions", e);
+            }
+        };
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.signal;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@RestController
+public class SignalFanOutController {
+
+    private final SignalFanOutService signalFanOutService;
+
+    public SignalFanOutController(SignalFanOutService signalFanOutService) {
+        this.signalFanOutService = signalFanOutService;
+    }
+
+    @PostMapping("/admin/v1/signal-fan-outs")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public SignalFanOutProgress start(@RequestBody SignalFanOutRequest request) {
+        return signalFanOutService.start(request);
+    }
+
+    @PostMapping("/v1/process-instances/{processInstanceId}/signal-fan-outs/{signalName}")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public SignalFanOutProgress startInTree(@PathVariable String processInstanceId,
+                                            @PathVariable String signalName,
+                                            @RequestBody(required = false) Map<String, Object> variables) {
+        return signalFanOutService.start(new SignalFanOutRequest(signalName,
+                                                                 variables != null ? variables : new HashMap<>(),
+                                                                 processInstanceId));
+    }
+
+    @GetMapping({"/v1/signal-fan-outs/{id}", "/admin/v1/signal-fan-outs/{id}"})
+    public SignalFanOutProgress progress(@PathVariable String id) {
+        return signalFanOutService.progress(id);
+    }
+}
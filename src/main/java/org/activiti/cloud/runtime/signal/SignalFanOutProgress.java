@@ -0,0 +1,150 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.signal;
+
+import java.util.Date;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Прогресс рассылки сигнала: total - подписок, найденных на старте.
+ */
+public class SignalFanOutProgress {
+
+    public enum State {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+
+    private final String id;
+
+    private final String signalName;
+
+    private final String rootProcessInstanceId;
+
+    private final Date startedDate = new Date();
+
+    private final AtomicLong delivered = new AtomicLong();
+
+    private final AtomicLong skipped = new AtomicLong();
+
+    private final AtomicLong failed = new AtomicLong();
+
+    private final AtomicLong chunks = new AtomicLong();
+
+    private volatile long total;
+
+    private volatile State state = State.RUNNING;
+
+    private volatile Date finishedDate;
+
+    private volatile String error;
+
+    public SignalFanOutProgress(String id,
+                                String signalName,
+                                String rootProcessInstanceId) {
+        this.id = id;
+        this.signalName = signalName;
+        this.rootProcessInstanceId = rootProcessInstanceId;
+    }
+
+    void resolved(long total) {
+        this.total = total;
+    }
+
+    void chunkDelivered(int delivered,
+                        int skipped,
+                        int failed) {
+        this.delivered.addAndGet(delivered);
+        this.skipped.addAndGet(skipped);
+        this.failed.addAndGet(failed);
+        chunks.incrementAndGet();
+    }
+
+    void completed() {
+        finishedDate = new Date();
+        state = State.COMPLETED;
+    }
+
+    void failed(String error) {
+        this.error = error;
+        finishedDate = new Date();
+        state = State.FAILED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getSignalName() {
+        return signalName;
+    }
+
+    public String getRootProcessInstanceId() {
+        return rootProcessInstanceId;
+    }
+
+    public long getTotal() {
+        return total;
+    }
+
+    public long getDelivered() {
+        return delivered.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getChunks() {
+        return chunks.get();
+    }
+
+    public State getState() {
+        return state;
+    }
+
+    public Date getStartedDate() {
+        return startedDate;
+    }
+
+    public Date getFinishedDate() {
+        return finishedDate;
+    }
+
+    public String getError() {
+        return error;
+    }
+
+    @Override
+    public String toString() {
+        return "SignalFanOutProgress{" +
+                "id='" + id + '\'' +
+                ", signalName='" + signalName + '\'' +
+                ", rootProcessInstanceId='" + rootProcessInstanceId + '\'' +
+                ", total=" + total +
+                ", delivered=" + delivered +
+                ", skipped=" + skipped +
+                ", failed=" + failed +
+                ", chunks=" + chunks +
+                ", state=" + state +
+                '}';
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.signal;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Сигнал для рассылки: имя, переменные и необязательный корень дерева проекта,
+ * которым ограничиваются получатели.
+ */
+public class SignalFanOutRequest {
+
+    private String name;
+
+    private Map<String, Object> variables = new HashMap<>();
+
+    private String rootProcessInstanceId;
+
+    public SignalFanOutRequest() {
+    }
+
+    public SignalFanOutRequest(String name,
+                               Map<String, Object> variables,
+                               String rootProcessInstanceId) {
+        this.name = name;
+        this.variables = variables;
+        this.rootProcessInstanceId = rootProcessInstanceId;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void setName(String name) {
+        this.name = name;
+    }
+
+    public Map<String, Object> getVariables() {
+        return variables;
+    }
+
+    public void setVariables(Map<String, Object> variables) {
+        this.variables = variables;
+    }
+
+    public String getRootProcessInstanceId() {
+        return rootProcessInstanceId;
+    }
+
+    public void setRootProcessInstanceId(String rootProcessInstanceId) {
+        this.rootProcessInstanceId = rootProcessInstanceId;
+    }
+
+    @Override
+    public String toString() {
+        return "SignalFanOutRequest{name='" + name + "', rootProcessInstanceId='" + rootProcessInstanceId + "'}";
+    }
+}
@@ -0,0 +1,252 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.signal;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.engine.ManagementService;
+import org.activiti.engine.impl.interceptor.Command;
+import org.activiti.engine.impl.persistence.entity.EventSubscriptionEntity;
+import org.activiti.engine.impl.persistence.entity.EventSubscriptionEntityManager;
+import org.activiti.engine.impl.persistence.entity.SignalEventSubscriptionEntity;
+import org.activiti.engine.impl.util.ProcessDefinitionUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Рассылка сигнала большому числу подписчиков.
+ * <p>
+ * Обычный signalEventReceived загружает все подписки движком и доставляет их в одной
+ * команде. Здесь идентификаторы подписок берутся одним запросом по индексу, делятся на
+ * порции по {@link SignalFanOutProperties#getChunkSize()} и доставляются пулом воркеров,
+ * каждая порция - в своей транзакции. Если порция не прошла (например, конфликт версий
+ * у соседних исполнений одного процесса), её подписки доставляются по одной.
+ * Доставленная подписка на промежуточное событие удаляется движком, поэтому повторная
+ * рассылка того же сигнала затрагивает только недоставленные.
+ */
+@Service
+public class SignalFanOutService implements DisposableBean {
+
+    private final Logger logger = LoggerFactory.getLogger(SignalFanOutService.class);
+
+    private final SignalSubscriptionRepository repository;
+
+    private final ManagementService managementService;
+
+    private final ProcessRuntime processRuntime;
+
+    private final SignalFanOutProperties properties;
+
+    private final ExecutorService coordinator;
+
+    private final ExecutorService workers;
+
+    private final Cache<String, SignalFanOutProgress> progress;
+
+    private final AtomicLong pending = new AtomicLong();
+
+    private final Counter delivered;
+
+    private final Counter skipped;
+
+    private final Counter failed;
+
+    private final Timer chunkTimer;
+
+    private final Timer fanOutTimer;
+
+    public SignalFanOutService(SignalSubscriptionRepository repository,
+                               ManagementService managementService,
+                               ProcessRuntime processRuntime,
+                               SignalFanOutProperties properties,
+                               MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.managementService = managementService;
+        this.processRuntime = processRuntime;
+        this.properties = properties;
+        this.coordinator = Executors.newCachedThreadPool(daemon("signal-fan-out"));
+        this.workers = Executors.newFixedThreadPool(Math.max(1, properties.getWorkers()), daemon("signal-fan-out-worker"));
+        this.progress = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getRetention())
+                .build();
+        meterRegistry.gauge("runtimebundle.signal.fan-out.pending", pending);
+        this.delivered = meterRegistry.counter("runtimebundle.signal.fan-out.subscriptions", "outcome", "delivered");
+        this.skipped = meterRegistry.counter("runtimebundle.signal.fan-out.subscriptions", "outcome", "skipped");
+        this.failed = meterRegistry.counter("runtimebundle.signal.fan-out.subscriptions", "outcome", "failed");
+        this.chunkTimer = meterRegistry.timer("runtimebundle.signal.fan-out.chunk");
+        this.fanOutTimer = meterRegistry.timer("runtimebundle.signal.fan-out.duration");
+    }
+
+    /**
+     * Запуск рассылки в фоне; прогресс доступен через {@link #progress(String)}.
+     * Рассылка по дереву проекта требует доступа к его корню.
+     */
+    public SignalFanOutProgress start(SignalFanOutRequest request) {
+        SignalFanOutProgress started = prepare(request);
+        coordinator.execute(() -> run(started, request));
+        return started;
+    }
+
+    /**
+     * Рассылка в текущем потоке без проверки прав: для сообщений из signalFanOutConsumer.
+     */
+    public SignalFanOutProgress fanOut(SignalFanOutRequest request) {
+        SignalFanOutProgress started = register(request);
+        run(started, request);
+        return started;
+    }
+
+    public SignalFanOutProgress progress(String id) {
+        SignalFanOutProgress found = progress.getIfPresent(id);
+        if (found == null) {
+            throw new NotFoundException("Unable to find signal fan-out for the given id:'" + id + "'");
+        }
+        return found;
+    }
+
+    @Override
+    public void destroy() {
+        coordinator.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private SignalFanOutProgress prepare(SignalFanOutRequest request) {
+        if (request.getRootProcessInstanceId() != null) {
+            // Права на проект проверяет сам runtime: NotFoundException, если процесс недоступен
+            processRuntime.processInstance(request.getRootProcessInstanceId());
+        }
+        return register(request);
+    }
+
+    private SignalFanOutProgress register(SignalFanOutRequest request) {
+        if (request.getName() == null || request.getName().isEmpty()) {
+            throw new IllegalArgumentException("Signal name is required");
+        }
+        SignalFanOutProgress started = new SignalFanOutProgress(UUID.randomUUID().toString(),
+                                                                request.getName(),
+                                                                request.getRootProcessInstanceId());
+        progress.put(started.getId(), started);
+        return started;
+    }
+
+    private void run(SignalFanOutProgress fanOut,
+                     SignalFanOutRequest request) {
+        long startedNanos = System.nanoTime();
+        try {
+            List<String> subscriptions = request.getRootProcessInstanceId() == null
+                    ? repository.subscriptions(request.getName())
+                    : repository.subscriptions(request.getName(), request.getRootProcessInstanceId());
+            fanOut.resolved(subscriptions.size());
+            pending.addAndGet(subscriptions.size());
+
+            int chunkSize = Math.max(1, properties.getChunkSize());
+            List<CompletableFuture<Void>> chunks = new ArrayList<>();
+            for (int from = 0; from < subscriptions.size(); from += chunkSize) {
+                List<String> chunk = subscriptions.subList(from, Math.min(from + chunkSize, subscriptions.size()));
+                chunks.add(CompletableFuture.runAsync(() -> deliver(fanOut, chunk, request.getVariables()), workers));
+            }
+            CompletableFuture.allOf(chunks.toArray(new CompletableFuture[0])).join();
+            fanOut.completed();
+            logger.info("> Signal fan-out completed: " + fanOut);
+        } catch (RuntimeException e) {
+            fanOut.failed(e.getMessage());
+            logger.error("> Signal fan-out failed: " + fanOut, e);
+        } finally {
+            fanOutTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void deliver(SignalFanOutProgress fanOut,
+                         List<String> chunk,
+                         Map<String, Object> variables) {
+        long startedNanos = System.nanoTime();
+        int deliveredCount = 0;
+        int failedCount = 0;
+        try {
+            deliveredCount = managementService.executeCommand(deliverCommand(chunk, variables));
+        } catch (RuntimeException e) {
+            logger.debug("> Signal chunk of " + chunk.size() + " failed, delivering one by one", e);
+            for (String subscription : chunk) {
+                try {
+                    deliveredCount += managementService.executeCommand(deliverCommand(Collections.singletonList(subscription), variables));
+                } catch (RuntimeException single) {
+                    failedCount++;
+                    logger.warn("> Unable to deliver signal '" + fanOut.getSignalName() + "' to subscription " + subscription, single);
+                }
+            }
+        }
+        int skippedCount = chunk.size() - deliveredCount - failedCount;
+        fanOut.chunkDelivered(deliveredCount, skippedCount, failedCount);
+        pending.addAndGet(-chunk.size());
+        delivered.increment(deliveredCount);
+        skipped.increment(skippedCount);
+        failed.increment(failedCount);
+        chunkTimer.record(System.nanoTime() - startedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Доставка порции подписок в одной команде движка. Как и в signalEventReceived,
+     * сигнал получают только глобальные подписки активных определений; подписки,
+     * исчезнувшие после поиска, пропускаются.
+     */
+    private static Command<Integer> deliverCommand(List<String> subscriptions,
+                                                   Map<String, Object> variables) {
+        return commandContext -> {
+            EventSubscriptionEntityManager manager = commandContext.getEventSubscriptionEntityManager();
+            int count = 0;
+            for (String id : subscriptions) {
+                EventSubscriptionEntity subscription = manager.findById(id);
+                if (subscription instanceof SignalEventSubscriptionEntity
+                        && ((SignalEventSubscriptionEntity) subscription).isGlobalScoped()
+                        && (subscription.getProcessDefinitionId() == null
+                        || !ProcessDefinitionUtil.isProcessDefinitionSuspended(subscription.getProcessDefinitionId()))) {
+                    manager.eventReceived(subscription, variables, false);
+                    count++;
+                }
+            }
+            return count;
+        };
+    }
+
+    private static ThreadFactory daemon(String prefix) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, prefix + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+}
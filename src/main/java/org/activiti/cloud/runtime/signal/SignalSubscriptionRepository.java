@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.signal;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * Поиск подписок на сигнал одним запросом по индексу (EVENT_TYPE_, EVENT_NAME_)
+ * вместо загрузки сущностей движком.
+ */
+@Repository
+public class SignalSubscriptionRepository {
+
+    static final String INDEX = "RB_EVENT_SUBSCR_NAME_IDX";
+
+    private static final String SELECT_SUBSCRIPTIONS =
+            "SELECT S.ID_ FROM ACT_RU_EVENT_SUBSCR S WHERE S.EVENT_TYPE_ = 'signal' AND S.EVENT_NAME_ = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SignalSubscriptionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Индекс на таблице движка создаётся после старта движка, а не миграцией:
+     * Flyway выполняется раньше, чем движок создаёт свою схему.
+     */
+    public void createIndex() {
+        jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS " + INDEX + " ON ACT_RU_EVENT_SUBSCR (EVENT_TYPE_, EVENT_NAME_)");
+    }
+
+    public List<String> subscriptions(String signalName) {
+        return jdbcTemplate.queryForList(SELECT_SUBSCRIPTIONS + " ORDER BY S.ID_", String.class, signalName);
+    }
+
+    /**
+     * Подписки экземпляров поддерева проекта (включая сам корень) по индексу PROJECT_TREE.
+     */
+    public List<String> subscriptions(String signalName,
+                                      String rootProcessInstanceId) {
+        return jdbcTemplate.queryForList(SELECT_SUBSCRIPTIONS +
+                                                 " AND S.PROC_INST_ID_ IN (SELECT T.DESCENDANT_ID FROM PROJECT_TREE T WHERE T.ANCESTOR_ID = ?)" +
+                                                 " ORDER BY S.ID_",
+                                         String.class,
+                                         signalName,
+                                         rootProcessInstanceId);
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.startup;
+
+import org.activiti.engine.RepositoryService;
+import org.activiti.engine.repository.Deployment;
+import org.activiti.engine.repository.DeploymentBuilder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.support.PathMatchingResourcePatternResolver;
+import org.springframework.core.io.support.ResourcePatternResolver;
+import org.springframework.util.StreamUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Развёртывание моделей по хэшу содержимого.
+ * <p>
+ * SHA-256 считается по именам и содержимому *.bpmn20.xml и *-extensions.json и хранится
+ * в категории развёртывания. Если развёртывание с таким хэшем уже есть, движок не разбирает
+ * модели повторно: нет ни чтения ресурсов прошлого развёртывания, ни сравнения байтов.
+ */
+public class HashModelDeployer {
+
+    static final String CATEGORY_PREFIX = "sha256:";
+
+    private final Logger logger = LoggerFactory.getLogger(HashModelDeployer.class);
+
+    private final RepositoryService repositoryService;
+
+    private final StartupProperties properties;
+
+    private final ResourcePatternResolver resourceResolver = new PathMatchingResourcePatternResolver();
+
+    public HashModelDeployer(RepositoryService repositoryService,
+                             StartupProperties properties) {
+        this.repositoryService = repositoryService;
+        this.properties = properties;
+    }
+
+    /**
+     * @return true, если модели изменились и были развёрнуты
+     */
+    public boolean deploy() {
+        Resource[] models = resources(properties.getModelLocation());
+        Resource[] extensions = resources(properties.getExtensionLocation());
+        String category = CATEGORY_PREFIX + hash(models, extensions);
+
+        long deployed = repositoryService.createDeploymentQuery()
+                .deploymentName(properties.getDeploymentName())
+                .deploymentCategory(category)
+                .count();
+        if (deployed > 0) {
+            logger.info("> Process models unchanged (" + category + "), deployment skipped");
+            return false;
+        }
+
+        DeploymentBuilder builder = repositoryService.createDeployment()
+                .name(properties.getDeploymentName())
+                .category(category)
+                .enableDuplicateFiltering();
+        // Расширения читаются движком из ресурсов развёртывания, как у стандартного деплоера
+        for (Resource[] group : new Resource[][]{models, extensions}) {
+            for (Resource resource : group) {
+                try (InputStream content = resource.getInputStream()) {
+                    builder.addBytes(resource.getFilename(), StreamUtils.copyToByteArray(content));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+        Deployment deployment = builder.deploy();
+        logger.info("> Process models deployed: " + deployment.getId() + " (" + category + ")");
+        return true;
+    }
+
+    String hash(Resource[] models,
+                Resource[] extensions) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Resource[] group : new Resource[][]{models, extensions}) {
+                for (Resource resource : group) {
+                    digest.update(String.valueOf(resource.getFilename()).getBytes(StandardCharsets.UTF_8));
+                    try (InputStream content = resource.getInputStream()) {
+                        digest.update(StreamUtils.copyToByteArray(content));
+                    }
+                }
+            }
+            StringBuilder hex = new StringBuilder();
+            for (byte b : digest.digest()) {
+                hex.append(String.format("%02x", b));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Resource[] resources(String location) {
+        try {
+            Resource[] resources = resourceResolver.getResources(location);
+            // Порядок ресурсов на classpath не гарантирован, хэш от него зависеть не должен
+            Arrays.sort(resources, Comparator.comparing(resource -> String.valueOf(resource.getFilename())));
+            return resources;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
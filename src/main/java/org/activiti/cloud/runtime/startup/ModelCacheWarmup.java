@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.startup;
+
+import org.activiti.cloud.runtime.ProjectModels;
+import org.activiti.cloud.runtime.mappings.CompiledMappingCache;
+import org.activiti.engine.RepositoryService;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.spring.process.ProcessExtensionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+
+import java.util.List;
+
+/**
+ * Прогрев кэша определений: последние версии трёх моделей разбираются до готовности,
+ * заодно заполняются расширения, предкомпилированные условия шлюзов и отображения входных переменных.
+ */
+public class ModelCacheWarmup {
+
+    private final Logger logger = LoggerFactory.getLogger(ModelCacheWarmup.class);
+
+    private final RepositoryService repositoryService;
+
+    private final ObjectProvider<ProcessExtensionService> processExtensionService;
+
+    private final ObjectProvider<CompiledMappingCache> compiledMappingCache;
+
+    public ModelCacheWarmup(RepositoryService repositoryService,
+                            ObjectProvider<ProcessExtensionService> processExtensionService,
+                            ObjectProvider<CompiledMappingCache> compiledMappingCache) {
+        this.repositoryService = repositoryService;
+        this.processExtensionService = processExtensionService;
+        this.compiledMappingCache = compiledMappingCache;
+    }
+
+    public int warmup() {
+        List<ProcessDefinition> definitions = repositoryService.createProcessDefinitionQuery()
+                .latestVersion()
+                .list();
+        int warmed = 0;
+        for (ProcessDefinition definition : definitions) {
+            if (!ProjectModels.MODEL_DEFINITION_KEYS.contains(definition.getKey())) {
+                continue;
+            }
+            // Разбор BPMN через кэш развёртываний движка
+            repositoryService.getBpmnModel(definition.getId());
+            processExtensionService.ifAvailable(service -> service.getExtensionsForId(definition.getId()));
+            compiledMappingCache.ifAvailable(cache -> cache.compile(definition.getId()));
+            warmed++;
+        }
+        logger.info("> Process definition cache warmed up: " + warmed + " definitions");
+        return warmed;
+    }
+}
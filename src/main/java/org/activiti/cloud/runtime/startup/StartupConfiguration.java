@@ -0,0 +1,59 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.startup;
+
+import org.activiti.cloud.runtime.mappings.CompiledMappingCache;
+import org.activiti.engine.RepositoryService;
+import org.activiti.spring.process.ProcessExtensionService;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class StartupConfiguration {
+
+    @Bean
+    public HashModelDeployer hashModelDeployer(RepositoryService repositoryService,
+                                               StartupProperties properties) {
+        return new HashModelDeployer(repositoryService, properties);
+    }
+
+    @Bean
+    public ModelCacheWarmup modelCacheWarmup(RepositoryService repositoryService,
+                                             ObjectProvider<ProcessExtensionService> processExtensionService,
+                                             ObjectProvider<CompiledMappingCache> compiledMappingCache) {
+        return new ModelCacheWarmup(repositoryService, processExtensionService, compiledMappingCache);
+    }
+
+    @Bean
+    public StartupHealthIndicator startupHealthIndicator() {
+        return new StartupHealthIndicator();
+    }
+
+    @Bean
+    public StartupRunner startupRunner(HashModelDeployer hashModelDeployer,
+                                       ModelCacheWarmup modelCacheWarmup,
+                                       StartupHealthIndicator startupHealthIndicator,
+                                       ObjectProvider<StartupTimings> startupTimings,
+                                       StartupProperties properties) {
+        // Без слушателя из spring.factories (например, в срезах тестов) фазы просто не попадут в отчёт
+        return new StartupRunner(hashModelDeployer,
+                                 modelCacheWarmup,
+                                 startupHealthIndicator,
+                                 startupTimings.getIfAvailable(StartupTimings::new),
+                                 properties);
+    }
+}
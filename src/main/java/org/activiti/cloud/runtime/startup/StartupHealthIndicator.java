@@ -0,0 +1,41 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.startup;
+
+import org.springframework.boot.actuate.health.AbstractHealthIndicator;
+import org.springframework.boot.actuate.health.Health;
+
+/**
+ * OUT_OF_SERVICE, пока не завершены развёртывание и прогрев: readinessProbe
+ * не пускает трафик на под, у которого веб-сервер уже поднят, а модели ещё нет.
+ */
+public class StartupHealthIndicator extends AbstractHealthIndicator {
+
+    private volatile boolean ready;
+
+    void ready() {
+        this.ready = true;
+    }
+
+    @Override
+    protected void doHealthCheck(Health.Builder builder) {
+        if (ready) {
+            builder.up();
+        } else {
+            builder.outOfService();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.startup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+@ConfigurationProperties("runtimebundle.startup")
+public class StartupProperties {
+
+    /**
+     * Развёртывание моделей по хэшу содержимого вместо автодеплоя движка;
+     * включается вместе с spring.activiti.check-process-definitions=false.
+     */
+    private boolean hashDeployment = false;
+
+    private String deploymentName = "SpringAutoDeployment";
+
+    private String modelLocation = "classpath*:processes/**/*.bpmn20.xml";
+
+    private String extensionLocation = "classpath*:processes/**/*-extensions.json";
+
+    private boolean warmup = true;
+
+    public boolean isHashDeployment() {
+        return hashDeployment;
+    }
+
+    public void setHashDeployment(boolean hashDeployment) {
+        this.hashDeployment = hashDeployment;
+    }
+
+    public String getDeploymentName() {
+        return deploymentName;
+    }
+
+    public void setDeploymentName(String deploymentName) {
+        this.deploymentName = deploymentName;
+    }
+
+    public String getModelLocation() {
+        return modelLocation;
+    }
+
+    public void setModelLocation(String modelLocation) {
+        this.modelLocation = modelLocation;
+    }
+
+    public String getExtensionLocation() {
+        return extensionLocation;
+    }
+
+    public void setExtensionLocation(String extensionLocation) {
+        this.extensionLocation = extensionLocation;
+    }
+
+    public boolean isWarmup() {
+        return warmup;
+    }
+
+    public void setWarmup(boolean warmup) {
+        this.warmup = warmup;
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.startup;
+
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.core.Ordered;
+
+/**
+ * Фазы старта после поднятия контекста: развёртывание по хэшу и прогрев кэша.
+ */
+public class StartupRunner implements ApplicationRunner, Ordered {
+
+    private final HashModelDeployer hashModelDeployer;
+
+    private final ModelCacheWarmup modelCacheWarmup;
+
+    private final StartupHealthIndicator startupHealthIndicator;
+
+    private final StartupTimings startupTimings;
+
+    private final StartupProperties properties;
+
+    public StartupRunner(HashModelDeployer hashModelDeployer,
+                         ModelCacheWarmup modelCacheWarmup,
+                         StartupHealthIndicator startupHealthIndicator,
+                         StartupTimings startupTimings,
+                         StartupProperties properties) {
+        this.hashModelDeployer = hashModelDeployer;
+        this.modelCacheWarmup = modelCacheWarmup;
+        this.startupHealthIndicator = startupHealthIndicator;
+        this.startupTimings = startupTimings;
+        this.properties = properties;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (properties.isHashDeployment()) {
+            startupTimings.time("deployment", hashModelDeployer::deploy);
+        }
+        if (properties.isWarmup()) {
+            startupTimings.time("warmup", modelCacheWarmup::warmup);
+        }
+        startupHealthIndicator.ready();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.startup;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.BeansException;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.boot.context.event.ApplicationContextInitializedEvent;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
+import org.springframework.boot.context.event.ApplicationPreparedEvent;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.boot.context.event.ApplicationStartingEvent;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.ApplicationEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.event.ContextRefreshedEvent;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Разбивка времени старта по фазам жизненного цикла Spring Boot.
+ * <p>
+ * Подключается через META-INF/spring.factories, чтобы застать самое раннее событие.
+ * Контекст получает {@link StartupTimings} отдельным бином, куда свои фазы (развёртывание,
+ * прогрев) добавляет {@link StartupRunner}. На ApplicationReadyEvent разбивка пишется в лог
+ * и публикуется метриками runtimebundle.startup.phase.
+ */
+public class StartupTimingListener implements ApplicationListener<ApplicationEvent> {
+
+    private static final int SLOWEST_BEANS = 10;
+
+    private static final String BOOTSTRAP = "bootstrap";
+
+    private final Logger logger = LoggerFactory.getLogger(StartupTimingListener.class);
+
+    private static final AtomicBoolean FIRST_IN_JVM = new AtomicBoolean(true);
+
+    private final StartupTimings timings = new StartupTimings();
+
+    // Для первого приложения в JVM отсчёт идёт от старта JVM, для последующих - от создания приложения
+    private final long origin = FIRST_IN_JVM.getAndSet(false)
+            ? ManagementFactory.getRuntimeMXBean().getStartTime()
+            : System.currentTimeMillis();
+
+    private long last = origin;
+
+    private boolean active = true;
+
+    private ApplicationContext context;
+
+    @Override
+    public void onApplicationEvent(ApplicationEvent event) {
+        if (!active) {
+            return;
+        }
+        if (event instanceof ApplicationStartingEvent) {
+            mark("jvm", event);
+        } else if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            // Загрузочный контекст Spring Cloud не измеряется
+            active = !BOOTSTRAP.equals(((ApplicationEnvironmentPreparedEvent) event).getEnvironment().getProperty("spring.config.name"));
+            mark("environment", event);
+        } else if (event instanceof ApplicationContextInitializedEvent) {
+            mark("context-initialize", event);
+        } else if (event instanceof ApplicationPreparedEvent) {
+            mark("context-prepare", event);
+            ConfigurableApplicationContext prepared = ((ApplicationPreparedEvent) event).getApplicationContext();
+            context = prepared;
+            prepared.getBeanFactory().registerSingleton("startupTimings", timings);
+            prepared.getBeanFactory().addBeanPostProcessor(new BeanTimingPostProcessor(timings));
+        } else if (event instanceof ContextRefreshedEvent) {
+            // Дочерние контексты (например, биндеров) не считаются
+            if (((ContextRefreshedEvent) event).getApplicationContext() == context) {
+                mark("context-refresh", event);
+            }
+        } else if (event instanceof ApplicationStartedEvent) {
+            mark("web-server", event);
+        } else if (event instanceof ApplicationReadyEvent) {
+            mark("runners", event);
+            timings.ready(event.getTimestamp() - origin);
+            report((ApplicationReadyEvent) event);
+        }
+    }
+
+    private void mark(String phase,
+                      ApplicationEvent event) {
+        timings.record(phase, event.getTimestamp() - last);
+        last = event.getTimestamp();
+    }
+
+    private void report(ApplicationReadyEvent event) {
+        StringBuilder report = new StringBuilder("> Started in " + timings.getReadyMillis() + " ms:");
+        timings.getPhases().forEach((phase, millis) -> report.append(' ').append(phase).append('=').append(millis));
+        report.append("; slowest beans:");
+        timings.getSlowestBeans(SLOWEST_BEANS).forEach((bean, millis) -> report.append(' ').append(bean).append('=').append(millis));
+        logger.info(report.toString());
+
+        event.getApplicationContext().getBeanProvider(MeterRegistry.class).ifAvailable(meterRegistry -> {
+            timings.getPhases().forEach((phase, millis) ->
+                    TimeGauge.builder("runtimebundle.startup.phase", millis, TimeUnit.MILLISECONDS, Long::doubleValue)
+                            .tag("phase", phase)
+                            .register(meterRegistry));
+            TimeGauge.builder("runtimebundle.startup.ready", timings, TimeUnit.MILLISECONDS, StartupTimings::getReadyMillis)
+                    .register(meterRegistry);
+        });
+    }
+
+    /**
+     * Время от создания бина до конца его инициализации.
+     */
+    private static class BeanTimingPostProcessor implements InstantiationAwareBeanPostProcessor {
+
+        private final StartupTimings timings;
+
+        private final Map<String, Long> starts = new ConcurrentHashMap<>();
+
+        private BeanTimingPostProcessor(StartupTimings timings) {
+            this.timings = timings;
+        }
+
+        @Override
+        public Object postProcessBeforeInstantiation(Class<?> beanClass,
+                                                     String beanName) throws BeansException {
+            starts.put(beanName, System.nanoTime());
+            return null;
+        }
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean,
+                                                     String beanName) throws BeansException {
+            Long start = starts.remove(beanName);
+            if (start != null) {
+                timings.recordBean(beanName, (System.nanoTime() - start) / 1_000_000);
+            }
+            return bean;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.startup;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Длительности фаз старта в порядке их прохождения, в миллисекундах.
+ */
+public class StartupTimings {
+
+    private final Map<String, Long> phases = new LinkedHashMap<>();
+
+    private final Map<String, Long> beans = new LinkedHashMap<>();
+
+    private volatile long readyMillis;
+
+    public synchronized void record(String phase,
+                                    long millis) {
+        phases.merge(phase, millis, Long::sum);
+    }
+
+    public <T> T time(String phase,
+                      Supplier<T> action) {
+        long start = System.nanoTime();
+        try {
+            return action.get();
+        } finally {
+            record(phase, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    synchronized void recordBean(String beanName,
+                                 long millis) {
+        beans.put(beanName, millis);
+    }
+
+    void ready(long millis) {
+        this.readyMillis = millis;
+    }
+
+    public synchronized Map<String, Long> getPhases() {
+        return Collections.unmodifiableMap(new LinkedHashMap<>(phases));
+    }
+
+    /**
+     * Самые долгие инициализации бинов (включая вложенные зависимости).
+     */
+    public synchronized Map<String, Long> getSlowestBeans(int limit) {
+        Map<String, Long> slowest = new LinkedHashMap<>();
+        beans.entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue().reversed())
+                .limit(limit)
+                .forEach(entry -> slowest.put(entry.getKey(), entry.getValue()));
+        return slowest;
+    }
+
+    /**
+     * Время от старта JVM (для первого приложения в JVM) до готовности.
+     */
+    public long getReadyMillis() {
+        return readyMillis;
+    }
+}
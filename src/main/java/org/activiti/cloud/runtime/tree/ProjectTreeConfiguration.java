@@ -0,0 +1,80 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.tree;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.runtime.events.ProcessCancelledEvent;
+import org.activiti.api.process.runtime.events.ProcessCompletedEvent;
+import org.activiti.api.process.runtime.events.ProcessStartedEvent;
+import org.activiti.api.process.runtime.events.listener.ProcessRuntimeEventListener;
+import org.activiti.cloud.runtime.ProjectModels;
+import org.activiti.engine.RuntimeService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Инкрементальное ведение индекса дерева проекта по событиям старта и завершения процессов.
+ * Обработчики вызываются движком внутри его транзакции, поэтому индекс всегда согласован
+ * с таблицами движка.
+ */
+@Configuration
+public class ProjectTreeConfiguration {
+
+    @Bean
+    public ProcessRuntimeEventListener<ProcessStartedEvent> projectTreeStartedListener(ProjectTreeRepository projectTreeRepository,
+                                                                                       RuntimeService runtimeService) {
+        return event -> {
+            ProcessInstance processInstance = event.getEntity();
+            String type = ProjectModels.nodeType(processInstance.getProcessDefinitionKey());
+            if (type != null) {
+                Object name = runtimeService.getVariable(processInstance.getId(), ProjectModels.NAME_VARIABLE);
+                projectTreeRepository.insertNode(processInstance.getId(),
+                                                 processInstance.getParentId(),
+                                                 type,
+                                                 name != null ? name.toString() : null);
+            }
+        };
+    }
+
+    @Bean
+    public ProcessRuntimeEventListener<ProcessCompletedEvent> projectTreeCompletedListener(ProjectTreeRepository projectTreeRepository) {
+        return event -> removeNode(projectTreeRepository, event.getEntity());
+    }
+
+    @Bean
+    public ProcessRuntimeEventListener<ProcessCancelledEvent> projectTreeCancelledListener(ProjectTreeRepository projectTreeRepository) {
+        return event -> removeNode(projectTreeRepository, event.getEntity());
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationReadyEvent> projectTreeRebuilder(ProjectTreeRepository projectTreeRepository,
+                                                                          ProjectTreeProperties properties) {
+        return event -> {
+            if (properties.isRebuildOnStartup()) {
+                projectTreeRepository.rebuildIfOutdated(properties.getBatchSize());
+            }
+        };
+    }
+
+    private static void removeNode(ProjectTreeRepository projectTreeRepository,
+                                   ProcessInstance processInstance) {
+        if (ProjectModels.nodeType(processInstance.getProcessDefinitionKey()) != null) {
+            projectTreeRepository.deleteNode(processInstance.getId());
+        }
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.tree;
+
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/v1/process-instances/{processInstanceId}/tree")
+public class ProjectTreeController {
+
+    private final ProjectTreeRepository projectTreeRepository;
+
+    private final ProcessRuntime processRuntime;
+
+    public ProjectTreeController(ProjectTreeRepository projectTreeRepository,
+                                 ProcessRuntime processRuntime) {
+        this.projectTreeRepository = projectTreeRepository;
+        this.processRuntime = processRuntime;
+    }
+
+    @GetMapping("/descendants")
+    public Page<ProjectTreeNode> descendants(@PathVariable String processInstanceId,
+                                             @RequestParam(required = false) String type,
+                                             Pageable pageable) {
+        checkAccess(processInstanceId);
+        return projectTreeRepository.descendants(processInstanceId, type, pageable);
+    }
+
+    @GetMapping("/path")
+    public List<ProjectTreeNode> pathToRoot(@PathVariable String processInstanceId) {
+        checkAccess(processInstanceId);
+        return projectTreeRepository.pathToRoot(processInstanceId);
+    }
+
+    @GetMapping("/counts")
+    public Map<String, Long> countByType(@PathVariable String processInstanceId) {
+        checkAccess(processInstanceId);
+        return projectTreeRepository.countByType(processInstanceId);
+    }
+
+    private void checkAccess(String processInstanceId) {
+        // Права на узел проверяет сам runtime: NotFoundException, если процесс недоступен
+        processRuntime.processInstance(processInstanceId);
+    }
+}
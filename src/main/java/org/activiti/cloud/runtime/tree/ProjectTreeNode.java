@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.tree;
+
+/**
+ * Элемент дерева проекта относительно запрошенного узла:
+ * depth - расстояние до него (0 - сам узел).
+ */
+public class ProjectTreeNode {
+
+    private final String processInstanceId;
+
+    private final int depth;
+
+    private final String type;
+
+    private final String name;
+
+    public ProjectTreeNode(String processInstanceId,
+                           int depth,
+                           String type,
+                           String name) {
+        this.processInstanceId = processInstanceId;
+        this.depth = depth;
+        this.type = type;
+        this.name = name;
+    }
+
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String toString() {
+        return "ProjectTreeNode{processInstanceId='" + processInstanceId + "', depth=" + depth +
+                ", type='" + type + "', name='" + name + "'}";
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.tree;
+
+import org.activiti.cloud.runtime.ProjectModels;
+import org.activiti.cloud.runtime.projection.ProjectionStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Таблица замыкания PROJECT_TREE: для каждого узла хранится строка на каждого предка
+ * (включая сам узел с глубиной 0), поэтому любой запрос по дереву - один индексный поиск.
+ */
+@Repository
+public class ProjectTreeRepository {
+
+    public static final String PROJECTION = "PROJECT_TREE";
+
+    /**
+     * Версия схемы индекса; увеличивается, когда существующие строки нужно перестроить.
+     */
+    public static final int PROJECTION_VERSION = 1;
+
+    private static final String INSERT_SELF =
+            "INSERT INTO PROJECT_TREE (ANCESTOR_ID, DESCENDANT_ID, DEPTH, NODE_TYPE, NODE_NAME) VALUES (?, ?, 0, ?, ?)";
+
+    private static final String INSERT_ANCESTORS =
+            "INSERT INTO PROJECT_TREE (ANCESTOR_ID, DESCENDANT_ID, DEPTH, NODE_TYPE, NODE_NAME) " +
+            "SELECT ANCESTOR_ID, ?, DEPTH + 1, ?, ? FROM PROJECT_TREE WHERE DESCENDANT_ID = ?";
+
+    private static final String INSERT_ROW =
+            "INSERT INTO PROJECT_TREE (ANCESTOR_ID, DESCENDANT_ID, DEPTH, NODE_TYPE, NODE_NAME) VALUES (?, ?, ?, ?, ?)";
+
+    private static final String SELECT_ENGINE_NODES =
+            "SELECT E.ID_ AS ID, S.PROC_INST_ID_ AS PARENT_ID, D.KEY_ AS DEFINITION_KEY, V.TEXT_ AS NAME " +
+            "FROM ACT_RU_EXECUTION E " +
+            "JOIN ACT_RE_PROCDEF D ON D.ID_ = E.PROC_DEF_ID_ " +
+            "LEFT JOIN ACT_RU_EXECUTION S ON S.ID_ = E.SUPER_EXEC_ " +
+            "LEFT JOIN ACT_RU_VARIABLE V ON V.EXECUTION_ID_ = E.ID_ AND V.NAME_ = '" + ProjectModels.NAME_VARIABLE + "' " +
+            "WHERE E.PARENT_ID_ IS NULL AND D.KEY_ IN (?, ?, ?)";
+
+    private static final RowMapper<ProjectTreeNode> NODE_MAPPER = (rs, rowNum) -> new ProjectTreeNode(
+            rs.getString(1),
+            rs.getInt(2),
+            rs.getString(3),
+            rs.getString(4));
+
+    private final Logger logger = LoggerFactory.getLogger(ProjectTreeRepository.class);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private final ProjectionStateRepository projectionStateRepository;
+
+    public ProjectTreeRepository(JdbcTemplate jdbcTemplate,
+                                 ProjectionStateRepository projectionStateRepository) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.projectionStateRepository = projectionStateRepository;
+    }
+
+    public void insertNode(String processInstanceId,
+                           String parentProcessInstanceId,
+                           String type,
+                           String name) {
+        jdbcTemplate.update(INSERT_SELF, processInstanceId, processInstanceId, type, name);
+        if (parentProcessInstanceId != null) {
+            jdbcTemplate.update(INSERT_ANCESTORS, processInstanceId, type, name, parentProcessInstanceId);
+        }
+    }
+
+    public void deleteNode(String processInstanceId) {
+        jdbcTemplate.update("DELETE FROM PROJECT_TREE WHERE DESCENDANT_ID = ? OR ANCESTOR_ID = ?",
+                            processInstanceId,
+                            processInstanceId);
+    }
+
+    /**
+     * Глубина узла от корня его дерева; 0 для корня и для неизвестных узлов.
+     */
+    public int depth(String processInstanceId) {
+        Integer depth = jdbcTemplate.queryForObject("SELECT MAX(DEPTH) FROM PROJECT_TREE WHERE DESCENDANT_ID = ?",
+                                                    Integer.class,
+                                                    processInstanceId);
+        return depth != null ? depth : 0;
+    }
+
+    public Page<ProjectTreeNode> descendants(String processInstanceId,
+                                             String type,
+                                             Pageable pageable) {
+        String filter = "FROM PROJECT_TREE WHERE ANCESTOR_ID = ? AND DEPTH > 0" + (type != null ? " AND NODE_TYPE = ?" : "");
+        Object[] args = type != null ? new Object[]{processInstanceId, type} : new Object[]{processInstanceId};
+
+        Long total = jdbcTemplate.queryForObject("SELECT COUNT(*) " + filter, Long.class, args);
+        List<Object> pageArgs = new ArrayList<>(List.of(args));
+        pageArgs.add(pageable.getPageSize());
+        pageArgs.add(pageable.getOffset());
+        List<ProjectTreeNode> content = jdbcTemplate.query(
+                "SELECT DESCENDANT_ID, DEPTH, NODE_TYPE, NODE_NAME " + filter +
+                " ORDER BY DEPTH, DESCENDANT_ID LIMIT ? OFFSET ?",
+                NODE_MAPPER,
+                pageArgs.toArray());
+        return new PageImpl<>(content, pageable, total == null ? 0 : total);
+    }
+
+    /**
+     * Самые глубокие потомки узла - первыми, чтобы удаление шло от листьев к корню.
+     */
+    public List<String> deepestDescendants(String processInstanceId,
+                                           int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT DESCENDANT_ID FROM PROJECT_TREE WHERE ANCESTOR_ID = ? AND DEPTH > 0 " +
+                "ORDER BY DEPTH DESC, DESCENDANT_ID LIMIT ?",
+                String.class,
+                processInstanceId,
+                limit);
+    }
+
+    /**
+     * Путь от корня проекта до узла включительно.
+     */
+    public List<ProjectTreeNode> pathToRoot(String processInstanceId) {
+        return jdbcTemplate.query(
+                "SELECT T.ANCESTOR_ID, T.DEPTH, S.NODE_TYPE, S.NODE_NAME FROM PROJECT_TREE T " +
+                "JOIN PROJECT_TREE S ON S.ANCESTOR_ID = T.ANCESTOR_ID AND S.DESCENDANT_ID = T.ANCESTOR_ID " +
+                "WHERE T.DESCENDANT_ID = ? ORDER BY T.DEPTH DESC",
+                NODE_MAPPER,
+                processInstanceId);
+    }
+
+    public Map<String, Long> countByType(String processInstanceId) {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        jdbcTemplate.query(
+                "SELECT NODE_TYPE, COUNT(*) FROM PROJECT_TREE WHERE ANCESTOR_ID = ? AND DEPTH > 0 GROUP BY NODE_TYPE",
+                rs -> {
+                    counts.put(rs.getString(1), rs.getLong(2));
+                },
+                processInstanceId);
+        return counts;
+    }
+
+    /**
+     * Перестроение при старте: один раз на версию индекса для всех реплик.
+     * Возвращает false, если другая реплика уже перестроила индекс этой версии.
+     */
+    @Transactional
+    public boolean rebuildIfOutdated(int batchSize) {
+        if (!projectionStateRepository.lockOutdated(PROJECTION, PROJECTION_VERSION)) {
+            logger.info("> Project tree is up to date (version " + PROJECTION_VERSION + "), rebuild skipped");
+            return false;
+        }
+        rebuild(batchSize);
+        projectionStateRepository.markRebuilt(PROJECTION, PROJECTION_VERSION);
+        return true;
+    }
+
+    /**
+     * Полное перестроение индекса по запущенным экземплярам трёх моделей.
+     */
+    @Transactional
+    public int rebuild(int batchSize) {
+        // Вставки других реплик ждут конца перестроения, а не теряются при очистке таблицы
+        projectionStateRepository.lockForRebuild(PROJECTION);
+        Map<String, String> parents = new HashMap<>();
+        Map<String, String[]> nodes = new HashMap<>();
+        jdbcTemplate.query(SELECT_ENGINE_NODES,
+                           rs -> {
+                               String id = rs.getString("ID");
+                               parents.put(id, rs.getString("PARENT_ID"));
+                               nodes.put(id, new String[]{ProjectModels.nodeType(rs.getString("DEFINITION_KEY")), rs.getString("NAME")});
+                           },
+                           ProjectModels.MODEL_DEFINITION_KEYS.toArray());
+
+        jdbcTemplate.update("DELETE FROM PROJECT_TREE");
+
+        List<Object[]> batch = new ArrayList<>(batchSize);
+        int rows = 0;
+        for (Map.Entry<String, String[]> node : nodes.entrySet()) {
+            String descendant = node.getKey();
+            String ancestor = descendant;
+            int depth = 0;
+            // Подъём к корню; ссылки на чужие модели обрывают цепочку
+            while (ancestor != null && nodes.containsKey(ancestor)) {
+                batch.add(new Object[]{ancestor, descendant, depth, node.getValue()[0], node.getValue()[1]});
+                if (batch.size() >= batchSize) {
+                    rows += flush(batch);
+                }
+                ancestor = parents.get(ancestor);
+                depth++;
+            }
+        }
+        rows += flush(batch);
+        logger.info("> Project tree rebuilt: " + nodes.size() + " nodes, " + rows + " rows");
+        return nodes.size();
+    }
+
+    private int flush(List<Object[]> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ROW, batch);
+        int size = batch.size();
+        batch.clear();
+        return size;
+    }
+}
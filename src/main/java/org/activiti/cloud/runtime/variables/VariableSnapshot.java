@@ -0,0 +1,68 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.variables;
+
+import org.activiti.api.model.shared.model.VariableInstance;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Неизменяемый снимок переменных экземпляра процесса.
+ */
+public class VariableSnapshot {
+
+    private static final int ENTRY_OVERHEAD = 64;
+
+    private final String processInstanceId;
+
+    private final Map<String, Object> values;
+
+    private final int weight;
+
+    public VariableSnapshot(String processInstanceId,
+                            List<VariableInstance> variables) {
+        this.processInstanceId = processInstanceId;
+        Map<String, Object> values = new LinkedHashMap<>();
+        int weight = ENTRY_OVERHEAD;
+        for (VariableInstance variable : variables) {
+            Object value = variable.getValue();
+            values.put(variable.getName(), value);
+            // Грубая оценка занимаемой памяти для ограничения кэша по весу
+            weight += ENTRY_OVERHEAD + 2 * variable.getName().length() + (value != null ? 2 * value.toString().length() : 0);
+        }
+        this.values = Collections.unmodifiableMap(values);
+        this.weight = weight;
+    }
+
+    public String getProcessInstanceId() {
+        return processInstanceId;
+    }
+
+    public Map<String, Object> getValues() {
+        return values;
+    }
+
+    public Object get(String name) {
+        return values.get(name);
+    }
+
+    int getWeight() {
+        return weight;
+    }
+}
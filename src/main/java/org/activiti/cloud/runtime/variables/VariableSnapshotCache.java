@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.variables;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Кэш снимков переменных экземпляров процессов перед {@link ProcessRuntime#variables}.
+ * <p>
+ * Промах загружает переменные через runtime со всеми его проверками прав. Перед попаданием
+ * runtime снова проверяет право чтения экземпляра ({@link ProcessRuntime#processInstance}),
+ * поэтому кэш экономит только загрузку списка переменных, а не проверки доступа.
+ */
+@Service
+public class VariableSnapshotCache {
+
+    public static final String CACHE_NAME = "variableSnapshots";
+
+    private final ProcessRuntime processRuntime;
+
+    private final VariableSnapshotProperties properties;
+
+    private final Cache<String, VariableSnapshot> cache;
+
+    public VariableSnapshotCache(ProcessRuntime processRuntime,
+                                 VariableSnapshotProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this.processRuntime = processRuntime;
+        this.properties = properties;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(properties.getMaximumWeight())
+                .weigher((String processInstanceId, VariableSnapshot snapshot) -> snapshot.getWeight())
+                .expireAfterWrite(properties.getExpireAfterWrite())
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, CACHE_NAME);
+    }
+
+    public VariableSnapshot snapshot(String processInstanceId) {
+        if (!properties.isEnabled()) {
+            return load(processInstanceId);
+        }
+        VariableSnapshot snapshot = cache.getIfPresent(processInstanceId);
+        if (snapshot == null) {
+            snapshot = load(processInstanceId);
+            cache.put(processInstanceId, snapshot);
+            return snapshot;
+        }
+        // Те же проверки прав, что у runtime перед чтением переменных
+        processRuntime.processInstance(processInstanceId);
+        return snapshot;
+    }
+
+    /**
+     * Сброс снимка сразу и повторно после завершения текущей транзакции,
+     * чтобы параллельное чтение не закэшировало незафиксированное состояние.
+     */
+    public void invalidate(String processInstanceId) {
+        if (processInstanceId == null) {
+            return;
+        }
+        cache.invalidate(processInstanceId);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(processInstanceId);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    Cache<String, VariableSnapshot> getCache() {
+        return cache;
+    }
+
+    private VariableSnapshot load(String processInstanceId) {
+        return new VariableSnapshot(processInstanceId,
+                                    processRuntime.variables(ProcessPayloadBuilder
+                                            .variables()
+                                            .withProcessInstanceId(processInstanceId)
+                                            .build()));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.variables;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.activiti.api.model.shared.event.VariableCreatedEvent;
+import org.activiti.api.model.shared.event.VariableDeletedEvent;
+import org.activiti.api.model.shared.event.VariableUpdatedEvent;
+import org.activiti.api.process.runtime.events.ProcessCancelledEvent;
+import org.activiti.api.process.runtime.events.ProcessCompletedEvent;
+import org.activiti.api.process.runtime.events.listener.ProcessRuntimeEventListener;
+import org.activiti.api.runtime.shared.events.VariableEventListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.annotation.StreamListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * Инвалидация снимков переменных: локально - по событиям движка,
+ * на остальных репликах - по тем же событиям из очереди аудита (engineEvents).
+ */
+@Configuration
+@EnableBinding(VariableCacheChannels.class)
+public class VariableSnapshotConfiguration {
+
+    private final Logger logger = LoggerFactory.getLogger(VariableSnapshotConfiguration.class);
+
+    private final VariableSnapshotCache variableSnapshotCache;
+
+    private final ObjectMapper objectMapper;
+
+    public VariableSnapshotConfiguration(VariableSnapshotCache variableSnapshotCache,
+                                         ObjectMapper objectMapper) {
+        this.variableSnapshotCache = variableSnapshotCache;
+        this.objectMapper = objectMapper;
+    }
+
+    @Bean
+    public VariableEventListener<VariableCreatedEvent> variableSnapshotCreatedListener() {
+        return event -> variableSnapshotCache.invalidate(event.getEntity().getProcessInstanceId());
+    }
+
+    @Bean
+    public VariableEventListener<VariableUpdatedEvent> variableSnapshotUpdatedListener() {
+        return event -> variableSnapshotCache.invalidate(event.getEntity().getProcessInstanceId());
+    }
+
+    @Bean
+    public VariableEventListener<VariableDeletedEvent> variableSnapshotDeletedListener() {
+        return event -> variableSnapshotCache.invalidate(event.getEntity().getProcessInstanceId());
+    }
+
+    @Bean
+    public ProcessRuntimeEventListener<ProcessCompletedEvent> variableSnapshotCompletedListener() {
+        return event -> variableSnapshotCache.invalidate(event.getEntity().getId());
+    }
+
+    @Bean
+    public ProcessRuntimeEventListener<ProcessCancelledEvent> variableSnapshotCancelledListener() {
+        return event -> variableSnapshotCache.invalidate(event.getEntity().getId());
+    }
+
+    @StreamListener(VariableCacheChannels.VARIABLE_CACHE_INVALIDATION)
+    public void onAuditEvents(byte[] payload) {
+        try {
+            JsonNode events = objectMapper.readTree(payload);
+            if (events.isArray()) {
+                for (JsonNode event : events) {
+                    onAuditEvent(event);
+                }
+            } else {
+                onAuditEvent(events);
+            }
+        } catch (IOException e) {
+            logger.warn("> Unable to read audit events for variable cache invalidation", e);
+        }
+    }
+
+    private void onAuditEvent(JsonNode event) {
+        String eventType = event.path("eventType").asText("");
+        if (eventType.startsWith("VARIABLE_") || "PROCESS_COMPLETED".equals(eventType) || "PROCESS_CANCELLED".equals(eventType)) {
+            variableSnapshotCache.invalidate(event.path("processInstanceId").asText(null));
+        }
+    }
+}
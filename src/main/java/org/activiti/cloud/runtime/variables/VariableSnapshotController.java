@@ -0,0 +1,37 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime.variables;
+
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+public class VariableSnapshotController {
+
+    private final VariableSnapshotCache variableSnapshotCache;
+
+    public VariableSnapshotController(VariableSnapshotCache variableSnapshotCache) {
+        this.variableSnapshotCache = variableSnapshotCache;
+    }
+
+    @GetMapping("/v1/process-instances/{processInstanceId}/variable-snapshot")
+    public Map<String, Object> snapshot(@PathVariable String processInstanceId) {
+        return variableSnapshotCache.snapshot(processInstanceId).getValues();
+    }
+}
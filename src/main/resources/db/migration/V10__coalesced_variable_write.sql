@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS COALESCED_VARIABLE_WRITE (
+    PROCESS_INSTANCE_ID VARCHAR(64) NOT NULL,
+    USER_ID VARCHAR(255) NOT NULL,
+    VARIABLES TEXT NOT NULL,
+    DUE_TIME TIMESTAMP NOT NULL,
+    ATTEMPTS INT DEFAULT 0 NOT NULL,
+    PRIMARY KEY (PROCESS_INSTANCE_ID, USER_ID)
+);
+CREATE INDEX IF NOT EXISTS COALESCED_VARIABLE_WRITE_DUE_IDX ON COALESCED_VARIABLE_WRITE (DUE_TIME);
@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS ARCHIVE_FAILURE (
+    ROOT_ID VARCHAR(64) NOT NULL PRIMARY KEY,
+    ATTEMPTS INT NOT NULL,
+    LAST_ERROR VARCHAR(4000),
+    LAST_ATTEMPT TIMESTAMP NOT NULL
+);
@@ -0,0 +1,10 @@
+CREATE TABLE IF NOT EXISTS PROJECT_TREE (
+    ANCESTOR_ID VARCHAR(64) NOT NULL,
+    DESCENDANT_ID VARCHAR(64) NOT NULL,
+    DEPTH INT NOT NULL,
+    NODE_TYPE VARCHAR(16) NOT NULL,
+    NODE_NAME VARCHAR(1024),
+    PRIMARY KEY (ANCESTOR_ID, DESCENDANT_ID)
+);
+CREATE INDEX IF NOT EXISTS PROJECT_TREE_DESCENDANT_IDX ON PROJECT_TREE (DESCENDANT_ID, DEPTH);
+CREATE INDEX IF NOT EXISTS PROJECT_TREE_TYPE_IDX ON PROJECT_TREE (ANCESTOR_ID, NODE_TYPE);
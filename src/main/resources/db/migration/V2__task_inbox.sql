@@ -0,0 +1,11 @@
+CREATE TABLE IF NOT EXISTS TASK_INBOX (
+    TASK_ID VARCHAR(64) NOT NULL PRIMARY KEY,
+    CANDIDATE_GROUP VARCHAR(255) NOT NULL,
+    ASSIGNEE VARCHAR(255),
+    TASK_DEFINITION_KEY VARCHAR(255) NOT NULL,
+    TASK_NAME VARCHAR(255),
+    PROCESS_INSTANCE_ID VARCHAR(64) NOT NULL,
+    CREATED_TIME TIMESTAMP NOT NULL
+);
+CREATE INDEX IF NOT EXISTS TASK_INBOX_GROUP_IDX ON TASK_INBOX (CANDIDATE_GROUP, CREATED_TIME, TASK_ID);
+CREATE INDEX IF NOT EXISTS TASK_INBOX_PROCESS_IDX ON TASK_INBOX (PROCESS_INSTANCE_ID);
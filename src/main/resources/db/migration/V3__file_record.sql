@@ -0,0 +1,9 @@
+CREATE TABLE IF NOT EXISTS FILE_RECORD (
+    ID VARCHAR(64) NOT NULL PRIMARY KEY,
+    PARENT_PROCESS_INSTANCE_ID VARCHAR(64) NOT NULL,
+    NAME VARCHAR(1024) NOT NULL,
+    INITIATOR_GROUP VARCHAR(255) NOT NULL,
+    CREATED_TIME TIMESTAMP NOT NULL,
+    PROCESS_INSTANCE_ID VARCHAR(64)
+);
+CREATE INDEX IF NOT EXISTS FILE_RECORD_PARENT_IDX ON FILE_RECORD (PARENT_PROCESS_INSTANCE_ID, CREATED_TIME, ID);
@@ -0,0 +1,13 @@
+CREATE TABLE IF NOT EXISTS IMPORT_CHECKPOINT (
+    IMPORT_ID VARCHAR(64) NOT NULL PRIMARY KEY,
+    LINE_NUMBER BIGINT NOT NULL,
+    CREATED BIGINT NOT NULL,
+    UPDATED_TIME TIMESTAMP NOT NULL
+);
+CREATE TABLE IF NOT EXISTS IMPORT_REF (
+    IMPORT_ID VARCHAR(64) NOT NULL,
+    REF VARCHAR(255) NOT NULL,
+    PROCESS_INSTANCE_ID VARCHAR(64) NOT NULL,
+    NODE_TYPE VARCHAR(16) NOT NULL,
+    PRIMARY KEY (IMPORT_ID, REF)
+);
@@ -0,0 +1 @@
+CREATE INDEX IF NOT EXISTS TASK_INBOX_UNASSIGNED_IDX ON TASK_INBOX (CANDIDATE_GROUP, ASSIGNEE, CREATED_TIME, TASK_ID);
@@ -0,0 +1,7 @@
+CREATE TABLE IF NOT EXISTS PROJECTION_STATE (
+    NAME VARCHAR(64) NOT NULL PRIMARY KEY,
+    VERSION INT NOT NULL,
+    REBUILT_TIME TIMESTAMP
+);
+-- Версия 0: существующая таблица перестраивается один раз при первом старте
+INSERT INTO PROJECTION_STATE (NAME, VERSION) VALUES ('PROJECT_TREE', 0);
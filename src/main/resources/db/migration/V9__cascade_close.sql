@@ -0,0 +1,12 @@
+CREATE TABLE IF NOT EXISTS CASCADE_CLOSE (
+    ID VARCHAR(64) NOT NULL PRIMARY KEY,
+    PROCESS_INSTANCE_ID VARCHAR(64) NOT NULL,
+    TOTAL BIGINT NOT NULL,
+    CLOSED BIGINT NOT NULL,
+    BATCHES BIGINT NOT NULL,
+    STATE VARCHAR(16) NOT NULL,
+    STARTED_TIME TIMESTAMP NOT NULL,
+    FINISHED_TIME TIMESTAMP,
+    ERROR VARCHAR(4000)
+);
+CREATE INDEX IF NOT EXISTS CASCADE_CLOSE_FINISHED_IDX ON CASCADE_CLOSE (FINISHED_TIME);
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2017-2020 Alfresco Software, Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.activiti.cloud.runtime;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+
+/**
+ * Общие шаги моделей для тестов и бенчмарков: запуск проекта, проход цикла "Создать",
+ * закрытие файла и проекта. Выполняются от имени текущего пользователя, см. {@link SecurityUtil}.
+ */
+@Component
+public class ProjectFixtures {
+
+    public static final String INITIATOR_GROUP = "activitiTeam";
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private TaskRuntime taskRuntime;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private SecurityManager securityManager;
+
+    public ProcessInstance startProject(String name) {
+        return start(PROJECT_MODEL_DEFINITION_KEY, name);
+    }
+
+    public ProcessInstance start(String processDefinitionKey,
+                                 String name) {
+        return processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(processDefinitionKey)
+                .withVariable("initiator_group", INITIATOR_GROUP)
+                .withVariable("name", name)
+                .build());
+    }
+
+    /**
+     * Один проход цикла "Создать" через API: claim - setVariables - complete.
+     */
+    public Task create(String processInstanceId,
+                       String name,
+                       String type) {
+        Task task = openTask(processInstanceId);
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(task.getId()).build());
+        processRuntime.setVariables(ProcessPayloadBuilder.setVariables(processInstanceId)
+                .withVariable("creation_name", name)
+                .withVariable("creation_type", type)
+                .build());
+        return taskRuntime.complete(TaskPayloadBuilder.complete().withTaskId(task.getId()).build());
+    }
+
+    /**
+     * Создание файла в проекте; при closeProject == true это последний файл,
+     * после его закрытия проект завершается. Возвращает id файла.
+     */
+    public String createFile(String projectId,
+                             String name,
+                             boolean closeProject) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("close_project", closeProject);
+        variables.put("creation_type", "file");
+        variables.put("creation_name", name);
+        complete(projectId, variables);
+        return runtimeService.createProcessInstanceQuery()
+                .superProcessInstanceId(projectId)
+                .variableValueEquals("name", name)
+                .singleResult()
+                .getId();
+    }
+
+    /**
+     * Закрытие файла через API: close_file == true и выполнение его задачи.
+     */
+    public Task closeFile(String processInstanceId) {
+        Task task = openTask(processInstanceId);
+        processRuntime.setVariables(ProcessPayloadBuilder.setVariables(processInstanceId)
+                .withVariable("close_file", true)
+                .build());
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(task.getId()).build());
+        return taskRuntime.complete(TaskPayloadBuilder.complete().withTaskId(task.getId()).build());
+    }
+
+    /**
+     * Закрытие проекта последним файлом. Возвращает id этого файла.
+     */
+    public String closeProject(String projectId,
+                               String lastFileName) {
+        String file = createFile(projectId, lastFileName, true);
+        complete(file, Collections.singletonMap("close_file", true));
+        return file;
+    }
+
+    /**
+     * Захват и выполнение открытой задачи экземпляра средствами движка.
+     */
+    public void complete(String processInstanceId,
+                         Map<String, Object> variables) {
+        String taskId = taskService.createTaskQuery().processInstanceId(processInstanceId).singleResult().getId();
+        taskService.claim(taskId, securityManager.getAuthenticatedUserId());
+        taskService.complete(taskId, variables);
+    }
+
+    public Task openTask(String processInstanceId) {
+        return taskRuntime.tasks(Pageable.of(0, 1),
+                                 TaskPayloadBuilder.tasks().withProcessInstanceId(processInstanceId).build())
+                .getContent().get(0);
+    }
+}
@@ -17,11 +17,13 @@ package org.activiti.cloud.runtime;
 
 
 import com.github.fridujo.rabbitmq.mock.compatibility.MockConnectionFactoryFactory;
+import com.rabbitmq.client.ConnectionFactory;
 import org.activiti.api.runtime.shared.security.SecurityManager;
 import org.activiti.api.runtime.shared.security.*;
 import org.activiti.core.common.spring.security.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.amqp.rabbit.connection.CachingConnectionFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -43,9 +45,13 @@ public class TestConfiguration {
 
     private final Logger logger = LoggerFactory.getLogger(TestConfiguration.class);
 
+    /**
+     * Брокер-заглушка. Несколько контекстов в одной JVM могут передать общий брокер
+     * бином com.rabbitmq.client.ConnectionFactory.
+     */
     @Bean
-    public CachingConnectionFactory connectionFactory() {
-        return new CachingConnectionFactory(MockConnectionFactoryFactory.build());
+    public CachingConnectionFactory connectionFactory(ObjectProvider<ConnectionFactory> broker) {
+        return new CachingConnectionFactory(broker.getIfAvailable(MockConnectionFactoryFactory::build));
     }
 
     @Bean
@@ -108,6 +114,10 @@ public class TestConfiguration {
                 {"john", "password", "ROLE_ACTIVITI_USER", "GROUP_activitiTeam"},
                 {"hannah", "password", "ROLE_ACTIVITI_USER", "GROUP_activitiTeam"},
                 {"other", "password", "ROLE_ACTIVITI_USER", "GROUP_otherTeam"},
+                {"claimer1", "password", "ROLE_ACTIVITI_USER", "GROUP_claimTeam"},
+                {"claimer2", "password", "ROLE_ACTIVITI_USER", "GROUP_claimTeam"},
+                {"claimer3", "password", "ROLE_ACTIVITI_USER", "GROUP_claimTeam"},
+                {"claimer4", "password", "ROLE_ACTIVITI_USER", "GROUP_claimTeam"},
                 {"system", "password", "ROLE_ACTIVITI_USER"},
                 {"admin", "password", "ROLE_ACTIVITI_ADMIN"},
         };
@@ -0,0 +1,150 @@
+package org.activiti.cloud.runtime.archive;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.cloud.runtime.ProjectFixtures;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.files.FileRecord;
+import org.activiti.cloud.runtime.files.FileRecordService;
+import org.activiti.engine.HistoryService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Своя база: таблицы истории не должны появляться в общей базе остальных тестов
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:archive;DB_CLOSE_DELAY=-1",
+        "spring.activiti.history-level=full",
+        "spring.activiti.db-history-used=true",
+        "runtimebundle.archive.min-age=0s",
+        "runtimebundle.archive.pause=0s",
+        "runtimebundle.file-records.enabled=true"
+})
+@DirtiesContext
+public class HistoryArchiveServiceTest {
+
+    @Autowired
+    private ProjectFixtures projectFixtures;
+
+    @Autowired
+    private FileRecordService fileRecordService;
+
+    @Autowired
+    private HistoryService historyService;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private HistoryArchiveService historyArchiveService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private HistoryArchiveRepository historyArchiveRepository;
+
+    @Test
+    public void archiveClosedProjectTest() throws IOException {
+        securityUtil.logInAs("bob");
+        ProcessInstance closed = projectFixtures.startProject("My Archived Project");
+        ProcessInstance open = projectFixtures.startProject("My Open Project");
+        String file = projectFixtures.closeProject(closed.getId(), "Last File");
+        assertThat(historyService.createHistoricProcessInstanceQuery()
+                           .processInstanceId(closed.getId())
+                           .finished()
+                           .count()).isEqualTo(1);
+
+        ArchiveRunResult result = historyArchiveService.runOnce();
+        assertThat(result.getArchived()).isGreaterThanOrEqualTo(1);
+
+        // История проекта и его файла ушла из таблиц движка, открытого проекта - осталась
+        assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(closed.getId()).count()).isZero();
+        assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(file).count()).isZero();
+        assertThat(historyService.createHistoricTaskInstanceQuery().processInstanceId(closed.getId()).count()).isZero();
+        assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(open.getId()).count()).isEqualTo(1);
+
+        ArchivedProject project = historyArchiveService.archivedProject(closed.getId());
+        assertThat(project.getName()).isEqualTo("My Archived Project");
+        assertThat(project.getInitiatorGroup()).isEqualTo("activitiTeam");
+        assertThat(historyArchiveService.archivedProjects(PageRequest.of(0, 10)).getContent())
+                .extracting(ArchivedProject::getRootId)
+                .contains(closed.getId());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        historyArchiveService.read(project, output);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        assertThat(lines).hasSize((int) project.getRowCount());
+        assertThat(lines).filteredOn(line -> "ACT_HI_PROCINST".equals(line.get("table").asText())).hasSize(2);
+        assertThat(lines).filteredOn(line -> "ACT_HI_TASKINST".equals(line.get("table").asText())).isNotEmpty();
+
+        // Повторный запуск ничего не находит
+        assertThat(historyArchiveService.runOnce().getArchived()).isZero();
+
+        securityUtil.logInAs("other");
+        assertThatThrownBy(() -> historyArchiveService.archivedProject(closed.getId())).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    public void archivePromotedFilesTest() {
+        securityUtil.logInAs("bob");
+        ProcessInstance project = projectFixtures.startProject("My Project With Records");
+        FileRecord record = fileRecordService.create(project.getId(), Collections.singletonList("My Promoted File")).get(0);
+        String promoted = fileRecordService.promote(record.getId()).getProcessInstanceId();
+        projectFixtures.closeProject(project.getId(), "Last File");
+
+        // Повышенный файл запущен отдельно от проекта и ещё открыт: проект ждёт его завершения
+        historyArchiveService.runOnce();
+        assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(project.getId()).count()).isEqualTo(1);
+
+        projectFixtures.complete(promoted, Collections.singletonMap("close_file", true));
+        historyArchiveService.runOnce();
+        assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(project.getId()).count()).isZero();
+        assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(promoted).count()).isZero();
+        assertThat(historyService.createHistoricTaskInstanceQuery().processInstanceId(promoted).count()).isZero();
+    }
+
+    @Test
+    public void failedProjectDoesNotBlockArchiveTest() {
+        securityUtil.logInAs("bob");
+        ProcessInstance poison = projectFixtures.startProject("My Poison Project");
+        ProcessInstance healthy = projectFixtures.startProject("My Healthy Project");
+        projectFixtures.closeProject(poison.getId(), "Last File");
+        projectFixtures.closeProject(healthy.getId(), "Last File");
+        // Занятая запись индекса откатывает перенос проекта на последнем шаге
+        historyArchiveRepository.insertIndex(new ArchivedProject(poison.getId(), "Taken", "activitiTeam", new Date(),
+                                                                 new Date(), "TABLE", null, 0));
+
+        ArchiveRunResult result = historyArchiveService.runOnce();
+        assertThat(result.getFailed()).isEqualTo(1);
+        assertThat(historyArchiveRepository.failedAttempts(poison.getId())).isEqualTo(1);
+        assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(poison.getId()).count()).isEqualTo(1);
+        assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(healthy.getId()).count()).isZero();
+
+        // После runtimebundle.archive.max-attempts неудач проект больше не выбирается
+        historyArchiveService.runOnce();
+        historyArchiveService.runOnce();
+        assertThat(historyArchiveRepository.failedAttempts(poison.getId())).isEqualTo(3);
+        assertThat(historyArchiveService.runOnce().getFailed()).isZero();
+        assertThat(historyService.createHistoricProcessInstanceQuery().processInstanceId(poison.getId()).count()).isEqualTo(1);
+    }
+}
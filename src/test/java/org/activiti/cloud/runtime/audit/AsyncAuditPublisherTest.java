@@ -0,0 +1,131 @@
+package org.activiti.cloud.runtime.audit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.integration.channel.QueueChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "runtimebundle.audit.async.enabled=true",
+        "runtimebundle.audit.async.linger=20ms"
+})
+@DirtiesContext
+public class AsyncAuditPublisherTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private TaskRuntime taskRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private AsyncAuditPublisher asyncAuditPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void batchedPublishTest() throws InterruptedException {
+        securityUtil.logInAs("bob");
+        double before = published();
+
+        // Несколько команд, каждая из которых порождает события аудита
+        ProcessInstance processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Audited Project")
+                .build());
+        Task task = taskRuntime.tasks(Pageable.of(0, 1),
+                                      TaskPayloadBuilder.tasksForProcess(processInstance).build())
+                .getContent().get(0);
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(task.getId()).build());
+        processRuntime.setVariables(ProcessPayloadBuilder.setVariables(processInstance)
+                .withVariable("creation_name", "My Audited File")
+                .build());
+        taskRuntime.complete(TaskPayloadBuilder.complete().withTaskId(task.getId()).build());
+
+        // Очередь разбирается фоновым потоком через rabbitmq-mock
+        long deadline = System.currentTimeMillis() + 10000;
+        while ((asyncAuditPublisher.getQueueDepth() > 0 || published() < before + 4) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertThat(asyncAuditPublisher.getQueueDepth()).isEqualTo(0);
+        assertThat(published()).isGreaterThanOrEqualTo(before + 4);
+        assertThat(meterRegistry.get("runtimebundle.audit.messages").tag("mode", "failed").counter().count()).isEqualTo(0);
+        assertThat(meterRegistry.get("runtimebundle.audit.batch.size").summary().count()).isGreaterThan(0);
+    }
+
+    @Test
+    public void batchKeepsHeadersPerMessageTest() throws Exception {
+        AsyncAuditProperties properties = new AsyncAuditProperties();
+        properties.setLinger(Duration.ofMillis(200));
+        ObjectMapper objectMapper = new ObjectMapper();
+        AsyncAuditPublisher publisher = new AsyncAuditPublisher(properties, objectMapper, new SimpleMeterRegistry());
+        QueueChannel channel = new QueueChannel();
+        publisher.start();
+        try {
+            assertThat(publisher.preSend(event("1", "PROCESS_STARTED"), channel)).isNull();
+            assertThat(publisher.preSend(event("2", "PROCESS_STARTED"), channel)).isNull();
+            assertThat(publisher.preSend(event("1", "TASK_CREATED"), channel)).isNull();
+
+            List<Message<?>> sent = new ArrayList<>();
+            long deadline = System.currentTimeMillis() + 10000;
+            while (sent.size() < 2 && System.currentTimeMillis() < deadline) {
+                Message<?> message = channel.receive(100);
+                if (message != null) {
+                    sent.add(message);
+                }
+            }
+
+            // События разных экземпляров не получают чужие заголовки маршрутизации
+            assertThat(sent).hasSize(2);
+            for (Message<?> message : sent) {
+                String processInstanceId = (String) message.getHeaders().get("processInstanceId");
+                JsonNode events = objectMapper.readTree((byte[]) message.getPayload());
+                assertThat(message.getHeaders().get("routingKey")).isEqualTo("engineEvents." + processInstanceId);
+                events.forEach(event -> assertThat(event.get("processInstanceId").asText()).isEqualTo(processInstanceId));
+                assertThat(events.size()).isEqualTo("1".equals(processInstanceId) ? 2 : 1);
+            }
+        } finally {
+            publisher.stop();
+        }
+    }
+
+    private static Message<String> event(String processInstanceId,
+                                         String eventType) {
+        return MessageBuilder.withPayload("{\"eventType\":\"" + eventType + "\",\"processInstanceId\":\"" + processInstanceId + "\"}")
+                .setHeader("processInstanceId", processInstanceId)
+                .setHeader("routingKey", "engineEvents." + processInstanceId)
+                .build();
+    }
+
+    private double published() {
+        return meterRegistry.get("runtimebundle.audit.messages").tag("mode", "batched").counter().count();
+    }
+}
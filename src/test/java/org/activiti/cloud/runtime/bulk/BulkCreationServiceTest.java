@@ -0,0 +1,137 @@
+package org.activiti.cloud.runtime.bulk;
+
+import org.activiti.api.model.shared.model.VariableInstance;
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.query.Page;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.FILE_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ModelsContextTest.SUBPROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "runtimebundle.bulk.chunk-size=2")
+@DirtiesContext
+public class BulkCreationServiceTest {
+
+    private final Logger logger = LoggerFactory.getLogger(BulkCreationServiceTest.class);
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private TaskRuntime taskRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private SecurityManager securityManager;
+
+    @Autowired
+    private BulkCreationService bulkCreationService;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        String initiator_group = securityManager.getAuthenticatedUserGroups().get(0);
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", initiator_group)
+                .withVariable("name", "My Bulk Project")
+                .build());
+        logger.info("> Created Process Instance: " + this.processInstance);
+    }
+
+    @Test
+    public void bulkCreateTest() {
+        BulkCreationResult result = bulkCreationService.create(processInstance.getId(), Arrays.asList(
+                new CreationEntry("File 1", "file"),
+                new CreationEntry("File 2", "file"),
+                new CreationEntry("File 3", null),
+                new CreationEntry("Subproject 1", "subproject")
+        ));
+        assertThat(result.getCreated()).isEqualTo(4);
+        assertThat(result.getChunks()).isEqualTo(2);
+
+        // Проверка того, что все дочерние процессы созданы через call activity
+        Page<ProcessInstance> children = processRuntime.processInstances(
+                Pageable.of(0, 10),
+                ProcessPayloadBuilder.subprocesses(processInstance)
+        );
+        assertThat(children.getTotalItems()).isEqualTo(4);
+
+        int files = 0;
+        int subprojects = 0;
+        for (ProcessInstance child : children.getContent()) {
+            if (FILE_MODEL_DEFINITION_KEY.equals(child.getProcessDefinitionKey())) {
+                files++;
+            } else if (SUBPROJECT_MODEL_DEFINITION_KEY.equals(child.getProcessDefinitionKey())) {
+                subprojects++;
+            }
+
+            // Проверка передачи переменных по маппингам модели
+            List<VariableInstance> variables = processRuntime.variables(ProcessPayloadBuilder
+                    .variables()
+                    .withProcessInstance(child)
+                    .build()
+            );
+            for (VariableInstance var : variables) {
+                switch (var.getName()) {
+                    case "name":
+                        assertThat(var.getValue().toString()).isIn("File 1", "File 2", "File 3", "Subproject 1");
+                        break;
+                    case "initiator_group":
+                        assertThat(var.getValue().toString()).isEqualTo("activitiTeam");
+                        break;
+                }
+            }
+        }
+        assertThat(files).isEqualTo(3);
+        assertThat(subprojects).isEqualTo(1);
+
+        // Проект остаётся в ожидании следующего создания
+        Page<Task> tasks = taskRuntime.tasks(
+                Pageable.of(0, 2),
+                TaskPayloadBuilder.tasksForProcess(processInstance).build()
+        );
+        assertThat(tasks.getTotalItems()).isEqualTo(1);
+        assertThat(tasks.getContent().get(0).getName()).isEqualTo("Создать");
+    }
+
+    @Test
+    public void wrongTypeTest() {
+        assertThatThrownBy(() -> bulkCreationService.create(processInstance.getId(), Arrays.asList(
+                new CreationEntry("Folder", "folder")
+        ))).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void otherGroupTest() {
+        securityUtil.logInAs("other");
+        assertThatThrownBy(() -> bulkCreationService.create(processInstance.getId(), Arrays.asList(
+                new CreationEntry("File 1", "file")
+        ))).isInstanceOf(RuntimeException.class);
+    }
+}
@@ -0,0 +1,127 @@
+package org.activiti.cloud.runtime.bulk;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.engine.RuntimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "runtimebundle.creation-queue.batch-size=10")
+@DirtiesContext
+public class CreationQueueServiceTest {
+
+    private static final int CREATORS = 100;
+
+    private static final String[] USERS = {"bob", "john", "hannah"};
+
+    private final Logger logger = LoggerFactory.getLogger(CreationQueueServiceTest.class);
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private CreationQueueService creationQueueService;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Queued Project")
+                .build());
+    }
+
+    @Test
+    public void concurrentCreatorsTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CREATORS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<CreationResult>> futures = new ArrayList<>();
+        for (int i = 0; i < CREATORS; i++) {
+            String user = USERS[i % USERS.length];
+            CreationEntry entry = new CreationEntry("File " + i, i % 10 == 0 ? "subproject" : "file");
+            futures.add(executor.submit(() -> {
+                securityUtil.logInAs(user);
+                try {
+                    start.await();
+                    return creationQueueService.submit(processInstance.getId(), entry).get(60, TimeUnit.SECONDS);
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        long started = System.nanoTime();
+        start.countDown();
+
+        Set<String> children = new HashSet<>();
+        Set<Long> batches = new HashSet<>();
+        for (Future<CreationResult> future : futures) {
+            CreationResult result = future.get(120, TimeUnit.SECONDS);
+            assertThat(result.getProcessInstanceId()).isNotNull();
+            children.add(result.getProcessInstanceId());
+            batches.add(result.getBatch());
+        }
+        long nanos = System.nanoTime() - started;
+        executor.shutdown();
+
+        // Каждый запрос получил свой экземпляр, без потерь и повторов
+        assertThat(children).hasSize(CREATORS);
+        assertThat(runtimeService.createProcessInstanceQuery()
+                           .superProcessInstanceId(processInstance.getId())
+                           .count()).isEqualTo(CREATORS);
+        assertThat(batches.size()).isLessThan(CREATORS);
+        logger.info(String.format("> %d concurrent creators: %d batches, %.1f creations/s",
+                                  CREATORS, batches.size(), CREATORS / (nanos / 1e9)));
+    }
+
+    @Test
+    public void rejectedUpfrontTest() {
+        assertThatThrownBy(() -> creationQueueService.submit(processInstance.getId(), new CreationEntry("Folder", "folder")))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        securityUtil.logInAs("other");
+        assertThatThrownBy(() -> creationQueueService.submit(processInstance.getId(), new CreationEntry("File", "file")))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    public void singleCreationTest() throws Exception {
+        CompletableFuture<CreationResult> future = creationQueueService.submit(processInstance.getId(),
+                                                                               new CreationEntry("Single File", null));
+        CreationResult result = future.get(30, TimeUnit.SECONDS);
+        assertThat(result.getType()).isEqualTo("file");
+        assertThat(runtimeService.getVariable(result.getProcessInstanceId(), "name")).isEqualTo("Single File");
+    }
+}
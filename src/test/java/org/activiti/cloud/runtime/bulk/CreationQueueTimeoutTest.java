@@ -0,0 +1,78 @@
+package org.activiti.cloud.runtime.bulk;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.engine.RuntimeService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "runtimebundle.creation-queue.batch-size=1",
+        "runtimebundle.creation-queue.workers=1",
+        "runtimebundle.creation-queue.timeout=100ms"
+})
+@DirtiesContext
+public class CreationQueueTimeoutTest {
+
+    private static final int CREATIONS = 50;
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private CreationQueueService creationQueueService;
+
+    @Test
+    public void expiredCreationsNotAppliedTest() throws Exception {
+        securityUtil.logInAs("bob");
+        ProcessInstance processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Slow Project")
+                .build());
+
+        List<CompletableFuture<CreationResult>> futures = new ArrayList<>();
+        for (int i = 0; i < CREATIONS; i++) {
+            futures.add(creationQueueService.submit(processInstance.getId(), new CreationEntry("File " + i, "file")));
+        }
+
+        int created = 0;
+        int expired = 0;
+        for (CompletableFuture<CreationResult> future : futures) {
+            try {
+                future.get(60, TimeUnit.SECONDS);
+                created++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(TimeoutException.class);
+                expired++;
+            }
+        }
+
+        // Каждый запрос либо создан и подтверждён, либо снят с очереди и не создан
+        assertThat(expired).isPositive();
+        assertThat(runtimeService.createProcessInstanceQuery()
+                           .superProcessInstanceId(processInstance.getId())
+                           .count()).isEqualTo(created);
+    }
+}
@@ -0,0 +1,112 @@
+package org.activiti.cloud.runtime.cascade;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.bulk.BulkCreationService;
+import org.activiti.cloud.runtime.bulk.CreationEntry;
+import org.activiti.cloud.runtime.tree.ProjectTreeRepository;
+import org.activiti.engine.RuntimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Arrays;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "runtimebundle.cascade-close.batch-size=2")
+@DirtiesContext
+public class CascadeCloseServiceTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private BulkCreationService bulkCreationService;
+
+    @Autowired
+    private ProjectTreeRepository projectTreeRepository;
+
+    @Autowired
+    private CascadeCloseService cascadeCloseService;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Closing Project")
+                .build());
+    }
+
+    @Test
+    public void closeSubtreeInBatchesTest() {
+        bulkCreationService.create(processInstance.getId(), Arrays.asList(
+                new CreationEntry("File 1", "file"),
+                new CreationEntry("File 2", "file"),
+                new CreationEntry("File 3", "file"),
+                new CreationEntry("Subproject", "subproject")));
+        String subprojectId = runtimeService.createProcessInstanceQuery()
+                .superProcessInstanceId(processInstance.getId())
+                .processDefinitionKey("Process_i5ugxdvpu")
+                .singleResult()
+                .getId();
+        bulkCreationService.create(subprojectId, Arrays.asList(new CreationEntry("Nested File", "file")));
+
+        CascadeCloseProgress progress = cascadeCloseService.close(processInstance.getId());
+
+        assertThat(progress.getState()).isEqualTo(CascadeCloseProgress.State.COMPLETED);
+        assertThat(progress.getTotal()).isEqualTo(6);
+        assertThat(progress.getClosed()).isEqualTo(6);
+        assertThat(progress.getBatches()).isGreaterThan(1);
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceId(processInstance.getId()).count()).isZero();
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceId(subprojectId).count()).isZero();
+        assertThat(projectTreeRepository.countByType(processInstance.getId())).isEmpty();
+        CascadeCloseProgress stored = cascadeCloseService.progress(progress.getId());
+        assertThat(stored.getState()).isEqualTo(CascadeCloseProgress.State.COMPLETED);
+        assertThat(stored.getClosed()).isEqualTo(6);
+        assertThat(stored.getBatches()).isEqualTo(progress.getBatches());
+        assertThat(stored.getFinishedDate()).isNotNull();
+    }
+
+    @Test
+    public void adminCanCloseTest() {
+        securityUtil.logInAs("admin");
+
+        CascadeCloseProgress progress = cascadeCloseService.close(processInstance.getId());
+
+        assertThat(progress.getState()).isEqualTo(CascadeCloseProgress.State.COMPLETED);
+        assertThat(runtimeService.createProcessInstanceQuery().processInstanceId(processInstance.getId()).count()).isZero();
+    }
+
+    @Test
+    public void unknownProgressTest() {
+        assertThatThrownBy(() -> cascadeCloseService.progress("unknown"))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    public void otherUserCantCloseTest() {
+        securityUtil.logInAs("other");
+
+        assertThatThrownBy(() -> cascadeCloseService.close(processInstance.getId()))
+                .isInstanceOf(NotFoundException.class);
+    }
+}
@@ -0,0 +1,187 @@
+package org.activiti.cloud.runtime.command;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.activiti.engine.task.Task;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.integration.channel.AbstractMessageChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "runtimebundle.command-batch.transaction-size=2")
+@DirtiesContext
+public class CommandBatchServiceTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private CommandBatchService commandBatchService;
+
+    @Autowired
+    private CommandBatchChannels commandBatchChannels;
+
+    private ProcessInstance processInstance;
+
+    private Task task;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Batched Project")
+                .build());
+        task = taskService.createTaskQuery().processInstanceId(processInstance.getId()).singleResult();
+    }
+
+    @Test
+    public void executeInBoundedTransactionsTest() {
+        CommandBatchResult result = commandBatchService.execute(new CommandBatch("batch-1", Arrays.asList(
+                claim("1", task.getId()),
+                setVariables("2", "creation_name", "Batched File"),
+                complete("3", task.getId()))));
+
+        assertThat(result.getBatchId()).isEqualTo("batch-1");
+        assertThat(result.getResults()).extracting(BatchCommandResult::getCommandId).containsExactly("1", "2", "3");
+        assertThat(result.getResults()).extracting(BatchCommandResult::getStatus).containsOnly(BatchCommandResult.Status.SUCCEEDED);
+        assertThat(result.getTransactions()).isEqualTo(2);
+        assertThat(taskService.createTaskQuery().taskId(task.getId()).count()).isZero();
+        assertThat(runtimeService.createProcessInstanceQuery()
+                           .superProcessInstanceId(processInstance.getId())
+                           .variableValueEquals("name", "Batched File")
+                           .count()).isEqualTo(1);
+    }
+
+    @Test
+    public void failedCommandInChunkTest() {
+        CommandBatchResult result = commandBatchService.execute(new CommandBatch("batch-2", Arrays.asList(
+                claim("1", task.getId()),
+                claim("2", "missing-task"),
+                new BatchCommand("3", "unknown"),
+                setVariables("4", "creation_name", "After Failure"))));
+
+        // Порция откатилась и повторена по одной: первая команда прошла, вторая - нет
+        assertThat(result.getResults()).extracting(BatchCommandResult::getStatus).containsExactly(
+                BatchCommandResult.Status.SUCCEEDED,
+                BatchCommandResult.Status.FAILED,
+                BatchCommandResult.Status.FAILED,
+                BatchCommandResult.Status.SUCCEEDED);
+        assertThat(result.getResults().get(2).getError()).contains("unknown");
+        assertThat(taskService.createTaskQuery().taskId(task.getId()).singleResult().getAssignee()).isEqualTo("bob");
+        assertThat(runtimeService.getVariable(processInstance.getId(), "creation_name")).isEqualTo("After Failure");
+    }
+
+    @Test
+    public void stopOnFailureTest() {
+        CommandBatch batch = new CommandBatch("batch-3", Arrays.asList(
+                claim("1", "missing-task"),
+                claim("2", task.getId())));
+        batch.setStopOnFailure(true);
+
+        CommandBatchResult result = commandBatchService.execute(batch);
+
+        assertThat(result.getResults()).extracting(BatchCommandResult::getStatus).containsExactly(
+                BatchCommandResult.Status.FAILED,
+                BatchCommandResult.Status.SKIPPED);
+        assertThat(taskService.createTaskQuery().taskId(task.getId()).singleResult().getAssignee()).isNull();
+    }
+
+    @Test
+    public void variablesValidatedLikeProcessRuntimeTest() {
+        BatchCommand complete = complete("3", task.getId());
+        complete.setVariables(Collections.singletonMap("close_project", "not a boolean"));
+        // close_project объявлена в расширениях модели как boolean
+        CommandBatchResult result = commandBatchService.execute(new CommandBatch("batch-5", Arrays.asList(
+                setVariables("1", "close_project", "not a boolean"),
+                claim("2", task.getId()),
+                complete)));
+
+        assertThat(result.getResults()).extracting(BatchCommandResult::getStatus).containsExactly(
+                BatchCommandResult.Status.FAILED,
+                BatchCommandResult.Status.SUCCEEDED,
+                BatchCommandResult.Status.FAILED);
+        assertThat(runtimeService.getVariable(processInstance.getId(), "close_project")).isNotEqualTo("not a boolean");
+        assertThat(taskService.createTaskQuery().taskId(task.getId()).count()).isEqualTo(1);
+    }
+
+    @Test
+    public void aggregatedReplyTest() {
+        List<Message<?>> replies = new CopyOnWriteArrayList<>();
+        ChannelInterceptor capture = new ChannelInterceptor() {
+            @Override
+            public Message<?> preSend(Message<?> message,
+                                      MessageChannel channel) {
+                replies.add(message);
+                return message;
+            }
+        };
+        AbstractMessageChannel results = (AbstractMessageChannel) commandBatchChannels.commandBatchResults();
+        results.addInterceptor(capture);
+        try {
+            commandBatchChannels.commandBatchConsumer().send(MessageBuilder
+                    .withPayload(new CommandBatch("batch-4", Arrays.asList(claim("1", task.getId()),
+                                                                           complete("2", task.getId()))))
+                    .build());
+        } finally {
+            results.removeInterceptor(capture);
+        }
+
+        assertThat(replies).hasSize(1);
+        assertThat(replies.get(0).getHeaders().get(CommandBatchEndpoint.BATCH_ID_HEADER)).isEqualTo("batch-4");
+        assertThat(taskService.createTaskQuery().taskId(task.getId()).count()).isZero();
+    }
+
+    static BatchCommand claim(String id,
+                              String taskId) {
+        BatchCommand command = new BatchCommand(id, BatchCommand.CLAIM);
+        command.setTaskId(taskId);
+        command.setAssignee("bob");
+        return command;
+    }
+
+    private static BatchCommand complete(String id,
+                                         String taskId) {
+        BatchCommand command = new BatchCommand(id, BatchCommand.COMPLETE);
+        command.setTaskId(taskId);
+        return command;
+    }
+
+    private BatchCommand setVariables(String id,
+                                      String name,
+                                      Object value) {
+        BatchCommand command = new BatchCommand(id, BatchCommand.SET_VARIABLES);
+        command.setProcessInstanceId(processInstance.getId());
+        command.setVariables(Collections.singletonMap(name, value));
+        return command;
+    }
+}
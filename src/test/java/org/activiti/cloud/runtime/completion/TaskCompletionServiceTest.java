@@ -0,0 +1,181 @@
+package org.activiti.cloud.runtime.completion;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.runtime.ProcessInstanceQuery;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ModelsContextTest.SUBPROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "runtimebundle.completion.coalesce-window=200ms")
+@DirtiesContext
+public class TaskCompletionServiceTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private TaskRuntime taskRuntime;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private TaskCompletionService taskCompletionService;
+
+    @Autowired
+    private VariableWriteCoalescer variableWriteCoalescer;
+
+    @Autowired
+    private CoalescedWriteRepository coalescedWriteRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Completion Project")
+                .build());
+    }
+
+    @Test
+    public void completeWithVariablesTest() {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put("creation_name", "Combined Subproject");
+        variables.put("creation_type", "subproject");
+        CompletionResult result = taskCompletionService.complete(creationTask().getId(), variables);
+        assertThat(result.getVariables()).containsExactlyInAnyOrder("creation_name", "creation_type");
+        assertThat(result.isCoalesced()).isFalse();
+
+        // Подпроект создан с переданным именем, проект вернулся к задаче "Создать"
+        ProcessInstanceQuery children = runtimeService.createProcessInstanceQuery()
+                .superProcessInstanceId(processInstance.getId());
+        assertThat(children.count()).isEqualTo(1);
+        org.activiti.engine.runtime.ProcessInstance child = children.singleResult();
+        assertThat(child.getProcessDefinitionKey()).isEqualTo(SUBPROJECT_MODEL_DEFINITION_KEY);
+        assertThat(runtimeService.getVariable(child.getId(), "name")).isEqualTo("Combined Subproject");
+        assertThat(creationTask().getAssignee()).isNull();
+    }
+
+    @Test
+    public void coalescedWriteTest() {
+        Map<String, Object> first = new HashMap<>();
+        first.put("creation_name", "Draft");
+        first.put("creation_type", "file");
+        variableWriteCoalescer.write(processInstance.getId(), first);
+        variableWriteCoalescer.write(processInstance.getId(), Map.of("creation_name", "Coalesced File"));
+        // Отложенная запись ещё не видна, но уже сохранена слитой
+        assertThat(runtimeService.getVariable(processInstance.getId(), "creation_name")).isNotEqualTo("Coalesced File");
+        assertThat(pendingVariables()).containsEntry("creation_name", "Coalesced File")
+                .containsEntry("creation_type", "file");
+
+        CompletionResult result = taskCompletionService.complete(creationTask().getId(), null);
+        assertThat(result.isCoalesced()).isTrue();
+        org.activiti.engine.runtime.ProcessInstance child = runtimeService.createProcessInstanceQuery()
+                .superProcessInstanceId(processInstance.getId())
+                .singleResult();
+        assertThat(runtimeService.getVariable(child.getId(), "name")).isEqualTo("Coalesced File");
+        assertThat(pendingVariables()).isNull();
+    }
+
+    @Test
+    public void failedCompletionKeepsPendingTest() throws InterruptedException {
+        Task task = creationTask();
+        variableWriteCoalescer.write(processInstance.getId(), Map.of("creation_name", "Kept"));
+        securityUtil.logInAs("john");
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(task.getId()).build());
+
+        securityUtil.logInAs("bob");
+        assertThatThrownBy(() -> taskCompletionService.complete(task.getId(), null))
+                .isInstanceOf(RuntimeException.class);
+        // Запись не потеряна: по истечении окна она применяется отдельно
+        awaitVariable("creation_name", "Kept");
+    }
+
+    @Test
+    public void validatedLikeProcessRuntimeTest() {
+        // close_project объявлена в расширениях модели как boolean
+        assertThatThrownBy(() -> variableWriteCoalescer.write(processInstance.getId(), Map.of("close_project", "not a boolean")))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(pendingVariables()).isNull();
+
+        assertThatThrownBy(() -> taskCompletionService.complete(creationTask().getId(), Map.of("close_project", "not a boolean")))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(runtimeService.createProcessInstanceQuery()
+                           .superProcessInstanceId(processInstance.getId())
+                           .count()).isZero();
+    }
+
+    @Test
+    public void windowExpiryTest() throws InterruptedException {
+        variableWriteCoalescer.write(processInstance.getId(), Map.of("creation_name", "Flushed"));
+        awaitVariable("creation_name", "Flushed");
+        assertThat(pendingVariables()).isNull();
+    }
+
+    @Test
+    public void assignedToAnotherUserTest() {
+        Task task = creationTask();
+        securityUtil.logInAs("john");
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(task.getId()).build());
+
+        securityUtil.logInAs("bob");
+        assertThatThrownBy(() -> taskCompletionService.complete(task.getId(), Map.of("creation_name", "Nope")))
+                .isInstanceOf(RuntimeException.class);
+        assertThat(runtimeService.createProcessInstanceQuery()
+                           .superProcessInstanceId(processInstance.getId())
+                           .count()).isZero();
+    }
+
+    private void awaitVariable(String name,
+                               Object value) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!value.equals(runtimeService.getVariable(processInstance.getId(), name))
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(50);
+        }
+        assertThat(runtimeService.getVariable(processInstance.getId(), name)).isEqualTo(value);
+    }
+
+    private Map<String, Object> pendingVariables() {
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            CoalescedWriteRepository.PendingWrite pending = coalescedWriteRepository.lock(processInstance.getId(), "bob");
+            return pending != null ? pending.getVariables() : null;
+        });
+    }
+
+    private Task creationTask() {
+        return taskRuntime.tasks(Pageable.of(0, 1),
+                                 TaskPayloadBuilder.tasksForProcess(processInstance).build())
+                .getContent().get(0);
+    }
+}
@@ -0,0 +1,79 @@
+package org.activiti.cloud.runtime.conditions;
+
+import org.activiti.engine.delegate.Expression;
+import org.activiti.engine.delegate.VariableScope;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CompiledConditionTest {
+
+    @Test
+    public void modelConditionsCompileTest() {
+        // Все условия трёх моделей укладываются в простое сравнение
+        assertThat(CompiledCondition.compile("${close_project == true}", mock(Expression.class))).isNotNull();
+        assertThat(CompiledCondition.compile("${close_subproject == true}", mock(Expression.class))).isNotNull();
+        assertThat(CompiledCondition.compile("${close_file == true}", mock(Expression.class))).isNotNull();
+        assertThat(CompiledCondition.compile("${creation_type == \"file\"}", mock(Expression.class))).isNotNull();
+        assertThat(CompiledCondition.compile(" ${creation_type == 'subproject'} ", mock(Expression.class))).isNotNull();
+    }
+
+    @Test
+    public void complexConditionsFallBackTest() {
+        assertThat(CompiledCondition.compile("${a == true && b == true}", mock(Expression.class))).isNull();
+        assertThat(CompiledCondition.compile("${count > 3}", mock(Expression.class))).isNull();
+        assertThat(CompiledCondition.compile("${bean.check(execution)}", mock(Expression.class))).isNull();
+    }
+
+    @Test
+    public void booleanComparisonTest() {
+        Expression fallback = mock(Expression.class);
+        CompiledCondition condition = CompiledCondition.compile("${close_project == true}", fallback);
+
+        assertThat(condition.getValue(scope("close_project", true))).isEqualTo(true);
+        assertThat(condition.getValue(scope("close_project", false))).isEqualTo(false);
+        assertThat(condition.getValue(scope("close_project", "true"))).isEqualTo(true);
+        assertThat(condition.getValue(scope("close_project", null))).isEqualTo(false);
+        verify(fallback, never()).getValue(any(VariableScope.class));
+    }
+
+    @Test
+    public void stringComparisonTest() {
+        CompiledCondition equal = CompiledCondition.compile("${creation_type == \"file\"}", mock(Expression.class));
+        CompiledCondition notEqual = CompiledCondition.compile("${creation_type != \"file\"}", mock(Expression.class));
+
+        assertThat(equal.getValue(scope("creation_type", "file"))).isEqualTo(true);
+        assertThat(equal.getValue(scope("creation_type", "subproject"))).isEqualTo(false);
+        assertThat(notEqual.getValue(scope("creation_type", "subproject"))).isEqualTo(true);
+        assertThat(notEqual.getValue(scope("creation_type", null))).isEqualTo(true);
+    }
+
+    @Test
+    public void unknownVariableFallsBackTest() {
+        Expression fallback = mock(Expression.class);
+        VariableScope scope = scope("other", "value");
+        when(fallback.getValue(scope)).thenReturn(false);
+
+        CompiledCondition condition = CompiledCondition.compile("${close_project == true}", fallback);
+        assertThat(condition.getValue(scope)).isEqualTo(false);
+        verify(fallback).getValue(scope);
+    }
+
+    static VariableScope scope(String name,
+                               Object value) {
+        Map<String, Object> variables = new HashMap<>();
+        variables.put(name, value);
+        VariableScope scope = mock(VariableScope.class);
+        when(scope.hasVariable(any())).thenAnswer(invocation -> variables.containsKey(invocation.<String>getArgument(0)));
+        when(scope.getVariable(any(String.class))).thenAnswer(invocation -> variables.get(invocation.<String>getArgument(0)));
+        return scope;
+    }
+}
@@ -0,0 +1,30 @@
+package org.activiti.cloud.runtime.conditions;
+
+import org.activiti.engine.ProcessEngineConfiguration;
+import org.activiti.engine.impl.cfg.ProcessEngineConfigurationImpl;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest()
+@DirtiesContext
+public class CompiledConditionsContextTest {
+
+    @Autowired
+    private ProcessEngineConfiguration processEngineConfiguration;
+
+    @Test
+    public void conditionsCompiledOnDeploymentTest() {
+        assertThat(((ProcessEngineConfigurationImpl) processEngineConfiguration).getExpressionManager())
+                .isInstanceOf(CompiledConditionExpressionManager.class);
+
+        // close_project, creation_type == "file"/"subproject", close_subproject, close_file
+        CompiledConditionExpressionManager expressionManager = (CompiledConditionExpressionManager)
+                ((ProcessEngineConfigurationImpl) processEngineConfiguration).getExpressionManager();
+        assertThat(expressionManager.getCompiledCount()).isGreaterThanOrEqualTo(5);
+        assertThat(expressionManager.createExpression("${close_project == true}")).isInstanceOf(CompiledCondition.class);
+    }
+}
@@ -0,0 +1,90 @@
+package org.activiti.cloud.runtime.execution;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assumptions.assumeThat;
+
+/**
+ * Нагрузочный тест развёрнутого бандла: N одновременных пользователей в течение заданного времени
+ * читают свою очередь задач. Прогоняется дважды - без профиля и с профилем elastic - и сравнивается
+ * пропускная способность.
+ * Запуск: ./mvnw test -Dload-test=true -Dtest=ElasticExecutionLoadTest
+ *   -Dload-test.url=http://host/rb -Dload-test.token=... [-Dload-test.users=2000 -Dload-test.seconds=60]
+ */
+@EnabledIfSystemProperty(named = "load-test", matches = "true")
+public class ElasticExecutionLoadTest {
+
+    private static final int USERS = Integer.getInteger("load-test.users", 2000);
+
+    private static final int SECONDS = Integer.getInteger("load-test.seconds", 60);
+
+    private final Logger logger = LoggerFactory.getLogger(ElasticExecutionLoadTest.class);
+
+    @Test
+    public void concurrentUsersTest() {
+        String url = System.getProperty("load-test.url");
+        assumeThat(url).as("load-test.url").isNotNull();
+        String token = System.getProperty("load-test.token", "");
+
+        HttpClient client = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(url + "/v1/task-inbox?size=20"))
+                .header("Authorization", "Bearer " + token)
+                .timeout(Duration.ofSeconds(30))
+                .build();
+
+        AtomicLong ok = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        AtomicLong failed = new AtomicLong();
+        long deadline = System.nanoTime() + Duration.ofSeconds(SECONDS).toNanos();
+
+        // Каждый пользователь - цепочка последовательных асинхронных запросов
+        List<CompletableFuture<Void>> users = new ArrayList<>(USERS);
+        for (int i = 0; i < USERS; i++) {
+            users.add(user(client, request, deadline, ok, rejected, failed));
+        }
+        CompletableFuture.allOf(users.toArray(new CompletableFuture[0])).join();
+
+        logger.info(String.format("> %d users, %d s: %.1f req/s, %d ok, %d rejected (503), %d failed",
+                                  USERS, SECONDS, ok.get() / (double) SECONDS, ok.get(), rejected.get(), failed.get()));
+    }
+
+    private CompletableFuture<Void> user(HttpClient client,
+                                         HttpRequest request,
+                                         long deadline,
+                                         AtomicLong ok,
+                                         AtomicLong rejected,
+                                         AtomicLong failed) {
+        if (System.nanoTime() > deadline) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .handle((response, error) -> {
+                    if (error != null) {
+                        failed.incrementAndGet();
+                    } else if (response.statusCode() == 503) {
+                        rejected.incrementAndGet();
+                    } else if (response.statusCode() < 400) {
+                        ok.incrementAndGet();
+                    } else {
+                        failed.incrementAndGet();
+                    }
+                    return null;
+                })
+                .thenCompose(ignored -> user(client, request, deadline, ok, rejected, failed));
+    }
+}
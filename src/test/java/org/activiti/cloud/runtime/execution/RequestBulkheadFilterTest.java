@@ -0,0 +1,61 @@
+package org.activiti.cloud.runtime.execution;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RequestBulkheadFilterTest {
+
+    @Test
+    public void rejectsWhenQueueTimesOutTest() throws Exception {
+        ExecutionProperties properties = new ExecutionProperties();
+        properties.setMaxConcurrent(1);
+        properties.setQueueTimeout(Duration.ofMillis(50));
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RequestBulkheadFilter filter = new RequestBulkheadFilter(properties, meterRegistry);
+
+        // Первый запрос держит единственное разрешение
+        CountDownLatch entered = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest("GET", "/v1/task-inbox"),
+                                new MockHttpServletResponse(),
+                                (request, response) -> {
+                                    entered.countDown();
+                                    try {
+                                        release.await();
+                                    } catch (InterruptedException e) {
+                                        Thread.currentThread().interrupt();
+                                    }
+                                });
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        holder.start();
+        assertThat(entered.await(5, TimeUnit.SECONDS)).isTrue();
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/task-inbox"), rejected, (request, response) -> {
+        });
+        assertThat(rejected.getStatus()).isEqualTo(503);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("1");
+        assertThat(meterRegistry.counter("runtimebundle.execution.bulkhead.rejected").count()).isEqualTo(1);
+
+        release.countDown();
+        holder.join();
+
+        MockHttpServletResponse accepted = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/v1/task-inbox"), accepted, (request, response) -> {
+        });
+        assertThat(accepted.getStatus()).isEqualTo(200);
+    }
+}
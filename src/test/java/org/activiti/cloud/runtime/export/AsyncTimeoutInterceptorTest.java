@@ -0,0 +1,40 @@
+package org.activiti.cloud.runtime.export;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.async.StandardServletAsyncWebRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AsyncTimeoutInterceptorTest {
+
+    private final AsyncTimeoutInterceptor interceptor = new AsyncTimeoutInterceptor();
+
+    @Test
+    public void requestTimeoutAppliedTest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        request.setAttribute(AsyncTimeoutInterceptor.TIMEOUT_ATTRIBUTE, 1800000L);
+        StandardServletAsyncWebRequest asyncRequest = new StandardServletAsyncWebRequest(request, new MockHttpServletResponse());
+        asyncRequest.setTimeout(30000L);
+
+        interceptor.beforeConcurrentHandling(asyncRequest, () -> null);
+        asyncRequest.startAsync();
+
+        assertThat(request.getAsyncContext().getTimeout()).isEqualTo(1800000L);
+    }
+
+    @Test
+    public void defaultTimeoutKeptTest() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAsyncSupported(true);
+        StandardServletAsyncWebRequest asyncRequest = new StandardServletAsyncWebRequest(request, new MockHttpServletResponse());
+        asyncRequest.setTimeout(30000L);
+
+        interceptor.beforeConcurrentHandling(asyncRequest, () -> null);
+        asyncRequest.startAsync();
+
+        assertThat(request.getAsyncContext().getTimeout()).isEqualTo(30000L);
+    }
+}
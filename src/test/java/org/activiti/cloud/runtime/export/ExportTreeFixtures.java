@@ -0,0 +1,152 @@
+package org.activiti.cloud.runtime.export;
+
+import org.activiti.cloud.runtime.ProjectFixtures;
+import org.activiti.cloud.runtime.bulk.BulkCreationService;
+import org.activiti.cloud.runtime.bulk.CreationEntry;
+import org.activiti.cloud.runtime.tree.ProjectTreeRepository;
+import org.activiti.engine.RuntimeService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.SUBPROJECT_MODEL_DEFINITION_KEY;
+
+/**
+ * Глубокое дерево для выгрузки. Модели дают самое большее цепочку проект - подпроект - файл,
+ * поэтому движок запускает только проект и подпроект, а более глубокие уровни, файлы, их задачи
+ * в истории и переменные дописываются в таблицы напрямую - выгрузка читает их курсорами
+ * по индексу PROJECT_TREE, а не по экземплярам движка.
+ */
+@Component
+public class ExportTreeFixtures {
+
+    /**
+     * Уровни цепочки, запущенные движком: проект и подпроект.
+     */
+    private static final int ENGINE_LEVELS = 2;
+
+    private static final int BATCH = 10000;
+
+    @Autowired
+    private ProjectFixtures projectFixtures;
+
+    @Autowired
+    private BulkCreationService bulkCreationService;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private ProjectTreeRepository projectTreeRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    /**
+     * Корень и цепочка подпроектов: [корень, уровень 1, ..., уровень depth]. Уровень 1 -
+     * подпроект движка, уровни глубже существуют только в индексе дерева.
+     */
+    public List<String> chain(int depth) {
+        String root = projectFixtures.startProject("Deep Project").getId();
+        List<String> chain = new ArrayList<>();
+        chain.add(root);
+        if (depth < 1) {
+            return chain;
+        }
+        bulkCreationService.create(root, Collections.singletonList(new CreationEntry("Level 1", "subproject")));
+        String parent = runtimeService.createProcessInstanceQuery()
+                .superProcessInstanceId(root)
+                .processDefinitionKey(SUBPROJECT_MODEL_DEFINITION_KEY)
+                .singleResult()
+                .getId();
+        chain.add(parent);
+        for (int level = 2; level <= depth; level++) {
+            String id = UUID.randomUUID().toString();
+            projectTreeRepository.insertNode(id, parent, "subproject", "Level " + level);
+            chain.add(id);
+            parent = id;
+        }
+        return chain;
+    }
+
+    /**
+     * Файлы, распределённые по всем уровням цепочки, по tasksPerFile задач в истории на файл,
+     * и variablesPerInstance переменных на каждый уровень, запущенный движком.
+     */
+    public void populate(List<String> chain,
+                         int files,
+                         int tasksPerFile,
+                         int variablesPerInstance) {
+        List<Object[]> nodes = new ArrayList<>(BATCH);
+        List<Object[]> tasks = new ArrayList<>(BATCH);
+        Timestamp now = new Timestamp(System.currentTimeMillis());
+        for (int i = 0; i < files; i++) {
+            String id = UUID.randomUUID().toString();
+            int level = i % chain.size();
+            nodes.add(new Object[]{id, id, 0, "file", "File " + i});
+            for (int ancestor = level; ancestor >= 0; ancestor--) {
+                nodes.add(new Object[]{chain.get(ancestor), id, level - ancestor + 1, "file", "File " + i});
+            }
+            for (int task = 0; task < tasksPerFile; task++) {
+                tasks.add(new Object[]{UUID.randomUUID().toString(), "Task_" + task, id, "Task " + task, "bob", now, now});
+            }
+            if (nodes.size() >= BATCH) {
+                insertNodes(nodes);
+            }
+            if (tasks.size() >= BATCH) {
+                insertTasks(tasks);
+            }
+        }
+        insertNodes(nodes);
+        insertTasks(tasks);
+
+        // Переменные ссылаются на исполнения движка, поэтому пишутся только уровням движка
+        List<Object[]> variables = new ArrayList<>(BATCH);
+        for (String processInstanceId : chain.subList(0, Math.min(ENGINE_LEVELS, chain.size()))) {
+            for (int i = 0; i < variablesPerInstance; i++) {
+                variables.add(new Object[]{UUID.randomUUID().toString(), "variable_" + i, processInstanceId, processInstanceId, "Value " + i});
+                if (variables.size() >= BATCH) {
+                    insertVariables(variables);
+                }
+            }
+        }
+        insertVariables(variables);
+    }
+
+    /**
+     * Строк выгрузки: корень, узлы дерева, переменные уровней и задачи истории.
+     */
+    public long expectedLines(String root) {
+        return 1 + projectTreeRepository.countByType(root).values().stream().mapToLong(Long::longValue).sum()
+                + jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PROJECT_TREE T JOIN ACT_RU_VARIABLE V ON V.EXECUTION_ID_ = T.DESCENDANT_ID " +
+                                                      "WHERE T.ANCESTOR_ID = ? AND V.TASK_ID_ IS NULL", Long.class, root)
+                + jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PROJECT_TREE T JOIN ACT_HI_TASKINST H ON H.PROC_INST_ID_ = T.DESCENDANT_ID " +
+                                                      "WHERE T.ANCESTOR_ID = ?", Long.class, root);
+    }
+
+    private void insertNodes(List<Object[]> batch) {
+        insert("INSERT INTO PROJECT_TREE (ANCESTOR_ID, DESCENDANT_ID, DEPTH, NODE_TYPE, NODE_NAME) VALUES (?, ?, ?, ?, ?)", batch);
+    }
+
+    private void insertTasks(List<Object[]> batch) {
+        insert("INSERT INTO ACT_HI_TASKINST (ID_, TASK_DEF_KEY_, PROC_INST_ID_, NAME_, ASSIGNEE_, START_TIME_, END_TIME_) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+
+    private void insertVariables(List<Object[]> batch) {
+        insert("INSERT INTO ACT_RU_VARIABLE (ID_, REV_, TYPE_, NAME_, EXECUTION_ID_, PROC_INST_ID_, TEXT_) VALUES (?, 1, 'string', ?, ?, ?, ?)", batch);
+    }
+
+    private void insert(String sql,
+                        List<Object[]> batch) {
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batch);
+            batch.clear();
+        }
+    }
+}
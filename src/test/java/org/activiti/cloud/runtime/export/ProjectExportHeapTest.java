@@ -0,0 +1,150 @@
+package org.activiti.cloud.runtime.export;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.tree.ProjectTreeRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.io.OutputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Выгрузка глубокого дерева из 1M узлов с переменными и задачами при маленькой куче: живая куча
+ * после сборок мусора во время выгрузки не должна расти больше чем на heap-limit-mb.
+ * Дерево строит {@link ExportTreeFixtures} в файловой H2, чтобы таблицы не занимали кучу;
+ * скорость выгрузки меряет ProjectExportBenchmark.
+ * Запуск: ./mvnw test -Dheap-test=true -Dtest=ProjectExportHeapTest -DargLine=-Xmx512m
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:file:./target/export-heap-test/${random.uuid};DB_CLOSE_ON_EXIT=FALSE"
+})
+@DirtiesContext
+@EnabledIfSystemProperty(named = "heap-test", matches = "true")
+public class ProjectExportHeapTest {
+
+    private static final int DEPTH = Integer.getInteger("heap-test.depth", 20);
+
+    private static final int NODES = Integer.getInteger("heap-test.nodes", 1000000);
+
+    private static final int TASKS_PER_FILE = Integer.getInteger("heap-test.tasks", 1);
+
+    private static final int VARIABLES_PER_INSTANCE = Integer.getInteger("heap-test.variables", 5000);
+
+    private static final long HEAP_LIMIT = Long.getLong("heap-test.heap-limit-mb", 32) << 20;
+
+    private static final Set<String> HEAP_POOLS = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .map(MemoryPoolMXBean::getName)
+            .collect(Collectors.toSet());
+
+    private final Logger logger = LoggerFactory.getLogger(ProjectExportHeapTest.class);
+
+    @Autowired
+    private ProjectExportService projectExportService;
+
+    @Autowired
+    private ExportTreeFixtures exportTreeFixtures;
+
+    @Autowired
+    private ProjectTreeRepository projectTreeRepository;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Test
+    public void exportDeepTreeHeapTest() throws Exception {
+        securityUtil.logInAs("bob");
+        List<String> chain = exportTreeFixtures.chain(DEPTH);
+        int files = NODES - chain.size();
+        exportTreeFixtures.populate(chain, files, TASKS_PER_FILE, VARIABLES_PER_INSTANCE);
+        String root = chain.get(0);
+        Map<String, Long> nodes = projectTreeRepository.countByType(root);
+        assertThat(nodes.get("file")).isEqualTo((long) files);
+        // Потомки корня и сам корень
+        assertThat(nodes.values().stream().mapToLong(Long::longValue).sum() + 1).isEqualTo((long) NODES);
+        long expected = exportTreeFixtures.expectedLines(root);
+
+        CountingOutputStream output = new CountingOutputStream();
+        System.gc();
+        long baseline = usedHeap();
+        AtomicLong maxLive = new AtomicLong(baseline);
+        List<NotificationEmitter> emitters = new ArrayList<>();
+        NotificationListener listener = (notification, handback) -> maxLive.accumulateAndGet(liveAfterGc(notification), Math::max);
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                ((NotificationEmitter) collector).addNotificationListener(listener, null, null);
+                emitters.add((NotificationEmitter) collector);
+            }
+        }
+        long lines;
+        try {
+            lines = projectExportService.export(root, output);
+            // Последняя сборка фиксирует то, что выгрузка ещё удерживает
+            System.gc();
+        } finally {
+            for (NotificationEmitter emitter : emitters) {
+                emitter.removeNotificationListener(listener);
+            }
+        }
+        long growth = maxLive.get() - baseline;
+
+        logger.info(String.format("> Exported %d lines, %d MB; %d nodes, depth %d, max heap %d MB, live heap growth %d MB",
+                                  lines, output.bytes >> 20, NODES, DEPTH,
+                                  Runtime.getRuntime().maxMemory() >> 20, growth >> 20));
+        assertThat(lines).isEqualTo(expected);
+        // Выгрузка во много раз больше допустимого роста: данные не копятся в памяти
+        assertThat(output.bytes).isGreaterThan(2 * HEAP_LIMIT);
+        assertThat(growth).isLessThan(HEAP_LIMIT);
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long liveAfterGc(Notification notification) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return 0;
+        }
+        GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        return info.getGcInfo().getMemoryUsageAfterGc().entrySet().stream()
+                .filter(pool -> HEAP_POOLS.contains(pool.getKey()))
+                .mapToLong(pool -> pool.getValue().getUsed())
+                .sum();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            bytes += len;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package org.activiti.cloud.runtime.export;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.bulk.BulkCreationService;
+import org.activiti.cloud.runtime.bulk.CreationEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest()
+@DirtiesContext
+public class ProjectExportServiceTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private BulkCreationService bulkCreationService;
+
+    @Autowired
+    private ProjectExportService projectExportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Exported Project")
+                .build());
+    }
+
+    @Test
+    public void exportTreeTest() throws IOException {
+        bulkCreationService.create(processInstance.getId(), Arrays.asList(
+                new CreationEntry("File 1", "file"),
+                new CreationEntry("Subproject", "subproject")));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        long lines = projectExportService.export(processInstance.getId(), output);
+
+        List<JsonNode> records = new ArrayList<>();
+        for (String line : output.toString(StandardCharsets.UTF_8.name()).split("\n")) {
+            if (!line.isEmpty()) {
+                records.add(objectMapper.readTree(line));
+            }
+        }
+        assertThat(records).hasSize((int) lines);
+
+        List<JsonNode> nodes = byType(records, "node");
+        assertThat(nodes).hasSize(3);
+        assertThat(nodes.get(0).get("id").asText()).isEqualTo(processInstance.getId());
+        assertThat(nodes.get(0).get("parentId").isNull()).isTrue();
+        assertThat(nodes.subList(1, 3)).extracting(node -> node.get("parentId").asText())
+                .containsOnly(processInstance.getId());
+
+        assertThat(byType(records, "variable"))
+                .anySatisfy(variable -> {
+                    assertThat(variable.get("processInstanceId").asText()).isEqualTo(processInstance.getId());
+                    assertThat(variable.get("name").asText()).isEqualTo("name");
+                    assertThat(variable.get("value").asText()).isEqualTo("My Exported Project");
+                });
+
+        // Кто выполнял задачи "Создать"
+        assertThat(byType(records, "task"))
+                .filteredOn(task -> "Task_0wtw2gj".equals(task.get("taskDefinitionKey").asText()))
+                .isNotEmpty();
+    }
+
+    private static List<JsonNode> byType(List<JsonNode> records,
+                                         String type) {
+        return records.stream()
+                .filter(record -> type.equals(record.get("type").asText()))
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,117 @@
+package org.activiti.cloud.runtime.files;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.api.task.model.Task;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.tree.ProjectTreeNode;
+import org.activiti.cloud.runtime.tree.ProjectTreeRepository;
+import org.activiti.engine.RuntimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.FILE_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "runtimebundle.file-records.enabled=true")
+@DirtiesContext
+public class FileRecordServiceTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private FileRecordService fileRecordService;
+
+    @Autowired
+    private ProjectTreeRepository projectTreeRepository;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Records Project")
+                .build());
+    }
+
+    @Test
+    public void createWithoutProcessInstancesTest() {
+        long before = runtimeService.createProcessInstanceQuery().processDefinitionKey(FILE_MODEL_DEFINITION_KEY).count();
+
+        List<FileRecord> records = fileRecordService.create(processInstance.getId(),
+                                                            Arrays.asList("File 1", "File 2", "File 3"));
+
+        assertThat(records).extracting(FileRecord::isPromoted).containsOnly(false);
+        assertThat(runtimeService.createProcessInstanceQuery().processDefinitionKey(FILE_MODEL_DEFINITION_KEY).count())
+                .isEqualTo(before);
+        Page<FileRecord> page = fileRecordService.records(processInstance.getId(), PageRequest.of(0, 2));
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        assertThat(page.getContent()).hasSize(2);
+        assertThat(records.get(0).getInitiatorGroup()).isEqualTo("activitiTeam");
+    }
+
+    @Test
+    public void openPromotesOnceTest() {
+        FileRecord record = fileRecordService.create(processInstance.getId(),
+                                                     Arrays.asList("My Record File")).get(0);
+
+        Task task = fileRecordService.open(record.getId());
+        Task again = fileRecordService.open(record.getId());
+
+        FileRecord promoted = fileRecordService.record(record.getId());
+        assertThat(promoted.isPromoted()).isTrue();
+        assertThat(task.getProcessInstanceId()).isEqualTo(promoted.getProcessInstanceId());
+        assertThat(again.getId()).isEqualTo(task.getId());
+        assertThat(task.getName()).isEqualTo("Изменить");
+        assertThat(runtimeService.getVariable(promoted.getProcessInstanceId(), "name")).isEqualTo("My Record File");
+
+        // Повышенный файл виден в дереве проекта
+        assertThat(projectTreeRepository.pathToRoot(promoted.getProcessInstanceId()))
+                .extracting(ProjectTreeNode::getProcessInstanceId)
+                .contains(processInstance.getId());
+    }
+
+    @Test
+    public void closeWithoutOpeningTest() {
+        FileRecord record = fileRecordService.create(processInstance.getId(),
+                                                     Arrays.asList("Never Opened")).get(0);
+
+        fileRecordService.close(record.getId());
+
+        assertThatThrownBy(() -> fileRecordService.record(record.getId()))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    public void otherGroupAccessTest() {
+        FileRecord record = fileRecordService.create(processInstance.getId(),
+                                                     Arrays.asList("Private File")).get(0);
+
+        securityUtil.logInAs("other");
+        assertThatThrownBy(() -> fileRecordService.open(record.getId()))
+                .isInstanceOf(NotFoundException.class);
+    }
+}
@@ -0,0 +1,107 @@
+package org.activiti.cloud.runtime.hierarchy;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.query.Page;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.engine.ManagementService;
+import org.activiti.engine.runtime.Job;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ModelsContextTest.SUBPROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "runtimebundle.hierarchy.async-subproject-creation=true",
+        "runtimebundle.hierarchy.max-depth=1",
+        "spring.activiti.async-executor-activate=false"
+})
+@DirtiesContext
+public class HierarchyDepthGuardTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private TaskRuntime taskRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private ManagementService managementService;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Deep Project")
+                .build());
+    }
+
+    @Test
+    public void asyncSubprojectCreationTest() {
+        create(processInstance, "My Async Subproject", "subproject");
+
+        // Подпроект ещё не создан - его запуск отложен в задание
+        assertThat(subprocesses(processInstance).getTotalItems()).isEqualTo(0);
+        List<Job> jobs = managementService.createJobQuery().processInstanceId(processInstance.getId()).list();
+        assertThat(jobs).hasSize(1);
+
+        // Задание выполняется в собственной транзакции
+        managementService.executeJob(jobs.get(0).getId());
+        Page<ProcessInstance> children = subprocesses(processInstance);
+        assertThat(children.getTotalItems()).isEqualTo(1);
+        assertThat(children.getContent().get(0).getProcessDefinitionKey()).isEqualTo(SUBPROJECT_MODEL_DEFINITION_KEY);
+    }
+
+    @Test
+    public void depthGuardTest() {
+        create(processInstance, "My Subproject", "subproject");
+        Job job = managementService.createJobQuery().processInstanceId(processInstance.getId()).singleResult();
+        managementService.executeJob(job.getId());
+        ProcessInstance subproject = subprocesses(processInstance).getContent().get(0);
+
+        // Файл в подпроекте оказался бы на глубине 2 при допустимой 1
+        assertThatThrownBy(() -> create(subproject, "Too Deep File", "file"))
+                .hasMessageContaining("max depth is 1");
+        assertThat(subprocesses(subproject).getTotalItems()).isEqualTo(0);
+    }
+
+    private void create(ProcessInstance parent,
+                        String name,
+                        String type) {
+        Task task = taskRuntime.tasks(Pageable.of(0, 1),
+                                      TaskPayloadBuilder.tasksForProcess(parent).build())
+                .getContent().get(0);
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(task.getId()).build());
+        processRuntime.setVariables(ProcessPayloadBuilder.setVariables(parent)
+                .withVariable("creation_name", name)
+                .withVariable("creation_type", type)
+                .build());
+        taskRuntime.complete(TaskPayloadBuilder.complete().withTaskId(task.getId()).build());
+    }
+
+    private Page<ProcessInstance> subprocesses(ProcessInstance parent) {
+        return processRuntime.processInstances(Pageable.of(0, 10),
+                                               ProcessPayloadBuilder.subprocesses(parent));
+    }
+}
@@ -0,0 +1,130 @@
+package org.activiti.cloud.runtime.importer;
+
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.tree.ProjectTreeRepository;
+import org.activiti.engine.RuntimeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.SUBPROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "runtimebundle.import.chunk-size=2")
+@DirtiesContext
+public class HierarchyImportServiceTest {
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private HierarchyImportService hierarchyImportService;
+
+    @Autowired
+    private ImportCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private ProjectTreeRepository projectTreeRepository;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @BeforeEach
+    public void login() {
+        securityUtil.logInAs("bob");
+    }
+
+    @Test
+    public void ndjsonImportTest() {
+        String importId = UUID.randomUUID().toString();
+        ImportResult result = hierarchyImportService.importStream(importId, stream(
+                "{\"ref\":\"p1\",\"type\":\"project\",\"name\":\"Imported Project\"}",
+                "{\"ref\":\"s1\",\"parentRef\":\"p1\",\"type\":\"subproject\",\"name\":\"Imported Subproject\"}",
+                "",
+                "{\"ref\":\"f1\",\"parentRef\":\"p1\",\"type\":\"file\",\"name\":\"File 1\"}",
+                "{\"ref\":\"f2\",\"parentRef\":\"s1\",\"name\":\"File 2\"}"
+        ), HierarchyImportService.FORMAT_NDJSON);
+        assertThat(result.getCreated()).isEqualTo(4);
+        assertThat(result.getLines()).isEqualTo(5);
+
+        // Элементы созданы call activity модели и связаны с родителями
+        String projectId = checkpointRepository.findRef(importId, "p1").getProcessInstanceId();
+        ImportedNode subproject = checkpointRepository.findRef(importId, "s1");
+        assertThat(runtimeService.createProcessInstanceQuery()
+                           .superProcessInstanceId(projectId)
+                           .count()).isEqualTo(2);
+        assertThat(runtimeService.createProcessInstanceQuery()
+                           .processInstanceId(subproject.getProcessInstanceId())
+                           .singleResult()
+                           .getProcessDefinitionKey()).isEqualTo(SUBPROJECT_MODEL_DEFINITION_KEY);
+        assertThat(runtimeService.getVariable(checkpointRepository.findRef(importId, "f2").getProcessInstanceId(), "name"))
+                .isEqualTo("File 2");
+        assertThat(runtimeService.getVariable(subproject.getProcessInstanceId(), "initiator_group"))
+                .isEqualTo("activitiTeam");
+
+        Map<String, Long> counts = projectTreeRepository.countByType(projectId);
+        assertThat(counts.get("subproject")).isEqualTo(1);
+        assertThat(counts.get("file")).isEqualTo(2);
+    }
+
+    @Test
+    public void csvResumeTest() {
+        String importId = UUID.randomUUID().toString();
+        // Четвёртая строка ссылается на файл как на родителя: второй пакет откатывается
+        assertThatThrownBy(() -> hierarchyImportService.importStream(importId, stream(
+                "ref,parentRef,type,name,initiatorGroup",
+                "p1,,project,\"Project, CSV\",activitiTeam",
+                "f1,p1,file,File 1,",
+                "f2,f1,file,File 2,"
+        ), HierarchyImportService.FORMAT_CSV)).isInstanceOf(IllegalArgumentException.class);
+
+        ImportCheckpoint checkpoint = checkpointRepository.find(importId);
+        assertThat(checkpoint.getLineNumber()).isEqualTo(3);
+        assertThat(checkpoint.getCreated()).isEqualTo(2);
+        assertThat(checkpointRepository.findRef(importId, "f1")).isNotNull();
+        assertThat(checkpointRepository.findRef(importId, "f2")).isNull();
+
+        // Повтор с исправленным файлом продолжает с контрольной точки
+        ImportResult result = hierarchyImportService.importStream(importId, stream(
+                "ref,parentRef,type,name,initiatorGroup",
+                "p1,,project,\"Project, CSV\",activitiTeam",
+                "f1,p1,file,File 1,",
+                "f2,p1,file,File 2,"
+        ), HierarchyImportService.FORMAT_CSV);
+        assertThat(result.getSkipped()).isEqualTo(3);
+        assertThat(result.getCreated()).isEqualTo(1);
+        assertThat(checkpointRepository.find(importId).getCreated()).isEqualTo(3);
+
+        String projectId = checkpointRepository.findRef(importId, "p1").getProcessInstanceId();
+        assertThat(runtimeService.getVariable(projectId, "name")).isEqualTo("Project, CSV");
+        assertThat(runtimeService.createProcessInstanceQuery()
+                           .superProcessInstanceId(projectId)
+                           .count()).isEqualTo(2);
+    }
+
+    @Test
+    public void wrongGroupTest() {
+        assertThatThrownBy(() -> hierarchyImportService.importStream(UUID.randomUUID().toString(), stream(
+                "{\"ref\":\"p1\",\"name\":\"Foreign Project\",\"initiatorGroup\":\"otherTeam\"}"
+        ), HierarchyImportService.FORMAT_NDJSON)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void splitCsvTest() {
+        assertThat(HierarchyImportService.splitCsv("a,\"b, \"\"c\"\"\",,d"))
+                .isEqualTo(Arrays.asList("a", "b, \"c\"", "", "d"));
+    }
+
+    private static ByteArrayInputStream stream(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,175 @@
+package org.activiti.cloud.runtime.inbox;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.bulk.BulkCreationService;
+import org.activiti.cloud.runtime.bulk.CreationEntry;
+import org.activiti.engine.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest()
+@DirtiesContext
+public class TaskClaimServiceTest {
+
+    private static final String[] CLAIMERS = {"claimer1", "claimer2", "claimer3", "claimer4"};
+
+    private static final int FILES = 20;
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private BulkCreationService bulkCreationService;
+
+    @Autowired
+    private TaskClaimService taskClaimService;
+
+    @Autowired
+    private TaskInboxRepository taskInboxRepository;
+
+    @Autowired
+    private TaskService taskService;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        // Отдельная группа: конкуренты видят только задачи этого теста
+        securityUtil.logInAs("claimer1");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "claimTeam")
+                .withVariable("name", "My Claim Project")
+                .build());
+        List<CreationEntry> entries = new ArrayList<>();
+        for (int i = 0; i < FILES; i++) {
+            entries.add(new CreationEntry("File " + i, "file"));
+        }
+        bulkCreationService.create(processInstance.getId(), entries);
+    }
+
+    @Test
+    public void claimTest() {
+        TaskInboxEntry free = taskInboxRepository.unassigned(Collections.singletonList("claimTeam"), null, 1).get(0);
+        assertThat(taskClaimService.canClaim(free.getTaskId())).isTrue();
+
+        TaskInboxEntry claimed = taskClaimService.claim(free.getTaskId());
+        assertThat(claimed.getAssignee()).isEqualTo("claimer1");
+        assertThat(taskService.createTaskQuery().taskId(free.getTaskId()).singleResult().getAssignee()).isEqualTo("claimer1");
+        // Повторный захват тем же пользователем не ошибка
+        assertThat(taskClaimService.claim(free.getTaskId()).getAssignee()).isEqualTo("claimer1");
+
+        securityUtil.logInAs("claimer2");
+        assertThat(taskClaimService.canClaim(free.getTaskId())).isFalse();
+        assertThatThrownBy(() -> taskClaimService.claim(free.getTaskId())).isInstanceOf(IllegalStateException.class);
+
+        securityUtil.logInAs("other");
+        assertThatThrownBy(() -> taskClaimService.claim(free.getTaskId())).isInstanceOf(NotFoundException.class);
+    }
+
+    @Test
+    public void concurrentClaimOfOneTaskTest() throws Exception {
+        String taskId = taskInboxRepository.unassigned(Collections.singletonList("claimTeam"), null, 1).get(0).getTaskId();
+
+        Set<String> winners = ConcurrentHashMap.newKeySet();
+        List<Future<Boolean>> results = run(CLAIMERS.length, user -> () -> {
+            try {
+                taskClaimService.claim(taskId);
+                winners.add(user);
+                return true;
+            } catch (IllegalStateException e) {
+                return false;
+            }
+        });
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            if (result.get()) {
+                succeeded++;
+            }
+        }
+        assertThat(succeeded).isEqualTo(1);
+        assertThat(winners).hasSize(1);
+        assertThat(taskService.createTaskQuery().taskId(taskId).singleResult().getAssignee()).isIn(winners);
+    }
+
+    @Test
+    public void concurrentClaimNextTest() throws Exception {
+        // Все задачи группы разбираются без повторов
+        List<Future<List<String>>> results = run(CLAIMERS.length, user -> () -> {
+            List<String> claimed = new ArrayList<>();
+            TaskInboxEntry entry;
+            while ((entry = taskClaimService.claimNext(null)) != null) {
+                assertThat(entry.getAssignee()).isEqualTo(user);
+                claimed.add(entry.getTaskId());
+            }
+            return claimed;
+        });
+        Set<String> all = new HashSet<>();
+        int total = 0;
+        for (Future<List<String>> result : results) {
+            List<String> claimed = result.get();
+            total += claimed.size();
+            all.addAll(claimed);
+        }
+        assertThat(total).isEqualTo(all.size());
+        assertThat(all.size()).isGreaterThanOrEqualTo(FILES + 1);
+        assertThat(taskInboxRepository.unassigned(Collections.singletonList("claimTeam"), null, 1)).isEmpty();
+        for (String taskId : all) {
+            assertThat(taskService.createTaskQuery().taskId(taskId).singleResult().getAssignee()).isNotNull();
+        }
+    }
+
+    private <T> List<Future<T>> run(int threads,
+                                    Function<String, Callable<T>> work) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<T>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            String user = CLAIMERS[i % CLAIMERS.length];
+            Callable<T> callable = work.apply(user);
+            results.add(executor.submit(() -> {
+                securityUtil.logInAs(user);
+                try {
+                    start.await();
+                    return callable.call();
+                } finally {
+                    SecurityContextHolder.clearContext();
+                }
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(60, TimeUnit.SECONDS)).isTrue();
+        return results;
+    }
+}
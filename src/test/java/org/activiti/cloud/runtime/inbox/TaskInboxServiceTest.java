@@ -0,0 +1,160 @@
+package org.activiti.cloud.runtime.inbox;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.bulk.BulkCreationService;
+import org.activiti.cloud.runtime.bulk.CreationEntry;
+import org.activiti.engine.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest()
+@DirtiesContext
+public class TaskInboxServiceTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private TaskRuntime taskRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private BulkCreationService bulkCreationService;
+
+    @Autowired
+    private TaskInboxService taskInboxService;
+
+    @Autowired
+    private TaskInboxRepository taskInboxRepository;
+
+    @Autowired
+    private TaskClaimService taskClaimService;
+
+    @Autowired
+    private TaskService taskService;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        // Отдельная группа, чтобы не пересекаться с задачами других тестов
+        securityUtil.logInAs("other");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "otherTeam")
+                .withVariable("name", "My Inbox Project")
+                .build());
+        List<CreationEntry> entries = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            entries.add(new CreationEntry("File " + i, "file"));
+        }
+        bulkCreationService.create(processInstance.getId(), entries);
+    }
+
+    @Test
+    public void keysetPagingTest() {
+        Set<String> seen = new HashSet<>();
+        TaskInboxPage page = taskInboxService.inbox(null, null, 4, true);
+        long total = page.getApproximateCount();
+        int pages = 0;
+        while (true) {
+            pages++;
+            page.getContent().forEach(entry -> assertThat(seen.add(entry.getTaskId())).isTrue());
+            if (page.getNextCursor() == null) {
+                break;
+            }
+            page = taskInboxService.inbox(null, page.getNextCursor(), 4, false);
+        }
+
+        // Один "Создать" проекта и по одному "Изменить" на каждый файл
+        assertThat(seen).hasSize((int) total);
+        assertThat(total).isGreaterThanOrEqualTo(6);
+        assertThat(pages).isEqualTo((int) ((total + 3) / 4));
+    }
+
+    @Test
+    public void taskNameFilterTest() {
+        TaskInboxPage page = taskInboxService.inbox("Создать", null, 10, false);
+        assertThat(page.getContent()).extracting(TaskInboxEntry::getProcessInstanceId).contains(processInstance.getId());
+        assertThat(page.getContent()).allMatch(entry -> "Создать".equals(entry.getTaskName()));
+    }
+
+    @Test
+    public void completedTaskLeavesInboxTest() {
+        String taskId = taskRuntime.tasks(org.activiti.api.runtime.shared.query.Pageable.of(0, 1),
+                                          TaskPayloadBuilder.tasksForProcess(processInstance).build())
+                .getContent().get(0).getId();
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(taskId).build());
+        taskRuntime.complete(TaskPayloadBuilder.complete().withTaskId(taskId).build());
+
+        taskInboxRepository.rebuild();
+        assertThat(taskInboxService.inbox(null, null, 500, false).getContent())
+                .extracting(TaskInboxEntry::getTaskId)
+                .doesNotContain(taskId);
+    }
+
+    @Test
+    public void otherGroupTest() {
+        securityUtil.logInAs("bob");
+        assertThat(taskInboxService.inbox(null, null, 500, false).getContent())
+                .extracting(TaskInboxEntry::getProcessInstanceId)
+                .doesNotContain(processInstance.getId());
+    }
+
+    @Test
+    public void malformedCursorTest() {
+        assertThatThrownBy(() -> taskInboxService.inbox(null, "not a cursor", 10, false))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    public void severalCandidateGroupsTest() {
+        String taskId = taskRuntime.tasks(org.activiti.api.runtime.shared.query.Pageable.of(0, 1),
+                                          TaskPayloadBuilder.tasksForProcess(processInstance).build())
+                .getContent().get(0).getId();
+        taskService.addCandidateGroup(taskId, "claimTeam");
+
+        // Строка на группу, а не нарушение первичного ключа
+        taskInboxRepository.rebuild();
+        assertThat(taskInboxService.inbox(null, null, 500, false).getContent())
+                .extracting(TaskInboxEntry::getTaskId)
+                .containsOnlyOnce(taskId);
+
+        securityUtil.logInAs("claimer1");
+        assertThat(taskInboxService.inbox(null, null, 500, false).getContent())
+                .extracting(TaskInboxEntry::getTaskId)
+                .containsOnlyOnce(taskId);
+        assertThat(taskClaimService.claim(taskId).getAssignee()).isEqualTo("claimer1");
+
+        // Исполнитель записан во все строки задачи
+        securityUtil.logInAs("other");
+        assertThat(taskClaimService.canClaim(taskId)).isFalse();
+        assertThatThrownBy(() -> taskClaimService.claim(taskId)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    public void rebuildOncePerVersionTest() {
+        // Проекция этой версии уже перестроена при старте контекста
+        assertThat(taskInboxRepository.rebuildIfOutdated()).isFalse();
+    }
+}
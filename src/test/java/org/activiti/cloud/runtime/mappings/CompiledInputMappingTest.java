@@ -0,0 +1,64 @@
+package org.activiti.cloud.runtime.mappings;
+
+import org.activiti.engine.delegate.VariableScope;
+import org.activiti.runtime.api.impl.ExpressionResolver;
+import org.activiti.spring.process.model.Extension;
+import org.activiti.spring.process.model.Mapping;
+import org.activiti.spring.process.model.ProcessVariablesMapping;
+import org.activiti.spring.process.model.VariableDefinition;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collections;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class CompiledInputMappingTest {
+
+    @Test
+    public void plainValueMappedTest() {
+        ExpressionResolver expressionResolver = mock(ExpressionResolver.class);
+        CompiledInputMapping mapping = CompiledInputMapping.compile(extension(), "Task_1", expressionResolver);
+
+        assertThat(mapping.apply(scope("creation_name", "Plain Name"))).containsOnly(entry("name", "Plain Name"));
+        verify(expressionResolver).containsExpression("Plain Name");
+    }
+
+    @Test
+    public void structuredValueWithExpressionLeftToInterpreterTest() {
+        // Выражение внутри JSON-значения проверяет тот же ExpressionResolver, что и интерпретатор
+        Map<String, Object> value = Collections.singletonMap("title", "${initiator_group}");
+        ExpressionResolver expressionResolver = mock(ExpressionResolver.class);
+        when(expressionResolver.containsExpression(value)).thenReturn(true);
+        CompiledInputMapping mapping = CompiledInputMapping.compile(extension(), "Task_1", expressionResolver);
+
+        assertThat(mapping.apply(scope("creation_name", value))).isNull();
+        verify(expressionResolver).containsExpression(value);
+    }
+
+    private static Extension extension() {
+        VariableDefinition property = new VariableDefinition();
+        property.setName("creation_name");
+        Mapping source = new Mapping();
+        source.setType(Mapping.SourceMappingType.VARIABLE);
+        source.setValue("creation_name");
+        ProcessVariablesMapping mapping = new ProcessVariablesMapping();
+        mapping.setInputs(Collections.singletonMap("name", source));
+        Extension extension = new Extension();
+        extension.setProperties(Collections.singletonMap("creation_name_id", property));
+        extension.setMappings(Collections.singletonMap("Task_1", mapping));
+        return extension;
+    }
+
+    private static VariableScope scope(String name,
+                                       Object value) {
+        VariableScope scope = mock(VariableScope.class);
+        when(scope.getVariable(any(String.class))).thenAnswer(invocation -> name.equals(invocation.getArgument(0)) ? value : null);
+        return scope;
+    }
+}
@@ -0,0 +1,105 @@
+package org.activiti.cloud.runtime.mappings;
+
+import org.activiti.api.model.shared.model.VariableInstance;
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.runtime.api.impl.VariablesMappingProvider;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.activiti.cloud.runtime.ModelsContextTest.SUBPROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest()
+@DirtiesContext
+public class CompiledMappingsContextTest {
+
+    @Autowired
+    private VariablesMappingProvider variablesMappingProvider;
+
+    @Autowired
+    private CompiledMappingCache compiledMappingCache;
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private TaskRuntime taskRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Test
+    public void childStartedWithCompiledMappingTest() {
+        assertThat(variablesMappingProvider).isInstanceOf(CompiledVariablesMappingProvider.class);
+
+        securityUtil.logInAs("bob");
+        ProcessInstance project = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Mapped Project")
+                .build());
+        ProcessInstance subproject = create(project, "My Mapped Subproject", "subproject");
+
+        // Оба call activity проекта скомпилированы для этой версии определения
+        Map<String, CompiledInputMapping> mappings = compiledMappingCache.compile(project.getProcessDefinitionId());
+        assertThat(mappings).containsOnlyKeys("Task_0i1qr2k", "Task_1hw9wi1");
+        assertThat(mappings.get("Task_1hw9wi1").size()).isEqualTo(2);
+
+        assertThat(subproject.getProcessDefinitionKey()).isEqualTo(SUBPROJECT_MODEL_DEFINITION_KEY);
+        Map<String, Object> variables = processRuntime.variables(ProcessPayloadBuilder.variables(subproject).build())
+                .stream()
+                .collect(Collectors.toMap(VariableInstance::getName, VariableInstance::getValue));
+        assertThat(variables).containsEntry("name", "My Mapped Subproject")
+                .containsEntry("initiator_group", "activitiTeam");
+    }
+
+    @Test
+    public void expressionValueLeftToInterpreterTest() {
+        securityUtil.logInAs("bob");
+        ProcessInstance project = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Expression Project")
+                .build());
+
+        // Выражение в значении вычисляет исходный провайдер, как и без компиляции
+        ProcessInstance subproject = create(project, "${initiator_group}", "subproject");
+        List<VariableInstance> variables = processRuntime.variables(ProcessPayloadBuilder.variables(subproject).build());
+        assertThat(variables).filteredOn(variable -> "name".equals(variable.getName()))
+                .extracting(VariableInstance::getValue)
+                .containsExactly("activitiTeam");
+    }
+
+    private ProcessInstance create(ProcessInstance parent,
+                                   String name,
+                                   String type) {
+        Task task = taskRuntime.tasks(Pageable.of(0, 1),
+                                      TaskPayloadBuilder.tasksForProcess(parent).build())
+                .getContent().get(0);
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(task.getId()).build());
+        processRuntime.setVariables(ProcessPayloadBuilder.setVariables(parent)
+                .withVariable("creation_name", name)
+                .withVariable("creation_type", type)
+                .build());
+        taskRuntime.complete(TaskPayloadBuilder.complete().withTaskId(task.getId()).build());
+        return processRuntime.processInstances(Pageable.of(0, 10),
+                                               ProcessPayloadBuilder.subprocesses(parent))
+                .getContent().get(0);
+    }
+}
@@ -0,0 +1,136 @@
+package org.activiti.cloud.runtime.messages;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.Message;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.activiti.cloud.runtime.messages.TunedJdbcMessageStoreTest.createSchemaIfMissing;
+import static org.activiti.cloud.runtime.messages.TunedJdbcMessageStoreTest.messages;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Длительная нагрузка на хранилище групп: производители пишут и выпускают группы,
+ * часть групп остаётся брошенной и истекает, уплотнение и метрики работают по расписанию.
+ * Запуск на H2: ./mvnw test -Dsoak-test=true -Dtest=MessageStoreSoakTest
+ * На локальном Postgres дополнительно -Dspring.datasource.url=jdbc:postgresql://localhost:5432/activitidb
+ * -Dspring.datasource.username=... -Dspring.datasource.password=...; длительность - -Dsoak-test.duration=PT1H.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:message-store-soak;DB_CLOSE_DELAY=-1",
+        "runtimebundle.message-store.tuned=true",
+        "runtimebundle.message-store.region=soak",
+        "runtimebundle.message-store.completed-retention=30s",
+        "runtimebundle.message-store.compaction-interval=10s",
+        "runtimebundle.message-store.metrics-interval=5s",
+        "logging.level.root=WARN"
+})
+@DirtiesContext
+@EnabledIfSystemProperty(named = "soak-test", matches = "true")
+public class MessageStoreSoakTest {
+
+    private static final Duration DURATION = Duration.parse(System.getProperty("soak-test.duration", "PT1H"));
+
+    private static final int PRODUCERS = Integer.getInteger("soak-test.producers", 8);
+
+    private static final long GROUP_TIMEOUT = 5000;
+
+    private final Logger logger = LoggerFactory.getLogger(MessageStoreSoakTest.class);
+
+    @Autowired
+    private TunedJdbcMessageStore messageStore;
+
+    @Autowired
+    private MessageStoreMaintenance maintenance;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Test
+    public void sustainedLoadTest() throws Exception {
+        createSchemaIfMissing(dataSource);
+        AtomicLong written = new AtomicLong();
+        AtomicLong released = new AtomicLong();
+        AtomicLong expired = new AtomicLong();
+        messageStore.registerMessageGroupExpiryCallback((store, group) -> {
+            store.removeMessageGroup(group.getGroupId());
+            expired.incrementAndGet();
+        });
+
+        long deadline = System.currentTimeMillis() + DURATION.toMillis();
+        ExecutorService executor = Executors.newFixedThreadPool(PRODUCERS + 1);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < PRODUCERS; i++) {
+            workers.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                while (System.currentTimeMillis() < deadline) {
+                    String group = UUID.randomUUID().toString();
+                    int parts = 1 + random.nextInt(10);
+                    Message<?>[] batch = messages(group, parts);
+                    messageStore.addMessagesToGroup(group, batch);
+                    written.addAndGet(parts);
+                    // Каждая двадцатая группа брошена и истекает по таймауту
+                    if (random.nextInt(20) != 0) {
+                        messageStore.removeMessagesFromGroup(group, batch);
+                        messageStore.completeGroup(group);
+                        released.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        workers.add(executor.submit(() -> {
+            while (System.currentTimeMillis() < deadline) {
+                messageStore.expireMessageGroups(GROUP_TIMEOUT);
+                Thread.sleep(1000);
+            }
+            return null;
+        }));
+
+        long started = System.currentTimeMillis();
+        long maxBacklogAge = 0;
+        while (System.currentTimeMillis() < deadline) {
+            Thread.sleep(Math.min(60_000, Math.max(1, deadline - System.currentTimeMillis())));
+            MessageStoreStats stats = maintenance.refreshMetrics();
+            maxBacklogAge = Math.max(maxBacklogAge, stats.getBacklogAgeSeconds());
+            logger.warn(String.format("> %ds: %.0f messages/s, released %d, expired %d, open %d, complete %d, stored %d, backlog age %ds",
+                                      (System.currentTimeMillis() - started) / 1000,
+                                      written.get() / ((System.currentTimeMillis() - started) / 1000.0),
+                                      released.get(),
+                                      expired.get(),
+                                      stats.getOpenGroups(),
+                                      stats.getCompleteGroups(),
+                                      stats.getMessages(),
+                                      stats.getBacklogAgeSeconds()));
+        }
+        for (Future<?> worker : workers) {
+            worker.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        // Брошенные группы истекают, завершённые уплотняются: очередь не растёт
+        maintenance.compact();
+        MessageStoreStats stats = maintenance.refreshMetrics();
+        assertThat(expired.get()).isGreaterThan(0);
+        assertThat(maxBacklogAge).isLessThan(60);
+        assertThat(stats.getCompleteGroups()).isLessThanOrEqualTo(released.get());
+        logger.warn(String.format("> Soak finished: %d messages written, %d groups stored, max backlog age %ds",
+                                  written.get(), stats.getOpenGroups() + stats.getCompleteGroups(), maxBacklogAge));
+    }
+}
@@ -0,0 +1,106 @@
+package org.activiti.cloud.runtime.messages;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.integration.store.MessageGroup;
+import org.springframework.integration.store.MessageGroupStore;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "runtimebundle.message-store.tuned=true",
+        "runtimebundle.message-store.region=tuned-store-test",
+        "runtimebundle.message-store.completed-retention=0s",
+        "runtimebundle.message-store.compaction-batch-size=2"
+})
+@DirtiesContext
+public class TunedJdbcMessageStoreTest {
+
+    @Autowired
+    private MessageGroupStore messageGroupStore;
+
+    @Autowired
+    private TunedJdbcMessageStore tunedJdbcMessageStore;
+
+    @Autowired
+    private MessageStoreMaintenance messageStoreMaintenance;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @BeforeEach
+    public void createSchema() {
+        createSchemaIfMissing(dataSource);
+    }
+
+    @Test
+    public void replacesStarterStoreTest() {
+        assertThat(messageGroupStore).isSameAs(tunedJdbcMessageStore);
+    }
+
+    @Test
+    public void compactCompletedGroupsTest() throws InterruptedException {
+        for (int i = 0; i < 5; i++) {
+            tunedJdbcMessageStore.addMessagesToGroup("completed-" + i, messages("completed-" + i, 3));
+            tunedJdbcMessageStore.completeGroup("completed-" + i);
+        }
+        tunedJdbcMessageStore.addMessagesToGroup("open", messages("open", 2));
+        assertThat(tunedJdbcMessageStore.getMessageGroup("open").size()).isEqualTo(2);
+        Thread.sleep(20);
+
+        assertThat(messageStoreMaintenance.compact()).isEqualTo(5);
+
+        MessageStoreStats stats = messageStoreMaintenance.refreshMetrics();
+        assertThat(stats.getCompleteGroups()).isZero();
+        assertThat(stats.getOpenGroups()).isEqualTo(1);
+        assertThat(stats.getMessages()).isEqualTo(2);
+        assertThat(stats.getOldestOpenGroup()).isNotNull();
+        assertThat(tunedJdbcMessageStore.getMessageGroup("completed-0").size()).isZero();
+        assertThat(tunedJdbcMessageStore.getMessageGroup("open").size()).isEqualTo(2);
+    }
+
+    @Test
+    public void expireThroughRegisteredCallbacksTest() {
+        List<Object> expired = new ArrayList<>();
+        tunedJdbcMessageStore.registerMessageGroupExpiryCallback((store, group) -> {
+            expired.add(group.getGroupId());
+            store.removeMessageGroup(group.getGroupId());
+        });
+        tunedJdbcMessageStore.addMessagesToGroup("expiring", messages("expiring", 1));
+
+        assertThat(tunedJdbcMessageStore.expireMessageGroups(0)).isGreaterThanOrEqualTo(1);
+        assertThat(expired).isNotEmpty();
+        MessageGroup group = tunedJdbcMessageStore.getMessageGroup("expiring");
+        assertThat(group.size()).isZero();
+    }
+
+    static Message<?>[] messages(String group,
+                                 int count) {
+        Message<?>[] messages = new Message<?>[count];
+        for (int i = 0; i < count; i++) {
+            messages[i] = MessageBuilder.withPayload(group + "-" + i).build();
+        }
+        return messages;
+    }
+
+    /**
+     * Таблицы JdbcMessageStore из схемы Spring Integration, если стартер их ещё не создал.
+     */
+    static void createSchemaIfMissing(DataSource dataSource) {
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(
+                new ClassPathResource("org/springframework/integration/jdbc/schema-h2.sql"));
+        populator.setContinueOnError(true);
+        populator.execute(dataSource);
+    }
+}
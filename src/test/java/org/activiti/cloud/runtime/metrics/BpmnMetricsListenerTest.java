@@ -0,0 +1,85 @@
+package org.activiti.cloud.runtime.metrics;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest()
+@DirtiesContext
+public class BpmnMetricsListenerTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private TaskRuntime taskRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Measured Project")
+                .build());
+    }
+
+    @Test
+    public void elementTimersTest() {
+        Task task = taskRuntime.tasks(Pageable.of(0, 1),
+                                      TaskPayloadBuilder.tasksForProcess(processInstance).build())
+                .getContent().get(0);
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(task.getId()).build());
+        processRuntime.setVariables(ProcessPayloadBuilder.setVariables(processInstance)
+                .withVariable("creation_name", "My Measured File")
+                .withVariable("creation_type", "file")
+                .build());
+        taskRuntime.complete(TaskPayloadBuilder.complete().withTaskId(task.getId()).build());
+
+        assertThat(timer("runtimebundle.bpmn.task.unclaimed", "Task_0wtw2gj").count()).isGreaterThanOrEqualTo(1);
+        assertThat(timer("runtimebundle.bpmn.task.duration", "Task_0wtw2gj").count()).isGreaterThanOrEqualTo(1);
+        assertThat(timer("runtimebundle.bpmn.call-activity.spawn", "Task_0i1qr2k").count()).isGreaterThanOrEqualTo(1);
+        assertThat(timer("runtimebundle.bpmn.activity.duration", "ExclusiveGateway_1b549hw").count()).isGreaterThanOrEqualTo(1);
+    }
+
+    @Test
+    public void definitionKeyTest() {
+        assertThat(BpmnMetricsListener.definitionKey(PROJECT_MODEL_DEFINITION_KEY + ":1:42")).isEqualTo(PROJECT_MODEL_DEFINITION_KEY);
+        assertThat(BpmnMetricsListener.definitionKey("SomeOtherProcess:3:7")).isNull();
+        assertThat(BpmnMetricsListener.definitionKey(null)).isNull();
+    }
+
+    private Timer timer(String name,
+                        String elementId) {
+        Timer timer = meterRegistry.find(name)
+                .tag("processDefinitionKey", PROJECT_MODEL_DEFINITION_KEY)
+                .tag("elementId", elementId)
+                .timer();
+        assertThat(timer).as(name + " " + elementId).isNotNull();
+        return timer;
+    }
+}
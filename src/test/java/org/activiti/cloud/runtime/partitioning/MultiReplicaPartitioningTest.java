@@ -0,0 +1,195 @@
+package org.activiti.cloud.runtime.partitioning;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.fridujo.rabbitmq.mock.compatibility.MockConnectionFactoryFactory;
+import com.rabbitmq.client.ConnectionFactory;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.cloud.runtime.RuntimeBundleApplication;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.engine.HistoryService;
+import org.activiti.engine.TaskService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.cloud.stream.annotation.EnableBinding;
+import org.springframework.cloud.stream.annotation.Input;
+import org.springframework.cloud.stream.annotation.Output;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.integration.channel.AbstractMessageChannel;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.SubscribableChannel;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Две реплики в одной JVM над общей H2 и общим брокером-заглушкой. Команды отправляются
+ * через привязку myCmdProducer профиля partitioned и принимаются партиционированным
+ * commandConsumer: каждая реплика получает только команды своих деревьев.
+ * Команды в секунду при 1 и 2 репликах меряет MultiReplicaThroughputBenchmark.
+ */
+public class MultiReplicaPartitioningTest {
+
+    private static final int REPLICAS = 2;
+
+    private static final int PROJECTS = 40;
+
+    public interface ReplicaChannels {
+
+        @Output("myCmdProducer")
+        MessageChannel commands();
+
+        @Input("myCmdResults")
+        SubscribableChannel results();
+    }
+
+    @TestConfiguration
+    @EnableBinding(ReplicaChannels.class)
+    static class ReplicaBindings {
+    }
+
+    private final ConnectionFactory broker = MockConnectionFactoryFactory.build();
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final List<ConfigurableApplicationContext> replicas = new ArrayList<>();
+
+    /**
+     * Задачи, команды по которым приняла каждая реплика.
+     */
+    private final List<Set<String>> received = new ArrayList<>();
+
+    @BeforeEach
+    public void startReplicas() {
+        for (int index = 0; index < REPLICAS; index++) {
+            ConfigurableApplicationContext replica = new SpringApplicationBuilder(RuntimeBundleApplication.class,
+                                                                                  ReplicaBindings.class)
+                    .profiles("partitioned")
+                    .initializers(context -> context.getBeanFactory().registerSingleton("sharedBroker", broker))
+                    .properties("server.port=0",
+                                "spring.jmx.enabled=false",
+                                "logging.level.root=WARN",
+                                "ACT_RB_REPLICAS=" + REPLICAS,
+                                "spring.cloud.stream.instanceIndex=" + index)
+                    .run();
+            Set<String> tasks = ConcurrentHashMap.newKeySet();
+            replica.getBean("commandConsumer", AbstractMessageChannel.class).addInterceptor(new ChannelInterceptor() {
+                @Override
+                public Message<?> preSend(Message<?> message,
+                                          MessageChannel channel) {
+                    tasks.add(taskId(message));
+                    return message;
+                }
+            });
+            replicas.add(replica);
+            received.add(tasks);
+        }
+    }
+
+    @AfterEach
+    public void stopReplicas() {
+        Collections.reverse(replicas);
+        replicas.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    public void commandsRoutedByRootProjectTest() throws InterruptedException {
+        ConfigurableApplicationContext first = replicas.get(0);
+        first.getBean(SecurityUtil.class).logInAs("bob");
+        TaskService taskService = first.getBean(TaskService.class);
+        List<String> tasks = new ArrayList<>();
+        for (int i = 0; i < PROJECTS; i++) {
+            tasks.add(task(first, "Partitioned Project " + i));
+        }
+
+        CountDownLatch results = awaitResults(PROJECTS);
+        for (String taskId : tasks) {
+            send(first, MessageBuilder.withPayload(TaskPayloadBuilder.claim()
+                                                           .withTaskId(taskId)
+                                                           .withAssignee("bob")
+                                                           .build()).build());
+        }
+        assertThat(results.await(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(received.get(0)).doesNotContainAnyElementsOf(received.get(1));
+        assertThat(received).allSatisfy(replica -> assertThat(replica).isNotEmpty());
+        assertThat(taskService.createTaskQuery().taskAssignee("bob").count()).isEqualTo(PROJECTS);
+    }
+
+    @Test
+    public void noDuplicateCompletionTest() throws InterruptedException {
+        ConfigurableApplicationContext first = replicas.get(0);
+        first.getBean(SecurityUtil.class).logInAs("bob");
+        String taskId = task(first, "Contended Project");
+
+        CountDownLatch results = awaitResults(REPLICAS);
+        // Повторная отправка одной команды с разных реплик
+        for (ConfigurableApplicationContext replica : replicas) {
+            send(replica, MessageBuilder.withPayload(TaskPayloadBuilder.complete()
+                                                             .withTaskId(taskId)
+                                                             .build()).build());
+        }
+        // Вторая команда отклоняется движком, ответ на неё не приходит
+        results.await(10, TimeUnit.SECONDS);
+
+        assertThat(received.stream().filter(replica -> replica.contains(taskId))).hasSize(1);
+        assertThat(first.getBean(HistoryService.class).createHistoricTaskInstanceQuery()
+                           .taskId(taskId)
+                           .finished()
+                           .count()).isEqualTo(1);
+    }
+
+    private CountDownLatch awaitResults(int count) {
+        CountDownLatch latch = new CountDownLatch(count);
+        replicas.forEach(replica -> replica.getBean(ReplicaChannels.class).results()
+                .subscribe(message -> latch.countDown()));
+        return latch;
+    }
+
+    private static void send(ConfigurableApplicationContext replica,
+                             Message<?> command) {
+        replica.getBean(ReplicaChannels.class).commands().send(command);
+    }
+
+    private String taskId(Message<?> message) {
+        try {
+            Object payload = message.getPayload();
+            return (payload instanceof byte[]
+                    ? objectMapper.readTree((byte[]) payload)
+                    : objectMapper.readTree(payload.toString())).path("taskId").asText();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String task(ConfigurableApplicationContext replica,
+                               String name) {
+        String processInstanceId = replica.getBean(ProcessRuntime.class).start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", name)
+                .build()).getId();
+        return replica.getBean(TaskService.class)
+                .createTaskQuery()
+                .processInstanceId(processInstanceId)
+                .singleResult()
+                .getId();
+    }
+}
@@ -0,0 +1,93 @@
+package org.activiti.cloud.runtime.partitioning;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.query.Pageable;
+import org.activiti.api.task.model.Task;
+import org.activiti.api.task.model.builders.TaskPayloadBuilder;
+import org.activiti.api.task.runtime.TaskRuntime;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "runtimebundle.partitioning.enabled=true")
+@DirtiesContext
+public class RootProjectPartitionKeyExtractorTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private TaskRuntime taskRuntime;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private RootProjectPartitionKeyExtractor extractor;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Partitioned Project")
+                .build());
+    }
+
+    @Test
+    public void childCommandsShareRootKeyTest() {
+        Task task = taskRuntime.tasks(Pageable.of(0, 1),
+                                      TaskPayloadBuilder.tasksForProcess(processInstance).build())
+                .getContent().get(0);
+        taskRuntime.claim(TaskPayloadBuilder.claim().withTaskId(task.getId()).build());
+        processRuntime.setVariables(ProcessPayloadBuilder.setVariables(processInstance)
+                .withVariable("creation_name", "My Partitioned File")
+                .withVariable("creation_type", "file")
+                .build());
+        taskRuntime.complete(TaskPayloadBuilder.complete().withTaskId(task.getId()).build());
+
+        String fileId = runtimeService.createProcessInstanceQuery()
+                .superProcessInstanceId(processInstance.getId())
+                .singleResult()
+                .getId();
+        String fileTaskId = taskService.createTaskQuery().processInstanceId(fileId).singleResult().getId();
+
+        assertThat(extractor.extractKey(MessageBuilder.withPayload("{}")
+                                                .setHeader("processInstanceId", fileId)
+                                                .build()))
+                .isEqualTo(processInstance.getId());
+        assertThat(extractor.extractKey(MessageBuilder.withPayload(("{\"payloadType\":\"CompleteTaskPayload\",\"taskId\":\"" + fileTaskId + "\"}").getBytes())
+                                                .build()))
+                .isEqualTo(processInstance.getId());
+        assertThat(extractor.extractKey(MessageBuilder.withPayload("{\"name\":\"mySignal\"}").build()))
+                .isEqualTo("mySignal");
+    }
+
+    @Test
+    public void instanceIndexFromHostnameTest() {
+        assertThat(InstanceIndexEnvironmentPostProcessor.ordinal("runtimebundle-2")).isEqualTo(2);
+        assertThat(InstanceIndexEnvironmentPostProcessor.ordinal("runtimebundle-7f9c8b6d4-x2lqz")).isNull();
+        assertThat(InstanceIndexEnvironmentPostProcessor.ordinal(null)).isNull();
+    }
+}
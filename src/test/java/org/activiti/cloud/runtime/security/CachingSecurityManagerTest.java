@@ -0,0 +1,77 @@
+package org.activiti.cloud.runtime.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.activiti.api.runtime.shared.identity.UserGroupManager;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.AuthorityUtils;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@DirtiesContext
+public class CachingSecurityManagerTest {
+
+    @Autowired
+    private SecurityManager securityManager;
+
+    @Autowired
+    private UserGroupManager userGroupManager;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    public void cachedGroupsPerPrincipalTest() {
+        assertThat(securityManager).isInstanceOf(CachingSecurityManager.class);
+        double hits = hits(CachingSecurityManager.GROUPS_CACHE_NAME);
+
+        securityUtil.logInAs("bob");
+        assertThat(securityManager.getAuthenticatedUserGroups()).contains("activitiTeam");
+        assertThat(securityManager.getAuthenticatedUserGroups()).contains("activitiTeam");
+        assertThat(securityManager.getAuthenticatedUserRoles()).contains("ACTIVITI_USER");
+
+        // Другой пользователь получает свою запись
+        securityUtil.logInAs("other");
+        assertThat(securityManager.getAuthenticatedUserGroups()).contains("otherTeam").doesNotContain("activitiTeam");
+        assertThat(hits(CachingSecurityManager.GROUPS_CACHE_NAME)).isGreaterThanOrEqualTo(hits + 1);
+    }
+
+    @Test
+    public void cachedUserGroupsTest() {
+        assertThat(userGroupManager).isInstanceOf(CachingUserGroupManager.class);
+        double hits = hits(CachingUserGroupManager.GROUPS_CACHE_NAME);
+
+        assertThat(userGroupManager.getUserGroups("claimer1")).contains("claimTeam");
+        assertThat(userGroupManager.getUserGroups("claimer1")).contains("claimTeam");
+
+        assertThat(hits(CachingUserGroupManager.GROUPS_CACHE_NAME)).isGreaterThanOrEqualTo(hits + 1);
+    }
+
+    @Test
+    public void distinctAuthoritiesTest() {
+        // "Aa" и "BB" дают одинаковый hashCode, наборы полномочий - тоже
+        logInWith("GROUP_Aa");
+        assertThat(securityManager.getAuthenticatedUserGroups()).containsExactly("Aa");
+        logInWith("GROUP_BB");
+        assertThat(securityManager.getAuthenticatedUserGroups()).containsExactly("BB");
+    }
+
+    private static void logInWith(String... authorities) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken("hashed", "password", AuthorityUtils.createAuthorityList(authorities)));
+    }
+
+    private double hits(String cache) {
+        return meterRegistry.get("cache.gets").tag("cache", cache).tag("result", "hit").functionCounter().count();
+    }
+}
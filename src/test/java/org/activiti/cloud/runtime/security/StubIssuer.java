@@ -0,0 +1,121 @@
+package org.activiti.cloud.runtime.security;
+
+import com.sun.net.httpserver.HttpServer;
+import org.keycloak.adapters.KeycloakDeployment;
+import org.keycloak.adapters.KeycloakDeploymentBuilder;
+import org.keycloak.jose.jws.JWSBuilder;
+import org.keycloak.representations.AccessToken;
+import org.keycloak.representations.adapters.config.AdapterConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.interfaces.RSAPublicKey;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Заглушка Keycloak: отдаёт JWKS realm, токены подписываются локальным ключом.
+ */
+public class StubIssuer implements AutoCloseable {
+
+    public static final String REALM = "activiti";
+
+    private final AtomicInteger jwksRequests = new AtomicInteger();
+
+    private final HttpServer server;
+
+    private final String authServerUrl;
+
+    private volatile KeyPair key;
+
+    private volatile String kid;
+
+    public StubIssuer() throws IOException, GeneralSecurityException {
+        rotate();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/auth/realms/" + REALM + "/protocol/openid-connect/certs", exchange -> {
+            jwksRequests.incrementAndGet();
+            byte[] body = jwks().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream output = exchange.getResponseBody()) {
+                output.write(body);
+            }
+        });
+        server.start();
+        authServerUrl = "http://localhost:" + server.getAddress().getPort() + "/auth";
+    }
+
+    /**
+     * Адаптер, проверяющий токены локально по ключам из JWKS.
+     */
+    public KeycloakDeployment deployment() {
+        AdapterConfig config = new AdapterConfig();
+        config.setAuthServerUrl(authServerUrl);
+        config.setRealm(REALM);
+        config.setResource("activiti");
+        config.setPublicClient(true);
+        config.setBearerOnly(true);
+        config.setSslRequired("none");
+        config.setPublicKeyCacheTtl(86400);
+        config.setMinTimeBetweenJwksRequests(0);
+        return KeycloakDeploymentBuilder.build(config);
+    }
+
+    /**
+     * Новый ключ с новым kid.
+     */
+    public void rotate() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        key = generator.generateKeyPair();
+        kid = UUID.randomUUID().toString();
+    }
+
+    public String token(String username) {
+        long now = System.currentTimeMillis() / 1000;
+        AccessToken token = new AccessToken();
+        token.id(UUID.randomUUID().toString());
+        token.issuer(authServerUrl + "/realms/" + REALM);
+        token.subject(UUID.randomUUID().toString());
+        token.type("Bearer");
+        token.issuedAt((int) now);
+        token.expiration((int) (now + 3600));
+        token.setPreferredUsername(username);
+        token.setRealmAccess(new AccessToken.Access().addRole("ACTIVITI_USER"));
+        return new JWSBuilder().kid(kid).type("JWT").jsonContent(token).rsa256(key.getPrivate());
+    }
+
+    public int getJwksRequests() {
+        return jwksRequests.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+
+    private String jwks() {
+        RSAPublicKey publicKey = (RSAPublicKey) key.getPublic();
+        return "{\"keys\":[{\"kid\":\"" + kid + "\",\"kty\":\"RSA\",\"alg\":\"RS256\",\"use\":\"sig\"," +
+                "\"n\":\"" + base64(publicKey.getModulus()) + "\",\"e\":\"" + base64(publicKey.getPublicExponent()) + "\"}]}";
+    }
+
+    private static String base64(BigInteger value) {
+        byte[] bytes = value.toByteArray();
+        // Без знакового нулевого байта, как требует JWK
+        if (bytes.length > 1 && bytes[0] == 0) {
+            byte[] unsigned = new byte[bytes.length - 1];
+            System.arraycopy(bytes, 1, unsigned, 0, unsigned.length);
+            bytes = unsigned;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,46 @@
+package org.activiti.cloud.runtime.security;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.keycloak.adapters.KeycloakDeployment;
+import org.keycloak.adapters.rotation.AdapterTokenVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Адаптер получает ключи realm один раз и дальше проверяет токены локально;
+ * новый kid приводит ровно к одному повторному запросу JWKS.
+ */
+public class TokenVerificationTest {
+
+    private StubIssuer issuer;
+
+    @BeforeEach
+    public void startIssuer() throws Exception {
+        issuer = new StubIssuer();
+    }
+
+    @AfterEach
+    public void stopIssuer() {
+        issuer.close();
+    }
+
+    @Test
+    public void localVerificationTest() throws Exception {
+        KeycloakDeployment deployment = issuer.deployment();
+
+        String token = issuer.token("bob");
+        for (int i = 0; i < 100; i++) {
+            assertThat(AdapterTokenVerifier.verifyToken(token, deployment).getPreferredUsername()).isEqualTo("bob");
+        }
+        assertThat(issuer.getJwksRequests()).isEqualTo(1);
+
+        issuer.rotate();
+        String rotated = issuer.token("bob");
+        for (int i = 0; i < 100; i++) {
+            AdapterTokenVerifier.verifyToken(rotated, deployment);
+        }
+        assertThat(issuer.getJwksRequests()).isEqualTo(2);
+    }
+}
@@ -0,0 +1,142 @@
+package org.activiti.cloud.runtime.signal;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.NotFoundException;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.engine.RepositoryService;
+import org.activiti.engine.RuntimeService;
+import org.activiti.engine.TaskService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = "runtimebundle.signal-fan-out.chunk-size=4")
+@DirtiesContext
+public class SignalFanOutServiceTest {
+
+    static final String SIGNAL_PROCESS =
+            "<definitions xmlns=\"http://www.omg.org/spec/BPMN/20100524/MODEL\" targetNamespace=\"signal-fan-out\">" +
+            "<signal id=\"signal\" name=\"%1$s\"/>" +
+            "<process id=\"%2$s\" isExecutable=\"true\">" +
+            "<startEvent id=\"start\"/>" +
+            "<sequenceFlow id=\"toWait\" sourceRef=\"start\" targetRef=\"wait\"/>" +
+            "<intermediateCatchEvent id=\"wait\"><signalEventDefinition signalRef=\"signal\"/></intermediateCatchEvent>" +
+            "<sequenceFlow id=\"toSignaled\" sourceRef=\"wait\" targetRef=\"signaled\"/>" +
+            "<userTask id=\"signaled\" name=\"Signaled\"/>" +
+            "<sequenceFlow id=\"toEnd\" sourceRef=\"signaled\" targetRef=\"end\"/>" +
+            "<endEvent id=\"end\"/>" +
+            "</process>" +
+            "</definitions>";
+
+    private static final int SUBSCRIBERS = 25;
+
+    @Autowired
+    private RepositoryService repositoryService;
+
+    @Autowired
+    private RuntimeService runtimeService;
+
+    @Autowired
+    private TaskService taskService;
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private SignalFanOutService signalFanOutService;
+
+    @Autowired
+    private SignalFanOutChannels signalFanOutChannels;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String signalName;
+
+    private String processKey;
+
+    private List<String> subscribers;
+
+    @BeforeEach
+    public void deploySubscribers() {
+        securityUtil.logInAs("bob");
+        String suffix = UUID.randomUUID().toString().replace("-", "");
+        signalName = "projectFrozen" + suffix;
+        processKey = "signalFanOut" + suffix;
+        repositoryService.createDeployment()
+                .addString(processKey + ".bpmn20.xml", String.format(SIGNAL_PROCESS, signalName, processKey))
+                .deploy();
+        subscribers = new ArrayList<>();
+        for (int i = 0; i < SUBSCRIBERS; i++) {
+            subscribers.add(runtimeService.startProcessInstanceByKey(processKey).getId());
+        }
+    }
+
+    @Test
+    public void deliverInChunksTest() {
+        SignalFanOutProgress progress = signalFanOutService.fanOut(
+                new SignalFanOutRequest(signalName, Collections.singletonMap("reason", "frozen"), null));
+
+        assertThat(progress.getState()).isEqualTo(SignalFanOutProgress.State.COMPLETED);
+        assertThat(progress.getTotal()).isEqualTo(SUBSCRIBERS);
+        assertThat(progress.getDelivered()).isEqualTo(SUBSCRIBERS);
+        assertThat(progress.getFailed()).isZero();
+        assertThat(progress.getChunks()).isEqualTo((SUBSCRIBERS + 3) / 4);
+        assertThat(taskService.createTaskQuery().processDefinitionKey(processKey).taskName("Signaled").count()).isEqualTo(SUBSCRIBERS);
+        assertThat(runtimeService.createEventSubscriptionQuery().eventName(signalName).count()).isZero();
+        assertThat(runtimeService.getVariable(subscribers.get(0), "reason")).isEqualTo("frozen");
+        assertThat(signalFanOutService.progress(progress.getId())).isSameAs(progress);
+
+        // Повторная рассылка никого не находит
+        assertThat(signalFanOutService.fanOut(new SignalFanOutRequest(signalName, null, null)).getTotal()).isZero();
+    }
+
+    @Test
+    public void deliverFromChannelTest() throws Exception {
+        byte[] payload = objectMapper.writeValueAsBytes(new SignalFanOutRequest(signalName, Collections.emptyMap(), null));
+
+        signalFanOutChannels.signalFanOutConsumer().send(MessageBuilder.withPayload(payload).build());
+
+        assertThat(taskService.createTaskQuery().processDefinitionKey(processKey).taskName("Signaled").count()).isEqualTo(SUBSCRIBERS);
+    }
+
+    @Test
+    public void restrictToProjectTreeTest() {
+        ProcessInstance project = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", "activitiTeam")
+                .withVariable("name", "My Frozen Project")
+                .build());
+
+        SignalFanOutProgress progress = signalFanOutService.fanOut(
+                new SignalFanOutRequest(signalName, Collections.emptyMap(), project.getId()));
+
+        // Подписчики вне дерева проекта не затронуты
+        assertThat(progress.getState()).isEqualTo(SignalFanOutProgress.State.COMPLETED);
+        assertThat(progress.getTotal()).isZero();
+        assertThat(runtimeService.createEventSubscriptionQuery().eventName(signalName).count()).isEqualTo(SUBSCRIBERS);
+
+        securityUtil.logInAs("other");
+        assertThatThrownBy(() -> signalFanOutService.start(new SignalFanOutRequest(signalName, Collections.emptyMap(), project.getId())))
+                .isInstanceOf(NotFoundException.class);
+    }
+}
@@ -0,0 +1,74 @@
+package org.activiti.cloud.runtime.startup;
+
+import org.activiti.engine.RepositoryService;
+import org.activiti.engine.repository.ProcessDefinition;
+import org.activiti.spring.process.ProcessExtensionService;
+import org.activiti.spring.process.model.Extension;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.activiti.check-process-definitions=false",
+        "runtimebundle.startup.hash-deployment=true"
+})
+@DirtiesContext
+public class StartupTest {
+
+    @Autowired
+    private RepositoryService repositoryService;
+
+    @Autowired
+    private ProcessExtensionService processExtensionService;
+
+    @Autowired
+    private HashModelDeployer hashModelDeployer;
+
+    @Autowired
+    private StartupHealthIndicator startupHealthIndicator;
+
+    @Autowired
+    private StartupTimings startupTimings;
+
+    @Test
+    public void hashDeploymentTest() {
+        assertThat(repositoryService.createDeploymentQuery()
+                           .deploymentCategoryLike(HashModelDeployer.CATEGORY_PREFIX + "%")
+                           .count())
+                .isGreaterThanOrEqualTo(1);
+        assertThat(repositoryService.createProcessDefinitionQuery()
+                           .processDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                           .latestVersion()
+                           .singleResult())
+                .isNotNull();
+
+        // Модели не менялись - повторного развёртывания нет
+        assertThat(hashModelDeployer.deploy()).isFalse();
+    }
+
+    @Test
+    public void deployedExtensionsTest() {
+        ProcessDefinition definition = repositoryService.createProcessDefinitionQuery()
+                .processDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .latestVersion()
+                .singleResult();
+
+        assertThat(repositoryService.getDeploymentResourceNames(definition.getDeploymentId()))
+                .contains("project-model-extensions.json");
+        Extension extension = processExtensionService.getExtensionsForId(definition.getId());
+        assertThat(extension).isNotNull();
+        assertThat(extension.getMappings()).containsKey("Task_0i1qr2k");
+    }
+
+    @Test
+    public void readinessAndTimingsTest() {
+        assertThat(startupHealthIndicator.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(startupTimings.getPhases()).containsKeys("context-refresh", "deployment", "warmup");
+        assertThat(startupTimings.getReadyMillis()).isPositive();
+    }
+}
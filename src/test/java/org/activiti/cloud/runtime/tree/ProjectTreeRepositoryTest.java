@@ -0,0 +1,133 @@
+package org.activiti.cloud.runtime.tree;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.activiti.cloud.runtime.bulk.BulkCreationService;
+import org.activiti.cloud.runtime.bulk.CreationEntry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest()
+@DirtiesContext
+public class ProjectTreeRepositoryTest {
+
+    private final Logger logger = LoggerFactory.getLogger(ProjectTreeRepositoryTest.class);
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private SecurityManager securityManager;
+
+    @Autowired
+    private BulkCreationService bulkCreationService;
+
+    @Autowired
+    private ProjectTreeRepository projectTreeRepository;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        String initiator_group = securityManager.getAuthenticatedUserGroups().get(0);
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", initiator_group)
+                .withVariable("name", "My Tree Project")
+                .build());
+
+        // Проект: два файла и подпроект с одним файлом
+        bulkCreationService.create(processInstance.getId(), Arrays.asList(
+                new CreationEntry("File 1", "file"),
+                new CreationEntry("File 2", "file"),
+                new CreationEntry("Subproject 1", "subproject")
+        ));
+        ProjectTreeNode subproject = projectTreeRepository.descendants(processInstance.getId(),
+                                                                        "subproject",
+                                                                        PageRequest.of(0, 1))
+                .getContent().get(0);
+        bulkCreationService.create(subproject.getProcessInstanceId(), Collections.singletonList(
+                new CreationEntry("Nested File", "file")
+        ));
+    }
+
+    @Test
+    public void descendantsTest() {
+        Page<ProjectTreeNode> page = projectTreeRepository.descendants(processInstance.getId(),
+                                                                       null,
+                                                                       PageRequest.of(0, 3));
+        logger.info("> Found descendants: " + page.getContent());
+        assertThat(page.getTotalElements()).isEqualTo(4);
+        assertThat(page.getContent()).hasSize(3);
+
+        // Сначала ближайшие потомки
+        assertThat(page.getContent()).allMatch(node -> node.getDepth() == 1);
+    }
+
+    @Test
+    public void pathToRootTest() {
+        ProjectTreeNode nestedFile = projectTreeRepository.descendants(processInstance.getId(),
+                                                                        null,
+                                                                        PageRequest.of(0, 10))
+                .getContent().stream()
+                .filter(node -> node.getDepth() == 2)
+                .findFirst()
+                .orElseThrow(IllegalStateException::new);
+        assertThat(nestedFile.getName()).isEqualTo("Nested File");
+
+        List<ProjectTreeNode> path = projectTreeRepository.pathToRoot(nestedFile.getProcessInstanceId());
+        assertThat(path).extracting(ProjectTreeNode::getType).containsExactly("project", "subproject", "file");
+        assertThat(path).extracting(ProjectTreeNode::getName).containsExactly("My Tree Project", "Subproject 1", "Nested File");
+    }
+
+    @Test
+    public void countByTypeTest() {
+        Map<String, Long> counts = projectTreeRepository.countByType(processInstance.getId());
+        assertThat(counts.get("file")).isEqualTo(3L);
+        assertThat(counts.get("subproject")).isEqualTo(1L);
+    }
+
+    @Test
+    public void rebuildTest() {
+        Map<String, Long> before = projectTreeRepository.countByType(processInstance.getId());
+        List<ProjectTreeNode> pathBefore = projectTreeRepository.pathToRoot(processInstance.getId());
+
+        projectTreeRepository.rebuild(2);
+
+        assertThat(projectTreeRepository.countByType(processInstance.getId())).isEqualTo(before);
+        assertThat(projectTreeRepository.pathToRoot(processInstance.getId()))
+                .extracting(ProjectTreeNode::getName)
+                .containsExactly("My Tree Project");
+        assertThat(pathBefore).hasSize(1);
+    }
+
+    @Test
+    public void rebuildOncePerVersionTest() {
+        // Индекс этой версии уже перестроен при старте контекста - повторный старт его не трогает
+        assertThat(projectTreeRepository.rebuildIfOutdated(2)).isFalse();
+        assertThat(projectTreeRepository.countByType(processInstance.getId()).get("file")).isEqualTo(3L);
+    }
+}
@@ -0,0 +1,101 @@
+package org.activiti.cloud.runtime.variables;
+
+import org.activiti.api.process.model.ProcessInstance;
+import org.activiti.api.process.model.builders.ProcessPayloadBuilder;
+import org.activiti.api.process.runtime.ProcessRuntime;
+import org.activiti.api.runtime.shared.security.SecurityManager;
+import org.activiti.cloud.runtime.SecurityUtil;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.activiti.cloud.runtime.ModelsContextTest.PROJECT_MODEL_DEFINITION_KEY;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest()
+@DirtiesContext
+public class VariableSnapshotCacheTest {
+
+    @Autowired
+    private ProcessRuntime processRuntime;
+
+    @Autowired
+    private SecurityUtil securityUtil;
+
+    @Autowired
+    private SecurityManager securityManager;
+
+    @Autowired
+    private VariableSnapshotCache variableSnapshotCache;
+
+    @Autowired
+    private VariableSnapshotConfiguration variableSnapshotConfiguration;
+
+    private ProcessInstance processInstance;
+
+    @BeforeEach
+    public void processStart() {
+        securityUtil.logInAs("bob");
+        variableSnapshotCache.invalidateAll();
+        String initiator_group = securityManager.getAuthenticatedUserGroups().get(0);
+        this.processInstance = processRuntime.start(ProcessPayloadBuilder
+                .start()
+                .withProcessDefinitionKey(PROJECT_MODEL_DEFINITION_KEY)
+                .withVariable("initiator_group", initiator_group)
+                .withVariable("name", "My Cached Project")
+                .build());
+    }
+
+    @Test
+    public void snapshotTest() {
+        VariableSnapshot snapshot = variableSnapshotCache.snapshot(processInstance.getId());
+        assertThat(snapshot.get("name")).isEqualTo("My Cached Project");
+        assertThat(snapshot.get("initiator_group")).isEqualTo("activitiTeam");
+        assertThat(snapshot.get("close_project")).isEqualTo(false);
+
+        // Повторное чтение обслуживается из кэша
+        long hits = variableSnapshotCache.getCache().stats().hitCount();
+        assertThat(variableSnapshotCache.snapshot(processInstance.getId())).isSameAs(snapshot);
+        assertThat(variableSnapshotCache.getCache().stats().hitCount()).isEqualTo(hits + 1);
+    }
+
+    @Test
+    public void hitCheckedByRuntimeTest() {
+        variableSnapshotCache.snapshot(processInstance.getId());
+
+        // Снимок уже в кэше, но пользователь без роли ACTIVITI_USER не проходит проверки runtime
+        securityUtil.logInAs("admin");
+        assertThatThrownBy(() -> variableSnapshotCache.snapshot(processInstance.getId()))
+                .isInstanceOf(RuntimeException.class);
+    }
+
+    @Test
+    public void variableUpdateInvalidatesTest() {
+        variableSnapshotCache.snapshot(processInstance.getId());
+
+        processRuntime.setVariables(ProcessPayloadBuilder.setVariables(processInstance)
+                .withVariable("creation_name", "My First File")
+                .build()
+        );
+
+        assertThat(variableSnapshotCache.getCache().getIfPresent(processInstance.getId())).isNull();
+        assertThat(variableSnapshotCache.snapshot(processInstance.getId()).get("creation_name"))
+                .isEqualTo("My First File");
+    }
+
+    @Test
+    public void auditEventInvalidatesTest() {
+        variableSnapshotCache.snapshot(processInstance.getId());
+
+        // Событие другой реплики, пришедшее через engineEvents
+        String events = "[{\"eventType\":\"VARIABLE_UPDATED\",\"processInstanceId\":\"" + processInstance.getId() + "\"}]";
+        variableSnapshotConfiguration.onAuditEvents(events.getBytes(StandardCharsets.UTF_8));
+
+        assertThat(variableSnapshotCache.getCache().getIfPresent(processInstance.getId())).isNull();
+    }
+}